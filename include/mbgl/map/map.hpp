@@ -157,6 +157,7 @@ public:
 
     AnnotationID addPointAnnotation(const PointAnnotation&);
     AnnotationIDs addPointAnnotations(const std::vector<PointAnnotation>&);
+    void updatePointAnnotation(AnnotationID, const PointAnnotation&);
 
     AnnotationID addShapeAnnotation(const ShapeAnnotation&);
     AnnotationIDs addShapeAnnotations(const std::vector<ShapeAnnotation>&);
@@ -175,6 +176,9 @@ public:
                         const char* before = nullptr);
     void removeCustomLayer(const std::string& id);
 
+    // Replaces the data of a GeoJSON source of the current style without reloading the style.
+    void setGeoJSONSourceData(const std::string& sourceID, const std::string& json);
+
     // Memory
     void setSourceTileCacheSize(size_t);
     void onLowMemory();
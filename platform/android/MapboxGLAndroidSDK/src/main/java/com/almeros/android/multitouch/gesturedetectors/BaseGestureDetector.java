@@ -36,8 +36,12 @@ public abstract class BaseGestureDetector {
     protected final Context mContext;
     protected boolean mGestureInProgress;
 
-    protected MotionEvent mPrevEvent;
-    protected MotionEvent mCurrEvent;
+    // Values of the previous accepted event and of the current event
+    protected final TouchState mPrevState = new TouchState();
+    protected final TouchState mCurrState = new TouchState();
+
+    // Used when events are passed in directly
+    private final TouchState mEventState = new TouchState();
 
     protected float mCurrPressure;
     protected float mPrevPressure;
@@ -66,11 +70,23 @@ public abstract class BaseGestureDetector {
      * @return {@code true} as handled
      */
     public boolean onTouchEvent(MotionEvent event) {
-        final int actionCode = event.getAction() & MotionEvent.ACTION_MASK;
+        mEventState.set(event);
+        return onTouchEvent(mEventState);
+    }
+
+    /**
+     * Same as {@link #onTouchEvent(MotionEvent)}, for values already read from
+     * the event. Used to feed several detectors from one pass over the event.
+     *
+     * @param state Values of the MotionEvent
+     * @return {@code true} as handled
+     */
+    public boolean onTouchEvent(TouchState state) {
+        final int actionCode = state.getActionMasked();
         if (!mGestureInProgress) {
-            handleStartProgressEvent(actionCode, event);
+            handleStartProgressEvent(actionCode, state);
         } else {
-            handleInProgressEvent(actionCode, event);
+            handleInProgressEvent(actionCode, state);
         }
         return true;
     }
@@ -81,10 +97,10 @@ public abstract class BaseGestureDetector {
      * (via mGestureInProgress) or out of progress
      *
      * @param actionCode Action Code from MotionEvent
-     * @param event MotionEvent
+     * @param state Values of the MotionEvent
      */
     protected abstract void handleStartProgressEvent(int actionCode,
-            MotionEvent event);
+            TouchState state);
 
     /**
      * Called when the current event occurred when a gesture IS in progress. The
@@ -93,38 +109,33 @@ public abstract class BaseGestureDetector {
      *
      *
      * @param actionCode Action Code from MotionEvent
-     * @param event MotionEvent
+     * @param state Values of the MotionEvent
      */
     protected abstract void handleInProgressEvent(int actionCode,
-            MotionEvent event);
+            TouchState state);
 
-    protected void updateStateByEvent(MotionEvent curr) {
-        final MotionEvent prev = mPrevEvent;
-
-        // Reset mCurrEvent
-        if (mCurrEvent != null) {
-            mCurrEvent.recycle();
-            mCurrEvent = null;
-        }
-        mCurrEvent = MotionEvent.obtain(curr);
+    protected void updateStateByEvent(TouchState curr) {
+        final TouchState prev = mPrevState;
+        mCurrState.set(curr);
 
         // Delta time
         mTimeDelta = curr.getEventTime() - prev.getEventTime();
 
         // Pressure
-        mCurrPressure = curr.getPressure(curr.getActionIndex());
-        mPrevPressure = prev.getPressure(prev.getActionIndex());
+        mCurrPressure = curr.getPressure();
+        mPrevPressure = prev.getPressure();
+    }
+
+    /**
+     * Keeps the values of an event as the previous accepted event.
+     *
+     * @param state Values of the MotionEvent
+     */
+    protected void setPreviousState(TouchState state) {
+        mPrevState.set(state);
     }
 
     protected void resetState() {
-        if (mPrevEvent != null) {
-            mPrevEvent.recycle();
-            mPrevEvent = null;
-        }
-        if (mCurrEvent != null) {
-            mCurrEvent.recycle();
-            mCurrEvent = null;
-        }
         mGestureInProgress = false;
     }
 
@@ -155,7 +166,7 @@ public abstract class BaseGestureDetector {
      * @return Current GestureDetector event time in milliseconds.
      */
     public long getEventTime() {
-        return mCurrEvent.getEventTime();
+        return mCurrState.getEventTime();
     }
 
 }
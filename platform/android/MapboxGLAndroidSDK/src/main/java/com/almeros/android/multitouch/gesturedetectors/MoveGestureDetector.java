@@ -70,12 +70,10 @@ public class MoveGestureDetector extends BaseGestureDetector {
         }
     }
 
-    private static final PointF FOCUS_DELTA_ZERO = new PointF();
-
     private final OnMoveGestureListener mListener;
 
-    private PointF mFocusExternal = new PointF();
-    private PointF mFocusDeltaExternal = new PointF();
+    private final PointF mFocusExternal = new PointF();
+    private final PointF mFocusDeltaExternal = new PointF();
 
     public MoveGestureDetector(Context context, OnMoveGestureListener listener) {
         super(context);
@@ -83,15 +81,15 @@ public class MoveGestureDetector extends BaseGestureDetector {
     }
 
     @Override
-    protected void handleStartProgressEvent(int actionCode, MotionEvent event) {
+    protected void handleStartProgressEvent(int actionCode, TouchState state) {
         switch (actionCode) {
         case MotionEvent.ACTION_DOWN:
             resetState(); // In case we missed an UP/CANCEL event
 
-            mPrevEvent = MotionEvent.obtain(event);
+            setPreviousState(state);
             mTimeDelta = 0;
 
-            updateStateByEvent(event);
+            updateStateByEvent(state);
             break;
 
         case MotionEvent.ACTION_MOVE:
@@ -101,7 +99,7 @@ public class MoveGestureDetector extends BaseGestureDetector {
     }
 
     @Override
-    protected void handleInProgressEvent(int actionCode, MotionEvent event) {
+    protected void handleInProgressEvent(int actionCode, TouchState state) {
         switch (actionCode) {
         case MotionEvent.ACTION_UP:
         case MotionEvent.ACTION_CANCEL:
@@ -110,7 +108,7 @@ public class MoveGestureDetector extends BaseGestureDetector {
             break;
 
         case MotionEvent.ACTION_MOVE:
-            updateStateByEvent(event);
+            updateStateByEvent(state);
 
             // Only accept the event if our relative pressure is within
             // a certain limit. This can help filter shaky data as a
@@ -118,58 +116,35 @@ public class MoveGestureDetector extends BaseGestureDetector {
             if (mCurrPressure / mPrevPressure > PRESSURE_THRESHOLD) {
                 final boolean updatePrevious = mListener.onMove(this);
                 if (updatePrevious) {
-                    mPrevEvent.recycle();
-                    mPrevEvent = MotionEvent.obtain(event);
+                    setPreviousState(state);
                 }
             }
             break;
         }
     }
 
-    protected void updateStateByEvent(MotionEvent curr) {
+    protected void updateStateByEvent(TouchState curr) {
         super.updateStateByEvent(curr);
 
-        final MotionEvent prev = mPrevEvent;
-
-        // Focus intenal
-        PointF mCurrFocusInternal = determineFocalPoint(curr);
-        PointF mPrevFocusInternal = determineFocalPoint(prev);
+        final TouchState prev = mPrevState;
 
         // Focus external
         // - Prevent skipping of focus delta when a finger is added or removed
         boolean mSkipNextMoveEvent = prev.getPointerCount() != curr
                 .getPointerCount();
-        mFocusDeltaExternal = mSkipNextMoveEvent ? FOCUS_DELTA_ZERO
-                : new PointF(mCurrFocusInternal.x - mPrevFocusInternal.x,
-                        mCurrFocusInternal.y - mPrevFocusInternal.y);
+        if (mSkipNextMoveEvent) {
+            mFocusDeltaExternal.set(0.0f, 0.0f);
+        } else {
+            mFocusDeltaExternal.set(curr.getFocusX() - prev.getFocusX(),
+                    curr.getFocusY() - prev.getFocusY());
+        }
 
-        // - Don't directly use mFocusInternal (or skipping will occur). Add
+        // - Don't directly use the internal focus (or skipping will occur). Add
         // unskipped delta values to mFocusExternal instead.
         mFocusExternal.x += mFocusDeltaExternal.x;
         mFocusExternal.y += mFocusDeltaExternal.y;
     }
 
-    /**
-     * Determine (multi)finger focal point (a.k.a. center point between all
-     * fingers)
-     * 
-     * @param e
-     * @return PointF focal point
-     */
-    private PointF determineFocalPoint(MotionEvent e) {
-        // Number of fingers on screen
-        final int pCount = e.getPointerCount();
-        float x = 0.0f;
-        float y = 0.0f;
-
-        for (int i = 0; i < pCount; i++) {
-            x += e.getX(i);
-            y += e.getY(i);
-        }
-
-        return new PointF(x / pCount, y / pCount);
-    }
-
     public float getFocusX() {
         return mFocusExternal.x;
     }
@@ -79,19 +79,19 @@ public class RotateGestureDetector extends TwoFingerGestureDetector {
     }
 
     @Override
-    protected void handleStartProgressEvent(int actionCode, MotionEvent event) {
+    protected void handleStartProgressEvent(int actionCode, TouchState state) {
         switch (actionCode) {
         case MotionEvent.ACTION_POINTER_DOWN:
             // At least the second finger is on screen now
 
             resetState(); // In case we missed an UP/CANCEL event
-            mPrevEvent = MotionEvent.obtain(event);
+            setPreviousState(state);
             mTimeDelta = 0;
 
-            updateStateByEvent(event);
+            updateStateByEvent(state);
 
             // See if we have a sloppy gesture
-            mSloppyGesture = isSloppyGesture(event);
+            mSloppyGesture = isSloppyGesture(state);
             if (!mSloppyGesture) {
                 // No, start gesture now
                 mGestureInProgress = mListener.onRotateBegin(this);
@@ -104,7 +104,7 @@ public class RotateGestureDetector extends TwoFingerGestureDetector {
             }
 
             // See if we still have a sloppy gesture
-            mSloppyGesture = isSloppyGesture(event);
+            mSloppyGesture = isSloppyGesture(state);
             if (!mSloppyGesture) {
                 // No, start normal gesture now
                 mGestureInProgress = mListener.onRotateBegin(this);
@@ -122,11 +122,11 @@ public class RotateGestureDetector extends TwoFingerGestureDetector {
     }
 
     @Override
-    protected void handleInProgressEvent(int actionCode, MotionEvent event) {
+    protected void handleInProgressEvent(int actionCode, TouchState state) {
         switch (actionCode) {
         case MotionEvent.ACTION_POINTER_UP:
             // Gesture ended but
-            updateStateByEvent(event);
+            updateStateByEvent(state);
 
             if (!mSloppyGesture) {
                 mListener.onRotateEnd(this);
@@ -144,7 +144,7 @@ public class RotateGestureDetector extends TwoFingerGestureDetector {
             break;
 
         case MotionEvent.ACTION_MOVE:
-            updateStateByEvent(event);
+            updateStateByEvent(state);
 
             // Only accept the event if our relative pressure is within
             // a certain limit. This can help filter shaky data as a
@@ -152,8 +152,7 @@ public class RotateGestureDetector extends TwoFingerGestureDetector {
             if (mCurrPressure / mPrevPressure > PRESSURE_THRESHOLD) {
                 final boolean updatePrevious = mListener.onRotate(this);
                 if (updatePrevious) {
-                    mPrevEvent.recycle();
-                    mPrevEvent = MotionEvent.obtain(event);
+                    setPreviousState(state);
                 }
             }
             break;
@@ -82,19 +82,19 @@ public class ShoveGestureDetector extends TwoFingerGestureDetector {
     }
 
     @Override
-    protected void handleStartProgressEvent(int actionCode, MotionEvent event) {
+    protected void handleStartProgressEvent(int actionCode, TouchState state) {
         switch (actionCode) {
         case MotionEvent.ACTION_POINTER_DOWN:
             // At least the second finger is on screen now
 
             resetState(); // In case we missed an UP/CANCEL event
-            mPrevEvent = MotionEvent.obtain(event);
+            setPreviousState(state);
             mTimeDelta = 0;
 
-            updateStateByEvent(event);
+            updateStateByEvent(state);
 
             // See if we have a sloppy gesture
-            mSloppyGesture = isSloppyGesture(event);
+            mSloppyGesture = isSloppyGesture(state);
             if (!mSloppyGesture) {
                 // No, start gesture now
                 mGestureInProgress = mListener.onShoveBegin(this);
@@ -107,7 +107,7 @@ public class ShoveGestureDetector extends TwoFingerGestureDetector {
             }
 
             // See if we still have a sloppy gesture
-            mSloppyGesture = isSloppyGesture(event);
+            mSloppyGesture = isSloppyGesture(state);
             if (!mSloppyGesture) {
                 // No, start normal gesture now
                 mGestureInProgress = mListener.onShoveBegin(this);
@@ -125,11 +125,11 @@ public class ShoveGestureDetector extends TwoFingerGestureDetector {
     }
 
     @Override
-    protected void handleInProgressEvent(int actionCode, MotionEvent event) {
+    protected void handleInProgressEvent(int actionCode, TouchState state) {
         switch (actionCode) {
         case MotionEvent.ACTION_POINTER_UP:
             // Gesture ended but
-            updateStateByEvent(event);
+            updateStateByEvent(state);
 
             if (!mSloppyGesture) {
                 mListener.onShoveEnd(this);
@@ -147,7 +147,7 @@ public class ShoveGestureDetector extends TwoFingerGestureDetector {
             break;
 
         case MotionEvent.ACTION_MOVE:
-            updateStateByEvent(event);
+            updateStateByEvent(state);
 
             // Only accept the event if our relative pressure is within
             // a certain limit. This can help filter shaky data as a
@@ -156,8 +156,7 @@ public class ShoveGestureDetector extends TwoFingerGestureDetector {
                     && Math.abs(getShovePixelsDelta()) > 0.5f) {
                 final boolean updatePrevious = mListener.onShove(this);
                 if (updatePrevious) {
-                    mPrevEvent.recycle();
-                    mPrevEvent = MotionEvent.obtain(event);
+                    setPreviousState(state);
                 }
             }
             break;
@@ -173,10 +172,10 @@ public class ShoveGestureDetector extends TwoFingerGestureDetector {
     }
 
     @Override
-    protected void updateStateByEvent(MotionEvent curr) {
+    protected void updateStateByEvent(TouchState curr) {
         super.updateStateByEvent(curr);
 
-        final MotionEvent prev = mPrevEvent;
+        final TouchState prev = mPrevState;
         float py0 = prev.getY(0);
         float py1 = prev.getY(1);
         mPrevAverageY = (py0 + py1) / 2.0f;
@@ -187,8 +186,8 @@ public class ShoveGestureDetector extends TwoFingerGestureDetector {
     }
 
     @Override
-    protected boolean isSloppyGesture(MotionEvent event) {
-        boolean sloppy = super.isSloppyGesture(event);
+    protected boolean isSloppyGesture(TouchState state) {
+        boolean sloppy = super.isSloppyGesture(state);
         if (sloppy)
             return true;
 
@@ -0,0 +1,174 @@
+package com.almeros.android.multitouch.gesturedetectors;
+
+import android.view.MotionEvent;
+
+/**
+ * The pointer values of a MotionEvent that the gesture detectors use, read from the event in a
+ * single pass. Instances are reused from event to event, so no MotionEvent copies are kept.
+ */
+public final class TouchState {
+
+    private int mActionMasked;
+    private long mEventTime;
+    private float mPressure;
+    private int mPointerCount;
+
+    // The first two pointers
+    private float mX0;
+    private float mY0;
+    private float mX1;
+    private float mY1;
+    private float mRawX0;
+    private float mRawY0;
+    private float mRawX1;
+    private float mRawY1;
+
+    // Center point between all pointers
+    private float mFocusX;
+    private float mFocusY;
+
+    /**
+     * Reads the values of an event.
+     *
+     * @param event Motion Event
+     */
+    public void set(MotionEvent event) {
+        mActionMasked = event.getActionMasked();
+        mEventTime = event.getEventTime();
+        mPressure = event.getPressure(event.getActionIndex());
+        mPointerCount = event.getPointerCount();
+
+        float sumX = 0.0f;
+        float sumY = 0.0f;
+        for (int i = 0; i < mPointerCount; i++) {
+            float x = event.getX(i);
+            float y = event.getY(i);
+            sumX += x;
+            sumY += y;
+            if (i == 0) {
+                mX0 = x;
+                mY0 = y;
+            } else if (i == 1) {
+                mX1 = x;
+                mY1 = y;
+            }
+        }
+        mFocusX = sumX / mPointerCount;
+        mFocusY = sumY / mPointerCount;
+
+        // MotionEvent only has raw values for the first pointer, the offset is the same for all
+        mRawX0 = event.getRawX();
+        mRawY0 = event.getRawY();
+        if (mPointerCount > 1) {
+            mRawX1 = mX1 + mRawX0 - mX0;
+            mRawY1 = mY1 + mRawY0 - mY0;
+        } else {
+            mX1 = 0.0f;
+            mY1 = 0.0f;
+            mRawX1 = 0.0f;
+            mRawY1 = 0.0f;
+        }
+    }
+
+    /**
+     * Copies the values of another state.
+     *
+     * @param state State to copy
+     */
+    public void set(TouchState state) {
+        mActionMasked = state.mActionMasked;
+        mEventTime = state.mEventTime;
+        mPressure = state.mPressure;
+        mPointerCount = state.mPointerCount;
+        mX0 = state.mX0;
+        mY0 = state.mY0;
+        mX1 = state.mX1;
+        mY1 = state.mY1;
+        mRawX0 = state.mRawX0;
+        mRawY0 = state.mRawY0;
+        mRawX1 = state.mRawX1;
+        mRawY1 = state.mRawY1;
+        mFocusX = state.mFocusX;
+        mFocusY = state.mFocusY;
+    }
+
+    public int getActionMasked() {
+        return mActionMasked;
+    }
+
+    public long getEventTime() {
+        return mEventTime;
+    }
+
+    /**
+     * Return the pressure of the pointer the action is for.
+     *
+     * @return Pressure
+     */
+    public float getPressure() {
+        return mPressure;
+    }
+
+    public int getPointerCount() {
+        return mPointerCount;
+    }
+
+    /**
+     * Return the x position of the first or second pointer.
+     *
+     * @param pointerIndex 0 or 1
+     * @return X position, or 0 if there is no such pointer
+     */
+    public float getX(int pointerIndex) {
+        return pointerIndex == 0 ? mX0 : mX1;
+    }
+
+    /**
+     * Return the y position of the first or second pointer.
+     *
+     * @param pointerIndex 0 or 1
+     * @return Y position, or 0 if there is no such pointer
+     */
+    public float getY(int pointerIndex) {
+        return pointerIndex == 0 ? mY0 : mY1;
+    }
+
+    /**
+     * Return the x position on the screen of the first or second pointer.
+     *
+     * @param pointerIndex 0 or 1
+     * @return Raw x position, or 0 if there is no such pointer
+     */
+    public float getRawX(int pointerIndex) {
+        return pointerIndex == 0 ? mRawX0 : mRawX1;
+    }
+
+    /**
+     * Return the y position on the screen of the first or second pointer.
+     *
+     * @param pointerIndex 0 or 1
+     * @return Raw y position, or 0 if there is no such pointer
+     */
+    public float getRawY(int pointerIndex) {
+        return pointerIndex == 0 ? mRawY0 : mRawY1;
+    }
+
+    /**
+     * Return the x position of the (multi)finger focal point (a.k.a. center point between all
+     * fingers).
+     *
+     * @return Focal point x
+     */
+    public float getFocusX() {
+        return mFocusX;
+    }
+
+    /**
+     * Return the y position of the (multi)finger focal point.
+     *
+     * @return Focal point y
+     */
+    public float getFocusY() {
+        return mFocusY;
+    }
+}
@@ -47,7 +47,6 @@ public abstract class TwoFingerGestureDetector extends BaseGestureDetector {
     private float mCurrLen;
     private float mPrevLen;
 
-    private PointF mFocus;
 
     public TwoFingerGestureDetector(Context context) {
         super(context);
@@ -58,16 +57,16 @@ public abstract class TwoFingerGestureDetector extends BaseGestureDetector {
 
     @Override
     protected abstract void handleStartProgressEvent(int actionCode,
-            MotionEvent event);
+            TouchState state);
 
     @Override
     protected abstract void handleInProgressEvent(int actionCode,
-            MotionEvent event);
+            TouchState state);
 
-    protected void updateStateByEvent(MotionEvent curr) {
+    protected void updateStateByEvent(TouchState curr) {
         super.updateStateByEvent(curr);
 
-        final MotionEvent prev = mPrevEvent;
+        final TouchState prev = mPrevState;
 
         mCurrLen = -1;
         mPrevLen = -1;
@@ -91,7 +90,6 @@ public abstract class TwoFingerGestureDetector extends BaseGestureDetector {
         final float cvy = cy1 - cy0;
         mCurrFingerDiffX = cvx;
         mCurrFingerDiffY = cvy;
-        mFocus = determineFocalPoint(curr);
     }
 
     /**
@@ -124,46 +122,14 @@ public abstract class TwoFingerGestureDetector extends BaseGestureDetector {
         return mPrevLen;
     }
 
-    /**
-     * MotionEvent has no getRawX(int) method; simulate it pending future API
-     * approval.
-     *
-     * @param event Motion Event
-     * @param pointerIndex Pointer Index
-     * @return Raw x value or 0
-     */
-    protected static float getRawX(MotionEvent event, int pointerIndex) {
-        float offset = event.getX() - event.getRawX();
-        if (pointerIndex < event.getPointerCount()) {
-            return event.getX(pointerIndex) + offset;
-        }
-        return 0.0f;
-    }
-
-    /**
-     * MotionEvent has no getRawY(int) method; simulate it pending future API
-     * approval.
-     *
-     * @param event Motion Event
-     * @param pointerIndex Pointer Index
-     * @return Raw y value or 0
-     */
-    protected static float getRawY(MotionEvent event, int pointerIndex) {
-        float offset = event.getY() - event.getRawY();
-        if (pointerIndex < event.getPointerCount()) {
-            return event.getY(pointerIndex) + offset;
-        }
-        return 0.0f;
-    }
-
     /**
      * Check if we have a sloppy gesture. Sloppy gestures can happen if the edge
      * of the user's hand is touching the screen, for example.
      *
-     * @param event Motion Event
+     * @param state Values of the MotionEvent
      * @return {@code true} if is sloppy gesture, {@code false} if not
      */
-    protected boolean isSloppyGesture(MotionEvent event) {
+    protected boolean isSloppyGesture(TouchState state) {
         // As orientation can change, query the metrics in touch down
         DisplayMetrics metrics = mContext.getResources().getDisplayMetrics();
         float mRightSlopEdge = metrics.widthPixels - mEdgeSlop;
@@ -171,10 +137,10 @@ public abstract class TwoFingerGestureDetector extends BaseGestureDetector {
 
         final float edgeSlop = mEdgeSlop;
 
-        final float x0 = event.getRawX();
-        final float y0 = event.getRawY();
-        final float x1 = getRawX(event, 1);
-        final float y1 = getRawY(event, 1);
+        final float x0 = state.getRawX(0);
+        final float y0 = state.getRawY(0);
+        final float x1 = state.getRawX(1);
+        final float y1 = state.getRawY(1);
 
         boolean p0sloppy = x0 < edgeSlop || y0 < edgeSlop || x0 > mRightSlopEdge
                 || y0 > mBottomSlopEdge;
@@ -196,9 +162,9 @@ public abstract class TwoFingerGestureDetector extends BaseGestureDetector {
      * fingers)
      *
      * @param e Motion Event
-     * @return PointF focal point
+     * @param focus PointF that receives the focal point
      */
-    public static PointF determineFocalPoint(MotionEvent e) {
+    public static void determineFocalPoint(MotionEvent e, PointF focus) {
         // Number of fingers on screen
         final int pCount = e.getPointerCount();
         float x = 0.0f;
@@ -209,15 +175,15 @@ public abstract class TwoFingerGestureDetector extends BaseGestureDetector {
             y += e.getY(i);
         }
 
-        return new PointF(x / pCount, y / pCount);
+        focus.set(x / pCount, y / pCount);
     }
 
     public float getFocusX() {
-        return mFocus.x;
+        return mCurrState.getFocusX();
     }
 
     public float getFocusY() {
-        return mFocus.y;
+        return mCurrState.getFocusY();
     }
 
 }
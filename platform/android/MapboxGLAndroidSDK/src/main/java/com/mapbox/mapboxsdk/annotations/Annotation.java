@@ -1,6 +1,7 @@
 package com.mapbox.mapboxsdk.annotations;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.mapbox.mapboxsdk.views.MapView;
 
@@ -21,6 +22,9 @@ public abstract class Annotation implements Comparable<Annotation> {
     private long id = -1; // -1 unless added to a MapView
     private MapView mapView;
 
+    // Set for annotations managed by the SDK, such as the polylines of a Trail
+    private Object owner;
+
     protected Annotation() {
     }
 
@@ -56,6 +60,23 @@ public abstract class Annotation implements Comparable<Annotation> {
         this.mapView = mapView;
     }
 
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    public void setOwner(@Nullable Object owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @return The object managing this annotation, or null if it was added by the app
+     */
+    @Nullable
+    public Object getOwner() {
+        return owner;
+    }
+
     protected MapView getMapView() {
         if (mapView == null) {
             return null;
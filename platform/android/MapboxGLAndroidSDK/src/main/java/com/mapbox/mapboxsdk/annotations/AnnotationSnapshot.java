@@ -0,0 +1,561 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.UiThread;
+import android.util.Log;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.views.MapView;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>
+ * A compact binary copy of the markers, polylines and polygons of a map, used to restore them
+ * after the map is recreated.
+ * </p>
+ * <p>
+ * Coordinates are stored as packed arrays, icons once each and titles and snippets in a string
+ * table. Snapshots are read through a memory mapped file and added back with one call per kind of
+ * annotation. Annotations come back as plain markers, polylines and polygons.
+ * </p>
+ *
+ * @see MapView#setSaveAnnotationsEnabled(boolean)
+ */
+public final class AnnotationSnapshot {
+
+    private static final String TAG = "AnnotationSnapshot";
+
+    private static final int MAGIC = 0x4d424153; // MBAS
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Shared by all snapshots, so a snapshot is written before it is read back
+    private static Executor sExecutor;
+    private static Handler sMainHandler;
+
+    // String and icon tables, indexed from the annotations, -1 for none
+    private final List<String> mStrings = new ArrayList<>();
+    private final List<Icon> mIcons = new ArrayList<>();
+    private final List<Integer> mIconIds = new ArrayList<>();
+
+    // Markers
+    private int mMarkerCount;
+    private double[] mMarkerCoordinates;
+    private int[] mMarkerIcons;
+    private int[] mMarkerTitles;
+    private int[] mMarkerSnippets;
+
+    // Polylines and polygons, with their points packed one shape after the other
+    private final Shapes mPolylines = new Shapes();
+    private final Shapes mPolygons = new Shapes();
+
+    private static final class Shapes {
+        private int count;
+        private int[] pointCounts;
+        private int[] colors;
+        private int[] secondaryColors;
+        private float[] widths;
+        private float[] alphas;
+        private double[] coordinates;
+
+        private void allocate(int shapeCount, int pointCount) {
+            count = shapeCount;
+            pointCounts = new int[shapeCount];
+            colors = new int[shapeCount];
+            secondaryColors = new int[shapeCount];
+            widths = new float[shapeCount];
+            alphas = new float[shapeCount];
+            coordinates = new double[2 * pointCount];
+        }
+
+        private int getSize() {
+            return 8 + 20 * count + 8 * coordinates.length;
+        }
+
+        private void write(ByteBuffer buffer) {
+            buffer.putInt(count);
+            buffer.putInt(coordinates.length / 2);
+            buffer.asIntBuffer().put(pointCounts);
+            buffer.position(buffer.position() + 4 * count);
+            buffer.asIntBuffer().put(colors);
+            buffer.position(buffer.position() + 4 * count);
+            buffer.asIntBuffer().put(secondaryColors);
+            buffer.position(buffer.position() + 4 * count);
+            buffer.asFloatBuffer().put(widths);
+            buffer.position(buffer.position() + 4 * count);
+            buffer.asFloatBuffer().put(alphas);
+            buffer.position(buffer.position() + 4 * count);
+            buffer.asDoubleBuffer().put(coordinates);
+            buffer.position(buffer.position() + 8 * coordinates.length);
+        }
+
+        private void read(ByteBuffer buffer) {
+            allocate(buffer.getInt(), buffer.getInt());
+            buffer.asIntBuffer().get(pointCounts);
+            buffer.position(buffer.position() + 4 * count);
+            buffer.asIntBuffer().get(colors);
+            buffer.position(buffer.position() + 4 * count);
+            buffer.asIntBuffer().get(secondaryColors);
+            buffer.position(buffer.position() + 4 * count);
+            buffer.asFloatBuffer().get(widths);
+            buffer.position(buffer.position() + 4 * count);
+            buffer.asFloatBuffer().get(alphas);
+            buffer.position(buffer.position() + 4 * count);
+            buffer.asDoubleBuffer().get(coordinates);
+            buffer.position(buffer.position() + 8 * coordinates.length);
+        }
+    }
+
+    private AnnotationSnapshot() {
+    }
+
+    /**
+     * Copies the markers, polylines and polygons of a list of annotations.
+     *
+     * @param annotations The annotations, other kinds and annotations managed by the SDK, such as
+     *                    the polylines of a {@link Trail}, are skipped
+     * @return The snapshot
+     */
+    @NonNull
+    public static AnnotationSnapshot capture(@NonNull List<Annotation> annotations) {
+        AnnotationSnapshot snapshot = new AnnotationSnapshot();
+        Map<String, Integer> strings = new HashMap<>();
+        Map<Icon, Integer> icons = new HashMap<>();
+
+        List<Marker> markers = new ArrayList<>();
+        List<Polyline> polylines = new ArrayList<>();
+        List<Polygon> polygons = new ArrayList<>();
+        int polylinePoints = 0;
+        int polygonPoints = 0;
+        for (Annotation annotation : annotations) {
+            if (annotation.getOwner() != null) {
+                // recreated by their owner, which the app recreates itself
+                continue;
+            }
+            if (annotation instanceof Marker) {
+                markers.add((Marker) annotation);
+            } else if (annotation instanceof Polyline) {
+                polylines.add((Polyline) annotation);
+                polylinePoints += ((Polyline) annotation).getPoints().size();
+            } else if (annotation instanceof Polygon) {
+                polygons.add((Polygon) annotation);
+                polygonPoints += ((Polygon) annotation).getPoints().size();
+            }
+        }
+
+        int count = markers.size();
+        snapshot.mMarkerCount = count;
+        snapshot.mMarkerCoordinates = new double[2 * count];
+        snapshot.mMarkerIcons = new int[count];
+        snapshot.mMarkerTitles = new int[count];
+        snapshot.mMarkerSnippets = new int[count];
+        for (int i = 0; i < count; i++) {
+            Marker marker = markers.get(i);
+            snapshot.mMarkerCoordinates[2 * i] = marker.getPosition().getLatitude();
+            snapshot.mMarkerCoordinates[2 * i + 1] = marker.getPosition().getLongitude();
+            snapshot.mMarkerIcons[i] = snapshot.intern(icons, snapshot.mIcons, marker.getIcon());
+            snapshot.mMarkerTitles[i] = snapshot.intern(strings, snapshot.mStrings, marker.getTitle());
+            snapshot.mMarkerSnippets[i] = snapshot.intern(strings, snapshot.mStrings, marker.getSnippet());
+        }
+        for (Icon icon : snapshot.mIcons) {
+            snapshot.mIconIds.add(snapshot.intern(strings, snapshot.mStrings, icon.getId()));
+        }
+
+        Shapes shapes = snapshot.mPolylines;
+        shapes.allocate(polylines.size(), polylinePoints);
+        int point = 0;
+        for (int i = 0; i < shapes.count; i++) {
+            Polyline polyline = polylines.get(i);
+            shapes.colors[i] = polyline.getColor();
+            shapes.widths[i] = polyline.getWidth();
+            shapes.alphas[i] = polyline.getAlpha();
+            point = copyPoints(polyline, shapes, i, point);
+        }
+
+        shapes = snapshot.mPolygons;
+        shapes.allocate(polygons.size(), polygonPoints);
+        point = 0;
+        for (int i = 0; i < shapes.count; i++) {
+            Polygon polygon = polygons.get(i);
+            shapes.colors[i] = polygon.getFillColor();
+            shapes.secondaryColors[i] = polygon.getStrokeColor();
+            shapes.alphas[i] = polygon.getAlpha();
+            point = copyPoints(polygon, shapes, i, point);
+        }
+        return snapshot;
+    }
+
+    private static int copyPoints(MultiPoint shape, Shapes shapes, int index, int point) {
+        List<LatLng> points = shape.getPoints();
+        shapes.pointCounts[index] = points.size();
+        for (LatLng latLng : points) {
+            shapes.coordinates[2 * point] = latLng.getLatitude();
+            shapes.coordinates[2 * point + 1] = latLng.getLongitude();
+            point++;
+        }
+        return point;
+    }
+
+    private <T> int intern(Map<T, Integer> indices, List<T> table, T value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer index = indices.get(value);
+        if (index == null) {
+            index = table.size();
+            indices.put(value, index);
+            table.add(value);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of markers in the snapshot.
+     *
+     * @return the marker count
+     */
+    public int getMarkerCount() {
+        return mMarkerCount;
+    }
+
+    /**
+     * Returns the number of polylines in the snapshot.
+     *
+     * @return the polyline count
+     */
+    public int getPolylineCount() {
+        return mPolylines.count;
+    }
+
+    /**
+     * Returns the number of polygons in the snapshot.
+     *
+     * @return the polygon count
+     */
+    public int getPolygonCount() {
+        return mPolygons.count;
+    }
+
+    /**
+     * Writes the snapshot to a file, replacing it.
+     *
+     * @param file The file to write
+     * @throws IOException If the file can't be written
+     */
+    public void write(@NonNull File file) throws IOException {
+        // Encode the variable length tables first to size the buffer
+        List<byte[]> strings = new ArrayList<>(mStrings.size());
+        for (String string : mStrings) {
+            strings.add(string.getBytes(UTF_8));
+        }
+        List<byte[]> icons = new ArrayList<>(mIcons.size());
+        for (Icon icon : mIcons) {
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            icon.getBitmap().compress(Bitmap.CompressFormat.PNG, 100, png);
+            icons.add(png.toByteArray());
+        }
+
+        int size = 16;
+        for (byte[] string : strings) {
+            size += 4 + string.length;
+        }
+        for (byte[] icon : icons) {
+            size += 12 + icon.length;
+        }
+        size += 4 + 8 * mMarkerCoordinates.length + 12 * mMarkerCount;
+        size += mPolylines.getSize() + mPolygons.getSize();
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+
+        buffer.putInt(strings.size());
+        for (byte[] string : strings) {
+            buffer.putInt(string.length);
+            buffer.put(string);
+        }
+
+        buffer.putInt(icons.size());
+        for (int i = 0; i < icons.size(); i++) {
+            Icon icon = mIcons.get(i);
+            buffer.putInt(mIconIds.get(i));
+            buffer.putInt(icon.getBitmap().getDensity());
+            buffer.putInt(icons.get(i).length);
+            buffer.put(icons.get(i));
+        }
+
+        buffer.putInt(mMarkerCount);
+        buffer.asDoubleBuffer().put(mMarkerCoordinates);
+        buffer.position(buffer.position() + 8 * mMarkerCoordinates.length);
+        buffer.asIntBuffer().put(mMarkerIcons);
+        buffer.position(buffer.position() + 4 * mMarkerCount);
+        buffer.asIntBuffer().put(mMarkerTitles);
+        buffer.position(buffer.position() + 4 * mMarkerCount);
+        buffer.asIntBuffer().put(mMarkerSnippets);
+        buffer.position(buffer.position() + 4 * mMarkerCount);
+
+        mPolylines.write(buffer);
+        mPolygons.write(buffer);
+        buffer.flip();
+
+        FileOutputStream stream = new FileOutputStream(file);
+        try {
+            FileChannel channel = stream.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write(File)}.
+     *
+     * @param file The file to read
+     * @return The snapshot
+     * @throws IOException If the file can't be read or isn't a snapshot
+     */
+    @NonNull
+    public static AnnotationSnapshot read(@NonNull File file) throws IOException {
+        FileInputStream stream = new FileInputStream(file);
+        try {
+            FileChannel channel = stream.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not an annotation snapshot: " + file);
+            }
+            return read(buffer);
+        } catch (RuntimeException exception) {
+            // truncated or corrupt files
+            throw new IOException("Invalid annotation snapshot: " + file, exception);
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static AnnotationSnapshot read(ByteBuffer buffer) {
+        AnnotationSnapshot snapshot = new AnnotationSnapshot();
+
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] string = new byte[buffer.getInt()];
+            buffer.get(string);
+            snapshot.mStrings.add(new String(string, UTF_8));
+        }
+
+        count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            int idIndex = buffer.getInt();
+            String id = snapshot.mStrings.get(idIndex);
+            int density = buffer.getInt();
+            byte[] png = new byte[buffer.getInt()];
+            buffer.get(png);
+            Bitmap bitmap = BitmapFactory.decodeByteArray(png, 0, png.length);
+            if (bitmap == null) {
+                throw new IllegalStateException("Icon " + id + " couldn't be decoded");
+            }
+            bitmap.setDensity(density);
+            snapshot.mIcons.add(new Icon(id, bitmap));
+            snapshot.mIconIds.add(idIndex);
+        }
+
+        count = buffer.getInt();
+        snapshot.mMarkerCount = count;
+        snapshot.mMarkerCoordinates = new double[2 * count];
+        snapshot.mMarkerIcons = new int[count];
+        snapshot.mMarkerTitles = new int[count];
+        snapshot.mMarkerSnippets = new int[count];
+        buffer.asDoubleBuffer().get(snapshot.mMarkerCoordinates);
+        buffer.position(buffer.position() + 16 * count);
+        buffer.asIntBuffer().get(snapshot.mMarkerIcons);
+        buffer.position(buffer.position() + 4 * count);
+        buffer.asIntBuffer().get(snapshot.mMarkerTitles);
+        buffer.position(buffer.position() + 4 * count);
+        buffer.asIntBuffer().get(snapshot.mMarkerSnippets);
+        buffer.position(buffer.position() + 4 * count);
+
+        snapshot.mPolylines.read(buffer);
+        snapshot.mPolygons.read(buffer);
+        return snapshot;
+    }
+
+    /**
+     * Adds the annotations of the snapshot to a map.
+     *
+     * @param mapView The map to add the annotations to
+     */
+    @UiThread
+    public void restore(@NonNull MapView mapView) {
+        List<MarkerOptions> markers = getMarkerOptions();
+        if (!markers.isEmpty()) {
+            mapView.addMarkers(markers);
+        }
+
+        List<PolylineOptions> polylines = getPolylineOptions();
+        if (!polylines.isEmpty()) {
+            mapView.addPolylines(polylines);
+        }
+
+        List<PolygonOptions> polygons = getPolygonOptions();
+        if (!polygons.isEmpty()) {
+            mapView.addPolygons(polygons);
+        }
+    }
+
+    List<MarkerOptions> getMarkerOptions() {
+        List<MarkerOptions> markers = new ArrayList<>(mMarkerCount);
+        for (int i = 0; i < mMarkerCount; i++) {
+            markers.add(new MarkerOptions()
+                    .position(new LatLng(mMarkerCoordinates[2 * i], mMarkerCoordinates[2 * i + 1]))
+                    .icon(mMarkerIcons[i] == -1 ? null : mIcons.get(mMarkerIcons[i]))
+                    .title(getString(mMarkerTitles[i]))
+                    .snippet(getString(mMarkerSnippets[i])));
+        }
+        return markers;
+    }
+
+    List<PolylineOptions> getPolylineOptions() {
+        List<PolylineOptions> polylines = new ArrayList<>(mPolylines.count);
+        int point = 0;
+        for (int i = 0; i < mPolylines.count; i++) {
+            PolylineOptions options = new PolylineOptions()
+                    .color(mPolylines.colors[i])
+                    .width(mPolylines.widths[i])
+                    .alpha(mPolylines.alphas[i]);
+            for (int end = point + mPolylines.pointCounts[i]; point < end; point++) {
+                options.add(new LatLng(mPolylines.coordinates[2 * point], mPolylines.coordinates[2 * point + 1]));
+            }
+            polylines.add(options);
+        }
+        return polylines;
+    }
+
+    List<PolygonOptions> getPolygonOptions() {
+        List<PolygonOptions> polygons = new ArrayList<>(mPolygons.count);
+        int point = 0;
+        for (int i = 0; i < mPolygons.count; i++) {
+            PolygonOptions options = new PolygonOptions()
+                    .fillColor(mPolygons.colors[i])
+                    .strokeColor(mPolygons.secondaryColors[i])
+                    .alpha(mPolygons.alphas[i]);
+            for (int end = point + mPolygons.pointCounts[i]; point < end; point++) {
+                options.add(new LatLng(mPolygons.coordinates[2 * point], mPolygons.coordinates[2 * point + 1]));
+            }
+            polygons.add(options);
+        }
+        return polygons;
+    }
+
+    private String getString(int index) {
+        return index == -1 ? null : mStrings.get(index);
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     * <p>
+     * Writes the snapshot to a file on a background thread.
+     * </p>
+     */
+    public void writeAsync(@NonNull final File file) {
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write(file);
+                } catch (IOException exception) {
+                    Log.w(TAG, "Failed to write annotation snapshot", exception);
+                    file.delete();
+                }
+            }
+        });
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     * <p>
+     * Reads a snapshot on a background thread once pending writes are done, deletes the file and
+     * adds the annotations to a map.
+     * </p>
+     */
+    public static void restoreAsync(@NonNull final File file, @NonNull final MapView mapView) {
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final AnnotationSnapshot snapshot;
+                try {
+                    snapshot = read(file);
+                } catch (IOException exception) {
+                    Log.w(TAG, "Failed to read annotation snapshot", exception);
+                    return;
+                } finally {
+                    file.delete();
+                }
+
+                getMainHandler().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!mapView.isDestroyed()) {
+                            snapshot.restore(mapView);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     * <p>
+     * Deletes a snapshot file on a background thread once pending writes are done.
+     * </p>
+     */
+    public static void deleteAsync(@NonNull final File file) {
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                file.delete();
+            }
+        });
+    }
+
+    private static synchronized Handler getMainHandler() {
+        if (sMainHandler == null) {
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return sMainHandler;
+    }
+
+    private static synchronized Executor getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "AnnotationSnapshot");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+}
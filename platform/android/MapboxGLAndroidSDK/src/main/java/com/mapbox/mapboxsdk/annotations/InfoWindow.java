@@ -31,13 +31,23 @@ public class InfoWindow {
     private boolean mIsVisible;
     protected WeakReference<View> mView;
 
+    // Pool and view type the view is kept under once closed, or NO_VIEW_TYPE to drop it
+    private static final int NO_VIEW_TYPE = Integer.MIN_VALUE;
+    private InfoWindowPool mPool;
+    private int mViewType = NO_VIEW_TYPE;
+
     static int mTitleId = 0;
     static int mDescriptionId = 0;
     static int mSubDescriptionId = 0;
     static int mImageId = 0;
 
     InfoWindow(int layoutResId, MapView mapView) {
-        View view = LayoutInflater.from(mapView.getContext()).inflate(layoutResId, mapView, false);
+        mPool = mapView.getInfoWindowPool();
+        mViewType = InfoWindowPool.DEFAULT_VIEW_TYPE;
+        View view = mPool.acquire(mViewType);
+        if (view == null) {
+            view = LayoutInflater.from(mapView.getContext()).inflate(layoutResId, mapView, false);
+        }
 
         if (mTitleId == 0) {
             setResIds(mapView.getContext());
@@ -50,6 +60,12 @@ public class InfoWindow {
         initialize(view, mapView);
     }
 
+    InfoWindow(View view, MapView mapView, int viewType) {
+        initialize(view, mapView);
+        mPool = mapView.getInfoWindowPool();
+        mViewType = viewType;
+    }
+
     private void initialize(View view, MapView mapView) {
         mMapView = new WeakReference<>(mapView);
         mIsVisible = false;
@@ -159,11 +175,15 @@ public class InfoWindow {
             // set anchor popupwindowview
             view.setX(x);
             view.setY(y);
+            view.setVisibility(View.VISIBLE);
 
             // Calculate x-offset for update method
             mViewWidthOffset = x - mCoordinates.x - offsetX;
 
-            close(); //if it was already opened
+            if (mIsVisible) {
+                // already open, only move it
+                ((ViewGroup) view.getParent()).removeView(view);
+            }
             mMapView.get().addView(view, lp);
             mIsVisible = true;
         }
@@ -183,6 +203,7 @@ public class InfoWindow {
                 ((ViewGroup) view.getParent()).removeView(view);
                 setBoundMarker(null);
                 onClose();
+                recycle(view);
             }
         }
         return this;
@@ -215,6 +236,16 @@ public class InfoWindow {
 */
     }
 
+    // Hands the view to the pool, this info window can't be opened again afterwards
+    private void recycle(View view) {
+        if (mViewType == NO_VIEW_TYPE) {
+            return;
+        }
+        view.setOnTouchListener(null);
+        mView.clear();
+        mPool.release(mViewType, view);
+    }
+
     private void onClose() {
         mMapView.get().deselectMarker(getBoundMarker());
     }
@@ -249,12 +280,55 @@ public class InfoWindow {
 
     public void update() {
         MapView mapView = mMapView.get();
-        Marker marker = mBoundMarker.get();
+        Marker marker = getBoundMarker();
+        if (mapView != null && marker != null) {
+            PointF point = mapView.toScreenLocation(marker.getPosition());
+            updatePosition(point.x, point.y, mapView.getWidth(), mapView.getHeight());
+        }
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @return the position of the bound marker, or null once the info window is closed
+     */
+    public LatLng getAnchorPosition() {
+        Marker marker = getBoundMarker();
+        if (!mIsVisible || marker == null || mView.get() == null) {
+            return null;
+        }
+        return marker.getPosition();
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    public void updatePosition(float x, float y, int mapWidth, int mapHeight) {
         View view = mView.get();
-        if (mapView != null && marker != null && view != null) {
-            mCoordinates = mapView.toScreenLocation(marker.getPosition());
-            view.setX(mCoordinates.x + mViewWidthOffset);
-            view.setY(mCoordinates.y + mMarkerHeightOffset);
+        if (view == null) {
+            return;
+        }
+        if (mCoordinates == null) {
+            mCoordinates = new PointF();
+        }
+        mCoordinates.set(x, y);
+
+        // Only move the view, its layout doesn't depend on the position
+        float left = x + mViewWidthOffset;
+        float top = y + mMarkerHeightOffset;
+        if (view.getX() != left) {
+            view.setX(left);
+        }
+        if (view.getY() != top) {
+            view.setY(top);
+        }
+
+        // Hide the view while it is off screen, so it isn't drawn
+        boolean onScreen = left < mapWidth && left + view.getMeasuredWidth() > 0
+                && top < mapHeight && top + view.getMeasuredHeight() > 0;
+        int visibility = onScreen ? View.VISIBLE : View.INVISIBLE;
+        if (view.getVisibility() != visibility) {
+            view.setVisibility(visibility);
         }
     }
 
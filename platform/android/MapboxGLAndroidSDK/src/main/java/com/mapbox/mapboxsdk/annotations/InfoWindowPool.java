@@ -0,0 +1,56 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+import android.view.View;
+
+import java.util.ArrayDeque;
+
+/**
+ * Keeps the views of closed info windows for reuse, by view type.
+ */
+public final class InfoWindowPool {
+
+    // View type of the default info window layout
+    static final int DEFAULT_VIEW_TYPE = -1;
+
+    // Upper bound of views kept per view type
+    private static final int MAX_VIEWS_PER_TYPE = 256;
+
+    private final SparseArray<ArrayDeque<View>> mViews = new SparseArray<>();
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    public InfoWindowPool() {
+    }
+
+    /**
+     * Returns a view of a closed info window with a view type, if any.
+     *
+     * @param viewType The view type
+     * @return A view to reuse, or null
+     */
+    @Nullable
+    View acquire(int viewType) {
+        ArrayDeque<View> views = mViews.get(viewType);
+        return views != null ? views.pollFirst() : null;
+    }
+
+    /**
+     * Keeps the view of a closed info window for reuse.
+     *
+     * @param viewType The view type
+     * @param view     The view, detached from its parent
+     */
+    void release(int viewType, View view) {
+        ArrayDeque<View> views = mViews.get(viewType);
+        if (views == null) {
+            views = new ArrayDeque<>();
+            mViews.put(viewType, views);
+        }
+        if (views.size() < MAX_VIEWS_PER_TYPE) {
+            views.addFirst(view);
+        }
+    }
+}
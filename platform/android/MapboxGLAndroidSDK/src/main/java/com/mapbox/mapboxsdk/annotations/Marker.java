@@ -89,8 +89,25 @@ public final class Marker extends Annotation {
             return null;
         }
 
-        MapView.InfoWindowAdapter infoWindowAdapter = getMapView().getInfoWindowAdapter();
-        if (infoWindowAdapter != null) {
+        MapView mapView = getMapView();
+        MapView.InfoWindowAdapter infoWindowAdapter = mapView.getInfoWindowAdapter();
+        if (infoWindowAdapter instanceof MapView.RecyclingInfoWindowAdapter) {
+            // end developer is using a custom InfoWindowAdapter that reuses views
+            MapView.RecyclingInfoWindowAdapter adapter = (MapView.RecyclingInfoWindowAdapter) infoWindowAdapter;
+            int viewType = adapter.getInfoWindowViewType(this);
+            if (viewType < 0) {
+                throw new IllegalArgumentException("viewType must be zero or greater");
+            }
+            View convertView = mapView.getInfoWindowPool().acquire(viewType);
+            View content = adapter.getInfoWindow(this, convertView);
+            if (content != null) {
+                infoWindow = new InfoWindow(content, mapView, viewType);
+                showInfoWindow(infoWindow);
+                return infoWindow;
+            } else if (convertView != null) {
+                mapView.getInfoWindowPool().release(viewType, convertView);
+            }
+        } else if (infoWindowAdapter != null) {
             // end developer is using a custom InfoWindowAdapter
             View content = infoWindowAdapter.getInfoWindow(this);
             if (content != null) {
@@ -100,8 +117,10 @@ public final class Marker extends Annotation {
             }
         }
 
-        getInfoWindow().adaptDefaultMarker(this);
-        return showInfoWindow(getInfoWindow());
+        // the default view comes from the pool, so a new info window is made each time
+        infoWindow = new InfoWindow(R.layout.infowindow_view, mapView);
+        infoWindow.adaptDefaultMarker(this);
+        return showInfoWindow(infoWindow);
     }
 
     private InfoWindow showInfoWindow(InfoWindow iw) {
@@ -110,13 +129,6 @@ public final class Marker extends Annotation {
         return iw;
     }
 
-    private InfoWindow getInfoWindow() {
-        if (infoWindow == null) {
-            infoWindow = new InfoWindow(R.layout.infowindow_view, getMapView());
-        }
-        return infoWindow;
-    }
-
     /*
     @Override
     void setVisible(boolean visible) {
@@ -0,0 +1,428 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+import android.support.v4.view.ViewCompat;
+import android.util.SparseArray;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.views.MapView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * MarkerDataset shows a set of keyed points that is replaced as a whole, such as the positions
+ * of a fleet of vehicles.
+ * </p>
+ * <p>
+ * Each snapshot submitted is compared to the previous one on a background thread, by key. Only
+ * the points that were inserted, moved or deleted are then sent to the map, in a single batch.
+ * If snapshots arrive faster than they can be compared, intermediate ones are skipped. Moves can
+ * optionally be animated.
+ * </p>
+ *
+ * @see MapView#addMarkerDataset()
+ */
+public final class MarkerDataset {
+
+    // Shared by all datasets
+    private static Executor sExecutor;
+    private static Handler sMainHandler;
+
+    private MapView mMapView;
+
+    // Icons by id, main thread only
+    private final SparseArray<Icon> mIcons = new SparseArray<>();
+
+    // Markers by key, main thread only
+    private final Map<Long, Marker> mMarkers = new HashMap<>();
+
+    // Latest snapshot not compared yet
+    private final AtomicReference<Snapshot> mPending = new AtomicReference<>();
+
+    // Last snapshot compared, background thread only
+    private Snapshot mPrevious = new Snapshot(new long[0], new double[0], new int[0], 0);
+
+    // Move animation, main thread only
+    private long mInterpolationDuration = 0;
+    private final Interpolator mInterpolator = new Interpolator();
+
+    // Cleared once removed, so pending changes are dropped
+    private volatile boolean mActive = true;
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    public MarkerDataset() {
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    public void setMapView(MapView mapView) {
+        mMapView = mapView;
+    }
+
+    /**
+     * Sets the icon shown for points with an icon id.
+     *
+     * @param iconId The icon id used in snapshots
+     * @param icon   The icon, or null for the default marker icon
+     */
+    @UiThread
+    public void setIcon(int iconId, @Nullable Icon icon) {
+        mIcons.put(iconId, icon);
+    }
+
+    /**
+     * Sets how long moves are animated for. Each animation frame re-adds the moving markers, so
+     * this is best kept for datasets of up to a few hundred points. Defaults to 0, no animation.
+     *
+     * @param duration The duration in milliseconds
+     */
+    @UiThread
+    public void setInterpolationDuration(@IntRange(from = 0) long duration) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("duration must not be negative");
+        }
+        mInterpolationDuration = duration;
+    }
+
+    /**
+     * Replaces the points of the dataset. The arrays are copied, so they can be reused once this
+     * returns.
+     *
+     * @param keys        The key of each point, unique in the snapshot
+     * @param coordinates Packed latitude, longitude pairs
+     * @param iconIds     The icon id of each point
+     * @param count       The number of points
+     */
+    public void submit(@NonNull long[] keys, @NonNull double[] coordinates, @NonNull int[] iconIds,
+                       @IntRange(from = 0) int count) {
+        if (count < 0 || keys.length < count || coordinates.length < 2 * count || iconIds.length < count) {
+            throw new IllegalArgumentException("arrays are shorter than count");
+        }
+
+        Snapshot snapshot = new Snapshot(Arrays.copyOf(keys, count),
+                Arrays.copyOf(coordinates, 2 * count), Arrays.copyOf(iconIds, count), count);
+        if (mPending.getAndSet(snapshot) == null) {
+            getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    compare();
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the number of points shown.
+     *
+     * @return the point count
+     */
+    @UiThread
+    public int getPointCount() {
+        return mMarkers.size();
+    }
+
+    /**
+     * Removes all points from the map and stops processing snapshots.
+     */
+    @UiThread
+    public void remove() {
+        mActive = false;
+        mPending.set(null);
+        mInterpolator.stop();
+        if (mMapView != null) {
+            mMapView.updateMarkers(new ArrayList<>(mMarkers.values()), new ArrayList<Marker>(0));
+        }
+        mMarkers.clear();
+        mMapView = null;
+    }
+
+    //
+    // Background thread
+    //
+
+    private void compare() {
+        Snapshot next = mPending.getAndSet(null);
+        if (next == null || !mActive) {
+            return;
+        }
+        next.sort();
+
+        // Merge both snapshots in key order
+        final Diff diff = new Diff();
+        Snapshot prev = mPrevious;
+        int i = 0;
+        int j = 0;
+        while (i < prev.count || j < next.count) {
+            int a = i < prev.count ? prev.order[i] : -1;
+            int b = j < next.count ? next.order[j] : -1;
+            // keys must be unique, only the first row of a key is kept
+            if (a != -1 && i > 0 && prev.keys[a] == prev.keys[prev.order[i - 1]]) {
+                i++;
+                continue;
+            }
+            if (b != -1 && j > 0 && next.keys[b] == next.keys[next.order[j - 1]]) {
+                j++;
+                continue;
+            }
+            if (b == -1 || (a != -1 && prev.keys[a] < next.keys[b])) {
+                diff.deleted.add(prev.keys[a]);
+                i++;
+            } else if (a == -1 || next.keys[b] < prev.keys[a]) {
+                diff.inserted.add(b);
+                j++;
+            } else {
+                if (prev.coordinates[2 * a] != next.coordinates[2 * b]
+                        || prev.coordinates[2 * a + 1] != next.coordinates[2 * b + 1]
+                        || prev.iconIds[a] != next.iconIds[b]) {
+                    diff.moved.add(b);
+                }
+                i++;
+                j++;
+            }
+        }
+        diff.snapshot = next;
+        mPrevious = next;
+
+        if (!diff.isEmpty()) {
+            getMainHandler().post(new Runnable() {
+                @Override
+                public void run() {
+                    apply(diff);
+                }
+            });
+        }
+    }
+
+    //
+    // Main thread
+    //
+
+    private void apply(Diff diff) {
+        if (!mActive || mMapView == null) {
+            return;
+        }
+        mInterpolator.finish();
+
+        Snapshot snapshot = diff.snapshot;
+        List<Marker> removed = new ArrayList<>(diff.deleted.size() + diff.moved.size());
+        List<Marker> added = new ArrayList<>(diff.inserted.size() + diff.moved.size());
+
+        for (long key : diff.deleted) {
+            Marker marker = mMarkers.remove(key);
+            if (marker != null) {
+                marker.hideInfoWindow();
+                removed.add(marker);
+            }
+        }
+
+        for (int row : diff.inserted) {
+            Marker marker = new Marker();
+            marker.setOwner(this);
+            marker.setPosition(snapshot.getPosition(row));
+            marker.setIcon(mIcons.get(snapshot.iconIds[row]));
+            mMarkers.put(snapshot.keys[row], marker);
+            added.add(marker);
+        }
+
+        boolean animate = mInterpolationDuration > 0;
+        for (int row : diff.moved) {
+            Marker marker = mMarkers.get(snapshot.keys[row]);
+            if (marker == null) {
+                continue;
+            }
+            LatLng target = snapshot.getPosition(row);
+            if (animate) {
+                mInterpolator.add(marker, marker.getPosition(), target);
+            }
+            marker.setIcon(mIcons.get(snapshot.iconIds[row]));
+            marker.setPosition(target);
+            removed.add(marker);
+            added.add(marker);
+        }
+
+        if (animate) {
+            // Start the moves from where the markers were, the last frame puts them in place
+            mInterpolator.rewind();
+        }
+        mMapView.updateMarkers(removed, added);
+        if (animate) {
+            mInterpolator.start(mInterpolationDuration);
+        }
+    }
+
+    // Points of one submission, sorted by key through order
+    private static final class Snapshot {
+
+        private final long[] keys;
+        private final double[] coordinates;
+        private final int[] iconIds;
+        private final int count;
+        private int[] order;
+
+        private Snapshot(long[] keys, double[] coordinates, int[] iconIds, int count) {
+            this.keys = keys;
+            this.coordinates = coordinates;
+            this.iconIds = iconIds;
+            this.count = count;
+            order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+        }
+
+        private LatLng getPosition(int row) {
+            return new LatLng(coordinates[2 * row], coordinates[2 * row + 1]);
+        }
+
+        // Bottom up merge sort of the rows by key
+        private void sort() {
+            int[] from = order;
+            int[] to = new int[count];
+            for (int width = 1; width < count; width *= 2) {
+                for (int start = 0; start < count; start += 2 * width) {
+                    int middle = Math.min(start + width, count);
+                    int end = Math.min(start + 2 * width, count);
+                    int i = start;
+                    int j = middle;
+                    for (int k = start; k < end; k++) {
+                        if (i < middle && (j >= end || keys[from[i]] <= keys[from[j]])) {
+                            to[k] = from[i++];
+                        } else {
+                            to[k] = from[j++];
+                        }
+                    }
+                }
+                int[] swap = from;
+                from = to;
+                to = swap;
+            }
+            order = from;
+        }
+    }
+
+    // Changes between two snapshots, as keys for deletes and rows of the new snapshot otherwise
+    private static final class Diff {
+
+        private final List<Long> deleted = new ArrayList<>();
+        private final List<Integer> inserted = new ArrayList<>();
+        private final List<Integer> moved = new ArrayList<>();
+        private Snapshot snapshot;
+
+        private boolean isEmpty() {
+            return deleted.isEmpty() && inserted.isEmpty() && moved.isEmpty();
+        }
+    }
+
+    // Animates moved markers towards their new position, re-adding them once per frame
+    private final class Interpolator implements Runnable {
+
+        private final List<Marker> mMoving = new ArrayList<>();
+        private final List<LatLng> mFrom = new ArrayList<>();
+        private final List<LatLng> mTo = new ArrayList<>();
+        private long mStartTime;
+        private long mDuration;
+        private boolean mRunning;
+
+        private void add(Marker marker, LatLng from, LatLng to) {
+            mMoving.add(marker);
+            mFrom.add(from);
+            mTo.add(to);
+        }
+
+        private void rewind() {
+            for (int i = 0; i < mMoving.size(); i++) {
+                mMoving.get(i).setPosition(mFrom.get(i));
+            }
+        }
+
+        private void start(long duration) {
+            if (mMoving.isEmpty()) {
+                return;
+            }
+            mStartTime = SystemClock.uptimeMillis();
+            mDuration = duration;
+            mRunning = true;
+            ViewCompat.postOnAnimation(mMapView, this);
+        }
+
+        // Puts the markers at their target without animating
+        private void finish() {
+            if (mRunning) {
+                step(1);
+            }
+            stop();
+        }
+
+        private void stop() {
+            mRunning = false;
+            mMoving.clear();
+            mFrom.clear();
+            mTo.clear();
+        }
+
+        @Override
+        public void run() {
+            if (!mRunning || mMapView == null) {
+                return;
+            }
+
+            float fraction = Math.min(1, (SystemClock.uptimeMillis() - mStartTime) / (float) mDuration);
+            step(fraction);
+            if (fraction < 1) {
+                ViewCompat.postOnAnimation(mMapView, this);
+            } else {
+                stop();
+            }
+        }
+
+        private void step(float fraction) {
+            for (int i = 0; i < mMoving.size(); i++) {
+                LatLng from = mFrom.get(i);
+                LatLng to = mTo.get(i);
+                mMoving.get(i).setPosition(new LatLng(
+                        from.getLatitude() + (to.getLatitude() - from.getLatitude()) * fraction,
+                        from.getLongitude() + (to.getLongitude() - from.getLongitude()) * fraction));
+            }
+            mMapView.updateMarkers(mMoving, mMoving);
+        }
+    }
+
+    private static synchronized Handler getMainHandler() {
+        if (sMainHandler == null) {
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return sMainHandler;
+    }
+
+    private static synchronized Executor getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "MarkerDataset");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+}
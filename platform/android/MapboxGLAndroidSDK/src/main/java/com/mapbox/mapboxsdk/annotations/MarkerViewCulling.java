@@ -0,0 +1,68 @@
+package com.mapbox.mapboxsdk.annotations;
+
+/**
+ * Decides which markers of a {@link MarkerViewManager} are shown as views and which are drawn by
+ * the map instead.
+ * <p>
+ * Markers on screen get a view while the view budget lasts, in the order they were added.
+ * Views of markers that left the screen are freed first, so markers coming on screen can take
+ * them. Markers on screen beyond the budget fall back to the map, and stay there until a view
+ * frees up while they are on screen.
+ * </p>
+ */
+final class MarkerViewCulling {
+
+    // Bits of the state of a marker
+    static final int STATE_VIEW = 1;
+    static final int STATE_ON_MAP = 2;
+
+    private MarkerViewCulling() {
+    }
+
+    /**
+     * Updates the states of markers for their screen positions.
+     *
+     * @param points     Screen positions, x and y for each marker
+     * @param states     States of the markers, updated in place
+     * @param count      Number of markers
+     * @param left       Left edge of the area markers get a view in
+     * @param top        Top edge of the area markers get a view in
+     * @param right      Right edge of the area markers get a view in
+     * @param bottom     Bottom edge of the area markers get a view in
+     * @param viewBudget Number of views used at most
+     * @return The number of markers shown as views
+     */
+    static int cull(float[] points, int[] states, int count,
+                    float left, float top, float right, float bottom, int viewBudget) {
+        int viewCount = 0;
+        for (int i = 0; i < count; i++) {
+            if ((states[i] & STATE_VIEW) == 0) {
+                continue;
+            }
+            if (contains(points, i, left, top, right, bottom)) {
+                viewCount++;
+            } else {
+                states[i] &= ~STATE_VIEW;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            if ((states[i] & STATE_VIEW) != 0 || !contains(points, i, left, top, right, bottom)) {
+                continue;
+            }
+            if (viewCount < viewBudget) {
+                states[i] = STATE_VIEW;
+                viewCount++;
+            } else {
+                states[i] |= STATE_ON_MAP;
+            }
+        }
+        return viewCount;
+    }
+
+    private static boolean contains(float[] points, int index, float left, float top, float right, float bottom) {
+        float x = points[2 * index];
+        float y = points[2 * index + 1];
+        return x >= left && x <= right && y >= top && y <= bottom;
+    }
+}
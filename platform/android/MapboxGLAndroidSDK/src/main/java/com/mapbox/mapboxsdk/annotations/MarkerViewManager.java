@@ -0,0 +1,575 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+import android.support.v4.view.ViewCompat;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.views.MapView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * MarkerViewManager shows markers as Android views, such as badges or avatars, centered on their
+ * position.
+ * </p>
+ * <p>
+ * Only markers on screen get a view, and views of markers that leave the screen are handed back
+ * to the {@link Adapter} for the next marker of the same view type. Views are moved once per
+ * rendered frame, with all positions projected in one call. Once the view budget is used up,
+ * further markers on screen are drawn by the map instead, with an icon rasterized from their
+ * view. These markers keep their icon until a view frees up while they are on screen. Markers
+ * whose views draw the same share one icon; an {@link IconKeyAdapter} tells which markers do
+ * without drawing each view.
+ * </p>
+ * <p>
+ * Markers shown as views are not part of the map annotations, so clicks on them are handled by
+ * the views themselves.
+ * </p>
+ *
+ * @see MapView#addMarkerViewManager(Adapter)
+ */
+public final class MarkerViewManager {
+
+    /**
+     * The number of views used at most, unless changed with {@link #setViewBudget(int)}.
+     */
+    public static final int DEFAULT_VIEW_BUDGET = 64;
+
+    /**
+     * Provides the views of markers.
+     */
+    public interface Adapter {
+
+        /**
+         * Returns the type of view a marker is shown with. Views are only reused for markers of
+         * the same type.
+         *
+         * @param marker The marker
+         * @return The view type, zero or greater
+         */
+        int getViewType(@NonNull Marker marker);
+
+        /**
+         * Returns the view of a marker.
+         *
+         * @param marker      The marker
+         * @param convertView A view of the same type to reuse, or null
+         * @param parent      The view the returned view is added to
+         * @return The view of the marker
+         */
+        @NonNull
+        View getView(@NonNull Marker marker, @Nullable View convertView, @NonNull ViewGroup parent);
+    }
+
+    /**
+     * An {@link Adapter} that tells which markers look the same when drawn by the map, so their
+     * icon is rasterized once.
+     */
+    public interface IconKeyAdapter extends Adapter {
+
+        /**
+         * Returns a key for what the view of a marker shows. Markers with equal keys share the
+         * icon drawn from the view of the first of them, so the key must change along with what
+         * the view shows.
+         *
+         * @param marker The marker
+         * @return The key, or null to compare the drawn view with the other icons instead
+         */
+        @Nullable
+        Object getIconKey(@NonNull Marker marker);
+    }
+
+    // Markers closer to the screen than this get a view, in dp
+    private static final float SCREEN_MARGIN = 48;
+
+    private final Adapter mAdapter;
+    private MapView mMapView;
+    private int mViewBudget = DEFAULT_VIEW_BUDGET;
+
+    // Updates the views on the next frame, for changes that don't cause the map to render
+    private boolean mPosted = false;
+    private final Runnable mUpdateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mPosted = false;
+            update();
+        }
+    };
+
+    // Markers in the order they were added
+    private final List<Entry> mEntries = new ArrayList<>();
+    private final Map<Marker, Entry> mEntriesByMarker = new IdentityHashMap<>();
+    private int mViewCount = 0;
+
+    // Unused views by view type, still attached but invisible
+    private final SparseArray<ArrayDeque<View>> mScrap = new SparseArray<>();
+
+    // Icons rasterized from views, shared by the markers on the map that look alike. Icons are
+    // found by the key from the adapter, or else by a hash of their pixels.
+    private final Map<Object, SharedIcon> mKeyedIcons = new HashMap<>();
+    private final SparseArray<List<SharedIcon>> mHashedIcons = new SparseArray<>();
+    private int[] mPixels = new int[0];
+
+    // Projection buffers, reused across frames
+    private double[] mCoordinates = new double[0];
+    private float[] mPoints = new float[0];
+    private int[] mStates = new int[0];
+
+    private static final class Entry {
+        private final Marker marker;
+        private int viewType;
+        private View view;
+        private SharedIcon icon;
+        private boolean onMap;
+
+        private Entry(Marker marker) {
+            this.marker = marker;
+        }
+    }
+
+    private static final class SharedIcon {
+        private final Icon icon;
+        private final Object key;
+        private final int hash;
+        private int users;
+
+        private SharedIcon(Icon icon, Object key, int hash) {
+            this.icon = icon;
+            this.key = key;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    public MarkerViewManager(@NonNull Adapter adapter) {
+        mAdapter = adapter;
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    public void setMapView(MapView mapView) {
+        mMapView = mapView;
+    }
+
+    /**
+     * Sets how many markers are shown as views at most. Further markers on screen are drawn by
+     * the map. Defaults to {@link #DEFAULT_VIEW_BUDGET}.
+     *
+     * @param viewBudget The number of views
+     */
+    @UiThread
+    public void setViewBudget(@IntRange(from = 0) int viewBudget) {
+        if (viewBudget < 0) {
+            throw new IllegalArgumentException("viewBudget must not be negative");
+        }
+        mViewBudget = viewBudget;
+        postUpdate();
+    }
+
+    public int getViewBudget() {
+        return mViewBudget;
+    }
+
+    /**
+     * Adds a marker.
+     *
+     * @param markerOptions The position, title and snippet of the marker. The icon is not used.
+     * @return The marker added
+     */
+    @UiThread
+    @NonNull
+    public Marker addMarker(@NonNull MarkerOptions markerOptions) {
+        Marker marker = markerOptions.getMarker();
+        marker.setIcon(null);
+        marker.setOwner(this);
+        Entry entry = new Entry(marker);
+        entry.viewType = getViewType(marker);
+        mEntries.add(entry);
+        mEntriesByMarker.put(marker, entry);
+        postUpdate();
+        return marker;
+    }
+
+    /**
+     * Moves a marker. Markers shown as views only move their view, markers drawn by the map are
+     * moved in place.
+     *
+     * @param marker   The marker to move
+     * @param position The new position
+     */
+    @UiThread
+    public void setPosition(@NonNull Marker marker, @NonNull LatLng position) {
+        Entry entry = mEntriesByMarker.get(marker);
+        if (entry == null) {
+            throw new IllegalArgumentException("marker was not added to this manager");
+        }
+        marker.setPosition(position);
+        if (entry.onMap && mMapView != null) {
+            mMapView.updateMarker(marker);
+        }
+        postUpdate();
+    }
+
+    /**
+     * Asks the adapter again for the view of a marker, after what it shows has changed.
+     *
+     * @param marker The marker that changed
+     */
+    @UiThread
+    public void notifyMarkerChanged(@NonNull Marker marker) {
+        Entry entry = mEntriesByMarker.get(marker);
+        if (entry == null) {
+            throw new IllegalArgumentException("marker was not added to this manager");
+        }
+
+        // the view is bound again the next frame, most likely to the same view
+        if (entry.view != null) {
+            releaseView(entry);
+        }
+        entry.viewType = getViewType(marker);
+
+        // the icon is rasterized again the next frame it is needed
+        if (entry.onMap && mMapView != null) {
+            List<Marker> removed = new ArrayList<>(1);
+            removed.add(marker);
+            mMapView.updateMarkers(removed, new ArrayList<Marker>(0));
+            entry.onMap = false;
+            releaseIcon(entry);
+        }
+        postUpdate();
+    }
+
+    /**
+     * Removes a marker.
+     *
+     * @param marker The marker to remove
+     */
+    @UiThread
+    public void removeMarker(@NonNull Marker marker) {
+        Entry entry = mEntriesByMarker.remove(marker);
+        if (entry == null) {
+            return;
+        }
+        mEntries.remove(entry);
+        if (entry.view != null) {
+            releaseView(entry);
+        }
+        if (entry.onMap && mMapView != null) {
+            List<Marker> removed = new ArrayList<>(1);
+            removed.add(marker);
+            mMapView.updateMarkers(removed, new ArrayList<Marker>(0));
+            releaseIcon(entry);
+        }
+    }
+
+    /**
+     * Returns the number of markers.
+     *
+     * @return the marker count
+     */
+    public int getMarkerCount() {
+        return mEntries.size();
+    }
+
+    /**
+     * Returns the number of markers currently shown as views.
+     *
+     * @return the view count
+     */
+    public int getViewCount() {
+        return mViewCount;
+    }
+
+    /**
+     * Removes all markers and their views from the map.
+     */
+    @UiThread
+    public void remove() {
+        if (mMapView == null) {
+            return;
+        }
+
+        List<Marker> removed = new ArrayList<>();
+        for (Entry entry : mEntries) {
+            if (entry.view != null) {
+                mMapView.removeView(entry.view);
+            }
+            if (entry.onMap) {
+                removed.add(entry.marker);
+            }
+        }
+        for (int i = 0; i < mScrap.size(); i++) {
+            for (View view : mScrap.valueAt(i)) {
+                mMapView.removeView(view);
+            }
+        }
+        mMapView.updateMarkers(removed, new ArrayList<Marker>(0));
+        for (SharedIcon icon : mKeyedIcons.values()) {
+            mMapView.removeIcon(icon.icon);
+        }
+        for (int i = 0; i < mHashedIcons.size(); i++) {
+            for (SharedIcon icon : mHashedIcons.valueAt(i)) {
+                mMapView.removeIcon(icon.icon);
+            }
+        }
+
+        mMapView.removeCallbacks(mUpdateRunnable);
+        mPosted = false;
+
+        mKeyedIcons.clear();
+        mHashedIcons.clear();
+        mEntries.clear();
+        mEntriesByMarker.clear();
+        mScrap.clear();
+        mViewCount = 0;
+        mMapView = null;
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    @UiThread
+    public void update() {
+        int count = mEntries.size();
+        if (mMapView == null || count == 0) {
+            return;
+        }
+
+        if (mCoordinates.length < 2 * count) {
+            mCoordinates = new double[2 * count];
+            mPoints = new float[2 * count];
+            mStates = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            LatLng position = mEntries.get(i).marker.getPosition();
+            mCoordinates[2 * i] = position.getLatitude();
+            mCoordinates[2 * i + 1] = position.getLongitude();
+        }
+        mMapView.toScreenLocations(mCoordinates, mPoints, count);
+
+        float margin = SCREEN_MARGIN * mMapView.getContext().getResources().getDisplayMetrics().density;
+        for (int i = 0; i < count; i++) {
+            Entry entry = mEntries.get(i);
+            mStates[i] = (entry.view != null ? MarkerViewCulling.STATE_VIEW : 0)
+                    | (entry.onMap ? MarkerViewCulling.STATE_ON_MAP : 0);
+        }
+        MarkerViewCulling.cull(mPoints, mStates, count, -margin, -margin,
+                mMapView.getWidth() + margin, mMapView.getHeight() + margin, mViewBudget);
+
+        // Free the views of markers that left the screen first, so others can take them
+        for (int i = 0; i < count; i++) {
+            Entry entry = mEntries.get(i);
+            if (entry.view != null && (mStates[i] & MarkerViewCulling.STATE_VIEW) == 0) {
+                releaseView(entry);
+            }
+        }
+
+        List<Marker> removed = new ArrayList<>();
+        List<Marker> added = new ArrayList<>();
+        List<Entry> released = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Entry entry = mEntries.get(i);
+            if (entry.view == null && (mStates[i] & MarkerViewCulling.STATE_VIEW) != 0) {
+                acquireView(entry);
+            }
+            boolean onMap = (mStates[i] & MarkerViewCulling.STATE_ON_MAP) != 0;
+            if (entry.onMap && !onMap) {
+                entry.onMap = false;
+                removed.add(entry.marker);
+                released.add(entry);
+            } else if (!entry.onMap && onMap) {
+                acquireIcon(entry);
+                entry.marker.setIcon(entry.icon.icon);
+                entry.onMap = true;
+                added.add(entry.marker);
+            }
+
+            if (entry.view != null) {
+                View view = entry.view;
+                float x = mPoints[2 * i] - view.getMeasuredWidth() / 2;
+                float y = mPoints[2 * i + 1] - view.getMeasuredHeight() / 2;
+                if (view.getX() != x) {
+                    view.setX(x);
+                }
+                if (view.getY() != y) {
+                    view.setY(y);
+                }
+            }
+        }
+
+        if (!removed.isEmpty() || !added.isEmpty()) {
+            mMapView.updateMarkers(removed, added);
+        }
+
+        // icons are only freed once the markers using them are off the map
+        for (Entry entry : released) {
+            releaseIcon(entry);
+        }
+    }
+
+    private void postUpdate() {
+        if (mMapView != null && !mPosted) {
+            mPosted = true;
+            ViewCompat.postOnAnimation(mMapView, mUpdateRunnable);
+        }
+    }
+
+    private int getViewType(Marker marker) {
+        int viewType = mAdapter.getViewType(marker);
+        if (viewType < 0) {
+            throw new IllegalArgumentException("viewType must be zero or greater");
+        }
+        return viewType;
+    }
+
+    private void acquireView(Entry entry) {
+        ArrayDeque<View> scrap = mScrap.get(entry.viewType);
+        View convertView = scrap != null ? scrap.poll() : null;
+        View view = mAdapter.getView(entry.marker, convertView, mMapView);
+        if (view != convertView) {
+            if (convertView != null) {
+                mMapView.removeView(convertView);
+            }
+            mMapView.addView(view, new MapView.LayoutParams(
+                    MapView.LayoutParams.WRAP_CONTENT, MapView.LayoutParams.WRAP_CONTENT));
+        }
+        view.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+        view.setVisibility(View.VISIBLE);
+        entry.view = view;
+        mViewCount++;
+    }
+
+    // Keeps the view attached, so reusing it doesn't lay out the map view again
+    private void releaseView(Entry entry) {
+        View view = entry.view;
+        view.setVisibility(View.INVISIBLE);
+        ArrayDeque<View> scrap = mScrap.get(entry.viewType);
+        if (scrap == null) {
+            scrap = new ArrayDeque<>();
+            mScrap.put(entry.viewType, scrap);
+        }
+        if (scrap.size() < mViewBudget) {
+            scrap.push(view);
+        } else {
+            mMapView.removeView(view);
+        }
+        entry.view = null;
+        mViewCount--;
+    }
+
+    // Finds the icon for a marker on the map, drawing its view only if the adapter gives no key
+    // or no icon has the key yet
+    private void acquireIcon(Entry entry) {
+        Object key = mAdapter instanceof IconKeyAdapter
+                ? ((IconKeyAdapter) mAdapter).getIconKey(entry.marker) : null;
+        SharedIcon icon;
+        if (key != null) {
+            icon = mKeyedIcons.get(key);
+            if (icon == null) {
+                icon = new SharedIcon(createIcon(drawView(entry)), key, 0);
+                mKeyedIcons.put(key, icon);
+            }
+        } else {
+            Bitmap bitmap = drawView(entry);
+            int hash = hashPixels(bitmap);
+            List<SharedIcon> icons = mHashedIcons.get(hash);
+            if (icons == null) {
+                icons = new ArrayList<>(1);
+                mHashedIcons.put(hash, icons);
+            }
+
+            // only icons with the same hash are compared pixel by pixel
+            icon = null;
+            for (SharedIcon candidate : icons) {
+                if (candidate.icon.getBitmap().sameAs(bitmap)) {
+                    icon = candidate;
+                    bitmap.recycle();
+                    break;
+                }
+            }
+            if (icon == null) {
+                icon = new SharedIcon(createIcon(bitmap), null, hash);
+                icons.add(icon);
+            }
+        }
+        icon.users++;
+        entry.icon = icon;
+    }
+
+    private Bitmap drawView(Entry entry) {
+        ArrayDeque<View> scrap = mScrap.get(entry.viewType);
+        View convertView = scrap != null ? scrap.peek() : null;
+        View view = mAdapter.getView(entry.marker, convertView, mMapView);
+        view.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+        int width = Math.max(1, view.getMeasuredWidth());
+        int height = Math.max(1, view.getMeasuredHeight());
+        view.layout(0, 0, width, height);
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    private Icon createIcon(Bitmap bitmap) {
+        return IconFactory.getInstance(mMapView.getContext()).fromBitmap(bitmap);
+    }
+
+    private int hashPixels(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int size = width * height;
+        if (mPixels.length < size) {
+            mPixels = new int[size];
+        }
+        bitmap.getPixels(mPixels, 0, width, 0, 0, width, height);
+
+        int hash = 31 * width + height;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + mPixels[i];
+        }
+        return hash;
+    }
+
+    // Frees the icon of a marker taken off the map once no other marker uses it
+    private void releaseIcon(Entry entry) {
+        SharedIcon icon = entry.icon;
+        if (icon == null) {
+            return;
+        }
+        entry.icon = null;
+        icon.users--;
+        if (icon.users > 0) {
+            return;
+        }
+
+        if (icon.key != null) {
+            mKeyedIcons.remove(icon.key);
+        } else {
+            List<SharedIcon> icons = mHashedIcons.get(icon.hash);
+            icons.remove(icon);
+            if (icons.isEmpty()) {
+                mHashedIcons.remove(icon.hash);
+            }
+        }
+        if (mMapView != null) {
+            mMapView.removeIcon(icon.icon);
+        }
+    }
+}
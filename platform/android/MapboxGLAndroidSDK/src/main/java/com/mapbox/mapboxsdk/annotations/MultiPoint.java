@@ -1,6 +1,7 @@
 package com.mapbox.mapboxsdk.annotations;
 
 import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.views.MapView;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -10,6 +11,9 @@ public abstract class MultiPoint extends Annotation {
     private List<LatLng> points;
     private float alpha = 1.0f;
 
+    // Built when added to a map, used for hit testing
+    private SegmentIndex segmentIndex;
+
     protected MultiPoint() {
         super();
         points = new ArrayList<>();
@@ -39,6 +43,36 @@ public abstract class MultiPoint extends Annotation {
         points.add(point);
     }
 
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    @Override
+    public void setMapView(MapView mapView) {
+        super.setMapView(mapView);
+        segmentIndex = mapView != null ? new SegmentIndex(points, isClosed()) : null;
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @return the distance in projected meters from the point to the closest segment, or
+     * Double.MAX_VALUE if it is farther than maxDistance
+     */
+    public double distanceToProjectedPoint(double easting, double northing, double maxDistance) {
+        return getSegmentIndex().distanceTo(easting, northing, maxDistance);
+    }
+
+    SegmentIndex getSegmentIndex() {
+        if (segmentIndex == null) {
+            return new SegmentIndex(points, isClosed());
+        }
+        return segmentIndex;
+    }
+
+    boolean isClosed() {
+        return false;
+    }
+
     public float getAlpha() {
         return alpha;
     }
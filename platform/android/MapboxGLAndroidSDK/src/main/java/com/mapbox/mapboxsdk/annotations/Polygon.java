@@ -1,12 +1,11 @@
 package com.mapbox.mapboxsdk.annotations;
 
 import android.graphics.Color;
+import android.support.annotation.NonNull;
 
+import com.mapbox.mapboxsdk.geometry.GeoMath;
 import com.mapbox.mapboxsdk.geometry.LatLng;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Polygon is a geometry annotation that's a closed loop of coordinates.
  */
@@ -27,6 +26,30 @@ public final class Polygon extends MultiPoint {
         return strokeColor;
     }
 
+    /**
+     * Returns whether a point lies inside the polygon.
+     *
+     * @param point the point to test
+     * @return true if the point is inside
+     */
+    public boolean contains(@NonNull LatLng point) {
+        double[] meters = new double[]{point.getLatitude(), point.getLongitude()};
+        GeoMath.toProjectedMeters(meters, 0, meters, 0, 1);
+        return containsProjectedPoint(meters[1], meters[0]);
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    public boolean containsProjectedPoint(double easting, double northing) {
+        return getSegmentIndex().contains(easting, northing);
+    }
+
+    @Override
+    boolean isClosed() {
+        return true;
+    }
+
     void setFillColor(int color) {
         fillColor = color;
     }
@@ -0,0 +1,168 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import com.mapbox.mapboxsdk.geometry.GeoMath;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import java.util.List;
+
+/**
+ * Spatial index of the segments of a line or the edges of a ring, in Mercator meters.
+ * <p>
+ * Consecutive segments are grouped in buckets with a bounding box. As the segments of a shape
+ * are mostly close to their neighbours, queries only look at the few buckets near the query
+ * point.
+ * </p>
+ */
+final class SegmentIndex {
+
+    private static final int BUCKET_SIZE = 16;
+
+    // Vertices, easting and northing
+    private final double[] mX;
+    private final double[] mY;
+    private final int mSegmentCount;
+
+    // Bounds of the shape and of each bucket of segments
+    private double mMinX = Double.MAX_VALUE;
+    private double mMinY = Double.MAX_VALUE;
+    private double mMaxX = -Double.MAX_VALUE;
+    private double mMaxY = -Double.MAX_VALUE;
+    private final double[] mBucketMinX;
+    private final double[] mBucketMinY;
+    private final double[] mBucketMaxX;
+    private final double[] mBucketMaxY;
+
+    /**
+     * @param points Vertices of the shape
+     * @param closed True if the last vertex connects back to the first
+     */
+    SegmentIndex(List<LatLng> points, boolean closed) {
+        int count = points.size();
+        double[] packed = new double[2 * count];
+        for (int i = 0; i < count; i++) {
+            LatLng point = points.get(i);
+            packed[2 * i] = point.getLatitude();
+            packed[2 * i + 1] = point.getLongitude();
+        }
+        GeoMath.toProjectedMeters(packed, 0, packed, 0, count);
+
+        mX = new double[count];
+        mY = new double[count];
+        for (int i = 0; i < count; i++) {
+            mY[i] = packed[2 * i];
+            mX[i] = packed[2 * i + 1];
+        }
+
+        mSegmentCount = count < 2 ? 0 : (closed ? count : count - 1);
+        int buckets = (mSegmentCount + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        mBucketMinX = new double[buckets];
+        mBucketMinY = new double[buckets];
+        mBucketMaxX = new double[buckets];
+        mBucketMaxY = new double[buckets];
+        for (int b = 0; b < buckets; b++) {
+            mBucketMinX[b] = Double.MAX_VALUE;
+            mBucketMinY[b] = Double.MAX_VALUE;
+            mBucketMaxX[b] = -Double.MAX_VALUE;
+            mBucketMaxY[b] = -Double.MAX_VALUE;
+            int end = Math.min(mSegmentCount, (b + 1) * BUCKET_SIZE);
+            for (int s = b * BUCKET_SIZE; s < end; s++) {
+                includeInBucket(b, s);
+                includeInBucket(b, (s + 1) % count);
+            }
+            mMinX = Math.min(mMinX, mBucketMinX[b]);
+            mMinY = Math.min(mMinY, mBucketMinY[b]);
+            mMaxX = Math.max(mMaxX, mBucketMaxX[b]);
+            mMaxY = Math.max(mMaxY, mBucketMaxY[b]);
+        }
+    }
+
+    private void includeInBucket(int bucket, int vertex) {
+        mBucketMinX[bucket] = Math.min(mBucketMinX[bucket], mX[vertex]);
+        mBucketMinY[bucket] = Math.min(mBucketMinY[bucket], mY[vertex]);
+        mBucketMaxX[bucket] = Math.max(mBucketMaxX[bucket], mX[vertex]);
+        mBucketMaxY[bucket] = Math.max(mBucketMaxY[bucket], mY[vertex]);
+    }
+
+    /**
+     * Returns the distance from a point to the closest segment, if it is within a limit.
+     *
+     * @param x           Easting of the point
+     * @param y           Northing of the point
+     * @param maxDistance Segments farther away than this are ignored
+     * @return The distance, or Double.MAX_VALUE if no segment is within maxDistance
+     */
+    double distanceTo(double x, double y, double maxDistance) {
+        if (mSegmentCount == 0 || !near(mMinX, mMinY, mMaxX, mMaxY, x, y, maxDistance)) {
+            return Double.MAX_VALUE;
+        }
+
+        double best = maxDistance * maxDistance;
+        boolean found = false;
+        int count = mX.length;
+        for (int b = 0; b < mBucketMinX.length; b++) {
+            if (!near(mBucketMinX[b], mBucketMinY[b], mBucketMaxX[b], mBucketMaxY[b], x, y, maxDistance)) {
+                continue;
+            }
+
+            int end = Math.min(mSegmentCount, (b + 1) * BUCKET_SIZE);
+            for (int s = b * BUCKET_SIZE; s < end; s++) {
+                double distance = distanceToSegmentSquared(x, y, s, (s + 1) % count);
+                if (distance <= best) {
+                    best = distance;
+                    found = true;
+                }
+            }
+        }
+        return found ? Math.sqrt(best) : Double.MAX_VALUE;
+    }
+
+    /**
+     * Returns whether a point lies inside the ring, using the even-odd rule.
+     *
+     * @param x Easting of the point
+     * @param y Northing of the point
+     * @return True if the point is inside
+     */
+    boolean contains(double x, double y) {
+        if (mSegmentCount < 3 || x < mMinX || x > mMaxX || y < mMinY || y > mMaxY) {
+            return false;
+        }
+
+        // Count the edges crossed by a ray towards east
+        boolean inside = false;
+        int count = mX.length;
+        for (int b = 0; b < mBucketMinX.length; b++) {
+            if (y < mBucketMinY[b] || y >= mBucketMaxY[b] || x > mBucketMaxX[b]) {
+                continue;
+            }
+
+            int end = Math.min(mSegmentCount, (b + 1) * BUCKET_SIZE);
+            for (int s = b * BUCKET_SIZE; s < end; s++) {
+                int next = (s + 1) % count;
+                if ((mY[s] > y) != (mY[next] > y)
+                        && x < (mX[next] - mX[s]) * (y - mY[s]) / (mY[next] - mY[s]) + mX[s]) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    private double distanceToSegmentSquared(double x, double y, int start, int end) {
+        double dx = mX[end] - mX[start];
+        double dy = mY[end] - mY[start];
+        double px = x - mX[start];
+        double py = y - mY[start];
+
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared > 0 ? Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared)) : 0;
+        double ex = px - t * dx;
+        double ey = py - t * dy;
+        return ex * ex + ey * ey;
+    }
+
+    private static boolean near(double minX, double minY, double maxX, double maxY,
+                                double x, double y, double distance) {
+        return x >= minX - distance && x <= maxX + distance && y >= minY - distance && y <= maxY + distance;
+    }
+}
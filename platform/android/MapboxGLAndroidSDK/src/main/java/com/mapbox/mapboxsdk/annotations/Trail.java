@@ -0,0 +1,295 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.UiThread;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.views.MapView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Trail is a line that grows by appending points, such as the track of the user.
+ * </p>
+ * <p>
+ * Points are kept in a ring buffer of packed coordinates. The line is drawn as a chain of
+ * polylines of at most {@link #CHUNK_SIZE} points, and appending a point only replaces the
+ * newest of them, so the cost of a point doesn't grow with the length of the trail. Completed
+ * polylines can be decimated, and the oldest ones are dropped once the trail is full.
+ * Polylines removed from the map from outside, for example by
+ * {@link MapView#removeAllAnnotations()}, are drawn again with the next point.
+ * </p>
+ *
+ * @see MapView#addTrail(TrailOptions)
+ */
+public final class Trail {
+
+    /**
+     * The number of points per polyline the trail is drawn with.
+     */
+    public static final int CHUNK_SIZE = 64;
+
+    // Meters per degree of latitude
+    private static final double METERS_PER_DEGREE = 111319.49;
+
+    private final TrailOptions mOptions;
+    private MapView mMapView;
+
+    // Ring buffer of latitude, longitude pairs
+    private final double[] mCoordinates;
+    private final int mCapacity;
+    private int mStart = 0;
+    private int mSize = 0;
+
+    // Polylines from the oldest to the newest, neighbours share their end points
+    private final ArrayDeque<Chunk> mChunks = new ArrayDeque<>();
+
+    // Decimation state, preallocated for one chunk
+    private final boolean[] mKeep = new boolean[CHUNK_SIZE];
+    private final int[] mStack = new int[2 * CHUNK_SIZE];
+
+    private static class Chunk {
+        private Polyline polyline;
+        private int count;
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    public Trail(@NonNull TrailOptions options) {
+        mOptions = options;
+        mCapacity = options.getCapacity();
+        mCoordinates = new double[2 * mCapacity];
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    public void setMapView(MapView mapView) {
+        mMapView = mapView;
+    }
+
+    /**
+     * Appends a point to the trail.
+     *
+     * @param point the point to append
+     */
+    @UiThread
+    public void addPoint(@NonNull LatLng point) {
+        addPoint(point.getLatitude(), point.getLongitude());
+    }
+
+    /**
+     * Appends a point to the trail.
+     *
+     * @param latitude  the latitude of the point
+     * @param longitude the longitude of the point
+     */
+    @UiThread
+    public void addPoint(double latitude, double longitude) {
+        restoreRemovedPolylines();
+        if (mSize == mCapacity) {
+            dropOldestChunk();
+        }
+
+        int index = 2 * ((mStart + mSize) % mCapacity);
+        mCoordinates[index] = latitude;
+        mCoordinates[index + 1] = longitude;
+        mSize++;
+
+        Chunk head = mChunks.peekLast();
+        if (head == null) {
+            head = new Chunk();
+            mChunks.addLast(head);
+        }
+        head.count++;
+
+        if (head.count == CHUNK_SIZE) {
+            if (mOptions.getDecimation() > 0) {
+                decimate(head);
+            }
+            replacePolyline(head, mSize - head.count);
+
+            // the next chunk starts where this one ends
+            Chunk next = new Chunk();
+            next.count = 1;
+            mChunks.addLast(next);
+        } else {
+            replacePolyline(head, mSize - head.count);
+        }
+    }
+
+    /**
+     * Returns the number of points the trail keeps.
+     *
+     * @return the point count
+     */
+    public int getPointCount() {
+        return mSize;
+    }
+
+    /**
+     * Returns a copy of the points of the trail, from the oldest to the newest.
+     *
+     * @return the points
+     */
+    @NonNull
+    public List<LatLng> getPoints() {
+        List<LatLng> points = new ArrayList<>(mSize);
+        for (int i = 0; i < mSize; i++) {
+            int index = 2 * ((mStart + i) % mCapacity);
+            points.add(new LatLng(mCoordinates[index], mCoordinates[index + 1]));
+        }
+        return points;
+    }
+
+    /**
+     * Removes all points from the trail.
+     */
+    @UiThread
+    public void clear() {
+        for (Chunk chunk : mChunks) {
+            removePolyline(chunk);
+        }
+        mChunks.clear();
+        mStart = 0;
+        mSize = 0;
+    }
+
+    /**
+     * Removes the trail from the map.
+     */
+    @UiThread
+    public void remove() {
+        clear();
+        mMapView = null;
+    }
+
+    private void dropOldestChunk() {
+        Chunk oldest = mChunks.pollFirst();
+        removePolyline(oldest);
+
+        // keep the point shared with the next chunk
+        int dropped = mChunks.isEmpty() ? oldest.count : oldest.count - 1;
+        mStart = (mStart + dropped) % mCapacity;
+        mSize -= dropped;
+    }
+
+    // Draws the polylines again that were removed from the map without the trail knowing
+    private void restoreRemovedPolylines() {
+        if (mMapView == null) {
+            return;
+        }
+        int first = 0;
+        for (Chunk chunk : mChunks) {
+            if (chunk.polyline != null && chunk.polyline.getMapView() == null) {
+                chunk.polyline = null;
+                replacePolyline(chunk, first);
+            }
+            first += chunk.count - 1;
+        }
+    }
+
+    // Draws a chunk, starting at position first of the trail
+    private void replacePolyline(Chunk chunk, int first) {
+        removePolyline(chunk);
+        if (mMapView == null || chunk.count < 2) {
+            return;
+        }
+
+        PolylineOptions options = new PolylineOptions()
+                .color(mOptions.getColor())
+                .width(mOptions.getWidth())
+                .alpha(mOptions.getAlpha());
+        for (int i = first; i < first + chunk.count; i++) {
+            int index = 2 * ((mStart + i) % mCapacity);
+            options.add(new LatLng(mCoordinates[index], mCoordinates[index + 1]));
+        }
+        chunk.polyline = mMapView.addPolyline(options);
+        chunk.polyline.setOwner(this);
+    }
+
+    private void removePolyline(Chunk chunk) {
+        // skip polylines already removed from outside
+        if (chunk.polyline != null && mMapView != null && chunk.polyline.getMapView() != null) {
+            mMapView.removeAnnotation(chunk.polyline);
+        }
+        chunk.polyline = null;
+    }
+
+    // Drops points of the newest chunk that are within the tolerance, using Douglas-Peucker
+    private void decimate(Chunk chunk) {
+        int first = mSize - chunk.count;
+        int last = chunk.count - 1;
+        double tolerance = mOptions.getDecimation();
+
+        for (int i = 0; i <= last; i++) {
+            mKeep[i] = false;
+        }
+        mKeep[0] = true;
+        mKeep[last] = true;
+
+        int stackSize = 0;
+        mStack[stackSize++] = 0;
+        mStack[stackSize++] = last;
+        while (stackSize > 0) {
+            int end = mStack[--stackSize];
+            int start = mStack[--stackSize];
+
+            double maxDistance = 0;
+            int farthest = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distance = distanceToSegment(first + i, first + start, first + end);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            if (farthest != -1 && maxDistance > tolerance) {
+                mKeep[farthest] = true;
+                mStack[stackSize++] = start;
+                mStack[stackSize++] = farthest;
+                mStack[stackSize++] = farthest;
+                mStack[stackSize++] = end;
+            }
+        }
+
+        // Compact the kept points in place
+        int kept = 0;
+        for (int i = 0; i <= last; i++) {
+            if (mKeep[i]) {
+                int from = 2 * ((mStart + first + i) % mCapacity);
+                int to = 2 * ((mStart + first + kept) % mCapacity);
+                mCoordinates[to] = mCoordinates[from];
+                mCoordinates[to + 1] = mCoordinates[from + 1];
+                kept++;
+            }
+        }
+        mSize -= chunk.count - kept;
+        chunk.count = kept;
+    }
+
+    // Distance in meters from a point to a segment, all given as positions in the trail
+    private double distanceToSegment(int point, int start, int end) {
+        int p = 2 * ((mStart + point) % mCapacity);
+        int a = 2 * ((mStart + start) % mCapacity);
+        int b = 2 * ((mStart + end) % mCapacity);
+
+        // local planar approximation around the segment start
+        double scale = Math.cos(Math.toRadians(mCoordinates[a]));
+        double bx = (mCoordinates[b + 1] - mCoordinates[a + 1]) * scale;
+        double by = mCoordinates[b] - mCoordinates[a];
+        double px = (mCoordinates[p + 1] - mCoordinates[a + 1]) * scale;
+        double py = mCoordinates[p] - mCoordinates[a];
+
+        double lengthSquared = bx * bx + by * by;
+        double t = lengthSquared > 0 ? Math.max(0, Math.min(1, (px * bx + py * by) / lengthSquared)) : 0;
+        double dx = px - t * bx;
+        double dy = py - t * by;
+        return Math.sqrt(dx * dx + dy * dy) * METERS_PER_DEGREE;
+    }
+}
@@ -0,0 +1,98 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.graphics.Color;
+import android.support.annotation.FloatRange;
+import android.support.annotation.IntRange;
+
+/**
+ * Defines the appearance and limits of a {@link Trail}.
+ */
+public final class TrailOptions {
+
+    private int color = Color.BLACK;
+    private float width = 10;
+    private float alpha = 1.0f;
+    private int capacity = 10000;
+    private float tolerance = 0;
+
+    public TrailOptions() {
+    }
+
+    /**
+     * Sets the color of the trail.
+     *
+     * @param color - the color in ARGB format
+     * @return this TrailOptions
+     */
+    public TrailOptions color(int color) {
+        this.color = color;
+        return this;
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     * Sets the width of the trail.
+     *
+     * @param width in pixels
+     * @return this TrailOptions
+     */
+    public TrailOptions width(float width) {
+        this.width = width;
+        return this;
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public TrailOptions alpha(float alpha) {
+        this.alpha = alpha;
+        return this;
+    }
+
+    public float getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Sets how many points the trail keeps. Once full, the oldest part of the trail is dropped.
+     * Defaults to 10000.
+     *
+     * @param capacity the maximum number of points, at least twice {@link Trail#CHUNK_SIZE}
+     * @return this TrailOptions
+     */
+    public TrailOptions capacity(@IntRange(from = 2 * Trail.CHUNK_SIZE) int capacity) {
+        if (capacity < 2 * Trail.CHUNK_SIZE) {
+            throw new IllegalArgumentException("capacity must be at least " + 2 * Trail.CHUNK_SIZE);
+        }
+        this.capacity = capacity;
+        return this;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets how far older points may deviate from the drawn line. Points that are closer to the
+     * line through their neighbours are dropped once they are no longer among the newest points.
+     * Defaults to 0, which keeps all points.
+     *
+     * @param tolerance the tolerance in meters
+     * @return this TrailOptions
+     */
+    public TrailOptions decimation(@FloatRange(from = 0) float tolerance) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("tolerance must not be negative");
+        }
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    public float getDecimation() {
+        return tolerance;
+    }
+}
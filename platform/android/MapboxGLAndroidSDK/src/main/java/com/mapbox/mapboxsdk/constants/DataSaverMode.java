@@ -0,0 +1,47 @@
+package com.mapbox.mapboxsdk.constants;
+
+import android.support.annotation.IntDef;
+
+import com.mapbox.mapboxsdk.views.MapView;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * DataSaverMode exposes the ways the map can reduce the data it loads on slow or expensive
+ * connections.
+ * <p>
+ * While data saving is active raster tiles are requested at standard density instead of
+ * high density, fewer tile requests are made at the same time and offline region downloads
+ * continue one request at a time.
+ * </p>
+ *
+ * @see MapView#setDataSaverMode(int)
+ */
+public class DataSaverMode {
+
+    /**
+     * Indicates the parameter accepts one of the values from {@link DataSaverMode}.
+     */
+    @IntDef({DATA_SAVER_OFF, DATA_SAVER_ON, DATA_SAVER_AUTOMATIC})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Mode {
+    }
+
+    /**
+     * Data saving is disabled.
+     */
+    public static final int DATA_SAVER_OFF = 0x00000000;
+
+    /**
+     * Data saving is always active.
+     */
+    public static final int DATA_SAVER_ON = 0x00000001;
+
+    /**
+     * Data saving is active on metered and 2G connections, and while the measured bandwidth is
+     * low. It switches off again once the connection improves.
+     */
+    public static final int DATA_SAVER_AUTOMATIC = 0x00000002;
+
+}
@@ -0,0 +1,43 @@
+package com.mapbox.mapboxsdk.constants;
+
+import android.support.annotation.IntDef;
+
+import com.mapbox.mapboxsdk.location.LocationServices;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * LocationDelivery exposes the ways a LocationListener can receive location updates.
+ *
+ * @see LocationServices#addLocationListener(com.mapbox.mapboxsdk.location.LocationListener, int)
+ */
+public class LocationDelivery {
+
+    /**
+     * Indicates the parameter accepts one of the values from {@link LocationDelivery}.
+     */
+    @IntDef({DELIVERY_MAIN_THREAD, DELIVERY_BACKGROUND, DELIVERY_CONFLATED})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Mode {
+    }
+
+    /**
+     * Every location update is delivered on the main thread, in order.
+     */
+    public static final int DELIVERY_MAIN_THREAD = 0x00000000;
+
+    /**
+     * Every location update is delivered on a background thread shared by all listeners of
+     * this kind, in order. Slow listeners don't hold up the main thread.
+     */
+    public static final int DELIVERY_BACKGROUND = 0x00000001;
+
+    /**
+     * Only the latest location is delivered, on a background thread shared by all listeners of
+     * this kind, separate from the one of {@link #DELIVERY_BACKGROUND}. Updates that arrive
+     * while the listener is still busy replace each other.
+     */
+    public static final int DELIVERY_CONFLATED = 0x00000002;
+
+}
@@ -0,0 +1,380 @@
+package com.mapbox.mapboxsdk.geojson;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+import android.util.Log;
+
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.annotations.PolygonOptions;
+import com.mapbox.mapboxsdk.annotations.PolylineOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.views.MapView;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Loads GeoJSON documents into a map as markers, polylines and polygons.
+ * </p>
+ * <p>
+ * Documents are read with a {@link GeoJsonReader} on a background thread. Features are added to
+ * the map in batches as they are read, so large documents show up progressively and are never
+ * held in memory as a whole. Reading waits while a few batches are still to be added, so it
+ * doesn't outpace the main thread. Loading stops once the map is destroyed.
+ * </p>
+ */
+public final class GeoJsonLoader {
+
+    private static final String TAG = "GeoJsonLoader";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    // Batches handed to the main thread and not added yet, at most
+    private static final int MAX_PENDING_BATCHES = 2;
+
+    // How often a reader waiting for the main thread checks for cancellation
+    private static final long PENDING_POLL_MS = 100;
+
+    // Shared by all loaders, documents are read one at a time
+    private static Executor sExecutor;
+    private static Handler sMainHandler;
+
+    private final MapView mMapView;
+    private PolylineOptions mPolylineStyle = new PolylineOptions();
+    private PolygonOptions mPolygonStyle = new PolygonOptions();
+    private int mBatchSize = DEFAULT_BATCH_SIZE;
+
+    // Cleared when cancelled, so pending batches are dropped
+    private volatile boolean mActive = true;
+
+    // Released by the main thread as it takes batches
+    private final Semaphore mPendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+
+    /**
+     * Callback for the outcome of a load.
+     */
+    public interface Callback {
+        /**
+         * Called on the main thread once all features were added.
+         *
+         * @param markers   The number of markers added
+         * @param polylines The number of polylines added
+         * @param polygons  The number of polygons added
+         */
+        void onLoaded(int markers, int polylines, int polygons);
+
+        /**
+         * Called on the main thread if the document couldn't be read. Features read before the
+         * error stay on the map.
+         *
+         * @param exception The error
+         */
+        void onError(@NonNull IOException exception);
+    }
+
+    /**
+     * Creates a loader for a map.
+     *
+     * @param mapView The map to add the features to
+     */
+    public GeoJsonLoader(@NonNull MapView mapView) {
+        mMapView = mapView;
+    }
+
+    /**
+     * Sets the color, width and alpha of the polylines added, taken from the options given.
+     *
+     * @param style The options to copy the style from
+     * @return this GeoJsonLoader
+     */
+    public GeoJsonLoader polylineStyle(@NonNull PolylineOptions style) {
+        mPolylineStyle = style;
+        return this;
+    }
+
+    /**
+     * Sets the fill color, stroke color and alpha of the polygons added, taken from the options
+     * given.
+     *
+     * @param style The options to copy the style from
+     * @return this GeoJsonLoader
+     */
+    public GeoJsonLoader polygonStyle(@NonNull PolygonOptions style) {
+        mPolygonStyle = style;
+        return this;
+    }
+
+    /**
+     * Sets how many features are added to the map at once. Defaults to 500.
+     *
+     * @param batchSize The number of features per batch
+     * @return this GeoJsonLoader
+     */
+    public GeoJsonLoader batchSize(@IntRange(from = 1) int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        mBatchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Loads a GeoJSON file.
+     *
+     * @param file     The file to read
+     * @param callback The callback for the outcome, or null
+     */
+    @UiThread
+    public void load(@NonNull final File file, @Nullable final Callback callback) {
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                InputStream stream;
+                try {
+                    stream = new FileInputStream(file);
+                } catch (IOException exception) {
+                    postError(exception, callback);
+                    return;
+                }
+                read(stream, callback);
+            }
+        });
+    }
+
+    /**
+     * Loads a GeoJSON document from a stream, for example an asset. The stream is closed once
+     * read.
+     *
+     * @param stream   The stream to read, encoded as UTF-8
+     * @param callback The callback for the outcome, or null
+     */
+    @UiThread
+    public void load(@NonNull final InputStream stream, @Nullable final Callback callback) {
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                read(stream, callback);
+            }
+        });
+    }
+
+    /**
+     * Stops reading, and drops the features not added to the map yet. The callback isn't called.
+     */
+    @UiThread
+    public void cancel() {
+        mActive = false;
+    }
+
+    // Runs on the background thread
+    private void read(InputStream stream, final Callback callback) {
+        GeoJsonReader reader = new GeoJsonReader(new BufferedReader(
+                new InputStreamReader(stream, Charset.forName("UTF-8")), BUFFER_SIZE));
+        final Batcher batcher = new Batcher();
+        try {
+            reader.read(batcher);
+            batcher.flush();
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    if (callback != null) {
+                        callback.onLoaded(batcher.mMarkerCount, batcher.mPolylineCount, batcher.mPolygonCount);
+                    }
+                }
+            });
+        } catch (CancelledException exception) {
+            // nothing to report
+        } catch (IOException | RuntimeException exception) {
+            try {
+                batcher.flush();
+            } catch (CancelledException cancelled) {
+                return;
+            }
+            postError(exception instanceof IOException
+                    ? (IOException) exception : new IOException(exception), callback);
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException exception) {
+                Log.w(TAG, "Failed to close GeoJSON source", exception);
+            }
+        }
+    }
+
+    private void postError(final IOException exception, final Callback callback) {
+        Log.w(TAG, "Failed to read GeoJSON", exception);
+        post(new Runnable() {
+            @Override
+            public void run() {
+                if (callback != null) {
+                    callback.onError(exception);
+                }
+            }
+        });
+    }
+
+    // Runs on the main thread unless cancelled or the map was destroyed in the meantime
+    private void post(final Runnable runnable) {
+        post(runnable, null);
+    }
+
+    // Releases a permit of pending once run or dropped
+    private void post(final Runnable runnable, @Nullable final Semaphore pending) {
+        getMainHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (mMapView.isDestroyed()) {
+                        mActive = false;
+                    }
+                    if (mActive) {
+                        runnable.run();
+                    }
+                } finally {
+                    if (pending != null) {
+                        pending.release();
+                    }
+                }
+            }
+        });
+    }
+
+    // Turns geometries into options and hands them to the main thread in batches
+    private final class Batcher implements GeoJsonReader.Handler {
+
+        private List<MarkerOptions> mMarkers = new ArrayList<>();
+        private List<PolylineOptions> mPolylines = new ArrayList<>();
+        private List<PolygonOptions> mPolygons = new ArrayList<>();
+
+        private int mMarkerCount;
+        private int mPolylineCount;
+        private int mPolygonCount;
+
+        @Override
+        public void onPoint(double latitude, double longitude) {
+            mMarkers.add(new MarkerOptions().position(new LatLng(latitude, longitude)));
+            mMarkerCount++;
+            onFeature();
+        }
+
+        @Override
+        public void onLineString(@NonNull double[] coordinates, int offset, int count) {
+            PolylineOptions options = new PolylineOptions()
+                    .color(mPolylineStyle.getColor())
+                    .width(mPolylineStyle.getWidth())
+                    .alpha(mPolylineStyle.getAlpha());
+            for (int i = offset; i < offset + count; i++) {
+                options.add(new LatLng(coordinates[2 * i], coordinates[2 * i + 1]));
+            }
+            mPolylines.add(options);
+            mPolylineCount++;
+            onFeature();
+        }
+
+        @Override
+        public void onPolygon(@NonNull double[] coordinates, int offset, int count) {
+            PolygonOptions options = new PolygonOptions()
+                    .fillColor(mPolygonStyle.getFillColor())
+                    .strokeColor(mPolygonStyle.getStrokeColor())
+                    .alpha(mPolygonStyle.getAlpha());
+            for (int i = offset; i < offset + count; i++) {
+                options.add(new LatLng(coordinates[2 * i], coordinates[2 * i + 1]));
+            }
+            mPolygons.add(options);
+            mPolygonCount++;
+            onFeature();
+        }
+
+        private void onFeature() {
+            if (!mActive) {
+                throw new CancelledException();
+            }
+            if (mMarkers.size() + mPolylines.size() + mPolygons.size() >= mBatchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (mMarkers.isEmpty() && mPolylines.isEmpty() && mPolygons.isEmpty()) {
+                return;
+            }
+
+            // wait for the main thread, so parsed features don't pile up in its queue
+            try {
+                while (!mPendingBatches.tryAcquire(PENDING_POLL_MS, TimeUnit.MILLISECONDS)) {
+                    if (!mActive) {
+                        throw new CancelledException();
+                    }
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new CancelledException();
+            }
+
+            final List<MarkerOptions> markers = mMarkers;
+            final List<PolylineOptions> polylines = mPolylines;
+            final List<PolygonOptions> polygons = mPolygons;
+            mMarkers = new ArrayList<>();
+            mPolylines = new ArrayList<>();
+            mPolygons = new ArrayList<>();
+
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!markers.isEmpty()) {
+                        mMapView.addMarkers(markers);
+                    }
+                    if (!polylines.isEmpty()) {
+                        mMapView.addPolylines(polylines);
+                    }
+                    if (!polygons.isEmpty()) {
+                        mMapView.addPolygons(polygons);
+                    }
+                }
+            }, mPendingBatches);
+        }
+    }
+
+    // Unwinds the reader once the load is cancelled
+    private static final class CancelledException extends RuntimeException {
+    }
+
+    private static synchronized Executor getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "GeoJsonLoader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+
+    private static synchronized Handler getMainHandler() {
+        if (sMainHandler == null) {
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return sMainHandler;
+    }
+}
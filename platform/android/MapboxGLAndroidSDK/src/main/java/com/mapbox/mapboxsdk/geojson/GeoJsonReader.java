@@ -0,0 +1,234 @@
+package com.mapbox.mapboxsdk.geojson;
+
+import android.support.annotation.NonNull;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Streaming GeoJSON reader.
+ * </p>
+ * <p>
+ * The document is tokenized as it is read, so memory use depends on the largest geometry rather
+ * than on the size of the document. Geometries are reported as soon as they are complete, with
+ * their coordinates packed as latitude, longitude pairs in a buffer that is reused for the next
+ * geometry. Properties are skipped.
+ * </p>
+ * <p>
+ * Multi geometries and geometry collections are reported as their parts. Polygons are reported
+ * with their exterior ring only.
+ * </p>
+ */
+public final class GeoJsonReader implements Closeable {
+
+    /**
+     * Receives the geometries of a document, in document order.
+     */
+    public interface Handler {
+
+        /**
+         * Called for each point.
+         *
+         * @param latitude  The latitude of the point
+         * @param longitude The longitude of the point
+         */
+        void onPoint(double latitude, double longitude);
+
+        /**
+         * Called for each line string.
+         *
+         * @param coordinates Packed latitude, longitude pairs, only valid during the call
+         * @param offset      The index of the first point
+         * @param count       The number of points
+         */
+        void onLineString(@NonNull double[] coordinates, int offset, int count);
+
+        /**
+         * Called for each polygon, with its exterior ring.
+         *
+         * @param coordinates Packed latitude, longitude pairs, only valid during the call
+         * @param offset      The index of the first point
+         * @param count       The number of points
+         */
+        void onPolygon(@NonNull double[] coordinates, int offset, int count);
+    }
+
+    private final JsonReader mReader;
+
+    // Coordinates of the current geometry, as latitude, longitude pairs
+    private double[] mCoordinates = new double[256];
+    private int mPointCount;
+
+    // Point counts at the end of each list of positions, and ring counts at the end of each
+    // list of rings
+    private int[] mRingEnds = new int[16];
+    private int mRingCount;
+    private int[] mPolygonEnds = new int[16];
+    private int mPolygonCount;
+
+    /**
+     * Creates a reader. Wrap unbuffered sources in a {@link java.io.BufferedReader}.
+     *
+     * @param reader The source of the document
+     */
+    public GeoJsonReader(@NonNull Reader reader) {
+        mReader = new JsonReader(reader);
+        mReader.setLenient(true);
+    }
+
+    /**
+     * Reads the whole document, which can be a feature collection, a feature or a geometry.
+     *
+     * @param handler The handler to report geometries to
+     * @throws IOException If the source can't be read or isn't valid JSON
+     */
+    public void read(@NonNull Handler handler) throws IOException {
+        readObject(handler);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mReader.close();
+    }
+
+    // Reads any GeoJSON object, and reports it once complete if it is a geometry
+    private void readObject(Handler handler) throws IOException {
+        if (mReader.peek() != JsonToken.BEGIN_OBJECT) {
+            mReader.skipValue();
+            return;
+        }
+
+        String type = null;
+        boolean hasCoordinates = false;
+
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            String name = mReader.nextName();
+            switch (name) {
+                case "type":
+                    type = mReader.nextString();
+                    break;
+                case "coordinates":
+                    mPointCount = 0;
+                    mRingCount = 0;
+                    mPolygonCount = 0;
+                    readCoordinates();
+                    hasCoordinates = true;
+                    break;
+                case "geometry":
+                    readObject(handler);
+                    break;
+                case "features":
+                case "geometries":
+                    readArray(handler);
+                    break;
+                default:
+                    mReader.skipValue();
+                    break;
+            }
+        }
+        mReader.endObject();
+
+        if (hasCoordinates && type != null) {
+            report(type, handler);
+        }
+    }
+
+    private void readArray(Handler handler) throws IOException {
+        if (mReader.peek() != JsonToken.BEGIN_ARRAY) {
+            mReader.skipValue();
+            return;
+        }
+
+        mReader.beginArray();
+        while (mReader.hasNext()) {
+            readObject(handler);
+        }
+        mReader.endArray();
+    }
+
+    // Reads nested coordinate arrays and returns their depth, 1 for a position
+    private int readCoordinates() throws IOException {
+        if (mReader.peek() != JsonToken.BEGIN_ARRAY) {
+            mReader.skipValue();
+            return 0;
+        }
+
+        mReader.beginArray();
+        if (mReader.peek() == JsonToken.NUMBER) {
+            // longitude, latitude and optional altitude
+            double longitude = mReader.nextDouble();
+            double latitude = mReader.hasNext() ? mReader.nextDouble() : 0;
+            while (mReader.hasNext()) {
+                mReader.skipValue();
+            }
+            mReader.endArray();
+            addPoint(latitude, longitude);
+            return 1;
+        }
+
+        int depth = 0;
+        while (mReader.hasNext()) {
+            depth = Math.max(depth, readCoordinates() + 1);
+        }
+        mReader.endArray();
+
+        if (depth == 2) {
+            mRingEnds = grow(mRingEnds, mRingCount + 1);
+            mRingEnds[mRingCount++] = mPointCount;
+        } else if (depth == 3) {
+            mPolygonEnds = grow(mPolygonEnds, mPolygonCount + 1);
+            mPolygonEnds[mPolygonCount++] = mRingCount;
+        }
+        return depth;
+    }
+
+    private void addPoint(double latitude, double longitude) {
+        if (2 * mPointCount + 2 > mCoordinates.length) {
+            mCoordinates = Arrays.copyOf(mCoordinates, 2 * mCoordinates.length);
+        }
+        mCoordinates[2 * mPointCount] = latitude;
+        mCoordinates[2 * mPointCount + 1] = longitude;
+        mPointCount++;
+    }
+
+    private void report(String type, Handler handler) {
+        switch (type) {
+            case "Point":
+            case "MultiPoint":
+                for (int i = 0; i < mPointCount; i++) {
+                    handler.onPoint(mCoordinates[2 * i], mCoordinates[2 * i + 1]);
+                }
+                break;
+            case "LineString":
+            case "MultiLineString":
+                for (int i = 0; i < mRingCount; i++) {
+                    int start = i == 0 ? 0 : mRingEnds[i - 1];
+                    handler.onLineString(mCoordinates, start, mRingEnds[i] - start);
+                }
+                break;
+            case "Polygon":
+            case "MultiPolygon":
+                for (int i = 0; i < mPolygonCount; i++) {
+                    // the exterior ring is the first of each polygon
+                    int ring = i == 0 ? 0 : mPolygonEnds[i - 1];
+                    if (ring < mPolygonEnds[i]) {
+                        int start = ring == 0 ? 0 : mRingEnds[ring - 1];
+                        handler.onPolygon(mCoordinates, start, mRingEnds[ring] - start);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static int[] grow(int[] array, int size) {
+        return size > array.length ? Arrays.copyOf(array, 2 * array.length) : array;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * This package contains classes that read GeoJSON and turn it into annotations.
+ */
+package com.mapbox.mapboxsdk.geojson;
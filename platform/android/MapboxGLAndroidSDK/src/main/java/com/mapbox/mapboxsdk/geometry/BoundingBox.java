@@ -8,15 +8,19 @@ import java.util.List;
 
 /**
  * A rectangular geographical area defined in latitude and longitude units.
+ * <p>
+ * Methods ending in {@code Into} and {@link #expandToInclude(double, double)} change an existing
+ * box instead of creating a new one, so boxes can be reused in code that runs every frame.
+ * </p>
  */
 public final class BoundingBox implements Parcelable, Serializable {
 
-    private final double mLatNorth;
-    private final double mLatSouth;
-    private final double mLonEast;
-    private final double mLonWest;
+    private double mLatNorth;
+    private double mLatSouth;
+    private double mLonEast;
+    private double mLonWest;
 
-    private final boolean mIsValid;
+    private boolean mIsValid;
 
     /**
      * Construct a new bounding box based on its corners, given in NESW
@@ -28,11 +32,7 @@ public final class BoundingBox implements Parcelable, Serializable {
      * @param westLongitude   Western Longitude
      */
     public BoundingBox(final double northLatitude, final double eastLongitude, final double southLatitude, final double westLongitude) {
-        this.mLatNorth = northLatitude;
-        this.mLonEast = eastLongitude;
-        this.mLatSouth = southLatitude;
-        this.mLonWest = westLongitude;
-        this.mIsValid = ((this.mLonWest < this.mLonEast) && (this.mLatNorth > this.mLatSouth));
+        set(northLatitude, eastLongitude, southLatitude, westLongitude);
     }
 
     /**
@@ -58,6 +58,34 @@ public final class BoundingBox implements Parcelable, Serializable {
         this.mIsValid = other.isValid();
     }
     
+    /**
+     * Changes the corners of this bounding box, given in NESW order.
+     *
+     * @param northLatitude Northern Latitude
+     * @param eastLongitude Eastern Longitude
+     * @param southLatitude Southern Latitude
+     * @param westLongitude Western Longitude
+     * @return this BoundingBox
+     */
+    public BoundingBox set(final double northLatitude, final double eastLongitude, final double southLatitude, final double westLongitude) {
+        this.mLatNorth = northLatitude;
+        this.mLonEast = eastLongitude;
+        this.mLatSouth = southLatitude;
+        this.mLonWest = westLongitude;
+        this.mIsValid = ((this.mLonWest < this.mLonEast) && (this.mLatNorth > this.mLatSouth));
+        return this;
+    }
+
+    /**
+     * Changes this bounding box to match another one.
+     *
+     * @param other the other bounding box
+     * @return this BoundingBox
+     */
+    public BoundingBox set(final BoundingBox other) {
+        return set(other.getLatNorth(), other.getLonEast(), other.getLatSouth(), other.getLonWest());
+    }
+
     /**
      * Calculates the centerpoint of this bounding box by simple interpolation and returns
      * it as a point. This is a non-geodesic calculation which is not the geographic center.
@@ -141,22 +169,44 @@ public final class BoundingBox implements Parcelable, Serializable {
      * @return BoundingBox
      */
     public static BoundingBox fromLatLngs(final List<? extends ILatLng> latLngs) {
-        double minLat = 90,
-                minLon = 180,
-                maxLat = -90,
-                maxLon = -180;
-
+        BoundingBox box = new BoundingBox(-90, -180, 90, 180);
         for (final ILatLng gp : latLngs) {
-            final double latitude = gp.getLatitude();
-            final double longitude = gp.getLongitude();
+            box.expandToInclude(gp.getLatitude(), gp.getLongitude());
+        }
+        return box;
+    }
 
-            minLat = Math.min(minLat, latitude);
-            minLon = Math.min(minLon, longitude);
-            maxLat = Math.max(maxLat, latitude);
-            maxLon = Math.max(maxLon, longitude);
+    /**
+     * Constructs a bounding box that contains points of a packed array of
+     * latitude, longitude pairs. No points will yield an invalid bounding box.
+     *
+     * @param coordinates Packed latitude, longitude pairs
+     * @param offset      Index of the first point to include
+     * @param count       Number of points to include
+     * @return BoundingBox
+     */
+    public static BoundingBox fromPackedCoordinates(final double[] coordinates, final int offset, final int count) {
+        if (offset < 0 || count < 0 || 2 * (offset + count) > coordinates.length) {
+            throw new IllegalArgumentException("points " + offset + " to " + (offset + count) + " are out of range");
         }
 
-        return new BoundingBox(maxLat, maxLon, minLat, minLon);
+        BoundingBox box = new BoundingBox(-90, -180, 90, 180);
+        for (int i = offset; i < offset + count; i++) {
+            box.expandToInclude(coordinates[2 * i], coordinates[2 * i + 1]);
+        }
+        return box;
+    }
+
+    /**
+     * Stretches this bounding box to contain a point.
+     *
+     * @param latitude  Latitude of the point
+     * @param longitude Longitude of the point
+     * @return this BoundingBox
+     */
+    public BoundingBox expandToInclude(final double latitude, final double longitude) {
+        return set(Math.max(this.mLatNorth, latitude), Math.max(this.mLonEast, longitude),
+                Math.min(this.mLatSouth, latitude), Math.min(this.mLonWest, longitude));
     }
 
     /**
@@ -221,6 +271,20 @@ public final class BoundingBox implements Parcelable, Serializable {
                 (this.mLonWest > latWest) ? latWest : this.mLonWest);
     }
 
+    /**
+     * Stores the bounding box that stretches to contain both this and another BoundingBox.
+     *
+     * @param box    BoundingBox to add
+     * @param result BoundingBox that receives the union, may be this or box
+     * @return result
+     */
+    public BoundingBox unionInto(final BoundingBox box, final BoundingBox result) {
+        return result.set(Math.max(this.mLatNorth, box.getLatNorth()),
+                Math.max(this.mLonEast, box.getLonEast()),
+                Math.min(this.mLatSouth, box.getLatSouth()),
+                Math.min(this.mLonWest, box.getLonWest()));
+    }
+
     /**
      * Returns a new BoundingBox that is the intersection of this with another box
      *
@@ -228,16 +292,29 @@ public final class BoundingBox implements Parcelable, Serializable {
      * @return BoundingBox
      */
     public BoundingBox intersect(BoundingBox box) {
+        return intersect(box.getLatNorth(), box.getLonEast(), box.getLatSouth(), box.getLonWest());
+    }
+
+    /**
+     * Stores the intersection of this with another box. The result is left
+     * unchanged if the boxes don't intersect.
+     *
+     * @param box    BoundingBox to intersect with
+     * @param result BoundingBox that receives the intersection, may be this or box
+     * @return true if the boxes intersect
+     */
+    public boolean intersectInto(final BoundingBox box, final BoundingBox result) {
         double minLatWest = Math.max(getLonWest(), box.getLonWest());
         double maxLatEast = Math.min(getLonEast(), box.getLonEast());
         if (maxLatEast > minLatWest) {
             double minLonSouth = Math.max(getLatSouth(), box.getLatSouth());
             double maxLonNorth = Math.min(getLatNorth(), box.getLatNorth());
             if (maxLonNorth > minLonSouth) {
-                return new BoundingBox(maxLonNorth, maxLatEast, minLonSouth, minLatWest);
+                result.set(maxLonNorth, maxLatEast, minLonSouth, minLatWest);
+                return true;
             }
         }
-        return null;
+        return false;
     }
 
     /**
@@ -250,7 +327,16 @@ public final class BoundingBox implements Parcelable, Serializable {
      * @return BoundingBox
      */
     public BoundingBox intersect(double northLongitude, double eastLatitude, double southLongitude, double westLatitude) {
-        return intersect(new BoundingBox(northLongitude, eastLatitude, southLongitude, westLatitude));
+        double minLatWest = Math.max(getLonWest(), westLatitude);
+        double maxLatEast = Math.min(getLonEast(), eastLatitude);
+        if (maxLatEast > minLatWest) {
+            double minLonSouth = Math.max(getLatSouth(), southLongitude);
+            double maxLonNorth = Math.min(getLatNorth(), northLongitude);
+            if (maxLonNorth > minLonSouth) {
+                return new BoundingBox(maxLonNorth, maxLatEast, minLonSouth, minLatWest);
+            }
+        }
+        return null;
     }
 
     public static final Parcelable.Creator<BoundingBox> CREATOR =
@@ -0,0 +1,380 @@
+package com.mapbox.mapboxsdk.geometry;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mapbox.mapboxsdk.constants.GeoConstants;
+import com.mapbox.mapboxsdk.constants.MathConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * GeoMath computes distances, bearings and destination points on a sphere for many coordinates
+ * at once.
+ * </p>
+ * <p>
+ * Coordinates are passed as packed arrays of latitude, longitude pairs in degrees, so
+ * {@code coordinates[2 * i]} is the latitude and {@code coordinates[2 * i + 1]} the longitude
+ * of point {@code i}. Results are written to arrays supplied by the caller, which can be reused
+ * from call to call.
+ * </p>
+ * <p>
+ * Distances are exact on the sphere (haversine) unless an approximation is requested. The
+ * equirectangular approximation scales longitudes by the cosine of the mean latitude of both
+ * points, needs no trigonometry per point and is accurate to well below a percent for distances
+ * up to some tens of kilometers away from the poles.
+ * </p>
+ * <p>
+ * Points can also be projected to and from the Mercator meters of {@link ProjectedMeters}, as
+ * packed northing, easting pairs.
+ * </p>
+ */
+public final class GeoMath {
+
+    // Matrices with fewer cells than this are not worth splitting over threads
+    private static final int MIN_PARALLEL_CELLS = 4096;
+
+    private GeoMath() {
+    }
+
+    /**
+     * Returns the distance between two points.
+     *
+     * @param latitude1  Latitude of the first point in degrees
+     * @param longitude1 Longitude of the first point in degrees
+     * @param latitude2  Latitude of the second point in degrees
+     * @param longitude2 Longitude of the second point in degrees
+     * @return Distance in meters
+     */
+    public static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        return haversine(latitude1 * MathConstants.DEG2RAD, Math.cos(latitude1 * MathConstants.DEG2RAD),
+                latitude2 * MathConstants.DEG2RAD, Math.cos(latitude2 * MathConstants.DEG2RAD),
+                (longitude2 - longitude1) * MathConstants.DEG2RAD);
+    }
+
+    /**
+     * Computes the distances from one point to many.
+     *
+     * @param latitude    Latitude of the point in degrees
+     * @param longitude   Longitude of the point in degrees
+     * @param coordinates Packed latitude, longitude pairs of the other points
+     * @param distances   Receives the distance in meters to each of the other points
+     * @param approximate True to use the equirectangular approximation
+     */
+    public static void distances(double latitude, double longitude, @NonNull double[] coordinates,
+                                 @NonNull double[] distances, boolean approximate) {
+        int count = pointCount(coordinates);
+        checkLength(distances, count);
+
+        double lat = latitude * MathConstants.DEG2RAD;
+        double cosLat = Math.cos(lat);
+        double sinLat = Math.sin(lat);
+        for (int i = 0; i < count; i++) {
+            double otherLat = coordinates[2 * i] * MathConstants.DEG2RAD;
+            double deltaLon = (coordinates[2 * i + 1] - longitude) * MathConstants.DEG2RAD;
+            if (approximate) {
+                distances[i] = equirectangular(lat, cosLat, sinLat, otherLat, deltaLon);
+            } else {
+                distances[i] = haversine(lat, cosLat, otherLat, Math.cos(otherLat), deltaLon);
+            }
+        }
+    }
+
+    /**
+     * Computes the distances between all points of two sets.
+     *
+     * @param from        Packed latitude, longitude pairs of the first set, n points
+     * @param to          Packed latitude, longitude pairs of the second set, m points
+     * @param distances   Receives the distances in meters by row, the distance from point i of the
+     *                    first set to point j of the second set is at {@code i * m + j}
+     * @param approximate True to use the equirectangular approximation
+     */
+    public static void distanceMatrix(@NonNull double[] from, @NonNull double[] to,
+                                      @NonNull double[] distances, boolean approximate) {
+        distanceMatrix(from, to, distances, approximate, null);
+    }
+
+    /**
+     * Computes the distances between all points of two sets, splitting large matrices over the
+     * threads of an executor. Returns once all distances are computed.
+     *
+     * @param from        Packed latitude, longitude pairs of the first set, n points
+     * @param to          Packed latitude, longitude pairs of the second set, m points
+     * @param distances   Receives the distances in meters by row, the distance from point i of the
+     *                    first set to point j of the second set is at {@code i * m + j}
+     * @param approximate True to use the equirectangular approximation
+     * @param executor    Executor to compute rows on, or null to compute on the calling thread
+     */
+    public static void distanceMatrix(@NonNull double[] from, @NonNull final double[] to,
+                                      @NonNull final double[] distances, final boolean approximate,
+                                      @Nullable ExecutorService executor) {
+        final int rows = pointCount(from);
+        final int columns = pointCount(to);
+        long cells = (long) rows * columns;
+        checkLength(distances, cells);
+
+        // Convert both sets once instead of once per cell
+        final double[] fromLat = new double[rows];
+        final double[] fromLon = new double[rows];
+        final double[] fromCos = new double[rows];
+        radians(from, fromLat, fromLon, fromCos);
+        final double[] toLat = new double[columns];
+        final double[] toLon = new double[columns];
+        final double[] toCos = new double[columns];
+        radians(to, toLat, toLon, toCos);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (executor == null || threads < 2 || rows < 2 || cells < MIN_PARALLEL_CELLS) {
+            matrixRows(0, rows, fromLat, fromLon, fromCos, toLat, toLon, toCos, distances, approximate);
+            return;
+        }
+
+        int rowsPerTask = (rows + threads - 1) / threads;
+        List<Future<Void>> futures = new ArrayList<>(threads);
+        for (int start = 0; start < rows; start += rowsPerTask) {
+            final int first = start;
+            final int end = Math.min(rows, start + rowsPerTask);
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    matrixRows(first, end, fromLat, fromLon, fromCos, toLat, toLon, toCos, distances, approximate);
+                    return null;
+                }
+            }));
+        }
+
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing distances", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Computing distances failed", e.getCause());
+        }
+    }
+
+    /**
+     * Returns the index of the point closest to a given point.
+     *
+     * @param latitude    Latitude of the point in degrees
+     * @param longitude   Longitude of the point in degrees
+     * @param coordinates Packed latitude, longitude pairs of the candidates
+     * @param approximate True to use the equirectangular approximation
+     * @return Index of the closest candidate, or -1 if there are none
+     */
+    public static int nearest(double latitude, double longitude, @NonNull double[] coordinates, boolean approximate) {
+        int count = pointCount(coordinates);
+        double lat = latitude * MathConstants.DEG2RAD;
+        double cosLat = Math.cos(lat);
+        double sinLat = Math.sin(lat);
+
+        int nearest = -1;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            double otherLat = coordinates[2 * i] * MathConstants.DEG2RAD;
+            double deltaLon = (coordinates[2 * i + 1] - longitude) * MathConstants.DEG2RAD;
+            double distance = approximate
+                    ? equirectangular(lat, cosLat, sinLat, otherLat, deltaLon)
+                    : haversine(lat, cosLat, otherLat, Math.cos(otherLat), deltaLon);
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Computes the initial bearings from one point to many.
+     *
+     * @param latitude    Latitude of the point in degrees
+     * @param longitude   Longitude of the point in degrees
+     * @param coordinates Packed latitude, longitude pairs of the other points
+     * @param bearings    Receives the bearing in degrees clockwise from north, from 0 up to 360,
+     *                    towards each of the other points
+     */
+    public static void bearings(double latitude, double longitude, @NonNull double[] coordinates,
+                                @NonNull double[] bearings) {
+        int count = pointCount(coordinates);
+        checkLength(bearings, count);
+
+        double lat = latitude * MathConstants.DEG2RAD;
+        double sinLat = Math.sin(lat);
+        double cosLat = Math.cos(lat);
+        for (int i = 0; i < count; i++) {
+            double otherLat = coordinates[2 * i] * MathConstants.DEG2RAD;
+            double deltaLon = (coordinates[2 * i + 1] - longitude) * MathConstants.DEG2RAD;
+            double cosOtherLat = Math.cos(otherLat);
+            double y = Math.sin(deltaLon) * cosOtherLat;
+            double x = cosLat * Math.sin(otherLat) - sinLat * cosOtherLat * Math.cos(deltaLon);
+            double bearing = Math.atan2(y, x) * MathConstants.RAD2DEG;
+            bearings[i] = bearing < 0 ? bearing + 360 : bearing;
+        }
+    }
+
+    /**
+     * Computes the points reached from many points by travelling a distance along a bearing.
+     *
+     * @param coordinates  Packed latitude, longitude pairs of the starting points
+     * @param bearings     Bearing in degrees clockwise from north for each starting point
+     * @param distances    Distance in meters for each starting point
+     * @param destinations Receives the packed latitude, longitude pairs of the destinations, may be
+     *                     the same array as coordinates
+     */
+    public static void destinations(@NonNull double[] coordinates, @NonNull double[] bearings,
+                                    @NonNull double[] distances, @NonNull double[] destinations) {
+        int count = pointCount(coordinates);
+        checkLength(bearings, count);
+        checkLength(distances, count);
+        checkLength(destinations, 2 * count);
+
+        for (int i = 0; i < count; i++) {
+            double lat = coordinates[2 * i] * MathConstants.DEG2RAD;
+            double bearing = bearings[i] * MathConstants.DEG2RAD;
+            double angle = distances[i] / GeoConstants.RADIUS_EARTH_METERS;
+            double sinLat = Math.sin(lat);
+            double cosLat = Math.cos(lat);
+            double sinAngle = Math.sin(angle);
+            double cosAngle = Math.cos(angle);
+
+            double sinDestLat = sinLat * cosAngle + cosLat * sinAngle * Math.cos(bearing);
+            double destLat = Math.asin(Math.max(-1, Math.min(1, sinDestLat)));
+            double deltaLon = Math.atan2(Math.sin(bearing) * sinAngle * cosLat, cosAngle - sinLat * sinDestLat);
+            double destLon = coordinates[2 * i + 1] + deltaLon * MathConstants.RAD2DEG;
+
+            destinations[2 * i] = destLat * MathConstants.RAD2DEG;
+            destinations[2 * i + 1] = ((destLon + 540) % 360) - 180;
+        }
+    }
+
+    /**
+     * Projects points to Mercator meters, like {@link ProjectedMeters}.
+     *
+     * @param coordinates Packed latitude, longitude pairs
+     * @param offset      Index of the first point to project
+     * @param meters      Receives packed northing, easting pairs, may be the same array as coordinates
+     * @param metersOffset Index of the pair that receives the first point
+     * @param count       Number of points to project
+     */
+    public static void toProjectedMeters(@NonNull double[] coordinates, int offset,
+                                         @NonNull double[] meters, int metersOffset, int count) {
+        checkRange(coordinates, offset, count);
+        checkRange(meters, metersOffset, count);
+
+        for (int i = 0; i < count; i++) {
+            double latitude = Math.max(GeoConstants.MIN_LATITUDE,
+                    Math.min(GeoConstants.MAX_LATITUDE, coordinates[2 * (offset + i)]));
+            double longitude = coordinates[2 * (offset + i) + 1];
+            double northing = GeoConstants.RADIUS_EARTH_METERS
+                    * Math.log(Math.tan(Math.PI / 4 + latitude * MathConstants.DEG2RAD / 2));
+            double easting = GeoConstants.RADIUS_EARTH_METERS * longitude * MathConstants.DEG2RAD;
+            meters[2 * (metersOffset + i)] = northing;
+            meters[2 * (metersOffset + i) + 1] = easting;
+        }
+    }
+
+    /**
+     * Converts Mercator meters, like {@link ProjectedMeters}, back to latitude and longitude.
+     *
+     * @param meters      Packed northing, easting pairs
+     * @param offset      Index of the first pair to convert
+     * @param coordinates Receives packed latitude, longitude pairs, may be the same array as meters
+     * @param coordinatesOffset Index of the pair that receives the first point
+     * @param count       Number of points to convert
+     */
+    public static void fromProjectedMeters(@NonNull double[] meters, int offset,
+                                           @NonNull double[] coordinates, int coordinatesOffset, int count) {
+        checkRange(meters, offset, count);
+        checkRange(coordinates, coordinatesOffset, count);
+
+        for (int i = 0; i < count; i++) {
+            double northing = meters[2 * (offset + i)];
+            double easting = meters[2 * (offset + i) + 1];
+            double latitude = (2 * Math.atan(Math.exp(northing / GeoConstants.RADIUS_EARTH_METERS)) - Math.PI / 2)
+                    * MathConstants.RAD2DEG;
+            double longitude = easting / GeoConstants.RADIUS_EARTH_METERS * MathConstants.RAD2DEG;
+            coordinates[2 * (coordinatesOffset + i)] = latitude;
+            coordinates[2 * (coordinatesOffset + i) + 1] = longitude;
+        }
+    }
+
+    //
+    // Kernels, on radians
+    //
+
+    private static double haversine(double lat1, double cosLat1, double lat2, double cosLat2, double deltaLon) {
+        double sinHalfLat = Math.sin((lat2 - lat1) / 2);
+        double sinHalfLon = Math.sin(deltaLon / 2);
+        double h = sinHalfLat * sinHalfLat + cosLat1 * cosLat2 * sinHalfLon * sinHalfLon;
+        return 2 * GeoConstants.RADIUS_EARTH_METERS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    private static double equirectangular(double lat1, double cosLat1, double sinLat1, double lat2, double deltaLon) {
+        // Wrap the longitude difference to the shorter way around
+        if (deltaLon > Math.PI) {
+            deltaLon -= 2 * Math.PI;
+        } else if (deltaLon < -Math.PI) {
+            deltaLon += 2 * Math.PI;
+        }
+        // Cosine of the mean latitude, expanded around the first latitude to avoid trigonometry
+        double halfDeltaLat = (lat2 - lat1) / 2;
+        double cosMeanLat = cosLat1 * (1 - halfDeltaLat * halfDeltaLat / 2) - sinLat1 * halfDeltaLat;
+        double x = deltaLon * cosMeanLat;
+        double y = lat2 - lat1;
+        return GeoConstants.RADIUS_EARTH_METERS * Math.sqrt(x * x + y * y);
+    }
+
+    private static void matrixRows(int first, int end, double[] fromLat, double[] fromLon, double[] fromCos,
+                                   double[] toLat, double[] toLon, double[] toCos,
+                                   double[] distances, boolean approximate) {
+        int columns = toLat.length;
+        for (int i = first; i < end; i++) {
+            int row = i * columns;
+            double fromSin = approximate ? Math.sin(fromLat[i]) : 0;
+            for (int j = 0; j < columns; j++) {
+                double deltaLon = toLon[j] - fromLon[i];
+                distances[row + j] = approximate
+                        ? equirectangular(fromLat[i], fromCos[i], fromSin, toLat[j], deltaLon)
+                        : haversine(fromLat[i], fromCos[i], toLat[j], toCos[j], deltaLon);
+            }
+        }
+    }
+
+    private static void radians(double[] coordinates, double[] latitudes, double[] longitudes, double[] cosLatitudes) {
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = coordinates[2 * i] * MathConstants.DEG2RAD;
+            longitudes[i] = coordinates[2 * i + 1] * MathConstants.DEG2RAD;
+            cosLatitudes[i] = Math.cos(latitudes[i]);
+        }
+    }
+
+    private static int pointCount(double[] coordinates) {
+        if (coordinates.length % 2 != 0) {
+            throw new IllegalArgumentException("coordinates must hold latitude, longitude pairs");
+        }
+        return coordinates.length / 2;
+    }
+
+    private static void checkRange(double[] pairs, int offset, int count) {
+        if (offset < 0 || count < 0 || 2 * (offset + count) > pairs.length) {
+            throw new IllegalArgumentException("pairs " + offset + " to " + (offset + count) + " are out of range");
+        }
+    }
+
+    private static void checkLength(double[] values, long length) {
+        if (values.length < length) {
+            throw new IllegalArgumentException("array holds " + values.length + " values, " + length + " needed");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.mapbox.mapboxsdk.http;
+
+/**
+ * Estimates the download bandwidth from the responses the map receives.
+ * <p>
+ * Small responses are dominated by latency rather than bandwidth and are ignored. The estimate
+ * is an exponentially weighted moving average, so it follows changes of the link within a
+ * handful of tiles.
+ * </p>
+ */
+final class BandwidthEstimator {
+
+    // Responses smaller than this say little about bandwidth
+    private static final long MIN_SAMPLE_BYTES = 8 * 1024;
+
+    // Number of samples before the estimate is trusted
+    private static final int MIN_SAMPLE_COUNT = 3;
+
+    // Weight of the newest sample
+    private static final double ALPHA = 0.3;
+
+    // Guarded by this
+    private double mBitsPerSecond = 0;
+    private int mSampleCount = 0;
+
+    /**
+     * Adds a completed transfer.
+     *
+     * @param bytes Size of the response body
+     * @param nanos Time from receiving the response headers until the body was read
+     */
+    synchronized void addSample(long bytes, long nanos) {
+        if (bytes < MIN_SAMPLE_BYTES || nanos <= 0) {
+            return;
+        }
+
+        double sample = bytes * 8 * 1e9 / nanos;
+        mBitsPerSecond = mSampleCount == 0 ? sample : ALPHA * sample + (1 - ALPHA) * mBitsPerSecond;
+        mSampleCount++;
+    }
+
+    /**
+     * Returns the current estimate.
+     *
+     * @return Bandwidth in bits per second, or -1 if not enough has been measured yet
+     */
+    synchronized double getBitsPerSecond() {
+        return mSampleCount < MIN_SAMPLE_COUNT ? -1 : mBitsPerSecond;
+    }
+
+    /**
+     * Discards all samples, for example after switching to another network.
+     */
+    synchronized void reset() {
+        mBitsPerSecond = 0;
+        mSampleCount = 0;
+    }
+}
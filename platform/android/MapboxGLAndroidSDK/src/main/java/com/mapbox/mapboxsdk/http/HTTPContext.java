@@ -1,43 +1,31 @@
 package com.mapbox.mapboxsdk.http;
 
-import android.text.TextUtils;
-import android.util.Log;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
-import com.mapbox.mapboxsdk.constants.MapboxConstants;
+import com.mapbox.mapboxsdk.constants.DataSaverMode;
 
-import java.io.IOException;
-import java.io.InterruptedIOException;
-import java.net.ProtocolException;
-import java.net.SocketException;
-import java.net.UnknownHostException;
-
-import javax.net.ssl.SSLException;
-
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Interceptor;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
-
-class HTTPContext {
-
-    private static final int CONNECTION_ERROR = 0;
-    private static final int TEMPORARY_ERROR = 1;
-    private static final int PERMANENT_ERROR = 2;
-    private static final int CANCELED_ERROR = 3;
+/**
+ * Do not use this class. Used internally by the SDK.
+ * <p>
+ * Native code creates its requests through this class, which hands them to the current
+ * {@link ResourceLoader} and reports the result back.
+ * </p>
+ */
+public class HTTPContext {
 
     private static HTTPContext mInstance = null;
 
-    private OkHttpClient mClient;
+    private final OkHttpResourceLoader mDefaultLoader;
+    private volatile ResourceLoader mLoader;
 
     private HTTPContext() {
         super();
-        mClient = new OkHttpClient();
-        //mClient.interceptors().add(new LoggingInterceptor());
+        mDefaultLoader = new OkHttpResourceLoader();
+        mLoader = mDefaultLoader;
     }
 
-    public static HTTPContext getInstance() {
+    public static synchronized HTTPContext getInstance() {
         if (mInstance == null) {
             mInstance = new HTTPContext();
         }
@@ -45,107 +33,168 @@ class HTTPContext {
         return mInstance;
     }
 
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @param loader The loader for new requests, or null for the default loader
+     */
+    public void setResourceLoader(@Nullable ResourceLoader loader) {
+        mLoader = loader != null ? loader : mDefaultLoader;
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @return The loader used for new requests
+     */
+    @NonNull
+    public ResourceLoader getResourceLoader() {
+        return mLoader;
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @return The OkHttp loader used when no other loader is set
+     */
+    @NonNull
+    public ResourceLoader getDefaultResourceLoader() {
+        return mDefaultLoader;
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @return The OkHttp loader that never applies data saving, for resources that are stored
+     */
+    @NonNull
+    public ResourceLoader getFullDensityResourceLoader() {
+        return mDefaultLoader.getFullDensityLoader();
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @param reachable True if the device has network connectivity
+     */
+    public void setReachability(boolean reachable) {
+        mDefaultLoader.setReachability(reachable);
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @param mode One of the {@link DataSaverMode} constants
+     */
+    public void setDataSaverMode(@DataSaverMode.Mode int mode) {
+        mDefaultLoader.setDataSaverMode(mode);
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @return One of the {@link DataSaverMode} constants
+     */
+    @DataSaverMode.Mode
+    public int getDataSaverMode() {
+        return mDefaultLoader.getDataSaverMode();
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @param metered            True if the active network is metered
+     * @param slowConnectionType True if the active network is a 2G network
+     */
+    public void setConnectionType(boolean metered, boolean slowConnectionType) {
+        mDefaultLoader.setConnectionType(metered, slowConnectionType);
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @return True if data saving currently applies to requests
+     */
+    public boolean isDataSaverActive() {
+        return mDefaultLoader.isDataSaverActive();
+    }
+
     public HTTPRequest createRequest(long nativePtr, String resourceUrl, String userAgent, String etag, String modified) {
         return new HTTPRequest(nativePtr, resourceUrl, userAgent, etag, modified);
     }
 
-    public class HTTPRequest implements Callback {
-        private final String LOG_TAG = HTTPRequest.class.getName();
+    public class HTTPRequest implements ResourceLoader.Callback {
 
         private long mNativePtr = 0;
 
-        private Call mCall;
-        private Request mRequest;
+        private final String mUrl;
+        private final String mUserAgent;
+        private final String mEtag;
+        private final String mModified;
+
+        // Guarded by this, native code must be called back exactly once
+        private ResourceLoader.Cancelable mCancelable;
+        private boolean mFinished = false;
 
         private native void nativeOnFailure(long nativePtr, int type, String message);
         private native void nativeOnResponse(long nativePtr, int code, String message, String etag, String modified, String cacheControl, String expires, byte[] body);
 
         private HTTPRequest(long nativePtr, String resourceUrl, String userAgent, String etag, String modified) {
             mNativePtr = nativePtr;
-            Request.Builder builder = new Request.Builder().url(resourceUrl).tag(resourceUrl.toLowerCase(MapboxConstants.MAPBOX_LOCALE)).addHeader("User-Agent", userAgent);
-            if (etag.length() > 0) {
-                builder = builder.addHeader("If-None-Match", etag);
-            } else if (modified.length() > 0) {
-                builder = builder.addHeader("If-Modified-Since", modified);
-            }
-            mRequest = builder.build();
+            mUrl = resourceUrl;
+            mUserAgent = userAgent;
+            mEtag = etag;
+            mModified = modified;
         }
 
         public void start() {
-            mCall = HTTPContext.getInstance().mClient.newCall(mRequest);
-            mCall.enqueue(this);
+            ResourceLoader.Cancelable cancelable = mLoader.load(mUrl, mUserAgent, mEtag, mModified, this);
+            synchronized (this) {
+                if (!mFinished) {
+                    mCancelable = cancelable;
+                }
+            }
         }
 
         public void cancel() {
-            mCall.cancel();
-        }
-
-        @Override
-        public void onResponse(Call call, Response response) throws IOException {
-            if (response.isSuccessful()) {
-                Log.d(LOG_TAG, String.format("[HTTP] Request was successful (code = %d).", response.code()));
-            } else {
-                // We don't want to call this unsuccessful because a 304 isn't really an error
-                String message = !TextUtils.isEmpty(response.message()) ? response.message() : "No additional information";
-                Log.d(LOG_TAG, String.format(
-                        "[HTTP] Request with response code = %d: %s",
-                        response.code(), message));
+            ResourceLoader.Cancelable cancelable;
+            synchronized (this) {
+                if (mFinished) {
+                    return;
+                }
+                mFinished = true;
+                cancelable = mCancelable;
+                mCancelable = null;
             }
 
-            byte[] body;
-            try {
-                body = response.body().bytes();
-            } catch (IOException e) {
-                onFailure(null, e);
-                //throw e;
-                return;
-            } finally {
-                response.body().close();
+            if (cancelable != null) {
+                cancelable.cancel();
             }
-
-            nativeOnResponse(mNativePtr, response.code(), response.message(), response.header("ETag"), response.header("Last-Modified"), response.header("Cache-Control"), response.header("Expires"), body);
+            nativeOnFailure(mNativePtr, ResourceLoader.ERROR_CANCELED, "Request was cancelled");
         }
 
         @Override
-        public void onFailure(Call call, IOException e) {
-            Log.w(LOG_TAG, String.format("[HTTP] Request could not be executed: %s", e.getMessage()));
-
-            int type = PERMANENT_ERROR;
-            if ((e instanceof UnknownHostException) || (e instanceof SocketException) || (e instanceof ProtocolException) || (e instanceof SSLException)) {
-                type = CONNECTION_ERROR;
-            } else if ((e instanceof InterruptedIOException)) {
-                type = TEMPORARY_ERROR;
-            } else if (mCall.isCanceled()) {
-                type = CANCELED_ERROR;
+        public void onResponse(int code, String message, String etag, String modified, String cacheControl, String expires, byte[] body) {
+            synchronized (this) {
+                if (mFinished) {
+                    return;
+                }
+                mFinished = true;
+                mCancelable = null;
             }
-
-            nativeOnFailure(mNativePtr, type, e.getMessage());
+            nativeOnResponse(mNativePtr, code, message, etag, modified, cacheControl, expires, body);
         }
-    }
-
-    /*
-     * Application interceptor that logs the outgoing request and the incoming response.
-     * Based on https://github.com/square/okhttp/wiki/Interceptors
-     */
-
-    class LoggingInterceptor implements Interceptor {
-
-        private final static String LOG_TAG = "LoggingInterceptor";
 
-        @Override public Response intercept(Interceptor.Chain chain) throws IOException {
-            Request request = chain.request();
-
-            long t1 = System.nanoTime();
-            Log.i(LOG_TAG, String.format("Sending request %s on %s%n%s",
-                    request.url(), chain.connection(), request.headers()));
-
-            Response response = chain.proceed(request);
-
-            long t2 = System.nanoTime();
-            Log.i(LOG_TAG, String.format("Received response for %s in %.1fms%n%s",
-                    response.request().url(), (t2 - t1) / 1e6d, response.headers()));
-
-            return response;
+        @Override
+        public void onFailure(int type, String message) {
+            synchronized (this) {
+                if (mFinished) {
+                    return;
+                }
+                mFinished = true;
+                mCancelable = null;
+            }
+            nativeOnFailure(mNativePtr, type, message);
         }
     }
 }
@@ -0,0 +1,204 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A {@link ResourceLoader} that serves resources from local storage or the app's assets.
+ * <p>
+ * URLs are matched against the prefixes registered with {@link #addDirectory(String, File)} and
+ * {@link #addAssets(String, String)}, in the order they were added. The part of the URL after the
+ * prefix, without its query string, is resolved against the registered directory or asset path.
+ * file:// URLs are always served from the file system. URLs that match nothing are passed to the
+ * fallback loader if there is one, or answered with a 404.
+ * </p>
+ * <p>
+ * For example, after {@code addDirectory("https://api.mapbox.com/v4/", tileDir)} the URL
+ * {@code https://api.mapbox.com/v4/mapbox.streets/1/0/0.vector.pbf?access_token=...} is served
+ * from {@code tileDir/mapbox.streets/1/0/0.vector.pbf}.
+ * </p>
+ */
+public class LocalResourceLoader implements ResourceLoader {
+
+    private static final String LOG_TAG = LocalResourceLoader.class.getName();
+
+    private static final String FILE_SCHEME = "file://";
+    private static final int THREAD_COUNT = 2;
+
+    private final AssetManager mAssets;
+    private final ResourceLoader mFallback;
+    private final List<Mapping> mMappings = new CopyOnWriteArrayList<>();
+    private final ExecutorService mExecutor;
+
+    /**
+     * Creates a loader that answers unmatched URLs with a 404.
+     *
+     * @param context The context to read assets from
+     */
+    public LocalResourceLoader(@NonNull Context context) {
+        this(context, null);
+    }
+
+    /**
+     * Creates a loader that passes unmatched URLs on to another loader.
+     *
+     * @param context  The context to read assets from
+     * @param fallback The loader for unmatched URLs, for example an {@link OkHttpResourceLoader}
+     */
+    public LocalResourceLoader(@NonNull Context context, @Nullable ResourceLoader fallback) {
+        super();
+        mAssets = context.getApplicationContext().getAssets();
+        mFallback = fallback;
+        mExecutor = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "LocalResourceLoader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Serves URLs starting with urlPrefix from a directory.
+     *
+     * @param urlPrefix The URL prefix to match
+     * @param directory The directory the rest of the URL is resolved against
+     * @return This loader
+     */
+    public LocalResourceLoader addDirectory(@NonNull String urlPrefix, @NonNull File directory) {
+        mMappings.add(new Mapping(urlPrefix, directory, null));
+        return this;
+    }
+
+    /**
+     * Serves URLs starting with urlPrefix from the app's assets.
+     *
+     * @param urlPrefix The URL prefix to match
+     * @param assetPath The asset directory the rest of the URL is resolved against, or an empty
+     *                  string for the root of the assets
+     * @return This loader
+     */
+    public LocalResourceLoader addAssets(@NonNull String urlPrefix, @NonNull String assetPath) {
+        mMappings.add(new Mapping(urlPrefix, null, assetPath));
+        return this;
+    }
+
+    @NonNull
+    @Override
+    public Cancelable load(@NonNull final String url, @NonNull String userAgent, @NonNull String etag,
+                           @NonNull String modified, @NonNull final Callback callback) {
+        final Mapping mapping = findMapping(url);
+        if (mapping == null && !url.startsWith(FILE_SCHEME) && mFallback != null) {
+            return mFallback.load(url, userAgent, etag, modified, callback);
+        }
+
+        final Future<?> future = mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                read(url, mapping, callback);
+            }
+        });
+        return new Cancelable() {
+            @Override
+            public void cancel() {
+                future.cancel(false);
+            }
+        };
+    }
+
+    private Mapping findMapping(String url) {
+        for (Mapping mapping : mMappings) {
+            if (url.startsWith(mapping.prefix)) {
+                return mapping;
+            }
+        }
+        return null;
+    }
+
+    private void read(String url, Mapping mapping, Callback callback) {
+        String path;
+        if (mapping != null) {
+            path = stripQuery(url.substring(mapping.prefix.length()));
+        } else if (url.startsWith(FILE_SCHEME)) {
+            path = stripQuery(url.substring(FILE_SCHEME.length()));
+        } else {
+            callback.onResponse(404, "Not Found", null, null, null, null, new byte[0]);
+            return;
+        }
+
+        if (path.contains("..")) {
+            callback.onFailure(ERROR_PERMANENT, "Refusing to load path outside of the mapped location: " + path);
+            return;
+        }
+
+        InputStream stream = null;
+        try {
+            if (mapping == null) {
+                stream = new FileInputStream(new File(path));
+            } else if (mapping.directory != null) {
+                stream = new FileInputStream(new File(mapping.directory, path));
+            } else {
+                String assetPath = mapping.assetPath.isEmpty() ? path : mapping.assetPath + "/" + path;
+                stream = mAssets.open(assetPath);
+            }
+            callback.onResponse(200, "OK", null, null, null, null, readFully(stream));
+        } catch (FileNotFoundException e) {
+            callback.onResponse(404, "Not Found", null, null, null, null, new byte[0]);
+        } catch (IOException e) {
+            Log.w(LOG_TAG, String.format("Resource could not be read: %s", e.getMessage()));
+            callback.onFailure(ERROR_PERMANENT, e.getMessage());
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    Log.w(LOG_TAG, "Failed to close resource stream", e);
+                }
+            }
+        }
+    }
+
+    private static String stripQuery(String path) {
+        int query = path.indexOf('?');
+        return query < 0 ? path : path.substring(0, query);
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16 * 1024];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Mapping {
+        final String prefix;
+        final File directory;
+        final String assetPath;
+
+        Mapping(String prefix, File directory, String assetPath) {
+            this.prefix = prefix;
+            this.directory = directory;
+            this.assetPath = assetPath;
+        }
+    }
+}
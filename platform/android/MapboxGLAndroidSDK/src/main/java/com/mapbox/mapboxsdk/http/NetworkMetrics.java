@@ -0,0 +1,354 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+
+/**
+ * NetworkMetrics collects timings for the requests the map makes to load its resources.
+ * <p>
+ * For every request the time spent on DNS lookup, connecting, the TLS handshake, waiting for the
+ * first byte and transferring the body is recorded, together with the number of bytes received.
+ * Timings are grouped by the kind of resource that was requested and kept in fixed-size
+ * histograms, so memory use does not grow with the number of requests.
+ * </p>
+ * <p>
+ * Collection is disabled by default. While disabled no timing is taken and nothing is allocated
+ * per request.
+ * </p>
+ */
+public final class NetworkMetrics {
+
+    /**
+     * Indicates the parameter accepts one of the resource kinds from {@link NetworkMetrics}.
+     */
+    @IntDef({KIND_TILE, KIND_STYLE, KIND_SPRITE, KIND_GLYPH, KIND_OTHER})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface ResourceKind {
+    }
+
+    /**
+     * Vector or raster tiles.
+     */
+    public static final int KIND_TILE = 0;
+
+    /**
+     * Style and TileJSON documents.
+     */
+    public static final int KIND_STYLE = 1;
+
+    /**
+     * Sprite images and their JSON index.
+     */
+    public static final int KIND_SPRITE = 2;
+
+    /**
+     * Glyph ranges.
+     */
+    public static final int KIND_GLYPH = 3;
+
+    /**
+     * Anything that could not be attributed to one of the other kinds.
+     */
+    public static final int KIND_OTHER = 4;
+
+    static final int KIND_COUNT = 5;
+
+    /**
+     * Indicates the parameter accepts one of the request phases from {@link NetworkMetrics}.
+     */
+    @IntDef({PHASE_DNS, PHASE_CONNECT, PHASE_TLS, PHASE_FIRST_BYTE, PHASE_TRANSFER, PHASE_TOTAL})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Phase {
+    }
+
+    /**
+     * Host name resolution. Only recorded for requests that opened a new connection.
+     */
+    public static final int PHASE_DNS = 0;
+
+    /**
+     * TCP connection setup. Only recorded for requests that opened a new connection.
+     */
+    public static final int PHASE_CONNECT = 1;
+
+    /**
+     * TLS handshake. Only recorded for requests that opened a new secure connection.
+     */
+    public static final int PHASE_TLS = 2;
+
+    /**
+     * From sending the request on an established connection until the response headers arrived.
+     */
+    public static final int PHASE_FIRST_BYTE = 3;
+
+    /**
+     * From the response headers until the body was fully read.
+     */
+    public static final int PHASE_TRANSFER = 4;
+
+    /**
+     * From the start of the request until the body was fully read.
+     */
+    public static final int PHASE_TOTAL = 5;
+
+    static final int PHASE_COUNT = 6;
+
+    /**
+     * Number of buckets in each histogram. Bucket 0 counts durations below 1 ms, bucket i counts
+     * durations in [2^(i-1), 2^i) ms and the last bucket counts everything longer.
+     */
+    public static final int BUCKET_COUNT = 20;
+
+    private static NetworkMetrics sInstance;
+
+    private volatile boolean mEnabled = false;
+
+    // Guarded by this
+    private final long[][][] mHistograms = new long[KIND_COUNT][PHASE_COUNT][BUCKET_COUNT];
+    private final long[][] mTotalNanos = new long[KIND_COUNT][PHASE_COUNT];
+    private final long[] mRequests = new long[KIND_COUNT];
+    private final long[] mBytes = new long[KIND_COUNT];
+
+    private NetworkMetrics() {
+        super();
+    }
+
+    /**
+     * Returns the process wide metrics instance.
+     *
+     * @return The metrics instance
+     */
+    public static synchronized NetworkMetrics getInstance() {
+        if (sInstance == null) {
+            sInstance = new NetworkMetrics();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Starts or stops collecting timings. Already collected data is kept.
+     *
+     * @param enabled True to collect timings
+     */
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    /**
+     * Returns whether timings are being collected.
+     *
+     * @return True if collecting
+     */
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Discards all collected data.
+     */
+    public synchronized void reset() {
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            for (int phase = 0; phase < PHASE_COUNT; phase++) {
+                Arrays.fill(mHistograms[kind][phase], 0);
+                mTotalNanos[kind][phase] = 0;
+            }
+            mRequests[kind] = 0;
+            mBytes[kind] = 0;
+        }
+    }
+
+    /**
+     * Returns a copy of the data collected so far.
+     *
+     * @return An immutable snapshot
+     */
+    @NonNull
+    public synchronized Snapshot getSnapshot() {
+        long[][][] histograms = new long[KIND_COUNT][PHASE_COUNT][];
+        long[][] totalNanos = new long[KIND_COUNT][];
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            for (int phase = 0; phase < PHASE_COUNT; phase++) {
+                histograms[kind][phase] = mHistograms[kind][phase].clone();
+            }
+            totalNanos[kind] = mTotalNanos[kind].clone();
+        }
+        return new Snapshot(histograms, totalNanos, mRequests.clone(), mBytes.clone());
+    }
+
+    /**
+     * Guesses the kind of resource a URL points to from its path.
+     *
+     * @param url The resource URL
+     * @return One of the KIND_ constants
+     */
+    @ResourceKind
+    public static int getResourceKind(@NonNull String url) {
+        int query = url.indexOf('?');
+        String path = query < 0 ? url : url.substring(0, query);
+
+        if (path.contains("/fonts/") || path.contains("/glyphs/")) {
+            return KIND_GLYPH;
+        }
+        if (path.contains("/sprite")) {
+            return KIND_SPRITE;
+        }
+        if (path.endsWith(".pbf") || path.endsWith(".mvt") || path.endsWith(".png")
+                || path.endsWith(".jpg") || path.endsWith(".jpeg") || path.endsWith(".webp")) {
+            return KIND_TILE;
+        }
+        if (path.contains("/styles/") || path.endsWith(".json")) {
+            return KIND_STYLE;
+        }
+        return KIND_OTHER;
+    }
+
+    /**
+     * Records one finished request. Negative phase durations are skipped.
+     */
+    synchronized void record(@ResourceKind int kind, long dnsNanos, long connectNanos, long tlsNanos,
+                             long firstByteNanos, long transferNanos, long totalNanos, long bytes) {
+        mRequests[kind]++;
+        mBytes[kind] += bytes;
+        add(kind, PHASE_DNS, dnsNanos);
+        add(kind, PHASE_CONNECT, connectNanos);
+        add(kind, PHASE_TLS, tlsNanos);
+        add(kind, PHASE_FIRST_BYTE, firstByteNanos);
+        add(kind, PHASE_TRANSFER, transferNanos);
+        add(kind, PHASE_TOTAL, totalNanos);
+    }
+
+    private void add(int kind, int phase, long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        mHistograms[kind][phase][bucketFor(nanos)]++;
+        mTotalNanos[kind][phase] += nanos;
+    }
+
+    static int bucketFor(long nanos) {
+        long millis = nanos / 1000000;
+        if (millis <= 0) {
+            return 0;
+        }
+        // position of the highest set bit, 1 ms lands in bucket 1
+        int bucket = 64 - Long.numberOfLeadingZeros(millis);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Immutable copy of the collected network metrics.
+     */
+    public static final class Snapshot {
+
+        private final long[][][] mHistograms;
+        private final long[][] mTotalNanos;
+        private final long[] mRequests;
+        private final long[] mBytes;
+
+        Snapshot(long[][][] histograms, long[][] totalNanos, long[] requests, long[] bytes) {
+            mHistograms = histograms;
+            mTotalNanos = totalNanos;
+            mRequests = requests;
+            mBytes = bytes;
+        }
+
+        /**
+         * Returns the number of finished requests for a resource kind.
+         *
+         * @param kind One of the KIND_ constants
+         * @return The request count
+         */
+        public long getRequestCount(@ResourceKind int kind) {
+            return mRequests[kind];
+        }
+
+        /**
+         * Returns the number of body bytes received for a resource kind.
+         *
+         * @param kind One of the KIND_ constants
+         * @return The byte count
+         */
+        public long getBytes(@ResourceKind int kind) {
+            return mBytes[kind];
+        }
+
+        /**
+         * Returns the number of samples recorded for a phase.
+         *
+         * @param kind  One of the KIND_ constants
+         * @param phase One of the PHASE_ constants
+         * @return The sample count
+         */
+        public long getSampleCount(@ResourceKind int kind, @Phase int phase) {
+            long count = 0;
+            for (long bucket : mHistograms[kind][phase]) {
+                count += bucket;
+            }
+            return count;
+        }
+
+        /**
+         * Returns a copy of the histogram for a phase, see {@link NetworkMetrics#BUCKET_COUNT}
+         * for the bucket boundaries.
+         *
+         * @param kind  One of the KIND_ constants
+         * @param phase One of the PHASE_ constants
+         * @return Sample counts per bucket
+         */
+        @NonNull
+        public long[] getHistogram(@ResourceKind int kind, @Phase int phase) {
+            return mHistograms[kind][phase].clone();
+        }
+
+        /**
+         * Returns the mean duration of a phase.
+         *
+         * @param kind  One of the KIND_ constants
+         * @param phase One of the PHASE_ constants
+         * @return Mean in milliseconds, or 0 if nothing was recorded
+         */
+        public double getMeanMillis(@ResourceKind int kind, @Phase int phase) {
+            long count = getSampleCount(kind, phase);
+            if (count == 0) {
+                return 0;
+            }
+            return mTotalNanos[kind][phase] / 1e6d / count;
+        }
+
+        /**
+         * Returns an upper bound for the given percentile of a phase, at the resolution of the
+         * histogram buckets.
+         *
+         * @param kind       One of the KIND_ constants
+         * @param phase      One of the PHASE_ constants
+         * @param percentile Percentile between 0 and 100
+         * @return Upper bound in milliseconds, or 0 if nothing was recorded. The last bucket has
+         * no upper bound and returns {@link Long#MAX_VALUE}.
+         */
+        public long getPercentileMillis(@ResourceKind int kind, @Phase int phase, double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+            }
+
+            long count = getSampleCount(kind, phase);
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            long[] histogram = mHistograms[kind][phase];
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                seen += histogram[bucket];
+                if (seen >= rank && seen > 0) {
+                    return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+}
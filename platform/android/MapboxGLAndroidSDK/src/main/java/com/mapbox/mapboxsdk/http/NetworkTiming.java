@@ -0,0 +1,316 @@
+package com.mapbox.mapboxsdk.http;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+import javax.net.SocketFactory;
+
+import okhttp3.Dns;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Feeds {@link NetworkMetrics} from an OkHttp client.
+ * <p>
+ * OkHttp 3.0 has no event listener API, so the phases of a request are timed from the outside:
+ * a {@link Dns} and a {@link SocketFactory} wrapper time name resolution and connecting, a
+ * network interceptor marks the moment the connection is ready and the response headers arrive,
+ * and the response body is wrapped to time the transfer and count bytes. OkHttp runs all of
+ * these on the thread executing the call, so the state of the request in flight is kept in a
+ * reusable per-thread {@link Timer}.
+ * </p>
+ * <p>
+ * The wrappers delegate to the resolver and socket factory the client was configured with.
+ * Connecting is only timed with the default socket factory, since other factories may depend
+ * on the exact socket class they create.
+ * </p>
+ */
+final class NetworkTiming {
+
+    private final NetworkMetrics mMetrics;
+
+    private final ThreadLocal<Timer> mTimers = new ThreadLocal<Timer>() {
+        @Override
+        protected Timer initialValue() {
+            return new Timer();
+        }
+    };
+
+    NetworkTiming(NetworkMetrics metrics) {
+        super();
+        mMetrics = metrics;
+    }
+
+    /**
+     * Returns a copy of a client with the timing hooks installed.
+     *
+     * @param client The client to instrument
+     * @return The instrumented client, sharing its connection pool and dispatcher with client
+     */
+    OkHttpClient instrument(OkHttpClient client) {
+        OkHttpClient.Builder builder = client.newBuilder()
+                .dns(new TimingDns(client.dns()))
+                .addInterceptor(new ApplicationInterceptor())
+                .addNetworkInterceptor(new NetworkInterceptor());
+        if (client.socketFactory() == SocketFactory.getDefault()) {
+            builder.socketFactory(new TimingSocketFactory(client.socketFactory()));
+        }
+        return builder.build();
+    }
+
+    // Timer of the request running on the current thread, or null if none is being timed
+    private Timer activeTimer() {
+        Timer timer = mTimers.get();
+        return timer.active ? timer : null;
+    }
+
+    private static final class Timer {
+        boolean active;
+        long start;
+        long dnsNanos;
+        long connectEnd;
+        long connectNanos;
+        long networkStart;
+        long tlsNanos;
+        long firstByteNanos;
+
+        void begin() {
+            active = true;
+            start = System.nanoTime();
+            dnsNanos = -1;
+            connectEnd = 0;
+            connectNanos = -1;
+            networkStart = 0;
+            tlsNanos = -1;
+            firstByteNanos = -1;
+        }
+    }
+
+    //
+    // Interceptors
+    //
+
+    // Wraps the whole call, including redirects and retries done by OkHttp itself
+    private class ApplicationInterceptor implements Interceptor {
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            if (!mMetrics.isEnabled()) {
+                return chain.proceed(request);
+            }
+
+            Timer timer = mTimers.get();
+            timer.begin();
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } finally {
+                timer.active = false;
+            }
+
+            ResponseBody body = response.body();
+            if (body == null) {
+                return response;
+            }
+
+            TimedResponseBody timedBody = new TimedResponseBody(body,
+                    NetworkMetrics.getResourceKind(request.url().toString()), timer);
+            return response.newBuilder().body(timedBody).build();
+        }
+    }
+
+    // Runs once the connection is established, once per network round trip
+    private class NetworkInterceptor implements Interceptor {
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Timer timer = activeTimer();
+            if (timer == null) {
+                return chain.proceed(chain.request());
+            }
+
+            timer.networkStart = System.nanoTime();
+            if (timer.connectEnd > 0 && chain.connection() != null && chain.connection().handshake() != null) {
+                timer.tlsNanos = timer.networkStart - timer.connectEnd;
+            }
+
+            Response response = chain.proceed(chain.request());
+            timer.firstByteNanos = System.nanoTime() - timer.networkStart;
+            return response;
+        }
+    }
+
+    //
+    // Connection setup hooks
+    //
+
+    private class TimingDns implements Dns {
+
+        private final Dns mDelegate;
+
+        TimingDns(Dns delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+            Timer timer = activeTimer();
+            if (timer == null) {
+                return mDelegate.lookup(hostname);
+            }
+
+            long start = System.nanoTime();
+            try {
+                return mDelegate.lookup(hostname);
+            } finally {
+                // a route may need several lookups, report their sum
+                timer.dnsNanos = Math.max(timer.dnsNanos, 0) + System.nanoTime() - start;
+            }
+        }
+    }
+
+    private class TimingSocketFactory extends SocketFactory {
+
+        private final SocketFactory mDefault;
+
+        TimingSocketFactory(SocketFactory delegate) {
+            mDefault = delegate;
+        }
+
+        // OkHttp creates unconnected sockets and connects them itself
+        @Override
+        public Socket createSocket() throws IOException {
+            return new TimingSocket();
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return mDefault.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return mDefault.createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return mDefault.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return mDefault.createSocket(address, port, localAddress, localPort);
+        }
+    }
+
+    private class TimingSocket extends Socket {
+
+        @Override
+        public void connect(SocketAddress endpoint, int timeout) throws IOException {
+            Timer timer = activeTimer();
+            if (timer == null) {
+                super.connect(endpoint, timeout);
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                super.connect(endpoint, timeout);
+            } finally {
+                timer.connectEnd = System.nanoTime();
+                timer.connectNanos = Math.max(timer.connectNanos, 0) + timer.connectEnd - start;
+            }
+        }
+    }
+
+    //
+    // Response body
+    //
+
+    // Times the body transfer and reports the finished request, on whichever thread reads it
+    private class TimedResponseBody extends ResponseBody {
+
+        private final ResponseBody mDelegate;
+        private final BufferedSource mSource;
+
+        private final int mKind;
+        private final long mStart;
+        private final long mHeadersReceived;
+        private final long mDnsNanos;
+        private final long mConnectNanos;
+        private final long mTlsNanos;
+        private final long mFirstByteNanos;
+
+        private long mBytes = 0;
+        private boolean mReported = false;
+
+        TimedResponseBody(ResponseBody delegate, int kind, Timer timer) {
+            mDelegate = delegate;
+            mKind = kind;
+            mStart = timer.start;
+            mHeadersReceived = System.nanoTime();
+            mDnsNanos = timer.dnsNanos;
+            mConnectNanos = timer.connectNanos;
+            mTlsNanos = timer.tlsNanos;
+            mFirstByteNanos = timer.firstByteNanos;
+            mSource = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read == -1) {
+                        report();
+                    } else {
+                        mBytes += read;
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    report();
+                    super.close();
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mDelegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return mDelegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return mSource;
+        }
+
+        private void report() {
+            if (mReported) {
+                return;
+            }
+            mReported = true;
+
+            long end = System.nanoTime();
+            mMetrics.record(mKind, mDnsNanos, mConnectNanos, mTlsNanos, mFirstByteNanos,
+                    end - mHeadersReceived, end - mStart, mBytes);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.mapbox.mapboxsdk.constants.DataSaverMode;
+import com.mapbox.mapboxsdk.constants.MapboxConstants;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ProtocolException;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ScheduledFuture;
+
+import javax.net.ssl.SSLException;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * The default {@link ResourceLoader}, fetching resources over HTTP with OkHttp.
+ * <p>
+ * Connection and temporary failures are retried with per-host backoff before they are reported,
+ * and requests are held back while the device is offline. Request timings are reported to
+ * {@link NetworkMetrics}.
+ * </p>
+ * <p>
+ * While data saving is active, see {@link DataSaverMode}, high density raster tiles are
+ * requested at standard density and fewer requests run at the same time. Such responses are
+ * reported as already expired, so caches keyed by the requested URL do not keep standard density
+ * tiles in place of high density ones.
+ * </p>
+ */
+public class OkHttpResourceLoader implements ResourceLoader {
+
+    private static final String LOG_TAG = OkHttpResourceLoader.class.getName();
+
+    // Request limits while saving data
+    private static final int DATA_SAVER_MAX_REQUESTS = 4;
+    private static final int DATA_SAVER_MAX_REQUESTS_PER_HOST = 2;
+
+    // Automatic data saving starts below the first and stops above the second bandwidth
+    private static final double SLOW_BITS_PER_SECOND = 500 * 1000;
+    private static final double FAST_BITS_PER_SECOND = 1500 * 1000;
+
+    private final OkHttpClient mClient;
+    private final RetryScheduler mRetryScheduler;
+    private final BandwidthEstimator mBandwidthEstimator = new BandwidthEstimator();
+    private final int mDefaultMaxRequests;
+    private final int mDefaultMaxRequestsPerHost;
+
+    // Data saver state, guarded by mBandwidthEstimator
+    private int mDataSaverMode = DataSaverMode.DATA_SAVER_OFF;
+    private boolean mMetered = false;
+    private boolean mSlowConnectionType = false;
+    private volatile boolean mDataSaverActive = false;
+
+    private ResourceLoader mFullDensityLoader;
+
+    /**
+     * Creates a loader with a default OkHttp client.
+     */
+    public OkHttpResourceLoader() {
+        this(new OkHttpClient.Builder());
+    }
+
+    /**
+     * Creates a loader with a client built from the given builder, for example to configure a
+     * cache, timeouts or interceptors. The timing hooks for {@link NetworkMetrics} wrap the
+     * resolver and socket factory of the built client, the builder itself is left unchanged.
+     *
+     * @param builder Builder for the OkHttp client to use
+     */
+    public OkHttpResourceLoader(@NonNull OkHttpClient.Builder builder) {
+        super();
+        mClient = new NetworkTiming(NetworkMetrics.getInstance()).instrument(builder.build());
+        //mClient.interceptors().add(new LoggingInterceptor());
+        mRetryScheduler = new RetryScheduler();
+        mDefaultMaxRequests = mClient.dispatcher().getMaxRequests();
+        mDefaultMaxRequestsPerHost = mClient.dispatcher().getMaxRequestsPerHost();
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @param reachable True if the device has network connectivity
+     */
+    public void setReachability(boolean reachable) {
+        mRetryScheduler.setReachable(reachable);
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @param mode One of the {@link DataSaverMode} constants
+     */
+    public void setDataSaverMode(@DataSaverMode.Mode int mode) {
+        synchronized (mBandwidthEstimator) {
+            mDataSaverMode = mode;
+        }
+        updateDataSaver();
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @return One of the {@link DataSaverMode} constants
+     */
+    @DataSaverMode.Mode
+    public int getDataSaverMode() {
+        synchronized (mBandwidthEstimator) {
+            return mDataSaverMode;
+        }
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @param metered            True if the active network is metered
+     * @param slowConnectionType True if the active network is a 2G network
+     */
+    public void setConnectionType(boolean metered, boolean slowConnectionType) {
+        synchronized (mBandwidthEstimator) {
+            mMetered = metered;
+            mSlowConnectionType = slowConnectionType;
+            // measurements of the previous network do not apply anymore
+            mBandwidthEstimator.reset();
+        }
+        updateDataSaver();
+    }
+
+    /**
+     * Returns whether data saving currently applies to requests.
+     *
+     * @return True if saving data
+     */
+    public boolean isDataSaverActive() {
+        return mDataSaverActive;
+    }
+
+    /**
+     * Returns the bandwidth measured from recent responses.
+     *
+     * @return Bandwidth in bits per second, or -1 if not known yet
+     */
+    public double getBandwidthEstimate() {
+        return mBandwidthEstimator.getBitsPerSecond();
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @return A loader sharing the client of this loader that never requests standard density
+     * tiles in place of high density ones, for resources that are stored
+     */
+    @NonNull
+    public synchronized ResourceLoader getFullDensityLoader() {
+        if (mFullDensityLoader == null) {
+            mFullDensityLoader = new ResourceLoader() {
+                @NonNull
+                @Override
+                public Cancelable load(@NonNull String url, @NonNull String userAgent, @NonNull String etag,
+                                       @NonNull String modified, @NonNull Callback callback) {
+                    OkHttpRequest request = new OkHttpRequest(url, false, userAgent, etag, modified, callback);
+                    request.run();
+                    return request;
+                }
+            };
+        }
+        return mFullDensityLoader;
+    }
+
+    private void updateDataSaver() {
+        boolean active;
+        synchronized (mBandwidthEstimator) {
+            if (mDataSaverMode == DataSaverMode.DATA_SAVER_ON) {
+                active = true;
+            } else if (mDataSaverMode == DataSaverMode.DATA_SAVER_AUTOMATIC) {
+                double bandwidth = mBandwidthEstimator.getBitsPerSecond();
+                boolean slowLink = bandwidth >= 0
+                        && bandwidth < (mDataSaverActive ? FAST_BITS_PER_SECOND : SLOW_BITS_PER_SECOND);
+                active = mMetered || mSlowConnectionType || slowLink;
+            } else {
+                active = false;
+            }
+
+            if (active == mDataSaverActive) {
+                return;
+            }
+            mDataSaverActive = active;
+        }
+
+        Log.d(LOG_TAG, "Data saver " + (active ? "activated" : "deactivated"));
+        mClient.dispatcher().setMaxRequests(active ? DATA_SAVER_MAX_REQUESTS : mDefaultMaxRequests);
+        mClient.dispatcher().setMaxRequestsPerHost(active ? DATA_SAVER_MAX_REQUESTS_PER_HOST : mDefaultMaxRequestsPerHost);
+    }
+
+    // Requests standard density instead of high density raster tiles while saving data
+    private String applyDataSaver(String url) {
+        if (!mDataSaverActive || NetworkMetrics.getResourceKind(url) != NetworkMetrics.KIND_TILE) {
+            return url;
+        }
+
+        int query = url.indexOf('?');
+        int ratio = url.lastIndexOf("@2x.", query < 0 ? url.length() : query);
+        if (ratio < 0) {
+            return url;
+        }
+        return url.substring(0, ratio) + url.substring(ratio + 3);
+    }
+
+    @NonNull
+    @Override
+    public Cancelable load(@NonNull String url, @NonNull String userAgent, @NonNull String etag,
+                           @NonNull String modified, @NonNull Callback callback) {
+        String resourceUrl = applyDataSaver(url);
+        OkHttpRequest request = new OkHttpRequest(resourceUrl, !resourceUrl.equals(url), userAgent, etag, modified, callback);
+        request.run();
+        return request;
+    }
+
+    private class OkHttpRequest implements okhttp3.Callback, Runnable, Cancelable {
+
+        private final Callback mCallback;
+
+        // True if a different resource than the requested one is loaded
+        private final boolean mRewritten;
+
+        private Call mCall;
+        private Request mRequest;
+        private String mHost;
+
+        // Retry state, guarded by this
+        private int mAttempts = 0;
+        private boolean mCanceled = false;
+        private boolean mFinished = false;
+        private ScheduledFuture<?> mPendingAttempt;
+
+        private OkHttpRequest(String resourceUrl, boolean rewritten, String userAgent, String etag, String modified, Callback callback) {
+            mCallback = callback;
+            mRewritten = rewritten;
+            Request.Builder builder = new Request.Builder().url(resourceUrl).tag(resourceUrl.toLowerCase(MapboxConstants.MAPBOX_LOCALE)).addHeader("User-Agent", userAgent);
+            if (etag.length() > 0) {
+                builder = builder.addHeader("If-None-Match", etag);
+            } else if (modified.length() > 0) {
+                builder = builder.addHeader("If-Modified-Since", modified);
+            }
+            mRequest = builder.build();
+            mHost = mRequest.url().host();
+        }
+
+        // Sends the request, unless the network is down or the host is backing off
+        @Override
+        public synchronized void run() {
+            if (mCanceled || mFinished) {
+                return;
+            }
+
+            mPendingAttempt = null;
+            if (mRetryScheduler.park(this)) {
+                return;
+            }
+
+            long delay = mRetryScheduler.acquire(mHost);
+            if (delay > 0) {
+                mPendingAttempt = mRetryScheduler.schedule(this, delay);
+                return;
+            }
+
+            mAttempts++;
+            mCall = mClient.newCall(mRequest);
+            mCall.enqueue(this);
+        }
+
+        @Override
+        public synchronized void cancel() {
+            mCanceled = true;
+            if (mCall != null) {
+                mCall.cancel();
+            }
+            if (mPendingAttempt != null) {
+                mPendingAttempt.cancel(false);
+                mPendingAttempt = null;
+            }
+            mRetryScheduler.unpark(this);
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) throws IOException {
+            if (response.code() >= 500) {
+                mRetryScheduler.onFailure(mHost);
+            } else {
+                mRetryScheduler.onSuccess(mHost);
+            }
+
+            if (response.isSuccessful()) {
+                Log.d(LOG_TAG, String.format("[HTTP] Request was successful (code = %d).", response.code()));
+            } else {
+                // We don't want to call this unsuccessful because a 304 isn't really an error
+                String message = !TextUtils.isEmpty(response.message()) ? response.message() : "No additional information";
+                Log.d(LOG_TAG, String.format(
+                        "[HTTP] Request with response code = %d: %s",
+                        response.code(), message));
+            }
+
+            // Only the transfer of the body is timed, time spent queued or connecting
+            // doesn't tell how fast the network is
+            long transferStart = System.nanoTime();
+            byte[] body;
+            try {
+                body = response.body().bytes();
+            } catch (IOException e) {
+                onFailure(call, e);
+                //throw e;
+                return;
+            } finally {
+                response.body().close();
+            }
+
+            if (response.isSuccessful()) {
+                mBandwidthEstimator.addSample(body.length, System.nanoTime() - transferStart);
+                updateDataSaver();
+            }
+
+            synchronized (this) {
+                if (mFinished) {
+                    return;
+                }
+                mFinished = true;
+            }
+            if (mRewritten) {
+                // The response is cached under the requested URL, have it revalidated on next use
+                mCallback.onResponse(response.code(), response.message(), response.header("ETag"), response.header("Last-Modified"), "no-cache", null, body);
+            } else {
+                mCallback.onResponse(response.code(), response.message(), response.header("ETag"), response.header("Last-Modified"), response.header("Cache-Control"), response.header("Expires"), body);
+            }
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            Log.w(LOG_TAG, String.format("[HTTP] Request could not be executed: %s", e.getMessage()));
+
+            int type = ERROR_PERMANENT;
+            if ((e instanceof UnknownHostException) || (e instanceof SocketException) || (e instanceof ProtocolException) || (e instanceof SSLException)) {
+                type = ERROR_CONNECTION;
+            } else if ((e instanceof InterruptedIOException)) {
+                type = ERROR_TEMPORARY;
+            } else if (call.isCanceled()) {
+                type = ERROR_CANCELED;
+            }
+
+            synchronized (this) {
+                if (mFinished || mCanceled) {
+                    return;
+                }
+
+                if (type == ERROR_CONNECTION || type == ERROR_TEMPORARY) {
+                    long delay = mRetryScheduler.onFailure(mHost);
+                    if (mAttempts < RetryScheduler.MAX_ATTEMPTS) {
+                        // Try again ourselves instead of letting native code hammer the host
+                        mCall = null;
+                        if (!mRetryScheduler.park(this)) {
+                            mPendingAttempt = mRetryScheduler.schedule(this, delay);
+                        }
+                        return;
+                    }
+                }
+                mFinished = true;
+            }
+
+            mCallback.onFailure(type, e.getMessage());
+        }
+    }
+
+    /*
+     * Application interceptor that logs the outgoing request and the incoming response.
+     * Based on https://github.com/square/okhttp/wiki/Interceptors
+     */
+
+    class LoggingInterceptor implements Interceptor {
+
+        private final static String LOG_TAG = "LoggingInterceptor";
+
+        @Override public Response intercept(Interceptor.Chain chain) throws IOException {
+            Request request = chain.request();
+
+            long t1 = System.nanoTime();
+            Log.i(LOG_TAG, String.format("Sending request %s on %s%n%s",
+                    request.url(), chain.connection(), request.headers()));
+
+            Response response = chain.proceed(request);
+
+            long t2 = System.nanoTime();
+            Log.i(LOG_TAG, String.format("Received response for %s in %.1fms%n%s",
+                    response.request().url(), (t2 - t1) / 1e6d, response.headers()));
+
+            return response;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A ResourceLoader fetches the resources a map needs, such as styles, tiles, sprites and glyphs.
+ * <p>
+ * The SDK uses {@link OkHttpResourceLoader} by default. Use
+ * {@link com.mapbox.mapboxsdk.views.MapView#setResourceLoader(ResourceLoader)} to serve resources
+ * from somewhere else, for example local storage with {@link LocalResourceLoader} or an in-memory
+ * fixture for tests.
+ * </p>
+ * <p>
+ * {@link #load(String, String, String, String, Callback)} is called from the map's worker thread
+ * and must not block. Exactly one of the callback methods must eventually be called for every
+ * load that was not cancelled. Callbacks may come from any thread, and callbacks arriving after
+ * {@link Cancelable#cancel()} are ignored.
+ * </p>
+ */
+public interface ResourceLoader {
+
+    /**
+     * The resource could not be reached, for example because of a DNS or socket error.
+     */
+    int ERROR_CONNECTION = 0;
+
+    /**
+     * The resource could not be loaded right now, but trying again later may succeed.
+     */
+    int ERROR_TEMPORARY = 1;
+
+    /**
+     * The resource could not be loaded and trying again will not help.
+     */
+    int ERROR_PERMANENT = 2;
+
+    /**
+     * The load was cancelled.
+     */
+    int ERROR_CANCELED = 3;
+
+    /**
+     * Starts loading a resource.
+     *
+     * @param url       URL of the resource
+     * @param userAgent User agent to send with the request
+     * @param etag      ETag of the cached copy, or an empty string
+     * @param modified  Last-Modified date of the cached copy, or an empty string
+     * @param callback  Receives the result
+     * @return Handle to cancel the load with
+     */
+    @NonNull
+    Cancelable load(@NonNull String url, @NonNull String userAgent, @NonNull String etag,
+                    @NonNull String modified, @NonNull Callback callback);
+
+    /**
+     * Handle to a load in progress.
+     */
+    interface Cancelable {
+
+        /**
+         * Stops the load. The SDK reports the cancellation to the map itself.
+         */
+        void cancel();
+    }
+
+    /**
+     * Receives the result of a load.
+     */
+    interface Callback {
+
+        /**
+         * Called when a response was received, including error responses such as 404.
+         *
+         * @param code         HTTP status code, use 200 for success, 304 if the cached copy is
+         *                     still valid and 404 if the resource does not exist
+         * @param message      Status message
+         * @param etag         ETag of the response, or null
+         * @param modified     Last-Modified date of the response, or null
+         * @param cacheControl Cache-Control header of the response, or null
+         * @param expires      Expires header of the response, or null
+         * @param body         Response body
+         */
+        void onResponse(int code, @Nullable String message, @Nullable String etag, @Nullable String modified,
+                        @Nullable String cacheControl, @Nullable String expires, @NonNull byte[] body);
+
+        /**
+         * Called when no response could be obtained.
+         *
+         * @param type    One of the ERROR_ constants
+         * @param message Description of the failure
+         */
+        void onFailure(int type, @Nullable String message);
+    }
+}
@@ -0,0 +1,199 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when failed HTTP requests are tried again.
+ * <p>
+ * Backoff is tracked per host: every connection or temporary failure against a host doubles the
+ * delay used for the next attempt against that host, with jitter applied so that a burst of tile
+ * requests does not retry in lockstep. Hosts that keep failing trip a circuit breaker, after which
+ * requests are held back until a single probe request has gone through. While the device is
+ * offline requests are parked and resumed all at once when connectivity returns.
+ * </p>
+ */
+final class RetryScheduler {
+
+    // Backoff tuning
+    private static final long BASE_DELAY_MS = 500;
+    private static final long MAX_DELAY_MS = 60 * 1000;
+
+    // Number of attempts a single request gets before its failure is handed to native code
+    static final int MAX_ATTEMPTS = 4;
+
+    // Circuit breaker tuning
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 8;
+    private static final long CIRCUIT_OPEN_MS = 30 * 1000;
+
+    private final Map<String, HostState> mHosts = new HashMap<>();
+    private final List<Runnable> mParked = new ArrayList<>();
+    private final Random mRandom = new Random();
+    private final ScheduledExecutorService mExecutor;
+
+    private boolean mReachable = true;
+
+    RetryScheduler() {
+        super();
+        mExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "HTTPRetryScheduler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the time in milliseconds a new request to host has to wait before it may be sent.
+     * Zero means the request can go out immediately.
+     *
+     * @param host The host the request targets
+     * @return Delay in milliseconds
+     */
+    synchronized long acquire(String host) {
+        HostState state = mHosts.get(host);
+        if (state == null || state.openUntil == 0) {
+            // circuit closed
+            return 0;
+        }
+
+        long now = SystemClock.elapsedRealtime();
+        if (now < state.openUntil) {
+            // circuit open, spread waiting requests over the first second after it half opens
+            return state.openUntil - now + mRandom.nextInt((int) BASE_DELAY_MS * 2);
+        }
+
+        // circuit half open, let a single probe through (again if the last one went missing)
+        if (!state.probeInFlight || now - state.probeStarted > CIRCUIT_OPEN_MS) {
+            state.probeInFlight = true;
+            state.probeStarted = now;
+            return 0;
+        }
+        return jitter(BASE_DELAY_MS * 2);
+    }
+
+    /**
+     * Records a successful round trip to host, closing its circuit and resetting its backoff.
+     *
+     * @param host The host that responded
+     */
+    synchronized void onSuccess(String host) {
+        mHosts.remove(host);
+    }
+
+    /**
+     * Records a failed round trip to host.
+     *
+     * @param host The host that failed
+     * @return Delay in milliseconds to wait before retrying a request to host
+     */
+    synchronized long onFailure(String host) {
+        HostState state = mHosts.get(host);
+        if (state == null) {
+            state = new HostState();
+            mHosts.put(host, state);
+        }
+
+        state.consecutiveFailures++;
+        if (state.probeInFlight || state.consecutiveFailures >= CIRCUIT_FAILURE_THRESHOLD) {
+            // trip (or re-trip) the breaker
+            state.openUntil = SystemClock.elapsedRealtime() + CIRCUIT_OPEN_MS;
+            state.probeInFlight = false;
+        }
+
+        int exponent = Math.min(state.consecutiveFailures - 1, 16);
+        return jitter(Math.min(MAX_DELAY_MS, BASE_DELAY_MS << exponent));
+    }
+
+    /**
+     * Runs attempt after the given delay on the scheduler thread.
+     *
+     * @param attempt Work to run
+     * @param delayMs Delay in milliseconds
+     * @return Handle that can be used to cancel the attempt
+     */
+    ScheduledFuture<?> schedule(Runnable attempt, long delayMs) {
+        return mExecutor.schedule(attempt, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Holds attempt back until connectivity returns.
+     *
+     * @param attempt Work to run once the network is reachable again
+     * @return True if the attempt was parked, false if the network is reachable
+     */
+    synchronized boolean park(Runnable attempt) {
+        if (mReachable) {
+            return false;
+        }
+        mParked.add(attempt);
+        return true;
+    }
+
+    /**
+     * Removes a previously parked attempt.
+     *
+     * @param attempt The attempt to remove
+     * @return True if it was parked
+     */
+    synchronized boolean unpark(Runnable attempt) {
+        return mParked.remove(attempt);
+    }
+
+    synchronized boolean isReachable() {
+        return mReachable;
+    }
+
+    /**
+     * Updates the network reachability. When the network becomes reachable again all host state
+     * is reset and every parked request is resumed.
+     *
+     * @param reachable True if the device has connectivity
+     */
+    void setReachable(boolean reachable) {
+        List<Runnable> resume;
+        synchronized (this) {
+            if (mReachable == reachable) {
+                return;
+            }
+            mReachable = reachable;
+            if (!reachable) {
+                return;
+            }
+
+            // failures seen while offline say nothing about the hosts themselves
+            mHosts.clear();
+            resume = new ArrayList<>(mParked);
+            mParked.clear();
+        }
+
+        for (Runnable attempt : resume) {
+            mExecutor.execute(attempt);
+        }
+    }
+
+    // Equal jitter, half of the delay is fixed and half is random
+    private long jitter(long delayMs) {
+        long half = delayMs / 2;
+        return half + (long) (mRandom.nextDouble() * half);
+    }
+
+    private static final class HostState {
+        int consecutiveFailures;
+        long openUntil;
+        boolean probeInFlight;
+        long probeStarted;
+    }
+}
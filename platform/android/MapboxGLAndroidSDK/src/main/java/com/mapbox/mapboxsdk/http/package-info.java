@@ -1,4 +1,6 @@
 /**
- * Do not use this package. Used internally by the SDK.
+ * Contains the classes used to load map resources. Implement
+ * {@link com.mapbox.mapboxsdk.http.ResourceLoader} to change where resources come from, and use
+ * {@link com.mapbox.mapboxsdk.http.NetworkMetrics} to inspect request timings.
  */
 package com.mapbox.mapboxsdk.http;
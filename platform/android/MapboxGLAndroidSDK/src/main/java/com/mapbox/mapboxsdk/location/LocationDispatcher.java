@@ -0,0 +1,131 @@
+package com.mapbox.mapboxsdk.location;
+
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.mapbox.mapboxsdk.constants.LocationDelivery;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Delivers location updates to one LocationListener in the way it was registered with.
+ */
+final class LocationDispatcher implements Runnable {
+
+    // Shared by all listeners of the same delivery, so conflated updates don't queue behind
+    // the backlog of background listeners
+    private static Executor sBackgroundExecutor;
+    private static Executor sConflatedExecutor;
+    private static Handler sMainHandler;
+
+    private final LocationListener mListener;
+    private final int mDelivery;
+
+    // Cleared once the listener is removed, so queued updates are dropped
+    private volatile boolean mActive = true;
+
+    // Latest location not yet delivered to a conflated listener
+    private final AtomicReference<Location> mPending = new AtomicReference<>();
+
+    LocationDispatcher(LocationListener listener, @LocationDelivery.Mode int delivery) {
+        mListener = listener;
+        mDelivery = delivery;
+    }
+
+    LocationListener getListener() {
+        return mListener;
+    }
+
+    void cancel() {
+        mActive = false;
+        mPending.set(null);
+    }
+
+    void dispatch(final Location location) {
+        switch (mDelivery) {
+            case LocationDelivery.DELIVERY_MAIN_THREAD:
+                if (Looper.myLooper() == Looper.getMainLooper()) {
+                    deliver(location);
+                } else {
+                    getMainHandler().post(new Delivery(location));
+                }
+                break;
+
+            case LocationDelivery.DELIVERY_BACKGROUND:
+                getBackgroundExecutor().execute(new Delivery(location));
+                break;
+
+            case LocationDelivery.DELIVERY_CONFLATED:
+                // Only schedule a delivery if none is waiting already
+                if (mPending.getAndSet(location) == null) {
+                    getConflatedExecutor().execute(this);
+                }
+                break;
+        }
+    }
+
+    // Delivers the latest location to a conflated listener
+    @Override
+    public void run() {
+        Location location = mPending.getAndSet(null);
+        if (location != null) {
+            deliver(location);
+        }
+    }
+
+    private void deliver(Location location) {
+        if (mActive) {
+            mListener.onLocationChanged(location);
+        }
+    }
+
+    private class Delivery implements Runnable {
+
+        private final Location mLocation;
+
+        Delivery(Location location) {
+            mLocation = location;
+        }
+
+        @Override
+        public void run() {
+            deliver(mLocation);
+        }
+    }
+
+    private static synchronized Handler getMainHandler() {
+        if (sMainHandler == null) {
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return sMainHandler;
+    }
+
+    private static synchronized Executor getBackgroundExecutor() {
+        if (sBackgroundExecutor == null) {
+            sBackgroundExecutor = newExecutor("LocationServices");
+        }
+        return sBackgroundExecutor;
+    }
+
+    private static synchronized Executor getConflatedExecutor() {
+        if (sConflatedExecutor == null) {
+            sConflatedExecutor = newExecutor("LocationServices-conflated");
+        }
+        return sConflatedExecutor;
+    }
+
+    private static Executor newExecutor(final String name) {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
@@ -0,0 +1,330 @@
+package com.mapbox.mapboxsdk.location;
+
+import android.location.Location;
+import android.support.annotation.FloatRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Smooths location fixes before they reach the map and the {@link LocationListener}s.
+ * <p>
+ * Fixes go through a constant velocity Kalman filter weighted by their reported accuracy. Fixes
+ * that jump further than the filter considers plausible are rejected, and the bearing is
+ * smoothed. A filtered location is only emitted when it has moved or turned noticeably, so a
+ * noisy but stationary fix no longer moves the map. Locations are not filtered unless a filter
+ * is set on {@link LocationServices}.
+ * </p>
+ * <p>
+ * Filtering a fix doesn't allocate; only emitted locations are new objects. The filter is not
+ * thread safe and is used from the thread location updates are delivered on.
+ * </p>
+ *
+ * @see LocationServices#setLocationFilter(LocationFilter)
+ */
+public class LocationFilter {
+
+    // Meters per degree of latitude
+    private static final double METERS_PER_DEGREE = 111319.49;
+
+    // Chi-squared value for two degrees of freedom at 99%, fixes outside of it are outliers
+    private static final double OUTLIER_GATE = 9.21;
+
+    // After this many rejected fixes in a row the filter starts over from the newest fix
+    private static final int MAX_REJECTED_FIXES = 3;
+
+    // Accuracy assumed for fixes that don't report one
+    private static final float DEFAULT_ACCURACY = 20.0f;
+
+    // Below this speed the heading of the movement is too noisy to be used as bearing
+    private static final float MIN_HEADING_SPEED = 2.0f;
+
+    // Configuration
+    private float mAcceleration = 2.0f;
+    private float mMaxSpeed = 100.0f;
+    private float mBearingSmoothing = 0.5f;
+    private float mMinDisplacement = 1.0f;
+    private float mMinBearingChange = 5.0f;
+    private long mMaxEmitInterval = 5000;
+
+    // Filtered state, velocity in meters per second towards east and north
+    private boolean mInitialized = false;
+    private double mLatitude;
+    private double mLongitude;
+    private double mVelocityEast;
+    private double mVelocityNorth;
+    private long mTime;
+
+    // Covariance per axis: position variance, position-velocity covariance, velocity variance
+    private double mEastPP;
+    private double mEastPV;
+    private double mEastVV;
+    private double mNorthPP;
+    private double mNorthPV;
+    private double mNorthVV;
+
+    private boolean mHasBearing = false;
+    private float mBearing;
+    private int mRejectedFixes = 0;
+
+    // Last emitted location
+    private boolean mEmitted = false;
+    private double mEmittedLatitude;
+    private double mEmittedLongitude;
+    private float mEmittedBearing;
+    private long mEmittedTime;
+    private final float[] mDistance = new float[1];
+
+    /**
+     * Sets how quickly the user is expected to change speed. Lower values smooth more, higher
+     * values follow turns and stops more closely. Defaults to 2 m/s².
+     *
+     * @param acceleration Expected acceleration in meters per second squared
+     */
+    public void setAcceleration(@FloatRange(from = 0, fromInclusive = false) float acceleration) {
+        if (acceleration <= 0) {
+            throw new IllegalArgumentException("acceleration must be positive");
+        }
+        mAcceleration = acceleration;
+    }
+
+    /**
+     * Sets the speed above which a jump between fixes is rejected as an outlier. Defaults to
+     * 100 m/s.
+     *
+     * @param maxSpeed Maximum plausible speed in meters per second
+     */
+    public void setMaxSpeed(@FloatRange(from = 0, fromInclusive = false) float maxSpeed) {
+        if (maxSpeed <= 0) {
+            throw new IllegalArgumentException("maxSpeed must be positive");
+        }
+        mMaxSpeed = maxSpeed;
+    }
+
+    /**
+     * Sets how much the bearing is smoothed, from 0 for no smoothing to 1 for a bearing that
+     * never changes. Defaults to 0.5.
+     *
+     * @param bearingSmoothing The smoothing factor
+     */
+    public void setBearingSmoothing(@FloatRange(from = 0, to = 1, toInclusive = false) float bearingSmoothing) {
+        if (bearingSmoothing < 0 || bearingSmoothing >= 1) {
+            throw new IllegalArgumentException("bearingSmoothing must be at least 0 and less than 1");
+        }
+        mBearingSmoothing = bearingSmoothing;
+    }
+
+    /**
+     * Sets how far and how much the filtered location has to move or turn before it is emitted.
+     * Movements within the uncertainty of the filtered location are never emitted. Defaults to
+     * 1 meter and 5 degrees.
+     *
+     * @param minDisplacement   Minimum movement in meters
+     * @param minBearingChange  Minimum change of bearing in degrees
+     */
+    public void setMinChange(@FloatRange(from = 0) float minDisplacement,
+                             @FloatRange(from = 0, to = 180) float minBearingChange) {
+        if (minDisplacement < 0 || minBearingChange < 0 || minBearingChange > 180) {
+            throw new IllegalArgumentException("Invalid minimum change");
+        }
+        mMinDisplacement = minDisplacement;
+        mMinBearingChange = minBearingChange;
+    }
+
+    /**
+     * Sets the time after which a location is emitted even if it hasn't changed, so accuracy
+     * and staleness stay current. Defaults to 5 seconds.
+     *
+     * @param maxEmitInterval Time in milliseconds
+     */
+    public void setMaxEmitInterval(long maxEmitInterval) {
+        if (maxEmitInterval < 0) {
+            throw new IllegalArgumentException("maxEmitInterval must not be negative");
+        }
+        mMaxEmitInterval = maxEmitInterval;
+    }
+
+    public long getMaxEmitInterval() {
+        return mMaxEmitInterval;
+    }
+
+    /**
+     * Forgets all fixes, the next fix is emitted as is.
+     */
+    public void reset() {
+        mInitialized = false;
+        mHasBearing = false;
+        mRejectedFixes = 0;
+        mEmitted = false;
+    }
+
+    /**
+     * Filters a fix.
+     *
+     * @param location The raw fix
+     * @return The filtered location if it should be emitted, null if the fix was rejected or
+     * changes too little
+     */
+    @Nullable
+    public Location filter(@NonNull Location location) {
+        float accuracy = location.hasAccuracy() && location.getAccuracy() > 0
+                ? location.getAccuracy() : DEFAULT_ACCURACY;
+        double variance = accuracy * accuracy;
+        long time = location.getTime();
+
+        if (!mInitialized || time < mTime) {
+            // First fix, or the clock went backwards
+            initialize(location, variance);
+        } else if (!update(location, variance, time)) {
+            return null;
+        }
+
+        updateBearing(location);
+        return emit(location, accuracy);
+    }
+
+    private void initialize(Location location, double variance) {
+        mInitialized = true;
+        mLatitude = location.getLatitude();
+        mLongitude = location.getLongitude();
+        mVelocityEast = 0;
+        mVelocityNorth = 0;
+        mTime = location.getTime();
+
+        // Velocity is unknown, allow anything up to the maximum speed
+        double velocityVariance = mMaxSpeed * mMaxSpeed;
+        mEastPP = variance;
+        mEastPV = 0;
+        mEastVV = velocityVariance;
+        mNorthPP = variance;
+        mNorthPV = 0;
+        mNorthVV = velocityVariance;
+        mRejectedFixes = 0;
+        mHasBearing = false;
+    }
+
+    // Predicts the state at the time of the fix and corrects it, returns false for outliers
+    private boolean update(Location location, double variance, long time) {
+        double dt = Math.max(time - mTime, 0) / 1000.0;
+        double metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(mLatitude));
+
+        // Predicted position relative to the current state
+        double predictedEast = mVelocityEast * dt;
+        double predictedNorth = mVelocityNorth * dt;
+
+        // Predicted covariance, acceleration is the process noise
+        double q = mAcceleration * mAcceleration;
+        double dt2 = dt * dt;
+        double eastPP = mEastPP + 2 * dt * mEastPV + dt2 * mEastVV + q * dt2 * dt2 / 4;
+        double eastPV = mEastPV + dt * mEastVV + q * dt2 * dt / 2;
+        double eastVV = mEastVV + q * dt2;
+        double northPP = mNorthPP + 2 * dt * mNorthPV + dt2 * mNorthVV + q * dt2 * dt2 / 4;
+        double northPV = mNorthPV + dt * mNorthVV + q * dt2 * dt / 2;
+        double northVV = mNorthVV + q * dt2;
+
+        // Innovation
+        double measuredEast = (location.getLongitude() - mLongitude) * metersPerDegreeLongitude;
+        double measuredNorth = (location.getLatitude() - mLatitude) * METERS_PER_DEGREE;
+        double innovationEast = measuredEast - predictedEast;
+        double innovationNorth = measuredNorth - predictedNorth;
+        double eastS = eastPP + variance;
+        double northS = northPP + variance;
+
+        double jump = Math.sqrt(measuredEast * measuredEast + measuredNorth * measuredNorth);
+        boolean tooFast = dt > 0 && jump - Math.sqrt(variance) > mMaxSpeed * dt;
+        boolean outside = innovationEast * innovationEast / eastS
+                + innovationNorth * innovationNorth / northS > OUTLIER_GATE;
+        if (tooFast || outside) {
+            mRejectedFixes++;
+            if (mRejectedFixes < MAX_REJECTED_FIXES) {
+                return false;
+            }
+            // The fixes agree with each other, the filter has lost track
+            initialize(location, variance);
+            return true;
+        }
+        mRejectedFixes = 0;
+
+        // Correct
+        double eastGainP = eastPP / eastS;
+        double eastGainV = eastPV / eastS;
+        double northGainP = northPP / northS;
+        double northGainV = northPV / northS;
+
+        double east = predictedEast + eastGainP * innovationEast;
+        double north = predictedNorth + northGainP * innovationNorth;
+        mVelocityEast += eastGainV * innovationEast;
+        mVelocityNorth += northGainV * innovationNorth;
+
+        mEastVV = eastVV - eastGainV * eastPV;
+        mEastPV = (1 - eastGainP) * eastPV;
+        mEastPP = (1 - eastGainP) * eastPP;
+        mNorthVV = northVV - northGainV * northPV;
+        mNorthPV = (1 - northGainP) * northPV;
+        mNorthPP = (1 - northGainP) * northPP;
+
+        mLatitude += north / METERS_PER_DEGREE;
+        mLongitude += east / metersPerDegreeLongitude;
+        mTime = time;
+        return true;
+    }
+
+    private void updateBearing(Location location) {
+        float bearing;
+        double speed = Math.hypot(mVelocityEast, mVelocityNorth);
+        if (location.hasBearing()) {
+            bearing = location.getBearing();
+        } else if (speed >= MIN_HEADING_SPEED) {
+            bearing = (float) Math.toDegrees(Math.atan2(mVelocityEast, mVelocityNorth));
+        } else {
+            return;
+        }
+
+        if (!mHasBearing) {
+            mBearing = normalizeBearing(bearing);
+            mHasBearing = true;
+            return;
+        }
+
+        // Smooth along the shorter way around the circle
+        float difference = normalizeBearing(bearing - mBearing + 180) - 180;
+        mBearing = normalizeBearing(mBearing + (1 - mBearingSmoothing) * difference);
+    }
+
+    @Nullable
+    private Location emit(Location location, float accuracy) {
+        double deviation = Math.sqrt(Math.max(mEastPP, mNorthPP));
+        if (mEmitted && location.getTime() - mEmittedTime < mMaxEmitInterval) {
+            // Movements within the remaining uncertainty are noise
+            Location.distanceBetween(mEmittedLatitude, mEmittedLongitude, mLatitude, mLongitude, mDistance);
+            float turn = Math.abs(normalizeBearing(mBearing - mEmittedBearing + 180) - 180);
+            if (mDistance[0] < Math.max(mMinDisplacement, deviation) && (!mHasBearing || turn < mMinBearingChange)) {
+                return null;
+            }
+        }
+
+        mEmitted = true;
+        mEmittedLatitude = mLatitude;
+        mEmittedLongitude = mLongitude;
+        mEmittedBearing = mBearing;
+        mEmittedTime = location.getTime();
+
+        Location filtered = new Location(location);
+        filtered.setLatitude(mLatitude);
+        filtered.setLongitude(mLongitude);
+        if (location.hasAccuracy()) {
+            filtered.setAccuracy((float) Math.min(accuracy, deviation));
+        }
+        if (!location.hasSpeed()) {
+            filtered.setSpeed((float) Math.hypot(mVelocityEast, mVelocityNorth));
+        }
+        if (mHasBearing) {
+            filtered.setBearing(mBearing);
+        }
+        return filtered;
+    }
+
+    private static float normalizeBearing(float bearing) {
+        float normalized = bearing % 360;
+        return normalized < 0 ? normalized + 360 : normalized;
+    }
+}
@@ -0,0 +1,515 @@
+package com.mapbox.mapboxsdk.location;
+
+import android.location.Location;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.FloatRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+/**
+ * LocationReplay plays a recorded track back through {@link LocationServices} instead of the
+ * live location, for example to reproduce tracking performance problems.
+ * <p>
+ * Tracks are read from GPX, from a GeoJSON LineString or from the compact binary format written
+ * by {@link #write(OutputStream)}. Fixes keep the timestamps of the recording and are delivered
+ * with the recorded time between them, divided by the speed-up. Speed and bearing are derived
+ * from neighbouring points.
+ * </p>
+ *
+ * @see LocationServices#setLocationReplay(LocationReplay)
+ */
+public class LocationReplay {
+
+    /**
+     * Interface definition for a callback to be invoked when the last fix of a track has been
+     * delivered.
+     */
+    public interface OnReplayFinishedListener {
+        /**
+         * Called on the main thread when the replay has finished.
+         */
+        void onReplayFinished();
+    }
+
+    /**
+     * Name of the provider of replayed fixes.
+     */
+    public static final String PROVIDER = "replay";
+
+    // Binary format: magic, version, point count, start time, then per point the coordinates
+    // in 1e-7 degrees, milliseconds since the start and the elevation in meters or NaN
+    private static final int MAGIC = 0x4d424c52;
+    private static final int VERSION = 1;
+    private static final double E7 = 1e7;
+
+    // Accuracy reported for replayed fixes
+    private static final float ACCURACY = 5.0f;
+
+    // Points of GeoJSON tracks without timestamps are this far apart
+    private static final long DEFAULT_INTERVAL_MS = 1000;
+
+    private final double[] mLatitudes;
+    private final double[] mLongitudes;
+    private final long[] mTimes;
+    private final double[] mElevations;
+
+    // Playback state, main thread only
+    private Handler mHandler;
+    private final float[] mDistance = new float[2];
+    private float mSpeedUp = 1.0f;
+    private boolean mLoop = false;
+    private OnReplayFinishedListener mOnReplayFinishedListener;
+    private com.mapzen.android.lost.api.LocationListener mListener;
+    private int mIndex;
+
+    private final Runnable mNextFix = new Runnable() {
+        @Override
+        public void run() {
+            deliverNext();
+        }
+    };
+
+    LocationReplay(double[] latitudes, double[] longitudes, long[] times, double[] elevations) {
+        super();
+        if (latitudes.length == 0) {
+            throw new IllegalArgumentException("A track needs at least one point");
+        }
+        mLatitudes = latitudes;
+        mLongitudes = longitudes;
+        mTimes = times;
+        mElevations = elevations;
+    }
+
+    /**
+     * Reads a track from the track points of a GPX document.
+     *
+     * @param inputStream The GPX document, closed by the caller
+     * @return The track
+     * @throws IOException If the document can't be read or has no timed track points
+     */
+    public static LocationReplay fromGpx(@NonNull InputStream inputStream) throws IOException {
+        final Points points = new Points();
+        try {
+            SAXParserFactory.newInstance().newSAXParser().parse(inputStream, new DefaultHandler() {
+
+                private StringBuilder mText;
+                private boolean mInPoint;
+                private double mLatitude;
+                private double mLongitude;
+                private double mElevation;
+                private long mTime;
+
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    String name = localName(localName, qName);
+                    if ("trkpt".equals(name) || "rtept".equals(name)) {
+                        mInPoint = true;
+                        mLatitude = Double.parseDouble(attributes.getValue("lat"));
+                        mLongitude = Double.parseDouble(attributes.getValue("lon"));
+                        mElevation = Double.NaN;
+                        mTime = -1;
+                    } else if (mInPoint && ("ele".equals(name) || "time".equals(name))) {
+                        mText = new StringBuilder();
+                    }
+                }
+
+                @Override
+                public void characters(char[] ch, int start, int length) {
+                    if (mText != null) {
+                        mText.append(ch, start, length);
+                    }
+                }
+
+                @Override
+                public void endElement(String uri, String localName, String qName) throws SAXException {
+                    String name = localName(localName, qName);
+                    if ("ele".equals(name) && mText != null) {
+                        mElevation = Double.parseDouble(mText.toString().trim());
+                    } else if ("time".equals(name) && mText != null) {
+                        mTime = parseTime(mText.toString().trim());
+                    } else if ("trkpt".equals(name) || "rtept".equals(name)) {
+                        mInPoint = false;
+                        if (mTime < 0) {
+                            throw new SAXException("Track point without time");
+                        }
+                        points.add(mLatitude, mLongitude, mTime, mElevation);
+                    }
+                    mText = null;
+                }
+            });
+        } catch (ParserConfigurationException | SAXException | NumberFormatException e) {
+            throw new IOException("Invalid GPX: " + e.getMessage());
+        }
+        return points.toReplay();
+    }
+
+    /**
+     * Reads a track from a GeoJSON LineString. The geometry may be wrapped in a Feature or be the
+     * first LineString of a FeatureCollection. Timestamps are taken from a {@code coordTimes}
+     * property holding ISO 8601 strings or milliseconds, points without them are one second
+     * apart.
+     *
+     * @param geoJson The GeoJSON document
+     * @return The track
+     * @throws IOException If the document has no LineString
+     */
+    public static LocationReplay fromGeoJson(@NonNull String geoJson) throws IOException {
+        try {
+            JSONObject feature = findLineString(new JSONObject(geoJson));
+            if (feature == null) {
+                throw new IOException("No LineString found");
+            }
+
+            JSONObject geometry = feature.has("geometry") ? feature.getJSONObject("geometry") : feature;
+            JSONArray coordinates = geometry.getJSONArray("coordinates");
+            JSONObject properties = feature.optJSONObject("properties");
+            JSONArray times = properties != null ? properties.optJSONArray("coordTimes") : null;
+
+            Points points = new Points();
+            for (int i = 0; i < coordinates.length(); i++) {
+                JSONArray coordinate = coordinates.getJSONArray(i);
+                long time;
+                if (times != null && i < times.length()) {
+                    Object value = times.get(i);
+                    time = value instanceof Number ? ((Number) value).longValue() : parseTime(value.toString());
+                } else {
+                    time = i * DEFAULT_INTERVAL_MS;
+                }
+                points.add(coordinate.getDouble(1), coordinate.getDouble(0), time,
+                        coordinate.length() > 2 ? coordinate.getDouble(2) : Double.NaN);
+            }
+            return points.toReplay();
+        } catch (JSONException | NumberFormatException e) {
+            throw new IOException("Invalid GeoJSON: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a track in the binary format written by {@link #write(OutputStream)}.
+     *
+     * @param inputStream The track, closed by the caller
+     * @return The track
+     * @throws IOException If the track can't be read
+     */
+    public static LocationReplay fromBinary(@NonNull InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException("Not a location track");
+        }
+
+        int count = input.readInt();
+        if (count < 1) {
+            throw new IOException("Invalid point count " + count);
+        }
+        long start = input.readLong();
+
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        long[] times = new long[count];
+        double[] elevations = new double[count];
+        for (int i = 0; i < count; i++) {
+            latitudes[i] = input.readInt() / E7;
+            longitudes[i] = input.readInt() / E7;
+            times[i] = start + input.readInt();
+            elevations[i] = input.readFloat();
+        }
+        return new LocationReplay(latitudes, longitudes, times, elevations);
+    }
+
+    /**
+     * Writes the track in a compact binary format, readable with
+     * {@link #fromBinary(InputStream)}. Coordinates are stored with a precision of about a
+     * centimeter.
+     *
+     * @param outputStream Receives the track, closed by the caller
+     * @throws IOException If writing fails
+     */
+    public void write(@NonNull OutputStream outputStream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(20 + mTimes.length * 16);
+        DataOutputStream output = new DataOutputStream(buffer);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(mTimes.length);
+        output.writeLong(mTimes[0]);
+        for (int i = 0; i < mTimes.length; i++) {
+            output.writeInt((int) Math.round(mLatitudes[i] * E7));
+            output.writeInt((int) Math.round(mLongitudes[i] * E7));
+            output.writeInt((int) (mTimes[i] - mTimes[0]));
+            output.writeFloat((float) mElevations[i]);
+        }
+        buffer.writeTo(outputStream);
+    }
+
+    /**
+     * Returns the number of points of the track.
+     *
+     * @return The point count
+     */
+    public int getPointCount() {
+        return mTimes.length;
+    }
+
+    /**
+     * Returns the latitude of a point.
+     *
+     * @param index Index of the point
+     * @return Latitude in degrees
+     */
+    public double getLatitude(int index) {
+        return mLatitudes[index];
+    }
+
+    /**
+     * Returns the longitude of a point.
+     *
+     * @param index Index of the point
+     * @return Longitude in degrees
+     */
+    public double getLongitude(int index) {
+        return mLongitudes[index];
+    }
+
+    /**
+     * Returns the recorded time of a point.
+     *
+     * @param index Index of the point
+     * @return Time in milliseconds since the epoch
+     */
+    public long getTime(int index) {
+        return mTimes[index];
+    }
+
+    /**
+     * Returns the recorded duration of the track.
+     *
+     * @return Duration in milliseconds
+     */
+    public long getDuration() {
+        return mTimes[mTimes.length - 1] - mTimes[0];
+    }
+
+    /**
+     * Sets how much faster than recorded the track is played back. Defaults to 1.
+     *
+     * @param speedUp The speed-up factor
+     */
+    public void setSpeedUp(@FloatRange(from = 0, fromInclusive = false) float speedUp) {
+        if (speedUp <= 0) {
+            throw new IllegalArgumentException("speedUp must be positive");
+        }
+        mSpeedUp = speedUp;
+    }
+
+    /**
+     * Sets whether the track starts over once it has been played back.
+     *
+     * @param loop true to play the track back endlessly
+     */
+    public void setLoop(boolean loop) {
+        mLoop = loop;
+    }
+
+    /**
+     * Sets a callback that's invoked when the last fix has been delivered.
+     *
+     * @param listener The callback that's invoked, or null to remove it
+     */
+    public void setOnReplayFinishedListener(@Nullable OnReplayFinishedListener listener) {
+        mOnReplayFinishedListener = listener;
+    }
+
+    /**
+     * Creates the fix for a point of the track.
+     *
+     * @param index Index of the point
+     * @return The fix with the recorded time
+     */
+    @NonNull
+    public Location getLocation(int index) {
+        Location location = new Location(PROVIDER);
+        location.setLatitude(mLatitudes[index]);
+        location.setLongitude(mLongitudes[index]);
+        location.setTime(mTimes[index]);
+        location.setAccuracy(ACCURACY);
+        if (!Double.isNaN(mElevations[index])) {
+            location.setAltitude(mElevations[index]);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            // the fix is current for the map, only its time is the recorded one
+            location.setElapsedRealtimeNanos(SystemClock.elapsedRealtimeNanos());
+        }
+
+        // Speed and bearing towards the next point, or from the previous one at the end
+        int from = index < mTimes.length - 1 ? index : index - 1;
+        if (from >= 0 && mTimes[from + 1] > mTimes[from]) {
+            Location.distanceBetween(mLatitudes[from], mLongitudes[from],
+                    mLatitudes[from + 1], mLongitudes[from + 1], mDistance);
+            location.setSpeed(mDistance[0] * 1000.0f / (mTimes[from + 1] - mTimes[from]));
+            location.setBearing((mDistance[1] + 360) % 360);
+        }
+        return location;
+    }
+
+    @UiThread
+    void start(@NonNull com.mapzen.android.lost.api.LocationListener listener) {
+        if (mHandler == null) {
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+        stop();
+        mListener = listener;
+        mIndex = 0;
+        deliverNext();
+    }
+
+    @UiThread
+    void stop() {
+        if (mHandler != null) {
+            mHandler.removeCallbacks(mNextFix);
+        }
+        mListener = null;
+    }
+
+    private void deliverNext() {
+        if (mListener == null) {
+            return;
+        }
+
+        int index = mIndex;
+        mListener.onLocationChanged(getLocation(index));
+        if (mListener == null) {
+            // stopped by the listener
+            return;
+        }
+
+        if (index + 1 < mTimes.length) {
+            mIndex = index + 1;
+            mHandler.postDelayed(mNextFix, (long) ((mTimes[index + 1] - mTimes[index]) / mSpeedUp));
+        } else if (mLoop) {
+            mIndex = 0;
+            mHandler.postDelayed(mNextFix, (long) (DEFAULT_INTERVAL_MS / mSpeedUp));
+        } else {
+            mListener = null;
+            if (mOnReplayFinishedListener != null) {
+                mOnReplayFinishedListener.onReplayFinished();
+            }
+        }
+    }
+
+    @Nullable
+    private static JSONObject findLineString(JSONObject object) throws JSONException {
+        String type = object.optString("type");
+        if ("LineString".equals(type)) {
+            return object;
+        } else if ("Feature".equals(type)) {
+            JSONObject geometry = object.optJSONObject("geometry");
+            return geometry != null && "LineString".equals(geometry.optString("type")) ? object : null;
+        } else if ("FeatureCollection".equals(type)) {
+            JSONArray features = object.getJSONArray("features");
+            for (int i = 0; i < features.length(); i++) {
+                JSONObject feature = findLineString(features.getJSONObject(i));
+                if (feature != null) {
+                    return feature;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String localName(String localName, String qName) {
+        String name = localName != null && !localName.isEmpty() ? localName : qName;
+        int prefix = name.indexOf(':');
+        return prefix >= 0 ? name.substring(prefix + 1) : name;
+    }
+
+    // Parses ISO 8601 times like 2016-02-01T10:15:30Z, 2016-02-01T10:15:30.250+01:00
+    static long parseTime(String time) {
+        try {
+            Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            calendar.clear();
+            calendar.set(Integer.parseInt(time.substring(0, 4)), Integer.parseInt(time.substring(5, 7)) - 1,
+                    Integer.parseInt(time.substring(8, 10)), Integer.parseInt(time.substring(11, 13)),
+                    Integer.parseInt(time.substring(14, 16)), Integer.parseInt(time.substring(17, 19)));
+            long millis = calendar.getTimeInMillis();
+
+            int position = 19;
+            if (position < time.length() && time.charAt(position) == '.') {
+                int end = position + 1;
+                while (end < time.length() && Character.isDigit(time.charAt(end))) {
+                    end++;
+                }
+                String fraction = (time.substring(position + 1, end) + "00").substring(0, 3);
+                millis += Integer.parseInt(fraction);
+                position = end;
+            }
+
+            if (position < time.length() && time.charAt(position) != 'Z') {
+                int sign = time.charAt(position) == '-' ? -1 : 1;
+                String offset = time.substring(position + 1).replace(":", "");
+                int minutes = Integer.parseInt(offset.substring(0, 2)) * 60
+                        + (offset.length() >= 4 ? Integer.parseInt(offset.substring(2, 4)) : 0);
+                millis -= sign * minutes * 60 * 1000L;
+            }
+            return millis;
+        } catch (IndexOutOfBoundsException e) {
+            throw new NumberFormatException("Invalid time " + time);
+        }
+    }
+
+    // Collects points while parsing
+    private static class Points {
+
+        private double[] mLatitudes = new double[64];
+        private double[] mLongitudes = new double[64];
+        private long[] mTimes = new long[64];
+        private double[] mElevations = new double[64];
+        private int mCount = 0;
+
+        void add(double latitude, double longitude, long time, double elevation) {
+            if (mCount == mTimes.length) {
+                int capacity = mCount * 2;
+                mLatitudes = Arrays.copyOf(mLatitudes, capacity);
+                mLongitudes = Arrays.copyOf(mLongitudes, capacity);
+                mTimes = Arrays.copyOf(mTimes, capacity);
+                mElevations = Arrays.copyOf(mElevations, capacity);
+            }
+            mLatitudes[mCount] = latitude;
+            mLongitudes[mCount] = longitude;
+            mTimes[mCount] = time;
+            mElevations[mCount] = elevation;
+            mCount++;
+        }
+
+        LocationReplay toReplay() throws IOException {
+            if (mCount == 0) {
+                throw new IOException("The track has no points");
+            }
+            return new LocationReplay(Arrays.copyOf(mLatitudes, mCount), Arrays.copyOf(mLongitudes, mCount),
+                    Arrays.copyOf(mTimes, mCount), Arrays.copyOf(mElevations, mCount));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mapbox.mapboxsdk.location;
+
+import android.location.Location;
+
+import com.mapzen.android.lost.api.LocationRequest;
+
+/**
+ * Picks how often and how accurately the device location is sampled.
+ * <p>
+ * The choice depends on whether a map is visible, whether it follows the user and how fast
+ * the user moves. Stationary users and hidden maps are sampled less often, while tracking a
+ * moving user keeps the full rate.
+ * </p>
+ */
+final class LocationSampler {
+
+    // Sampling profiles, ordered from the lowest to the highest rate
+    static final int PROFILE_HIDDEN = 0;
+    static final int PROFILE_STATIONARY = 1;
+    static final int PROFILE_MOVING = 2;
+    static final int PROFILE_NAVIGATION = 3;
+
+    // Request parameters per profile
+    private static final long[] INTERVAL_MS = {10000, 5000, 2000, 1000};
+    private static final long[] FASTEST_INTERVAL_MS = {5000, 2000, 1000, 1000};
+    private static final float[] SMALLEST_DISPLACEMENT_M = {25.0f, 5.0f, 3.0f, 3.0f};
+    private static final int[] PRIORITY = {
+            LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY,
+            LocationRequest.PRIORITY_HIGH_ACCURACY,
+            LocationRequest.PRIORITY_HIGH_ACCURACY,
+            LocationRequest.PRIORITY_HIGH_ACCURACY
+    };
+
+    // Speed thresholds in meters per second, apart so small changes don't switch back and forth
+    private static final float STATIONARY_SPEED = 0.5f;
+    private static final float MOVING_SPEED = 1.5f;
+
+    // Speed above which the full rate is used even if the map doesn't follow the user
+    private static final float NAVIGATION_SPEED = 8.0f;
+
+    // Number of slow fixes in a row before the user is considered stationary
+    private static final int STATIONARY_FIX_COUNT = 3;
+
+    // Weight of the newest fix in the speed estimate
+    private static final float SPEED_ALPHA = 0.5f;
+
+    private boolean mVisible = true;
+    private boolean mTracking = false;
+    private boolean mStationary = false;
+    private int mSlowFixCount = 0;
+    private float mSpeed = 0;
+
+    // Previous fix, kept as values so fixes can be recycled by the caller
+    private boolean mHasPrevious = false;
+    private double mPreviousLatitude;
+    private double mPreviousLongitude;
+    private long mPreviousTime;
+    private final float[] mDistance = new float[1];
+
+    void setVisible(boolean visible) {
+        mVisible = visible;
+    }
+
+    boolean isVisible() {
+        return mVisible;
+    }
+
+    void setTracking(boolean tracking) {
+        mTracking = tracking;
+    }
+
+    /**
+     * Updates the speed estimate with a new fix.
+     *
+     * @param location The new fix
+     */
+    void onLocation(Location location) {
+        float speed;
+        if (location.hasSpeed()) {
+            speed = location.getSpeed();
+        } else if (mHasPrevious && location.getTime() > mPreviousTime) {
+            Location.distanceBetween(mPreviousLatitude, mPreviousLongitude,
+                    location.getLatitude(), location.getLongitude(), mDistance);
+            speed = mDistance[0] * 1000.0f / (location.getTime() - mPreviousTime);
+        } else {
+            speed = mSpeed;
+        }
+
+        mSpeed = mHasPrevious ? SPEED_ALPHA * speed + (1 - SPEED_ALPHA) * mSpeed : speed;
+        mHasPrevious = true;
+        mPreviousLatitude = location.getLatitude();
+        mPreviousLongitude = location.getLongitude();
+        mPreviousTime = location.getTime();
+
+        if (mSpeed < STATIONARY_SPEED) {
+            mSlowFixCount++;
+            if (mSlowFixCount >= STATIONARY_FIX_COUNT) {
+                mStationary = true;
+            }
+        } else {
+            mSlowFixCount = 0;
+            if (mSpeed > MOVING_SPEED) {
+                mStationary = false;
+            }
+        }
+    }
+
+    /**
+     * Forgets the fixes seen so far, for example when location updates are restarted.
+     */
+    void reset() {
+        mHasPrevious = false;
+        mStationary = false;
+        mSlowFixCount = 0;
+        mSpeed = 0;
+    }
+
+    /**
+     * Returns the profile for the current state.
+     *
+     * @return One of the profile constants
+     */
+    int getProfile() {
+        if (!mVisible) {
+            return PROFILE_HIDDEN;
+        }
+        if (mStationary) {
+            return PROFILE_STATIONARY;
+        }
+        if (mTracking || mSpeed > NAVIGATION_SPEED) {
+            return PROFILE_NAVIGATION;
+        }
+        return PROFILE_MOVING;
+    }
+
+    /**
+     * Creates the location request for a profile.
+     *
+     * @param profile One of the profile constants
+     * @return The location request
+     */
+    static LocationRequest createRequest(int profile) {
+        return LocationRequest.create()
+                .setInterval(INTERVAL_MS[profile])
+                .setFastestInterval(FASTEST_INTERVAL_MS[profile])
+                .setSmallestDisplacement(SMALLEST_DISPLACEMENT_M[profile])
+                .setPriority(PRIORITY[profile]);
+    }
+}
@@ -3,13 +3,28 @@ package com.mapbox.mapboxsdk.location;
 import android.content.Context;
 import android.location.Location;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import com.mapbox.mapboxsdk.constants.LocationDelivery;
 import com.mapzen.android.lost.api.LocationRequest;
 import com.mapzen.android.lost.api.LostApiClient;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class LocationServices implements com.mapzen.android.lost.api.LocationListener {
 
+    private static final String TAG = "LocationServices";
+
+    // Fixes held back while the map is hidden are delivered once this many have been collected
+    private static final int MAX_BATCH_SIZE = 32;
+
+    // or once the oldest of them is this old
+    private static final long MAX_BATCH_AGE_MS = 60 * 1000;
+
     private static LocationServices instance = null;
 
     private LostApiClient mLocationClient;
@@ -17,10 +32,29 @@ public class LocationServices implements com.mapzen.android.lost.api.LocationLis
 
     private Location lastLocation = null;
 
-    private List<LocationListener> locationListeners = null;
+    // Copied on write, so listeners can be added and removed while updates are delivered
+    private List<LocationDispatcher> locationListeners = null;
 
     private boolean isGPSEnabled = false;
 
+    // Adaptive sampling
+    private final LocationSampler sampler = new LocationSampler();
+    private boolean adaptiveSampling = true;
+    private int samplingProfile = -1;
+    private boolean backgroundBatching = false;
+    private final List<Location> batchedLocations = new ArrayList<>();
+
+    // Maps showing the user location, by their visibility and whether they follow the user
+    private final Set<Object> visibleMaps = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    private final Set<Object> hiddenMaps = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    private final Set<Object> trackingMaps = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+    // Smoothing, off unless a filter is set
+    private LocationFilter locationFilter;
+
+    // Replaces the live location when set
+    private LocationReplay locationReplay;
+
     /**
      * Private constructor for singleton LocationServices
      */
@@ -28,7 +62,7 @@ public class LocationServices implements com.mapzen.android.lost.api.LocationLis
         super();
         // Setup location services
         mLocationClient = new LostApiClient.Builder(context).build();
-        locationListeners = new ArrayList<>();
+        locationListeners = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -61,23 +95,35 @@ public class LocationServices implements com.mapzen.android.lost.api.LocationLis
                 mLocationClient.disconnect();
             }
 
-            // Setup Fresh
-            mLocationClient.connect();
-            Location lastLocation = com.mapzen.android.lost.api.LocationServices.FusedLocationApi.getLastLocation();
-            if (lastLocation != null) {
-                this.lastLocation = lastLocation;
+            sampler.reset();
+            if (locationFilter != null) {
+                locationFilter.reset();
             }
+            samplingProfile = -1;
 
-            // LocationRequest Tuned for GPS
-            mLocationRequest = LocationRequest.create()
-                    .setFastestInterval(1000)
-                    .setSmallestDisplacement(3.0f)
-                    .setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY);
-
-            com.mapzen.android.lost.api.LocationServices.FusedLocationApi.requestLocationUpdates(mLocationRequest, this);
+            if (locationReplay != null) {
+                // Play the recorded track back instead
+                locationReplay.start(this);
+            } else {
+                // Setup Fresh
+                mLocationClient.connect();
+                Location lastLocation = com.mapzen.android.lost.api.LocationServices.FusedLocationApi.getLastLocation();
+                if (lastLocation != null) {
+                    this.lastLocation = lastLocation;
+                }
+                requestLocationUpdates();
+            }
 
         } else {
 
+            // Deliver what was held back while the map was hidden
+            flushBatchedLocations();
+            samplingProfile = -1;
+
+            if (locationReplay != null) {
+                locationReplay.stop();
+            }
+
             // Disconnect
             if (mLocationClient.isConnected()) {
                 // Disconnect first to ensure that the new requests are GPS
@@ -94,13 +140,239 @@ public class LocationServices implements com.mapzen.android.lost.api.LocationLis
         return isGPSEnabled;
     }
 
+    /**
+     * Enable / Disable adaptive location sampling. Enabled by default.
+     * <p>
+     * When enabled, the sampling interval, displacement and accuracy follow the speed of the user,
+     * whether a map is visible and whether it tracks the user. When disabled, the location is
+     * sampled every second.
+     * </p>
+     *
+     * @param enabled true to adapt sampling, false to always sample at the full rate
+     */
+    public void setAdaptiveSamplingEnabled(boolean enabled) {
+        adaptiveSampling = enabled;
+        if (!enabled) {
+            flushBatchedLocations();
+        }
+        updateLocationRequest();
+    }
+
+    /**
+     * Returns the longest time expected between two locations passed to the LocationListeners,
+     * given the current sampling profile and location filter.
+     *
+     * @return Time in milliseconds
+     */
+    public long getLocationInterval() {
+        long interval = mLocationRequest != null
+                ? mLocationRequest.getInterval()
+                : LocationSampler.createRequest(LocationSampler.PROFILE_NAVIGATION).getInterval();
+        if (locationFilter != null) {
+            // the filter holds back fixes that don't move, up to its emit interval
+            interval = Math.max(interval, locationFilter.getMaxEmitInterval());
+        }
+        return interval;
+    }
+
+    public boolean isAdaptiveSamplingEnabled() {
+        return adaptiveSampling;
+    }
+
+    /**
+     * Enable / Disable batching of location updates while no map is visible. Disabled by default.
+     * <p>
+     * When enabled, a map view keeps its location updated while paused, sampled at a low rate,
+     * and the fixes received while all maps are hidden are delivered to every LocationListener in
+     * batches. When disabled, a map view stops its location updates when paused.
+     * </p>
+     *
+     * @param enabled true to keep updating the location in batches while maps are hidden
+     */
+    public void setBackgroundBatchingEnabled(boolean enabled) {
+        backgroundBatching = enabled;
+        if (!enabled) {
+            flushBatchedLocations();
+        }
+    }
+
+    public boolean isBackgroundBatchingEnabled() {
+        return backgroundBatching;
+    }
+
+    /**
+     * Replaces the live location with a recorded track. Playback starts when GPS is enabled, or
+     * right away if it already is.
+     *
+     * @param replay LocationReplay to play back, or null to return to the live location
+     */
+    public void setLocationReplay(@Nullable LocationReplay replay) {
+        boolean enabled = isGPSEnabled;
+        if (enabled) {
+            toggleGPS(false);
+        }
+        locationReplay = replay;
+        if (enabled) {
+            toggleGPS(true);
+        }
+    }
+
+    /**
+     * Returns the recorded track played back instead of the live location.
+     *
+     * @return LocationReplay in use, or null if the live location is used
+     */
+    @Nullable
+    public LocationReplay getLocationReplay() {
+        return locationReplay;
+    }
+
+    /**
+     * Sets the filter that smooths location fixes before they are passed to the
+     * LocationListeners. Raw fixes are passed on unless a filter is set.
+     *
+     * @param filter LocationFilter to use, or null to pass raw fixes on
+     */
+    public void setLocationFilter(@Nullable LocationFilter filter) {
+        if (filter != null) {
+            filter.reset();
+        }
+        locationFilter = filter;
+    }
+
+    /**
+     * Returns the filter that smooths location fixes.
+     *
+     * @return LocationFilter in use, or null if raw fixes are passed on
+     */
+    @Nullable
+    public LocationFilter getLocationFilter() {
+        return locationFilter;
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @param map     The map showing the user location
+     * @param visible true if the map is in the foreground
+     */
+    public void setMapVisible(@NonNull Object map, boolean visible) {
+        if (visible) {
+            hiddenMaps.remove(map);
+            visibleMaps.add(map);
+        } else {
+            visibleMaps.remove(map);
+            hiddenMaps.add(map);
+        }
+        updateMaps();
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @param map      The map showing the user location
+     * @param tracking true if the map follows the user location
+     */
+    public void setMapTracking(@NonNull Object map, boolean tracking) {
+        if (tracking) {
+            trackingMaps.add(map);
+        } else {
+            trackingMaps.remove(map);
+        }
+        updateMaps();
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @param map The map that no longer shows the user location
+     */
+    public void removeMap(@NonNull Object map) {
+        visibleMaps.remove(map);
+        hiddenMaps.remove(map);
+        trackingMaps.remove(map);
+        updateMaps();
+    }
+
+    // Locations are sampled for a hidden map only if no other map is visible
+    private void updateMaps() {
+        boolean visible = !visibleMaps.isEmpty() || hiddenMaps.isEmpty();
+        sampler.setVisible(visible);
+        sampler.setTracking(!trackingMaps.isEmpty());
+        if (visible) {
+            flushBatchedLocations();
+        }
+        updateLocationRequest();
+    }
+
+    // Replaces the location request if the sampling profile has changed
+    private void updateLocationRequest() {
+        if (isGPSEnabled && mLocationClient.isConnected()) {
+            requestLocationUpdates();
+        }
+    }
+
+    private void requestLocationUpdates() {
+        int profile = adaptiveSampling ? sampler.getProfile() : LocationSampler.PROFILE_NAVIGATION;
+        if (profile == samplingProfile) {
+            return;
+        }
+
+        if (samplingProfile != -1) {
+            com.mapzen.android.lost.api.LocationServices.FusedLocationApi.removeLocationUpdates(this);
+        }
+        samplingProfile = profile;
+        mLocationRequest = LocationSampler.createRequest(profile);
+        Log.d(TAG, "Location sampling profile " + profile);
+        com.mapzen.android.lost.api.LocationServices.FusedLocationApi.requestLocationUpdates(mLocationRequest, this);
+    }
+
     @Override
     public void onLocationChanged(Location location) {
+        if (adaptiveSampling) {
+            // Sampling follows the raw fixes
+            sampler.onLocation(location);
+            updateLocationRequest();
+        }
+
+        if (locationFilter != null) {
+            location = locationFilter.filter(location);
+            if (location == null) {
+                // Rejected or too close to the previous location
+                return;
+            }
+        }
         this.lastLocation = location;
 
+        if (backgroundBatching && !sampler.isVisible()) {
+            // Hold back fixes while all maps are hidden
+            batchedLocations.add(location);
+            if (batchedLocations.size() >= MAX_BATCH_SIZE
+                    || location.getTime() - batchedLocations.get(0).getTime() >= MAX_BATCH_AGE_MS) {
+                flushBatchedLocations();
+            }
+            return;
+        }
+
+        notifyListeners(location);
+    }
+
+    private void flushBatchedLocations() {
+        if (batchedLocations.isEmpty()) {
+            return;
+        }
+
+        List<Location> locations = new ArrayList<>(batchedLocations);
+        batchedLocations.clear();
+        for (Location location : locations) {
+            notifyListeners(location);
+        }
+    }
+
+    private void notifyListeners(Location location) {
         // Update Listeners
-        for (LocationListener listener : this.locationListeners) {
-            listener.onLocationChanged(location);
+        for (LocationDispatcher dispatcher : this.locationListeners) {
+            dispatcher.dispatch(location);
         }
     }
 
@@ -113,19 +385,42 @@ public class LocationServices implements com.mapzen.android.lost.api.LocationLis
     }
 
     /**
-     * Registers a LocationListener to receive location updates
+     * Registers a LocationListener to receive location updates on the main thread
      * @param locationListener LocationListener
      */
     public void addLocationListener(@NonNull LocationListener locationListener) {
-        this.locationListeners.add(locationListener);
+        addLocationListener(locationListener, LocationDelivery.DELIVERY_MAIN_THREAD);
     }
 
     /**
-     * Unregister a LocationListener to stop receiving location updates
+     * Registers a LocationListener to receive location updates in the given way. Listeners
+     * that do slow work, such as writing to storage, should not be delivered on the main thread.
+     * Locations are shared between listeners and must not be modified.
+     * @param locationListener LocationListener
+     * @param delivery How updates are delivered, one of the values from {@link LocationDelivery}
+     */
+    public void addLocationListener(@NonNull LocationListener locationListener, @LocationDelivery.Mode int delivery) {
+        if (delivery != LocationDelivery.DELIVERY_MAIN_THREAD
+                && delivery != LocationDelivery.DELIVERY_BACKGROUND
+                && delivery != LocationDelivery.DELIVERY_CONFLATED) {
+            throw new IllegalArgumentException("Unknown location delivery " + delivery);
+        }
+        this.locationListeners.add(new LocationDispatcher(locationListener, delivery));
+    }
+
+    /**
+     * Unregister a LocationListener to stop receiving location updates. Updates that were not
+     * delivered yet are dropped.
      * @param locationListener LocationListener to remove
      * @return True if LocationListener was found and removed, False if it was not
      */
     public boolean removeLocationListener(@NonNull LocationListener locationListener) {
-        return this.locationListeners.remove(locationListener);
+        for (LocationDispatcher dispatcher : this.locationListeners) {
+            if (dispatcher.getListener().equals(locationListener)) {
+                dispatcher.cancel();
+                return this.locationListeners.remove(dispatcher);
+            }
+        }
+        return false;
     }
 }
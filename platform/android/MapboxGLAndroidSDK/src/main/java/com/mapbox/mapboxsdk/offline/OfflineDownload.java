@@ -0,0 +1,677 @@
+package com.mapbox.mapboxsdk.offline;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.mapbox.mapboxsdk.constants.GeoConstants;
+import com.mapbox.mapboxsdk.constants.MathConstants;
+import com.mapbox.mapboxsdk.geometry.BoundingBox;
+import com.mapbox.mapboxsdk.http.HTTPContext;
+import com.mapbox.mapboxsdk.http.ResourceLoader;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A running download of an {@link OfflineRegion}.
+ * <p>
+ * The download starts with the style, then loads the TileJSON of every source it references and
+ * finally the tiles, sprites and glyphs. At most a fixed number of requests are in flight at any
+ * time. Every resource is written to storage as soon as it arrives, and resources that are
+ * already stored are skipped, so starting the download of a region again resumes where the
+ * previous run stopped.
+ * </p>
+ * <p>
+ * Storage is read and written on a worker thread shared by all downloads, and the tiles of a
+ * source are generated from their zoom and bounds as they are requested rather than listed up
+ * front. Observer callbacks are delivered on the main thread.
+ * </p>
+ *
+ * @see OfflineManager#download(OfflineRegion, Observer)
+ */
+public class OfflineDownload {
+
+    private static final String LOG_TAG = OfflineDownload.class.getName();
+
+    /**
+     * Receives progress of an {@link OfflineDownload}.
+     */
+    public interface Observer {
+
+        /**
+         * Called periodically while the download makes progress.
+         *
+         * @param status The current status
+         */
+        void onStatusChanged(@NonNull OfflineRegionStatus status);
+
+        /**
+         * Called once every resource of the region is stored.
+         *
+         * @param status The final status
+         */
+        void onComplete(@NonNull OfflineRegionStatus status);
+
+        /**
+         * Called when the download stopped because a resource could not be loaded. Download the
+         * region again to resume.
+         *
+         * @param message Description of the failure
+         */
+        void onError(@NonNull String message);
+    }
+
+    private static final String USER_AGENT = "MapboxGL/1.0";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Minimum time between two status callbacks
+    private static final long STATUS_INTERVAL_MS = 500;
+
+    // Glyphs are served in ranges of 256 code points covering the basic multilingual plane
+    private static final int GLYPH_RANGE_SIZE = 256;
+    private static final int GLYPH_RANGE_COUNT = 256;
+
+    // Matches util::tileSize and the defaults of SourceInfo
+    private static final int DEFAULT_TILE_SIZE = 512;
+    private static final int DEFAULT_MIN_ZOOM = 0;
+    private static final int DEFAULT_MAX_ZOOM = 22;
+
+    private static final int KIND_STYLE = 0;
+    private static final int KIND_SOURCE = 1;
+    private static final int KIND_OTHER = 2;
+
+    private final OfflineRegion mRegion;
+    private final OfflineStorage mStorage;
+    private final ResourceLoader mLoader;
+    private final String mAccessToken;
+    private final float mPixelRatio;
+    private final int mMaxConcurrentRequests;
+    private final Observer mObserver;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    // Runs the scheduling and storage work of all downloads
+    private static Executor sExecutor;
+
+    // Guarded by this. Tiles are queued as ranges, other resources one by one.
+    private final Deque<Resource> mQueue = new ArrayDeque<>();
+    private final Deque<TileRange> mTileRanges = new ArrayDeque<>();
+    private final Set<String> mSeen = new HashSet<>();
+    private long mQueuedTiles = 0;
+    private final Map<Resource, ResourceLoader.Cancelable> mInFlight = new HashMap<>();
+    private int mActive = 0;
+    private int mUndiscovered = 0;
+    private long mCompletedCount = 0;
+    private long mCompletedBytes = 0;
+    private long mLastStatusTime = 0;
+    private long mWindowStart = 0;
+    private long mWindowBytes = 0;
+    private double mBytesPerSecond = 0;
+    private boolean mCanceled = false;
+    private boolean mFinished = false;
+    private String mError;
+
+    OfflineDownload(OfflineRegion region, OfflineStorage storage, ResourceLoader loader, String accessToken,
+                    float pixelRatio, int maxConcurrentRequests, Observer observer) {
+        mRegion = region;
+        mStorage = storage;
+        mLoader = loader;
+        mAccessToken = accessToken;
+        mPixelRatio = pixelRatio;
+        mMaxConcurrentRequests = maxConcurrentRequests;
+        mObserver = observer;
+    }
+
+    /**
+     * Returns the region being downloaded.
+     *
+     * @return The region
+     */
+    public OfflineRegion getRegion() {
+        return mRegion;
+    }
+
+    /**
+     * Returns the current progress.
+     *
+     * @return The current status
+     */
+    @NonNull
+    public synchronized OfflineRegionStatus getStatus() {
+        return new OfflineRegionStatus(mCompletedCount, mCompletedCount + mActive + mQueue.size() + mQueuedTiles,
+                mCompletedBytes, mBytesPerSecond, mUndiscovered == 0);
+    }
+
+    /**
+     * Stops the download. Resources stored so far are kept, download the region again to resume.
+     * No further observer callbacks are made.
+     */
+    public void cancel() {
+        ResourceLoader.Cancelable[] cancelables;
+        synchronized (this) {
+            if (mCanceled) {
+                return;
+            }
+            mCanceled = true;
+            mQueue.clear();
+            mTileRanges.clear();
+            mQueuedTiles = 0;
+            cancelables = mInFlight.values().toArray(new ResourceLoader.Cancelable[mInFlight.size()]);
+            mInFlight.clear();
+        }
+
+        for (ResourceLoader.Cancelable cancelable : cancelables) {
+            cancelable.cancel();
+        }
+    }
+
+    synchronized boolean isRunning() {
+        return !mCanceled && !mFinished;
+    }
+
+    void start() {
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mStorage.saveRegion(mRegion, false);
+                } catch (IOException e) {
+                    fail("Could not save region: " + e.getMessage());
+                    return;
+                }
+
+                synchronized (OfflineDownload.this) {
+                    mWindowStart = SystemClock.elapsedRealtime();
+                    enqueue(KIND_STYLE, OfflineUrls.normalizeStyleUrl(mRegion.getStyleUrl(), mAccessToken), 0, false, false);
+                }
+                dispatch();
+            }
+        });
+    }
+
+    private static synchronized Executor getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "OfflineDownload");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+
+    //
+    // Scheduling
+    //
+
+    // Starts queued resources until the concurrency limit is reached. Runs on the executor.
+    private void dispatch() {
+        // Continue one request at a time while saving data
+        int maxConcurrentRequests = HTTPContext.getInstance().isDataSaverActive() ? 1 : mMaxConcurrentRequests;
+        while (true) {
+            final Resource resource;
+            synchronized (this) {
+                if (mCanceled || mError != null || mActive >= maxConcurrentRequests
+                        || (mQueue.isEmpty() && mTileRanges.isEmpty())) {
+                    break;
+                }
+                resource = mQueue.isEmpty() ? pollTile() : mQueue.poll();
+                mActive++;
+            }
+
+            File stored = mStorage.resourceFile(mRegion.getName(), resource.url);
+            if (stored.isFile()) {
+                // stored by an earlier run, styles and sources are parsed again to find the rest
+                byte[] body = null;
+                if (resource.kind != KIND_OTHER) {
+                    try {
+                        body = OfflineStorage.read(stored);
+                    } catch (IOException e) {
+                        onFailed(resource, "Could not read " + stored + ": " + e.getMessage());
+                        continue;
+                    }
+                }
+                onStored(resource, body, stored.length(), false);
+                continue;
+            } else if (mStorage.missingFile(mRegion.getName(), resource.url).isFile()) {
+                onStored(resource, null, 0, false);
+                continue;
+            }
+
+            ResourceLoader.Cancelable cancelable = mLoader.load(resource.url, USER_AGENT, "", "", new ResourceLoader.Callback() {
+                @Override
+                public void onResponse(int code, String message, String etag, String modified, String cacheControl, String expires, final byte[] body) {
+                    final int status = code;
+                    getExecutor().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            onLoaded(resource, status, body);
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailure(int type, final String message) {
+                    getExecutor().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            onFailed(resource, message);
+                        }
+                    });
+                }
+            });
+
+            synchronized (this) {
+                if (mActive > 0 && !mCanceled && resource.pending) {
+                    mInFlight.put(resource, cancelable);
+                }
+            }
+        }
+
+        finishIfDone();
+    }
+
+    private void onLoaded(Resource resource, int code, byte[] body) {
+        try {
+            if (code == 200) {
+                mStorage.write(mRegion.getName(), resource.url, body);
+                onStored(resource, resource.kind != KIND_OTHER ? body : null, body.length, true);
+            } else if (code == 404 && resource.kind != KIND_STYLE) {
+                // sparse tile sets leave out empty tiles, remember that so it can be answered offline
+                mStorage.writeMissing(mRegion.getName(), resource.url);
+                onStored(resource, null, 0, true);
+            } else {
+                onFailed(resource, "HTTP status code " + code + " for " + OfflineStorage.key(resource.url));
+                return;
+            }
+        } catch (IOException e) {
+            onFailed(resource, "Could not store " + OfflineStorage.key(resource.url) + ": " + e.getMessage());
+            return;
+        }
+        dispatch();
+    }
+
+    private void onFailed(Resource resource, String message) {
+        Log.w(LOG_TAG, "Offline download of " + mRegion.getName() + " failed: " + message);
+        synchronized (this) {
+            resource.pending = false;
+            mInFlight.remove(resource);
+            mActive--;
+            if (mError == null) {
+                mError = message;
+            }
+        }
+        finishIfDone();
+    }
+
+    // Counts a resource as done. body is set for styles and sources, which are parsed first so
+    // that the resources they reference are queued before the download can look finished.
+    private void onStored(Resource resource, byte[] body, long bytes, boolean downloaded) {
+        if (body != null) {
+            parse(resource, body);
+        }
+
+        synchronized (this) {
+            if (body == null && resource.kind != KIND_OTHER) {
+                // a missing source references nothing
+                mUndiscovered--;
+            }
+            resource.pending = false;
+            mInFlight.remove(resource);
+            mActive--;
+            mCompletedCount++;
+            mCompletedBytes += bytes;
+            if (downloaded) {
+                mWindowBytes += bytes;
+            }
+        }
+        maybeReportStatus();
+    }
+
+    private void finishIfDone() {
+        final OfflineRegionStatus status;
+        final String error;
+        synchronized (this) {
+            if (mFinished || mCanceled || mActive > 0
+                    || (mError == null && (!mQueue.isEmpty() || !mTileRanges.isEmpty()))) {
+                return;
+            }
+            mFinished = true;
+            status = getStatus();
+            error = mError;
+        }
+
+        if (error != null) {
+            fail(error);
+            return;
+        }
+
+        try {
+            mStorage.saveRegion(mRegion, true);
+        } catch (IOException e) {
+            fail("Could not save region: " + e.getMessage());
+            return;
+        }
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!isCanceled()) {
+                    mObserver.onComplete(status);
+                }
+            }
+        });
+    }
+
+    private void fail(final String message) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!isCanceled()) {
+                    mObserver.onError(message);
+                }
+            }
+        });
+    }
+
+    private void maybeReportStatus() {
+        final OfflineRegionStatus status;
+        synchronized (this) {
+            long now = SystemClock.elapsedRealtime();
+            if (now - mLastStatusTime < STATUS_INTERVAL_MS) {
+                return;
+            }
+
+            // throughput over the time since the last report
+            long window = now - mWindowStart;
+            if (window > 0) {
+                mBytesPerSecond = mWindowBytes * 1000.0 / window;
+            }
+            mWindowStart = now;
+            mWindowBytes = 0;
+            mLastStatusTime = now;
+            status = getStatus();
+        }
+
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!isCanceled()) {
+                    mObserver.onStatusChanged(status);
+                }
+            }
+        });
+    }
+
+    private synchronized boolean isCanceled() {
+        return mCanceled;
+    }
+
+    // Takes the next tile of the first range. Callers hold the lock.
+    private Resource pollTile() {
+        TileRange range = mTileRanges.peek();
+        String url = range.next(mPixelRatio);
+        if (range.isDone()) {
+            mTileRanges.poll();
+        }
+        mQueuedTiles--;
+        return new Resource(KIND_OTHER, url, 0, false, false);
+    }
+
+    // Adds a resource to the queue unless it is already known. Callers hold the lock.
+    private void enqueue(int kind, String url, int tileSize, boolean raster, boolean mapboxSource) {
+        if (!mSeen.add(OfflineStorage.key(url))) {
+            return;
+        }
+
+        Resource resource = new Resource(kind, url, tileSize, raster, mapboxSource);
+        if (kind == KIND_OTHER) {
+            mQueue.addLast(resource);
+        } else {
+            // discover the rest of the region as early as possible
+            mUndiscovered++;
+            mQueue.addFirst(resource);
+        }
+    }
+
+    //
+    // Discovery
+    //
+
+    private void parse(Resource resource, byte[] body) {
+        try {
+            JSONObject json = new JSONObject(new String(body, UTF_8));
+            synchronized (this) {
+                if (resource.kind == KIND_STYLE) {
+                    parseStyle(json);
+                } else {
+                    enqueueTiles(json, resource.tileSize, resource.raster, resource.mapboxSource);
+                }
+            }
+        } catch (JSONException e) {
+            Log.w(LOG_TAG, "Could not parse " + OfflineStorage.key(resource.url), e);
+        } finally {
+            synchronized (this) {
+                mUndiscovered--;
+            }
+        }
+    }
+
+    private void parseStyle(JSONObject style) throws JSONException {
+        JSONObject sources = style.optJSONObject("sources");
+        if (sources != null) {
+            Iterator<String> ids = sources.keys();
+            while (ids.hasNext()) {
+                JSONObject source = sources.getJSONObject(ids.next());
+                String type = source.optString("type");
+                if ("vector".equals(type) || "raster".equals(type)) {
+                    boolean raster = "raster".equals(type);
+                    // vector sources are forbidden from having a tileSize
+                    int tileSize = raster ? source.optInt("tileSize", DEFAULT_TILE_SIZE) : DEFAULT_TILE_SIZE;
+                    String url = source.optString("url", null);
+                    if (url != null) {
+                        enqueue(KIND_SOURCE, OfflineUrls.normalizeSourceUrl(url, mAccessToken), tileSize, raster,
+                                OfflineUrls.isMapboxUrl(url));
+                    } else {
+                        enqueueTiles(source, tileSize, raster, false);
+                    }
+                } else if ("geojson".equals(type) && source.opt("data") instanceof String) {
+                    enqueue(KIND_OTHER, source.getString("data"), 0, false, false);
+                }
+            }
+        }
+
+        String sprite = style.optString("sprite", null);
+        if (sprite != null) {
+            String base = sprite + (mPixelRatio > 1 ? "@2x" : "");
+            enqueue(KIND_OTHER, OfflineUrls.normalizeSpriteUrl(base + ".json", mAccessToken), 0, false, false);
+            enqueue(KIND_OTHER, OfflineUrls.normalizeSpriteUrl(base + ".png", mAccessToken), 0, false, false);
+        }
+
+        String glyphs = style.optString("glyphs", null);
+        JSONArray layers = style.optJSONArray("layers");
+        if (glyphs != null && layers != null) {
+            Set<String> fontstacks = new HashSet<>();
+            for (int i = 0; i < layers.length(); i++) {
+                JSONObject layout = layers.getJSONObject(i).optJSONObject("layout");
+                if (layout != null) {
+                    collectFontstacks(layout.opt("text-font"), fontstacks);
+                }
+            }
+
+            for (String fontstack : fontstacks) {
+                for (int range = 0; range < GLYPH_RANGE_COUNT; range++) {
+                    int start = range * GLYPH_RANGE_SIZE;
+                    String url = OfflineUrls.templateGlyphsUrl(glyphs, fontstack, start, start + GLYPH_RANGE_SIZE - 1);
+                    enqueue(KIND_OTHER, OfflineUrls.normalizeGlyphsUrl(url, mAccessToken), 0, false, false);
+                }
+            }
+        }
+    }
+
+    // text-font is either an array of font names or a function with such arrays as stop values
+    private static void collectFontstacks(Object value, Set<String> fontstacks) throws JSONException {
+        if (value instanceof JSONArray) {
+            JSONArray fonts = (JSONArray) value;
+            StringBuilder fontstack = new StringBuilder();
+            for (int i = 0; i < fonts.length(); i++) {
+                if (i > 0) {
+                    fontstack.append(',');
+                }
+                fontstack.append(fonts.getString(i));
+            }
+            fontstacks.add(fontstack.toString());
+        } else if (value instanceof JSONObject) {
+            JSONArray stops = ((JSONObject) value).optJSONArray("stops");
+            if (stops != null) {
+                for (int i = 0; i < stops.length(); i++) {
+                    collectFontstacks(stops.getJSONArray(i).opt(1), fontstacks);
+                }
+            }
+        }
+    }
+
+    // Enqueues the tiles covering the region for a source or TileJSON with a "tiles" member
+    private void enqueueTiles(JSONObject source, int tileSize, boolean raster, boolean mapboxSource) throws JSONException {
+        JSONArray tiles = source.optJSONArray("tiles");
+        if (tiles == null || tiles.length() == 0) {
+            return;
+        }
+
+        String template = tiles.getString(0);
+        if (raster && mapboxSource) {
+            template = OfflineUrls.normalizeRasterTileUrl(template);
+        }
+
+        int sourceMinZoom = source.optInt("minzoom", DEFAULT_MIN_ZOOM);
+        int sourceMaxZoom = source.optInt("maxzoom", DEFAULT_MAX_ZOOM);
+
+        // same as Source::coveringZoomLevel, tiles smaller than 512 pixels are used one zoom level deeper
+        double offset = Math.log((double) DEFAULT_TILE_SIZE / tileSize) / Math.log(2);
+        int minZoom = coveringZoom(mRegion.getMinZoom() + offset, raster);
+        int maxZoom = coveringZoom(mRegion.getMaxZoom() + offset, raster);
+        if (maxZoom < sourceMinZoom) {
+            return;
+        }
+        minZoom = Math.max(minZoom, sourceMinZoom);
+        maxZoom = Math.min(maxZoom, sourceMaxZoom);
+
+        if (minZoom > maxZoom || !mSeen.add(OfflineStorage.key(template))) {
+            return;
+        }
+
+        TileRange range = new TileRange(template, mRegion.getBounds(), minZoom, maxZoom);
+        mTileRanges.addLast(range);
+        mQueuedTiles += range.remaining;
+    }
+
+    private static int coveringZoom(double zoom, boolean raster) {
+        return (int) Math.max(0, raster ? Math.round(zoom) : Math.floor(zoom));
+    }
+
+    private static int tileX(double longitude, int zoom) {
+        int tiles = 1 << zoom;
+        int x = (int) Math.floor((longitude + 180.0) / 360.0 * tiles);
+        return Math.min(Math.max(x, 0), tiles - 1);
+    }
+
+    private static int tileY(double latitude, int zoom) {
+        int tiles = 1 << zoom;
+        double lat = Math.max(GeoConstants.MIN_LATITUDE, Math.min(GeoConstants.MAX_LATITUDE, latitude)) * MathConstants.DEG2RAD;
+        int y = (int) Math.floor((1.0 - Math.log(Math.tan(lat) + 1.0 / Math.cos(lat)) / Math.PI) / 2.0 * tiles);
+        return Math.min(Math.max(y, 0), tiles - 1);
+    }
+
+    // The tiles of a source between two zoom levels, walked zoom by zoom, column by column
+    private static final class TileRange {
+        final String template;
+        final BoundingBox bounds;
+        final int maxZoom;
+        long remaining;
+
+        // Next tile and the tile bounds of its zoom level
+        int z;
+        int x;
+        int y;
+        int xMin;
+        int xMax;
+        int yMin;
+        int yMax;
+
+        TileRange(String template, BoundingBox bounds, int minZoom, int maxZoom) {
+            this.template = template;
+            this.bounds = bounds;
+            this.maxZoom = maxZoom;
+            for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+                long columns = tileX(bounds.getLonEast(), zoom) - tileX(bounds.getLonWest(), zoom) + 1;
+                long rows = tileY(bounds.getLatSouth(), zoom) - tileY(bounds.getLatNorth(), zoom) + 1;
+                remaining += columns * rows;
+            }
+            startZoom(minZoom);
+        }
+
+        boolean isDone() {
+            return remaining == 0;
+        }
+
+        String next(float pixelRatio) {
+            String url = OfflineUrls.templateTileUrl(template, z, x, y, pixelRatio);
+            remaining--;
+            if (++y > yMax) {
+                y = yMin;
+                if (++x > xMax && z < maxZoom) {
+                    startZoom(z + 1);
+                }
+            }
+            return url;
+        }
+
+        private void startZoom(int zoom) {
+            z = zoom;
+            xMin = tileX(bounds.getLonWest(), zoom);
+            xMax = tileX(bounds.getLonEast(), zoom);
+            yMin = tileY(bounds.getLatNorth(), zoom);
+            yMax = tileY(bounds.getLatSouth(), zoom);
+            x = xMin;
+            y = yMin;
+        }
+    }
+
+    private static final class Resource {
+        final int kind;
+        final String url;
+        final int tileSize;
+        final boolean raster;
+        final boolean mapboxSource;
+
+        // Guarded by the download
+        boolean pending = true;
+
+        Resource(int kind, String url, int tileSize, boolean raster, boolean mapboxSource) {
+            this.kind = kind;
+            this.url = url;
+            this.tileSize = tileSize;
+            this.raster = raster;
+            this.mapboxSource = mapboxSource;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.mapbox.mapboxsdk.offline;
+
+import android.content.Context;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+import android.text.TextUtils;
+
+import com.mapbox.mapboxsdk.http.HTTPContext;
+import com.mapbox.mapboxsdk.http.ResourceLoader;
+import com.mapbox.mapboxsdk.utils.ApiAccess;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OfflineManager downloads {@link OfflineRegion}s and keeps track of the regions stored on the
+ * device.
+ * <p>
+ * To use the stored regions, pass {@link #getResourceLoader()} to
+ * {@link com.mapbox.mapboxsdk.views.MapView#setResourceLoader(ResourceLoader)}. The map then
+ * loads stored resources from disk and everything else from the network.
+ * </p>
+ */
+public final class OfflineManager {
+
+    private static final String OFFLINE_DIRECTORY = "mbgl-offline";
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+    private static OfflineManager sInstance;
+
+    private final OfflineStorage mStorage;
+    private final float mPixelRatio;
+    private final OfflineResourceLoader mResourceLoader;
+
+    // Guarded by this
+    private final Map<String, OfflineDownload> mDownloads = new HashMap<>();
+    private List<String> mRegionNames;
+    private String mAccessToken;
+    private int mMaxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+    private OfflineManager(Context context) {
+        super();
+        mStorage = new OfflineStorage(new File(context.getFilesDir(), OFFLINE_DIRECTORY));
+        mPixelRatio = context.getResources().getDisplayMetrics().density;
+        mAccessToken = ApiAccess.getToken(context);
+        mResourceLoader = new OfflineResourceLoader(this, mStorage, HTTPContext.getInstance().getDefaultResourceLoader());
+    }
+
+    /**
+     * Returns the offline manager.
+     *
+     * @param context Any context of the application
+     * @return The offline manager
+     */
+    public static synchronized OfflineManager getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new OfflineManager(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Sets the access token used to download regions with mapbox:// styles. Defaults to the token
+     * found by {@link ApiAccess#getToken(Context)}.
+     *
+     * @param accessToken Your public Mapbox access token.
+     */
+    public synchronized void setAccessToken(@NonNull String accessToken) {
+        mAccessToken = accessToken;
+    }
+
+    /**
+     * Sets how many requests a download may have in flight at once. Applies to downloads started
+     * afterwards.
+     *
+     * @param maxConcurrentRequests The request limit, 4 by default
+     */
+    public synchronized void setMaxConcurrentRequests(@IntRange(from = 1) int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("maxConcurrentRequests must be at least 1");
+        }
+        mMaxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * Starts downloading a region. If a region with the same name was downloaded before, the
+     * resources stored then are kept and only what is missing is downloaded.
+     *
+     * @param region   The region to download
+     * @param observer Receives progress, completion and errors on the main thread
+     * @return The running download
+     */
+    @UiThread
+    @NonNull
+    public OfflineDownload download(@NonNull OfflineRegion region, @NonNull OfflineDownload.Observer observer) {
+        OfflineDownload download;
+        synchronized (this) {
+            if (TextUtils.isEmpty(mAccessToken) && OfflineUrls.isMapboxUrl(region.getStyleUrl())) {
+                throw new IllegalStateException("An access token is required to download mapbox:// styles");
+            }
+
+            OfflineDownload running = mDownloads.get(region.getName());
+            if (running != null && running.isRunning()) {
+                throw new IllegalStateException("Region " + region.getName() + " is already being downloaded");
+            }
+
+            download = new OfflineDownload(region, mStorage, HTTPContext.getInstance().getFullDensityResourceLoader(),
+                    mAccessToken, mPixelRatio, mMaxConcurrentRequests, observer);
+            mDownloads.put(region.getName(), download);
+            mRegionNames = null;
+        }
+
+        download.start();
+        return download;
+    }
+
+    /**
+     * Returns the regions stored on the device, complete or not.
+     *
+     * @return The stored regions
+     */
+    @NonNull
+    public List<OfflineRegion> getRegions() {
+        return mStorage.listRegions();
+    }
+
+    /**
+     * Returns whether every resource of a region has been downloaded.
+     *
+     * @param name Name of the region
+     * @return True if the region is complete
+     */
+    public boolean isComplete(@NonNull String name) {
+        return mStorage.isComplete(name);
+    }
+
+    /**
+     * Returns the download of a region that is in progress.
+     *
+     * @param name Name of the region
+     * @return The running download, or null
+     */
+    @Nullable
+    public synchronized OfflineDownload getDownload(@NonNull String name) {
+        OfflineDownload download = mDownloads.get(name);
+        return download != null && download.isRunning() ? download : null;
+    }
+
+    /**
+     * Stops any download of a region and removes its resources from the device.
+     *
+     * @param name Name of the region
+     * @return True if the region was deleted
+     */
+    public boolean deleteRegion(@NonNull String name) {
+        OfflineDownload download;
+        synchronized (this) {
+            download = mDownloads.remove(name);
+            mRegionNames = null;
+        }
+        if (download != null) {
+            download.cancel();
+        }
+        return mStorage.deleteRegion(name);
+    }
+
+    /**
+     * Returns a loader that serves resources of the stored regions and loads everything else
+     * from the network.
+     *
+     * @return The offline aware resource loader
+     */
+    @NonNull
+    public ResourceLoader getResourceLoader() {
+        return mResourceLoader;
+    }
+
+    synchronized List<String> getRegionNames() {
+        if (mRegionNames == null) {
+            mRegionNames = new ArrayList<>();
+            for (OfflineRegion region : mStorage.listRegions()) {
+                mRegionNames.add(region.getName());
+            }
+        }
+        return mRegionNames;
+    }
+}
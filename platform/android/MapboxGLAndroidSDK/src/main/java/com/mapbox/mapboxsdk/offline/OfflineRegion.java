@@ -0,0 +1,136 @@
+package com.mapbox.mapboxsdk.offline;
+
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.geometry.BoundingBox;
+import com.mapbox.mapboxsdk.views.MapView;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * An OfflineRegion describes an area of the map to make available offline: the style to use,
+ * the geographic bounds and the range of zoom levels.
+ *
+ * @see OfflineManager#download(OfflineRegion, OfflineDownload.Observer)
+ */
+public final class OfflineRegion {
+
+    private final String mName;
+    private final String mStyleUrl;
+    private final BoundingBox mBounds;
+    private final double mMinZoom;
+    private final double mMaxZoom;
+
+    /**
+     * Creates a region definition.
+     *
+     * @param name     Unique name of the region, used to resume and delete it. Only letters,
+     *                 digits, '-' and '_' are allowed.
+     * @param styleUrl URL of the style to download, see {@link com.mapbox.mapboxsdk.constants.Style}
+     * @param bounds   Geographic bounds of the region
+     * @param minZoom  Lowest zoom level to download
+     * @param maxZoom  Highest zoom level to download
+     */
+    public OfflineRegion(@NonNull String name, @NonNull String styleUrl, @NonNull BoundingBox bounds, double minZoom, double maxZoom) {
+        if (name == null || !name.matches("[A-Za-z0-9_\\-]+")) {
+            throw new IllegalArgumentException("name must only contain letters, digits, '-' and '_'");
+        }
+        if (styleUrl == null) {
+            throw new NullPointerException("styleUrl is null");
+        }
+        if (bounds == null) {
+            throw new NullPointerException("bounds is null");
+        }
+        if (!bounds.isValid()) {
+            throw new IllegalArgumentException("bounds is not valid");
+        }
+        if (minZoom < 0 || maxZoom > MapView.MAXIMUM_ZOOM || minZoom > maxZoom) {
+            throw new IllegalArgumentException("zoom range must satisfy 0 <= minZoom <= maxZoom <= " + MapView.MAXIMUM_ZOOM);
+        }
+
+        mName = name;
+        mStyleUrl = styleUrl;
+        // BoundingBox is mutable, keep a copy so the region can't change
+        mBounds = new BoundingBox(bounds);
+        mMinZoom = minZoom;
+        mMaxZoom = maxZoom;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public String getStyleUrl() {
+        return mStyleUrl;
+    }
+
+    /**
+     * Returns the geographic bounds of the region.
+     *
+     * @return A copy of the bounds
+     */
+    public BoundingBox getBounds() {
+        return new BoundingBox(mBounds);
+    }
+
+    public double getMinZoom() {
+        return mMinZoom;
+    }
+
+    public double getMaxZoom() {
+        return mMaxZoom;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        OfflineRegion other = (OfflineRegion) o;
+        return mName.equals(other.mName) && mStyleUrl.equals(other.mStyleUrl) && mBounds.equals(other.mBounds)
+                && Double.compare(mMinZoom, other.mMinZoom) == 0 && Double.compare(mMaxZoom, other.mMaxZoom) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mName.hashCode();
+        result = 31 * result + mStyleUrl.hashCode();
+        result = 31 * result + mBounds.hashCode();
+        long temp = Double.doubleToLongBits(mMinZoom);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        temp = Double.doubleToLongBits(mMaxZoom);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "OfflineRegion [name=" + mName + ", styleUrl=" + mStyleUrl + ", bounds=" + mBounds
+                + ", minZoom=" + mMinZoom + ", maxZoom=" + mMaxZoom + "]";
+    }
+
+    JSONObject toJSON() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("name", mName);
+        json.put("styleUrl", mStyleUrl);
+        json.put("north", mBounds.getLatNorth());
+        json.put("east", mBounds.getLonEast());
+        json.put("south", mBounds.getLatSouth());
+        json.put("west", mBounds.getLonWest());
+        json.put("minZoom", mMinZoom);
+        json.put("maxZoom", mMaxZoom);
+        return json;
+    }
+
+    static OfflineRegion fromJSON(JSONObject json) throws JSONException {
+        BoundingBox bounds = new BoundingBox(json.getDouble("north"), json.getDouble("east"),
+                json.getDouble("south"), json.getDouble("west"));
+        return new OfflineRegion(json.getString("name"), json.getString("styleUrl"), bounds,
+                json.getDouble("minZoom"), json.getDouble("maxZoom"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.mapbox.mapboxsdk.offline;
+
+/**
+ * Progress of an {@link OfflineDownload}.
+ * <p>
+ * The number of required resources grows while the download runs, since tiles are only known
+ * once the style and the sources it references have been loaded.
+ * </p>
+ */
+public final class OfflineRegionStatus {
+
+    private final long mCompletedResourceCount;
+    private final long mRequiredResourceCount;
+    private final long mCompletedResourceBytes;
+    private final double mBytesPerSecond;
+    private final boolean mRequiredResourceCountIsPrecise;
+
+    OfflineRegionStatus(long completedResourceCount, long requiredResourceCount, long completedResourceBytes,
+                        double bytesPerSecond, boolean requiredResourceCountIsPrecise) {
+        mCompletedResourceCount = completedResourceCount;
+        mRequiredResourceCount = requiredResourceCount;
+        mCompletedResourceBytes = completedResourceBytes;
+        mBytesPerSecond = bytesPerSecond;
+        mRequiredResourceCountIsPrecise = requiredResourceCountIsPrecise;
+    }
+
+    /**
+     * Returns the number of resources that are stored, including those found from an earlier run.
+     *
+     * @return The completed resource count
+     */
+    public long getCompletedResourceCount() {
+        return mCompletedResourceCount;
+    }
+
+    /**
+     * Returns the number of resources the region needs, as far as known.
+     *
+     * @return The required resource count
+     * @see #isRequiredResourceCountPrecise()
+     */
+    public long getRequiredResourceCount() {
+        return mRequiredResourceCount;
+    }
+
+    /**
+     * Returns the size of the stored resources.
+     *
+     * @return Size in bytes
+     */
+    public long getCompletedResourceBytes() {
+        return mCompletedResourceBytes;
+    }
+
+    /**
+     * Returns the recent download rate.
+     *
+     * @return Rate in bytes per second
+     */
+    public double getBytesPerSecond() {
+        return mBytesPerSecond;
+    }
+
+    /**
+     * Returns whether every resource of the region has been discovered, so that the required
+     * resource count will not grow anymore.
+     *
+     * @return True if the required resource count is final
+     */
+    public boolean isRequiredResourceCountPrecise() {
+        return mRequiredResourceCountIsPrecise;
+    }
+
+    /**
+     * Returns whether every resource of the region is stored.
+     *
+     * @return True if the download is complete
+     */
+    public boolean isComplete() {
+        return mRequiredResourceCountIsPrecise && mCompletedResourceCount >= mRequiredResourceCount;
+    }
+
+    @Override
+    public String toString() {
+        return "OfflineRegionStatus [completed=" + mCompletedResourceCount + ", required=" + mRequiredResourceCount
+                + ", bytes=" + mCompletedResourceBytes + ", bytesPerSecond=" + mBytesPerSecond
+                + ", precise=" + mRequiredResourceCountIsPrecise + "]";
+    }
+}
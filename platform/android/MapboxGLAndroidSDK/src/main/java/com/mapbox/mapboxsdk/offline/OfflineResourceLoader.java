@@ -0,0 +1,96 @@
+package com.mapbox.mapboxsdk.offline;
+
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.http.ResourceLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Serves resources stored by offline region downloads and passes everything else on to the
+ * network loader.
+ */
+final class OfflineResourceLoader implements ResourceLoader {
+
+    private final OfflineManager mManager;
+    private final OfflineStorage mStorage;
+    private final ResourceLoader mNetwork;
+    private final ExecutorService mExecutor;
+
+    OfflineResourceLoader(OfflineManager manager, OfflineStorage storage, ResourceLoader network) {
+        super();
+        mManager = manager;
+        mStorage = storage;
+        mNetwork = network;
+        mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "OfflineResourceLoader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public Cancelable load(@NonNull final String url, @NonNull final String userAgent, @NonNull final String etag,
+                           @NonNull final String modified, @NonNull final Callback callback) {
+        final LookupRequest request = new LookupRequest();
+        // the stored files are looked up on the executor, not on the thread of the native request
+        request.mLookup = mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                for (String region : mManager.getRegionNames()) {
+                    File stored = mStorage.resourceFile(region, url);
+                    if (stored.isFile()) {
+                        try {
+                            callback.onResponse(200, "OK", null, null, null, null, OfflineStorage.read(stored));
+                        } catch (IOException e) {
+                            callback.onFailure(ERROR_PERMANENT, e.getMessage());
+                        }
+                        return;
+                    } else if (mStorage.missingFile(region, url).isFile()) {
+                        callback.onResponse(404, "Not Found", null, null, null, null, new byte[0]);
+                        return;
+                    }
+                }
+                request.setNetworkRequest(mNetwork.load(url, userAgent, etag, modified, callback));
+            }
+        });
+        return request;
+    }
+
+    // Cancels the lookup of stored files, or the network request once it was passed on
+    private static final class LookupRequest implements Cancelable {
+
+        private volatile Future<?> mLookup;
+        private Cancelable mNetworkRequest;
+        private boolean mCanceled = false;
+
+        synchronized void setNetworkRequest(Cancelable networkRequest) {
+            mNetworkRequest = networkRequest;
+            if (mCanceled) {
+                networkRequest.cancel();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            Cancelable networkRequest;
+            synchronized (this) {
+                mCanceled = true;
+                networkRequest = mNetworkRequest;
+            }
+            mLookup.cancel(false);
+            if (networkRequest != null) {
+                networkRequest.cancel();
+            }
+        }
+    }
+}
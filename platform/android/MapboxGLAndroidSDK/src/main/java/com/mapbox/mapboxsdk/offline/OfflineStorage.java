@@ -0,0 +1,208 @@
+package com.mapbox.mapboxsdk.offline;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-disk layout of the offline regions.
+ * <p>
+ * Every region has its own directory holding a region.json with its definition and state, and
+ * one file per resource named after the hash of the resource URL without its access token.
+ * Resources the server reported missing are recorded with an empty marker file so they can be
+ * answered offline as well. Files are written to a temporary name first and then renamed, so an
+ * interrupted download never leaves a truncated resource behind.
+ * </p>
+ */
+final class OfflineStorage {
+
+    private static final String LOG_TAG = OfflineStorage.class.getName();
+
+    private static final String REGION_FILE = "region.json";
+    private static final String MISSING_SUFFIX = ".missing";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File mRoot;
+
+    OfflineStorage(File root) {
+        super();
+        mRoot = root;
+    }
+
+    //
+    // Resources
+    //
+
+    /**
+     * Returns the stored file for url in region, whether or not it exists.
+     */
+    File resourceFile(String region, String url) {
+        return new File(regionDir(region), hash(key(url)));
+    }
+
+    File missingFile(String region, String url) {
+        return new File(regionDir(region), hash(key(url)) + MISSING_SUFFIX);
+    }
+
+    void write(String region, String url, byte[] body) throws IOException {
+        writeAtomically(resourceFile(region, url), body);
+    }
+
+    void writeMissing(String region, String url) throws IOException {
+        writeAtomically(missingFile(region, url), new byte[0]);
+    }
+
+    static byte[] read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    //
+    // Regions
+    //
+
+    File regionDir(String region) {
+        return new File(mRoot, region);
+    }
+
+    void saveRegion(OfflineRegion region, boolean complete) throws IOException {
+        try {
+            JSONObject json = new JSONObject();
+            json.put("definition", region.toJSON());
+            json.put("complete", complete);
+            writeAtomically(new File(regionDir(region.getName()), REGION_FILE), json.toString().getBytes(UTF_8));
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    List<OfflineRegion> listRegions() {
+        List<OfflineRegion> regions = new ArrayList<>();
+        File[] dirs = mRoot.listFiles();
+        if (dirs == null) {
+            return regions;
+        }
+
+        for (File dir : dirs) {
+            File file = new File(dir, REGION_FILE);
+            if (!file.isFile()) {
+                continue;
+            }
+            try {
+                JSONObject json = new JSONObject(new String(read(file), UTF_8));
+                regions.add(OfflineRegion.fromJSON(json.getJSONObject("definition")));
+            } catch (IOException | JSONException | IllegalArgumentException e) {
+                Log.w(LOG_TAG, "Skipping unreadable offline region " + dir.getName(), e);
+            }
+        }
+        return regions;
+    }
+
+    boolean isComplete(String region) {
+        File file = new File(regionDir(region), REGION_FILE);
+        if (!file.isFile()) {
+            return false;
+        }
+        try {
+            return new JSONObject(new String(read(file), UTF_8)).optBoolean("complete");
+        } catch (IOException | JSONException e) {
+            return false;
+        }
+    }
+
+    boolean deleteRegion(String region) {
+        File dir = regionDir(region);
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return false;
+        }
+
+        // remove region.json first so a partially deleted region is never listed
+        new File(dir, REGION_FILE).delete();
+        for (File file : files) {
+            file.delete();
+        }
+        return dir.delete();
+    }
+
+    //
+    // Helpers
+    //
+
+    private static void writeAtomically(File file, byte[] data) throws IOException {
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+
+        File temp = new File(dir, file.getName() + TEMP_SUFFIX);
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not rename " + temp + " to " + file);
+        }
+    }
+
+    /**
+     * Returns url without its access_token query parameter, so that resources stored with one
+     * token are found with another.
+     */
+    static String key(String url) {
+        int start = url.indexOf("access_token=");
+        if (start <= 0 || (url.charAt(start - 1) != '?' && url.charAt(start - 1) != '&')) {
+            return url;
+        }
+
+        int end = url.indexOf('&', start);
+        if (end < 0) {
+            // drop the token together with the '?' or '&' in front of it
+            return url.substring(0, start - 1);
+        }
+        return url.substring(0, start) + url.substring(end + 1);
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+                hex.append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 is required on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.mapbox.mapboxsdk.offline;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds resource URLs exactly the way the native map requests them, so that resources
+ * downloaded ahead of time are found when the map asks for them.
+ * <p>
+ * Mirrors src/mbgl/util/mapbox.cpp and src/mbgl/util/url.cpp.
+ * </p>
+ */
+final class OfflineUrls {
+
+    private static final String PROTOCOL = "mapbox://";
+    private static final String BASE_URL = "https://api.mapbox.com/";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private OfflineUrls() {
+        super();
+    }
+
+    static boolean isMapboxUrl(String url) {
+        return url.startsWith(PROTOCOL);
+    }
+
+    static String normalizeStyleUrl(String url, String accessToken) {
+        if (!isMapboxUrl(url)) {
+            return url;
+        }
+
+        List<String> pathname = getMapboxUrlPathname(url);
+        if (pathname.size() < 3) {
+            return url;
+        }
+
+        String user = pathname.get(1);
+        String id = pathname.get(2);
+        boolean isDraft = pathname.size() > 3;
+        return BASE_URL + "styles/v1/" + user + "/" + id + (isDraft ? "/draft" : "") + "?access_token=" + accessToken;
+    }
+
+    static String normalizeSourceUrl(String url, String accessToken) {
+        if (!isMapboxUrl(url)) {
+            return url;
+        }
+        return BASE_URL + "v4/" + url.substring(PROTOCOL.length()) + ".json?access_token=" + accessToken + "&secure";
+    }
+
+    static String normalizeSpriteUrl(String url, String accessToken) {
+        if (!isMapboxUrl(url)) {
+            return url;
+        }
+
+        List<String> pathname = getMapboxUrlPathname(url);
+        if (pathname.size() < 3) {
+            return url;
+        }
+
+        String user = pathname.get(1);
+        boolean isDraft = pathname.size() > 3;
+        String name = pathname.get(isDraft ? 3 : 2);
+        int index = indexOfAny(name, "@.");
+        if (index < 0) {
+            return url;
+        }
+        String id = isDraft ? pathname.get(2) : name.substring(0, index);
+        String extension = name.substring(index);
+
+        return BASE_URL + "styles/v1/" + user + "/" + id + "/" + (isDraft ? "draft/" : "") + "sprite" + extension
+                + "?access_token=" + accessToken;
+    }
+
+    static String normalizeGlyphsUrl(String url, String accessToken) {
+        if (!isMapboxUrl(url)) {
+            return url;
+        }
+
+        List<String> pathname = getMapboxUrlPathname(url);
+        if (pathname.size() < 4) {
+            return url;
+        }
+
+        String user = pathname.get(1);
+        String fontstack = pathname.get(2);
+        String range = pathname.get(3);
+        return BASE_URL + "fonts/v1/" + user + "/" + fontstack + "/" + range + "?access_token=" + accessToken;
+    }
+
+    // Inserts {ratio} in front of the file extension of raster tile URLs from mapbox:// TileJSONs
+    static String normalizeRasterTileUrl(String url) {
+        int queryIndex = url.lastIndexOf('?');
+        int searchFrom = queryIndex < 0 ? url.length() : queryIndex;
+        int basenameIndex = url.lastIndexOf('/', searchFrom);
+        int extensionIndex = url.lastIndexOf('.', searchFrom);
+        if (basenameIndex < 0 || extensionIndex < 0 || basenameIndex > extensionIndex) {
+            // No file extension: probably not a file name we can tack a ratio onto
+            return url;
+        }
+        return url.substring(0, extensionIndex) + "{ratio}" + url.substring(extensionIndex);
+    }
+
+    static String templateTileUrl(String url, int z, int x, int y, float pixelRatio) {
+        StringBuilder result = new StringBuilder(url.length() + 16);
+        int position = 0;
+        while (position < url.length()) {
+            int open = url.indexOf('{', position);
+            int close = open < 0 ? -1 : url.indexOf('}', open);
+            if (open < 0 || close < 0) {
+                result.append(url, position, url.length());
+                break;
+            }
+
+            result.append(url, position, open);
+            String token = url.substring(open + 1, close);
+            if ("z".equals(token)) {
+                result.append(z);
+            } else if ("x".equals(token)) {
+                result.append(x);
+            } else if ("y".equals(token)) {
+                result.append(y);
+            } else if ("prefix".equals(token)) {
+                result.append(Character.forDigit(x % 16, 16)).append(Character.forDigit(y % 16, 16));
+            } else if ("ratio".equals(token)) {
+                result.append(pixelRatio > 1.0f ? "@2x" : "");
+            }
+            position = close + 1;
+        }
+        return result.toString();
+    }
+
+    static String templateGlyphsUrl(String url, String fontstack, int rangeStart, int rangeEnd) {
+        return url.replace("{fontstack}", percentEncode(fontstack)).replace("{range}", rangeStart + "-" + rangeEnd);
+    }
+
+    // Encodes the UTF-8 bytes of input, like util::percentEncode
+    static String percentEncode(String input) {
+        byte[] bytes = input.getBytes(UTF_8);
+        StringBuilder encoded = new StringBuilder(bytes.length * 3);
+        for (byte b : bytes) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(Character.forDigit((c >> 4) & 0xf, 16)).append(Character.forDigit(c & 0xf, 16));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static List<String> getMapboxUrlPathname(String url) {
+        List<String> pathname = new ArrayList<>();
+        int start = PROTOCOL.length();
+        while (start < url.length()) {
+            int end = url.indexOf('/', start);
+            if (end < 0) {
+                end = indexOfAny(url, "?#");
+            }
+            if (end < start) {
+                end = url.length();
+            }
+            pathname.add(url.substring(start, end));
+            start = end + 1;
+        }
+        return pathname;
+    }
+
+    private static int indexOfAny(String string, String chars) {
+        for (int i = 0; i < string.length(); i++) {
+            if (chars.indexOf(string.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * This package contains classes to download map regions for offline use.
+ */
+package com.mapbox.mapboxsdk.offline;
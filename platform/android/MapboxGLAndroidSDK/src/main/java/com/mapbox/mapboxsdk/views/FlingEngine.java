@@ -0,0 +1,314 @@
+package com.mapbox.mapboxsdk.views;
+
+import android.os.SystemClock;
+import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.VelocityTrackerCompat;
+import android.support.v4.view.ViewCompat;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.ViewConfiguration;
+
+/**
+ * Keeps the map moving after a pan, pinch-zoom or rotate gesture ends.
+ * <p>
+ * The pan velocity is measured with a VelocityTracker over the whole gesture, the zoom and
+ * rotation velocities from the scale and rotate gestures. Each velocity decays by a constant
+ * friction once per frame, so the total distance of a fling is known when it starts and is
+ * reported to the MapView right away. A new touch stops the fling.
+ * </p>
+ */
+final class FlingEngine implements Runnable {
+
+    // Velocity lost per second, as a fraction of the velocity
+    private static final double PAN_FRICTION = 4.0;
+    private static final double ZOOM_FRICTION = 6.0;
+    private static final double ROTATE_FRICTION = 6.0;
+
+    // Velocities below these end the fling
+    private static final double MIN_PAN_VELOCITY = 20.0;
+    private static final double MIN_ZOOM_VELOCITY = 0.05;
+    private static final double MIN_ROTATE_VELOCITY = 2.0;
+
+    // Zoom and rotate gestures slower than these at their end don't fling
+    private static final double MIN_ZOOM_FLING_VELOCITY = 0.5;
+    private static final double MIN_ROTATE_FLING_VELOCITY = 30.0;
+
+    // Gesture samples older than this at the end of the gesture don't fling
+    private static final long MAX_SAMPLE_AGE_MS = 100;
+
+    // Time constant of averaging the zoom and rotate velocities
+    private static final double SMOOTHING_MS = 50.0;
+
+    // Longest frame time used, so a stalled frame doesn't make the map jump
+    private static final long MAX_FRAME_MS = 100;
+
+    private final MapView mMapView;
+    private final NativeMapView mNativeMapView;
+    private final float mScreenDensity;
+    private final int mMinFlingVelocity;
+    private final int mMaxFlingVelocity;
+
+    // Pan velocity of the current gesture, released once it ends
+    private VelocityTracker mVelocityTracker;
+    private boolean mMultiTouch = false;
+
+    // Zoom levels and degrees per second of the current scale and rotate gestures
+    private double mZoomGestureVelocity;
+    private long mZoomGestureTime;
+    private double mRotateGestureVelocity;
+    private long mRotateGestureTime;
+
+    // Fling velocities in pixels, zoom levels and degrees per second
+    private boolean mRunning = false;
+    private long mFrameTime;
+    private double mVelocityX;
+    private double mVelocityY;
+    private double mVelocityZoom;
+    private double mVelocityRotate;
+    private float mFocusX;
+    private float mFocusY;
+
+    FlingEngine(MapView mapView, NativeMapView nativeMapView, float screenDensity) {
+        mMapView = mapView;
+        mNativeMapView = nativeMapView;
+        mScreenDensity = screenDensity;
+        ViewConfiguration configuration = ViewConfiguration.get(mapView.getContext());
+        mMinFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        mMaxFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+    }
+
+    /**
+     * Tracks the pointers of a touch gesture. A new gesture stops the fling. Gestures that
+     * used a second pointer are not flung as a pan.
+     *
+     * @param event The touch event
+     */
+    void addMovement(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                stop();
+                if (mVelocityTracker != null) {
+                    mVelocityTracker.clear();
+                }
+                mMultiTouch = false;
+                mZoomGestureTime = 0;
+                mRotateGestureTime = 0;
+                break;
+
+            case MotionEvent.ACTION_POINTER_DOWN:
+                mMultiTouch = true;
+                if (mVelocityTracker != null) {
+                    mVelocityTracker.clear();
+                }
+                break;
+        }
+        if (mMultiTouch) {
+            return;
+        }
+
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        }
+        mVelocityTracker.addMovement(event);
+    }
+
+    /**
+     * Flings the map by the velocity of the lifted pointer.
+     *
+     * @param event The up event that ends the gesture
+     * @return True if the map is flung
+     */
+    boolean flingPan(MotionEvent event) {
+        if (mVelocityTracker == null || mMultiTouch) {
+            return false;
+        }
+
+        int pointerId = MotionEventCompat.getPointerId(event, MotionEventCompat.getActionIndex(event));
+        mVelocityTracker.computeCurrentVelocity(1000, mMaxFlingVelocity);
+        float velocityX = VelocityTrackerCompat.getXVelocity(mVelocityTracker, pointerId);
+        float velocityY = VelocityTrackerCompat.getYVelocity(mVelocityTracker, pointerId);
+        if (Math.hypot(velocityX, velocityY) < mMinFlingVelocity) {
+            return false;
+        }
+
+        mVelocityX = velocityX;
+        mVelocityY = velocityY;
+        start(true);
+        return true;
+    }
+
+    /**
+     * Adds a step of a scale gesture.
+     *
+     * @param scaleFactor The scale factor of the step
+     * @param time        Event time of the step
+     */
+    void addScale(float scaleFactor, long time) {
+        double zoom = Math.log(scaleFactor) / Math.log(2);
+        mZoomGestureVelocity = average(mZoomGestureVelocity, zoom, mZoomGestureTime, time);
+        mZoomGestureTime = time;
+    }
+
+    /**
+     * Flings the zoom by the velocity at the end of a scale gesture.
+     *
+     * @param time   Event time of the end of the gesture
+     * @param focusX Horizontal position in pixels of the point to zoom around
+     * @param focusY Vertical position in pixels of the point to zoom around
+     * @return True if the zoom is flung
+     */
+    boolean flingZoom(long time, float focusX, float focusY) {
+        boolean fling = time - mZoomGestureTime < MAX_SAMPLE_AGE_MS
+                && Math.abs(mZoomGestureVelocity) >= MIN_ZOOM_FLING_VELOCITY;
+        mZoomGestureTime = 0;
+        if (!fling) {
+            return false;
+        }
+
+        mVelocityZoom = mZoomGestureVelocity;
+        mFocusX = focusX;
+        mFocusY = focusY;
+        start(false);
+        return true;
+    }
+
+    /**
+     * Adds a step of a rotate gesture.
+     *
+     * @param degrees The rotation of the step
+     * @param time    Event time of the step
+     */
+    void addRotation(float degrees, long time) {
+        mRotateGestureVelocity = average(mRotateGestureVelocity, degrees, mRotateGestureTime, time);
+        mRotateGestureTime = time;
+    }
+
+    /**
+     * Flings the bearing by the velocity at the end of a rotate gesture.
+     *
+     * @param time   Event time of the end of the gesture
+     * @param focusX Horizontal position in pixels of the point to rotate around
+     * @param focusY Vertical position in pixels of the point to rotate around
+     * @return True if the bearing is flung
+     */
+    boolean flingRotation(long time, float focusX, float focusY) {
+        boolean fling = time - mRotateGestureTime < MAX_SAMPLE_AGE_MS
+                && Math.abs(mRotateGestureVelocity) >= MIN_ROTATE_FLING_VELOCITY;
+        mRotateGestureTime = 0;
+        if (!fling) {
+            return false;
+        }
+
+        mVelocityRotate = mRotateGestureVelocity;
+        mFocusX = focusX;
+        mFocusY = focusY;
+        start(false);
+        return true;
+    }
+
+    /**
+     * Releases the velocity tracker once a touch gesture ended or was canceled.
+     */
+    void endGesture() {
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+        mMultiTouch = false;
+    }
+
+    /**
+     * Stops the fling where it is.
+     */
+    void stop() {
+        mRunning = false;
+        mVelocityX = 0;
+        mVelocityY = 0;
+        mVelocityZoom = 0;
+        mVelocityRotate = 0;
+        mMapView.removeCallbacks(this);
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    private void start(boolean pan) {
+        // With friction k a velocity v travels v / k in total
+        mMapView.onFlingStarted(pan, mVelocityX / PAN_FRICTION, mVelocityY / PAN_FRICTION,
+                mVelocityZoom / ZOOM_FRICTION, mVelocityRotate / ROTATE_FRICTION, mFocusX, mFocusY);
+
+        if (mRunning) {
+            return;
+        }
+        mRunning = true;
+        mFrameTime = SystemClock.uptimeMillis();
+        ViewCompat.postOnAnimation(mMapView, this);
+    }
+
+    // Called once per frame
+    @Override
+    public void run() {
+        if (!mRunning) {
+            return;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        double seconds = Math.min(now - mFrameTime, MAX_FRAME_MS) / 1000.0;
+        mFrameTime = now;
+
+        mNativeMapView.cancelTransitions();
+
+        if (mVelocityX != 0 || mVelocityY != 0) {
+            double decay = Math.exp(-PAN_FRICTION * seconds);
+            double distance = (1 - decay) / PAN_FRICTION;
+            mNativeMapView.moveBy(mVelocityX * distance / mScreenDensity, mVelocityY * distance / mScreenDensity);
+            mVelocityX *= decay;
+            mVelocityY *= decay;
+            if (Math.hypot(mVelocityX, mVelocityY) < MIN_PAN_VELOCITY) {
+                mVelocityX = 0;
+                mVelocityY = 0;
+            }
+        }
+
+        if (mVelocityZoom != 0) {
+            double decay = Math.exp(-ZOOM_FRICTION * seconds);
+            double zoom = mVelocityZoom * (1 - decay) / ZOOM_FRICTION;
+            mNativeMapView.scaleBy(Math.pow(2, zoom), mFocusX / mScreenDensity, mFocusY / mScreenDensity);
+            mVelocityZoom *= decay;
+            if (Math.abs(mVelocityZoom) < MIN_ZOOM_VELOCITY) {
+                mVelocityZoom = 0;
+            }
+        }
+
+        if (mVelocityRotate != 0) {
+            double decay = Math.exp(-ROTATE_FRICTION * seconds);
+            double degrees = mVelocityRotate * (1 - decay) / ROTATE_FRICTION;
+            mNativeMapView.setBearing(mNativeMapView.getBearing() + degrees,
+                    mFocusX / mScreenDensity, mFocusY / mScreenDensity);
+            mVelocityRotate *= decay;
+            if (Math.abs(mVelocityRotate) < MIN_ROTATE_VELOCITY) {
+                mVelocityRotate = 0;
+            }
+        }
+
+        if (mVelocityX != 0 || mVelocityY != 0 || mVelocityZoom != 0 || mVelocityRotate != 0) {
+            ViewCompat.postOnAnimation(mMapView, this);
+        } else {
+            mRunning = false;
+        }
+    }
+
+    // Averages the velocity of a gesture over time, from a step of it
+    private static double average(double velocity, double delta, long lastTime, long time) {
+        if (lastTime == 0) {
+            return 0;
+        }
+        long interval = time - lastTime;
+        if (interval <= 0) {
+            return velocity;
+        }
+        double current = delta * 1000.0 / interval;
+        return velocity + (current - velocity) * (1 - Math.exp(-interval / SMOOTHING_MS));
+    }
+}
@@ -0,0 +1,187 @@
+package com.mapbox.mapboxsdk.views;
+
+import android.location.Location;
+import android.os.SystemClock;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.location.LocationServices;
+
+/**
+ * Moves the camera along with the user while tracking in
+ * {@link com.mapbox.mapboxsdk.constants.MyLocationTracking#TRACKING_FOLLOW}.
+ * <p>
+ * Between fixes the user position is predicted from the last known speed and heading. The
+ * camera eases towards the prediction and is set once per frame with a single jump, so new
+ * fixes don't restart camera transitions. The frame loop stops once the camera has caught up
+ * with a user that isn't moving.
+ * </p>
+ */
+final class FollowCamera implements Runnable {
+
+    // Meters per degree of latitude
+    private static final double METERS_PER_DEGREE = 111319.49;
+
+    // The position is predicted up to this share of the time expected until the next fix
+    private static final double PREDICTION_FACTOR = 1.5;
+
+    // Lower bound of how far past the last fix the position is predicted
+    private static final long MIN_PREDICTION_MS = 2000;
+
+    // Time constant of easing the camera towards the predicted position
+    private static final double SETTLE_TIME_MS = 200;
+
+    // Longest frame time used for easing, so a stalled frame doesn't make the camera jump
+    private static final long MAX_FRAME_MS = 100;
+
+    // Differences below these are not visible
+    private static final double EPSILON_DEGREES = 1e-7;
+    private static final double EPSILON_BEARING = 0.01;
+
+    private final View mView;
+    private final MapView mMapView;
+
+    // Last fix and the velocity towards east and north in meters per second
+    private boolean mHasFix = false;
+    private double mFixLatitude;
+    private double mFixLongitude;
+    private long mFixTime;
+    private double mVelocityEast;
+    private double mVelocityNorth;
+    private long mMaxPrediction = MIN_PREDICTION_MS;
+
+    // Camera as set on the previous frame
+    private boolean mRunning = false;
+    private double mLatitude;
+    private double mLongitude;
+    private double mBearing;
+    private boolean mHasTargetBearing = false;
+    private double mTargetBearing;
+    private long mFrameTime;
+
+    FollowCamera(View view, MapView mapView) {
+        mView = view;
+        mMapView = mapView;
+    }
+
+    /**
+     * Sets a new fix to follow.
+     *
+     * @param location The new fix
+     */
+    void setLocation(Location location) {
+        long now = SystemClock.elapsedRealtime();
+        if (location.hasSpeed() && location.hasBearing()) {
+            double heading = Math.toRadians(location.getBearing());
+            mVelocityEast = location.getSpeed() * Math.sin(heading);
+            mVelocityNorth = location.getSpeed() * Math.cos(heading);
+        } else if (mHasFix && now > mFixTime) {
+            double seconds = (now - mFixTime) / 1000.0;
+            mVelocityNorth = (location.getLatitude() - mFixLatitude) * METERS_PER_DEGREE / seconds;
+            mVelocityEast = (location.getLongitude() - mFixLongitude) * metersPerDegreeLongitude(mFixLatitude) / seconds;
+        } else {
+            mVelocityEast = 0;
+            mVelocityNorth = 0;
+        }
+
+        mHasFix = true;
+        mFixLatitude = location.getLatitude();
+        mFixLongitude = location.getLongitude();
+        mFixTime = now;
+
+        // Keep predicting until the next fix is overdue, at whatever rate fixes come in
+        long interval = LocationServices.getLocationServices(mView.getContext()).getLocationInterval();
+        mMaxPrediction = Math.max(MIN_PREDICTION_MS, (long) (interval * PREDICTION_FACTOR));
+        start();
+    }
+
+    /**
+     * Sets the bearing the camera turns to.
+     *
+     * @param bearing Bearing in degrees
+     */
+    void setBearing(double bearing) {
+        if (mHasTargetBearing && Math.abs(bearing - mTargetBearing) < EPSILON_BEARING) {
+            return;
+        }
+        mHasTargetBearing = true;
+        mTargetBearing = bearing;
+        start();
+    }
+
+    /**
+     * Leaves the bearing to the user.
+     */
+    void clearBearing() {
+        mHasTargetBearing = false;
+    }
+
+    /**
+     * Stops moving the camera and forgets the fixes.
+     */
+    void stop() {
+        mRunning = false;
+        mHasFix = false;
+        mView.removeCallbacks(this);
+    }
+
+    private void start() {
+        if (mRunning || !mHasFix) {
+            return;
+        }
+
+        // Continue from wherever the camera is now
+        LatLng center = mMapView.getLatLng();
+        mLatitude = center.getLatitude();
+        mLongitude = center.getLongitude();
+        mBearing = mMapView.getBearing();
+        mFrameTime = SystemClock.elapsedRealtime();
+        mRunning = true;
+        ViewCompat.postOnAnimation(mView, this);
+    }
+
+    // Called once per frame
+    @Override
+    public void run() {
+        if (!mRunning) {
+            return;
+        }
+
+        long now = SystemClock.elapsedRealtime();
+        long frameTime = Math.min(now - mFrameTime, MAX_FRAME_MS);
+        mFrameTime = now;
+
+        // Predict where the user is now
+        long age = now - mFixTime;
+        double seconds = Math.min(age, mMaxPrediction) / 1000.0;
+        double targetLatitude = mFixLatitude + mVelocityNorth * seconds / METERS_PER_DEGREE;
+        double targetLongitude = mFixLongitude + mVelocityEast * seconds / metersPerDegreeLongitude(mFixLatitude);
+
+        // Ease towards it, along the shorter way for the bearing
+        if (!mHasTargetBearing) {
+            mBearing = mMapView.getBearing();
+            mTargetBearing = mBearing;
+        }
+        double ease = 1 - Math.exp(-frameTime / SETTLE_TIME_MS);
+        double turn = ((mTargetBearing - mBearing) % 360 + 540) % 360 - 180;
+        mLatitude += (targetLatitude - mLatitude) * ease;
+        mLongitude += (targetLongitude - mLongitude) * ease;
+        mBearing = (mBearing + turn * ease + 360) % 360;
+        mMapView.jumpTo(mLatitude, mLongitude, mBearing);
+
+        boolean moving = (mVelocityEast != 0 || mVelocityNorth != 0) && age < mMaxPrediction;
+        boolean settled = Math.abs(targetLatitude - mLatitude) < EPSILON_DEGREES
+                && Math.abs(targetLongitude - mLongitude) < EPSILON_DEGREES
+                && Math.abs(turn) < EPSILON_BEARING;
+        if (moving || !settled) {
+            ViewCompat.postOnAnimation(mView, this);
+        } else {
+            mRunning = false;
+        }
+    }
+
+    private static double metersPerDegreeLongitude(double latitude) {
+        return METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+    }
+}
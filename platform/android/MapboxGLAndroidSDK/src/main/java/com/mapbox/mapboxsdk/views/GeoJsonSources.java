@@ -0,0 +1,205 @@
+package com.mapbox.mapboxsdk.views;
+
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the GeoJSON sources added to a MapView and writes them into its style.
+ * <p>
+ * The style as loaded, without the GeoJSON sources, is kept and parsed once. Each change writes
+ * the sources into that base style: the base is serialized with placeholders, which are then
+ * replaced by the GeoJSON data as text, so the data is never parsed on the Java side. New data for
+ * a source that the loaded style already has is set on the source directly instead.
+ * </p>
+ */
+final class GeoJsonSources {
+
+    private static final String TAG = "GeoJsonSources";
+
+    // Stands in for the source definitions while the style is serialized
+    private static final String PLACEHOLDER = "\u0001GeoJsonSource";
+
+    // Source definitions by id, in the order they were added
+    private final Map<String, String> mSources = new LinkedHashMap<>();
+
+    // Whether the sources changed since the style was last written
+    private boolean mChanged = false;
+
+    // Style as loaded, without the sources, and its parsed form once needed
+    private String mBaseStyleJson;
+    private JSONObject mBaseStyle;
+
+    // Last style written, to tell reloads of our own style apart from new styles, and its sources
+    private String mInjectedStyleJson;
+    private final Set<String> mInjectedIds = new HashSet<>();
+
+    boolean contains(String id) {
+        return mSources.containsKey(id);
+    }
+
+    /**
+     * Sets the data of a source.
+     *
+     * @param id      The source id
+     * @param geoJson The GeoJSON data
+     * @return True if the last style written has the source, so only its data needs replacing
+     */
+    boolean putData(String id, String geoJson) {
+        if (mChanged || !mInjectedIds.contains(id)) {
+            put(id, geoJson);
+            return false;
+        }
+        mSources.put(id, definition(geoJson));
+        return true;
+    }
+
+    void putUrl(String id, String url) {
+        put(id, JSONObject.quote(url));
+    }
+
+    private void put(String id, String data) {
+        mSources.put(id, definition(data));
+        mChanged = true;
+    }
+
+    private static String definition(String data) {
+        return "{\"type\":\"geojson\",\"data\":" + data + "}";
+    }
+
+    void remove(String id) {
+        if (mSources.remove(id) != null) {
+            mChanged = true;
+        }
+    }
+
+    /**
+     * Returns the style with the sources written into it.
+     *
+     * @param styleJson The current style
+     * @return The new style, or null if the style is up to date, not loaded yet or invalid
+     */
+    @Nullable
+    String inject(@Nullable String styleJson) {
+        if (styleJson == null || styleJson.isEmpty()) {
+            return null;
+        }
+        if (!styleJson.equals(mInjectedStyleJson)) {
+            // a new style was loaded, it doesn't have the sources yet
+            mBaseStyleJson = styleJson;
+            mBaseStyle = null;
+            mInjectedIds.clear();
+            mChanged = !mSources.isEmpty();
+        }
+        if (!mChanged) {
+            return null;
+        }
+
+        String json;
+        if (mSources.isEmpty()) {
+            json = mBaseStyleJson;
+        } else {
+            json = writeSources();
+            if (json == null) {
+                return null;
+            }
+        }
+        mChanged = false;
+        mInjectedStyleJson = json;
+        mInjectedIds.clear();
+        mInjectedIds.addAll(mSources.keySet());
+        return json;
+    }
+
+    /**
+     * Returns whether a style is the last one written, so reloading it only changed sources.
+     *
+     * @param styleJson The current style
+     * @return True if the style was written by {@link #inject(String)}
+     */
+    boolean isInjected(@Nullable String styleJson) {
+        return styleJson != null && styleJson.equals(mInjectedStyleJson);
+    }
+
+    // Serializes the base style with the sources added, without copying the base
+    @Nullable
+    private String writeSources() {
+        String skeleton;
+        List<String> definitions = new ArrayList<>(mSources.size());
+        try {
+            if (mBaseStyle == null) {
+                mBaseStyle = new JSONObject(mBaseStyleJson);
+            }
+
+            JSONObject style = new JSONObject();
+            JSONObject sources = new JSONObject();
+            Iterator<String> keys = mBaseStyle.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (!"sources".equals(key)) {
+                    style.put(key, mBaseStyle.get(key));
+                }
+            }
+            JSONObject baseSources = mBaseStyle.optJSONObject("sources");
+            if (baseSources != null) {
+                Iterator<String> ids = baseSources.keys();
+                while (ids.hasNext()) {
+                    String id = ids.next();
+                    sources.put(id, baseSources.get(id));
+                }
+            }
+            for (Map.Entry<String, String> entry : mSources.entrySet()) {
+                sources.put(entry.getKey(), PLACEHOLDER + definitions.size());
+                definitions.add(entry.getValue());
+            }
+            style.put("sources", sources);
+            skeleton = style.toString();
+        } catch (JSONException exception) {
+            Log.w(TAG, "Style couldn't be parsed, GeoJSON sources not added", exception);
+            return null;
+        }
+
+        // Find the placeholders in the small skeleton, then splice the definitions in one pass
+        int count = definitions.size();
+        int[] indices = new int[count];
+        Integer[] order = new Integer[count];
+        int length = skeleton.length();
+        for (int i = 0; i < count; i++) {
+            indices[i] = skeleton.indexOf(JSONObject.quote(PLACEHOLDER + i));
+            if (indices[i] < 0) {
+                Log.w(TAG, "GeoJSON source placeholder not found, GeoJSON sources not added");
+                return null;
+            }
+            order[i] = i;
+            length += definitions.get(i).length();
+        }
+        final int[] positions = indices;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                return positions[lhs] - positions[rhs];
+            }
+        });
+
+        StringBuilder json = new StringBuilder(length);
+        int position = 0;
+        for (int i : order) {
+            json.append(skeleton, position, indices[i]).append(definitions.get(i));
+            position = indices[i] + JSONObject.quote(PLACEHOLDER + i).length();
+        }
+        json.append(skeleton, position, skeleton.length());
+        return json.toString();
+    }
+}
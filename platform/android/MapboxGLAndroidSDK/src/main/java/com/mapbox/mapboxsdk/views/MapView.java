@@ -7,6 +7,7 @@ import android.app.Dialog;
 import android.app.Fragment;
 import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.ContextWrapper;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.IntentFilter;
@@ -31,9 +32,11 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.RequiresPermission;
 import android.support.annotation.UiThread;
+import android.support.v4.net.ConnectivityManagerCompat;
 import android.support.v4.view.GestureDetectorCompat;
 import android.support.v4.view.ScaleGestureDetectorCompat;
 import android.support.v7.app.AlertDialog;
+import android.telephony.TelephonyManager;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
@@ -56,21 +59,28 @@ import android.widget.ZoomButtonsController;
 
 import com.almeros.android.multitouch.gesturedetectors.RotateGestureDetector;
 import com.almeros.android.multitouch.gesturedetectors.ShoveGestureDetector;
-import com.almeros.android.multitouch.gesturedetectors.TwoFingerGestureDetector;
+import com.almeros.android.multitouch.gesturedetectors.TouchState;
 import com.mapbox.mapboxsdk.R;
 import com.mapbox.mapboxsdk.annotations.Annotation;
+import com.mapbox.mapboxsdk.annotations.AnnotationSnapshot;
 import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.InfoWindow;
+import com.mapbox.mapboxsdk.annotations.InfoWindowPool;
 import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerDataset;
 import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.annotations.MarkerViewManager;
 import com.mapbox.mapboxsdk.annotations.Polygon;
 import com.mapbox.mapboxsdk.annotations.PolygonOptions;
 import com.mapbox.mapboxsdk.annotations.Polyline;
 import com.mapbox.mapboxsdk.annotations.PolylineOptions;
+import com.mapbox.mapboxsdk.annotations.Trail;
+import com.mapbox.mapboxsdk.annotations.TrailOptions;
 import com.mapbox.mapboxsdk.annotations.IconFactory;
 import com.mapbox.mapboxsdk.camera.CameraPosition;
 import com.mapbox.mapboxsdk.camera.CameraUpdate;
 import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
+import com.mapbox.mapboxsdk.constants.DataSaverMode;
 import com.mapbox.mapboxsdk.constants.MathConstants;
 import com.mapbox.mapboxsdk.constants.MyBearingTracking;
 import com.mapbox.mapboxsdk.constants.MyLocationTracking;
@@ -79,8 +89,11 @@ import com.mapbox.mapboxsdk.exceptions.IconBitmapChangedException;
 import com.mapbox.mapboxsdk.exceptions.InvalidAccessTokenException;
 import com.mapbox.mapboxsdk.geometry.BoundingBox;
 import com.mapbox.mapboxsdk.geometry.CoordinateBounds;
+import com.mapbox.mapboxsdk.geometry.GeoMath;
 import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.geometry.LatLngZoom;
+import com.mapbox.mapboxsdk.http.HTTPContext;
+import com.mapbox.mapboxsdk.http.ResourceLoader;
 import com.mapbox.mapboxsdk.layers.CustomLayer;
 import com.mapbox.mapboxsdk.utils.ApiAccess;
 import com.mapbox.mapboxsdk.utils.MathUtils;
@@ -88,10 +101,16 @@ import com.mapbox.mapboxsdk.utils.MathUtils;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -157,6 +176,8 @@ public final class MapView extends FrameLayout {
     private static final String STATE_ATTRIBUTION_MARGIN_RIGHT = "attrMarginRight";
     private static final String STATE_ATTRIBUTION_MARGIN_BOTTOM = "atrrMarginBottom";
     private static final String STATE_ATTRIBUTION_VISIBILITY = "atrrVisibility";
+    private static final String STATE_SAVE_ANNOTATIONS = "saveAnnotations";
+    private static final String STATE_ANNOTATION_SNAPSHOT = "annotationSnapshot";
 
     // Used for positioning views
     private static final float DIMENSION_SEVEN_DP = 7f;
@@ -209,6 +230,9 @@ public final class MapView extends FrameLayout {
     private ScaleGestureDetector mScaleGestureDetector;
     private RotateGestureDetector mRotateGestureDetector;
     private ShoveGestureDetector mShoveGestureDetector;
+    private final TouchState mTouchState = new TouchState();
+    private ScrollBatcher mScrollBatcher;
+    private FlingEngine mFlingEngine;
     private boolean mTwoTap = false;
     private boolean mZoomStarted = false;
     private boolean mQuickZoom = false;
@@ -235,8 +259,13 @@ public final class MapView extends FrameLayout {
     private List<Marker> mMarkersNearLastTap = new ArrayList<>();
     private List<Marker> mSelectedMarkers = new ArrayList<>();
     private List<InfoWindow> mInfoWindows = new ArrayList<>();
+    private double[] mInfoWindowCoordinates = new double[0];
+    private float[] mInfoWindowPoints = new float[0];
     private InfoWindowAdapter mInfoWindowAdapter;
-    private List<Icon> mIcons = new ArrayList<>();
+    private InfoWindowPool mInfoWindowPool = new InfoWindowPool();
+    private final List<MarkerViewManager> mMarkerViewManagers = new ArrayList<>();
+    // Icons added to the map, by id
+    private final Map<String, Icon> mIcons = new LinkedHashMap<>();
 
     // Used for the Mapbox Logo
     private ImageView mLogoView;
@@ -253,12 +282,17 @@ public final class MapView extends FrameLayout {
 
     // Used to manage fling and scroll event listeners
     private OnFlingListener mOnFlingListener;
+    private OnFlingPredictionListener mOnFlingPredictionListener;
     private OnScrollListener mOnScrollListener;
 
     // Used to manage marker click event listeners
     private OnMarkerClickListener mOnMarkerClickListener;
     private OnInfoWindowClickListener mOnInfoWindowClickListener;
 
+    // Used to manage shape click event listeners
+    private OnPolylineClickListener mOnPolylineClickListener;
+    private OnPolygonClickListener mOnPolygonClickListener;
+
     // Used to manage FPS change event listeners
     private OnFpsChangedListener mOnFpsChangedListener;
 
@@ -278,6 +312,13 @@ public final class MapView extends FrameLayout {
     private boolean mAllowConcurrentMultipleOpenInfoWindows = false;
     private String mStyleUrl;
 
+    // Used to save annotations across recreation, the file is overwritten by each save
+    private boolean mSaveAnnotationsEnabled;
+    private String mAnnotationSnapshotName;
+
+    // Used for GeoJSON sources, written into the style
+    private final GeoJsonSources mGeoJsonSources = new GeoJsonSources();
+
     //
     // Inner classes
     //
@@ -466,11 +507,27 @@ public final class MapView extends FrameLayout {
      */
     public interface OnFlingListener {
         /**
-         * Called when the map is flinged.
+         * Called when the map is flinged. Zoom and rotate flings are not reported.
          */
         void onFling();
     }
 
+    /**
+     * Interface definition for a callback to be invoked when a fling starts, with the area the
+     * map is expected to show once the fling ends. It can be used to start loading data for
+     * that area early.
+     *
+     * @see MapView#setOnFlingPredictionListener(OnFlingPredictionListener)
+     */
+    public interface OnFlingPredictionListener {
+        /**
+         * Called when the map is flinged.
+         *
+         * @param region The bounds of the area visible when the fling ends
+         */
+        void onFlingPredicted(@NonNull BoundingBox region);
+    }
+
     /**
      * Interface definition for a callback to be invoked when the map is scrolled.
      *
@@ -540,6 +597,34 @@ public final class MapView extends FrameLayout {
         boolean onMarkerClick(@NonNull Marker marker);
     }
 
+    /**
+     * Interface definition for a callback to be invoked when the user clicks on a polyline.
+     *
+     * @see MapView#setOnPolylineClickListener(OnPolylineClickListener)
+     */
+    public interface OnPolylineClickListener {
+        /**
+         * Called when the user clicks on a polyline.
+         *
+         * @param polyline The polyline the user clicked on.
+         */
+        void onPolylineClick(@NonNull Polyline polyline);
+    }
+
+    /**
+     * Interface definition for a callback to be invoked when the user clicks on a polygon.
+     *
+     * @see MapView#setOnPolygonClickListener(OnPolygonClickListener)
+     */
+    public interface OnPolygonClickListener {
+        /**
+         * Called when the user clicks on a polygon.
+         *
+         * @param polygon The polygon the user clicked on.
+         */
+        void onPolygonClick(@NonNull Polygon polygon);
+    }
+
     /**
      * Interface definition for a callback to be invoked when the user clicks on an info window.
      *
@@ -600,6 +685,37 @@ public final class MapView extends FrameLayout {
         View getInfoWindow(@NonNull Marker marker);
     }
 
+    /**
+     * <p>
+     * Interface definition for a callback to be invoked when an info window will be shown, that
+     * reuses the views of closed info windows.
+     * </p>
+     * Views are kept by view type when their info window closes, and handed back to
+     * {@link #getInfoWindow(Marker, View)} for a marker with the same view type.
+     *
+     * @see MapView#setInfoWindowAdapter(InfoWindowAdapter)
+     */
+    public interface RecyclingInfoWindowAdapter extends InfoWindowAdapter {
+        /**
+         * Returns the view type of the info window of a marker.
+         *
+         * @param marker The marker the user clicked on.
+         * @return The view type, zero or greater. Views are only reused within a view type.
+         */
+        int getInfoWindowViewType(@NonNull Marker marker);
+
+        /**
+         * Called when an info window will be shown as a result of a marker click.
+         *
+         * @param marker      The marker the user clicked on.
+         * @param convertView A view of a closed info window of the same view type to reuse, or null.
+         * @return View to be shown as a info window. If null is returned the default
+         * info window will be shown.
+         */
+        @Nullable
+        View getInfoWindow(@NonNull Marker marker, @Nullable View convertView);
+    }
+
     /**
      * Interface definition for a callback to be invoked when the the My Location dot
      * (which signifies the user's location) changes location.
@@ -788,6 +904,8 @@ public final class MapView extends FrameLayout {
 
         // Touch gesture detectors
         mGestureDetector = new GestureDetectorCompat(context, new GestureListener());
+        mScrollBatcher = new ScrollBatcher(this, mNativeMapView, mScreenDensity);
+        mFlingEngine = new FlingEngine(this, mNativeMapView, mScreenDensity);
         mGestureDetector.setIsLongpressEnabled(true);
         mScaleGestureDetector = new ScaleGestureDetector(context, new ScaleGestureListener());
         ScaleGestureDetectorCompat.setQuickScaleEnabled(mScaleGestureDetector, true);
@@ -973,6 +1091,16 @@ public final class MapView extends FrameLayout {
 
             //noinspection ResourceType
             setMyLocationTrackingMode(savedInstanceState.getInt(STATE_MY_LOCATION_TRACKING_MODE, MyLocationTracking.TRACKING_NONE));
+
+            // Annotations
+            setSaveAnnotationsEnabled(savedInstanceState.getBoolean(STATE_SAVE_ANNOTATIONS));
+            String annotationSnapshot = savedInstanceState.getString(STATE_ANNOTATION_SNAPSHOT);
+            if (annotationSnapshot != null) {
+                // the file is deleted once read, later saves reuse its name
+                File file = new File(annotationSnapshot);
+                mAnnotationSnapshotName = file.getName();
+                AnnotationSnapshot.restoreAsync(file, this);
+            }
         }
 
         // Force a check for an access token
@@ -987,9 +1115,13 @@ public final class MapView extends FrameLayout {
             @Override
             public void onMapChanged(@MapChange int change) {
                 if (change == DID_FINISH_LOADING_MAP) {
-                    reloadIcons();
-                    reloadMarkers();
-                    adjustTopOffsetPixels();
+                    // annotations are kept natively when only GeoJSON sources were added or removed
+                    if (!mGeoJsonSources.isInjected(mNativeMapView.getStyleJson())) {
+                        reloadIcons();
+                        reloadMarkers();
+                        adjustTopOffsetPixels();
+                    }
+                    applyGeoJsonSources();
                 }
             }
         });
@@ -1052,6 +1184,39 @@ public final class MapView extends FrameLayout {
         outState.putInt(STATE_ATTRIBUTION_MARGIN_RIGHT, attrParams.rightMargin);
         outState.putInt(STATE_ATTRIBUTION_MARGIN_BOTTOM, attrParams.bottomMargin);
         outState.putInt(STATE_ATTRIBUTION_VISIBILITY, mAttributionsView.getVisibility());
+
+        // Annotations
+        outState.putBoolean(STATE_SAVE_ANNOTATIONS, mSaveAnnotationsEnabled);
+        if (mSaveAnnotationsEnabled && !mAnnotations.isEmpty()) {
+            if (mAnnotationSnapshotName == null) {
+                mAnnotationSnapshotName = "mapbox-annotations-" + UUID.randomUUID() + ".bin";
+            }
+            File file = new File(getContext().getCacheDir(), mAnnotationSnapshotName);
+            AnnotationSnapshot.capture(mAnnotations).writeAsync(file);
+            outState.putString(STATE_ANNOTATION_SNAPSHOT, file.getAbsolutePath());
+        } else {
+            deleteAnnotationSnapshot();
+        }
+    }
+
+    // Deletes the file annotations were last saved to, if any
+    private void deleteAnnotationSnapshot() {
+        if (mAnnotationSnapshotName != null) {
+            AnnotationSnapshot.deleteAsync(new File(getContext().getCacheDir(), mAnnotationSnapshotName));
+            mAnnotationSnapshotName = null;
+        }
+    }
+
+    // Whether the activity showing this view is finishing, so its saved state is never restored
+    private boolean isFinishing() {
+        Context context = getContext();
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return ((Activity) context).isFinishing();
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return true;
     }
 
     /**
@@ -1059,6 +1224,16 @@ public final class MapView extends FrameLayout {
      */
     @UiThread
     public void onDestroy() {
+        // saved annotations are needed by the view recreated for the same activity, for example
+        // after a configuration change or once the activity comes back from the back stack
+        if (isFinishing()) {
+            deleteAnnotationSnapshot();
+        }
+        for (int i = 0; i < mMarkerViewManagers.size(); i++) {
+            mMarkerViewManagers.get(i).remove();
+        }
+        mMarkerViewManagers.clear();
+        mUserLocationView.onDestroy();
         mNativeMapView.terminateContext();
         mNativeMapView.terminateDisplay();
         mNativeMapView.destroySurface();
@@ -1066,6 +1241,15 @@ public final class MapView extends FrameLayout {
         mNativeMapView = null;
     }
 
+    /**
+     * Do not use this method. Used internally by the SDK.
+     *
+     * @return True once {@link #onDestroy()} was called
+     */
+    public boolean isDestroyed() {
+        return mNativeMapView == null;
+    }
+
     /**
      * You must call this method from the parent's {@link Activity#onStart()} or {@link Fragment#onStart()}.
      */
@@ -1091,6 +1275,7 @@ public final class MapView extends FrameLayout {
         getContext().unregisterReceiver(mConnectivityReceiver);
         mConnectivityReceiver = null;
 
+        mFlingEngine.stop();
         mUserLocationView.pause();
         mNativeMapView.pause();
     }
@@ -1356,6 +1541,66 @@ public final class MapView extends FrameLayout {
         this.mScrollEnabled = scrollEnabled;
     }
 
+    /**
+     * <p>
+     * Changes whether the map is moved ahead of the finger while it is dragged.
+     * </p>
+     * <p>
+     * The map is moved once per frame. With prediction enabled it is moved by the distance the
+     * finger is expected to travel within the next frame, so it lags less behind the finger.
+     * </p>
+     * The default value is false.
+     *
+     * @param predictionEnabled If true, drags are predicted.
+     */
+    @UiThread
+    public void setScrollPredictionEnabled(boolean predictionEnabled) {
+        mScrollBatcher.setPredictionEnabled(predictionEnabled);
+    }
+
+    /**
+     * Returns whether the map is moved ahead of the finger while it is dragged.
+     *
+     * @return If true, drags are predicted.
+     */
+    @UiThread
+    public boolean isScrollPredictionEnabled() {
+        return mScrollBatcher.isPredictionEnabled();
+    }
+
+    //
+    // Annotation state
+    //
+
+    /**
+     * <p>
+     * Changes whether markers, polylines and polygons are saved with the instance state.
+     * </p>
+     * <p>
+     * Annotations are written to a compact binary file in the cache directory on a background
+     * thread, and are added back in {@link #onCreate(Bundle)}. They come back as plain markers,
+     * polylines and polygons, so don't add them again after the map is recreated.
+     * </p>
+     * The default value is false.
+     *
+     * @param saveAnnotationsEnabled If true, annotations are saved.
+     * @see AnnotationSnapshot
+     */
+    @UiThread
+    public void setSaveAnnotationsEnabled(boolean saveAnnotationsEnabled) {
+        mSaveAnnotationsEnabled = saveAnnotationsEnabled;
+    }
+
+    /**
+     * Returns whether markers, polylines and polygons are saved with the instance state.
+     *
+     * @return If true, annotations are saved.
+     */
+    @UiThread
+    public boolean isSaveAnnotationsEnabled() {
+        return mSaveAnnotationsEnabled;
+    }
+
     //
     // Pitch / Tilt
     //
@@ -2063,6 +2308,113 @@ public final class MapView extends FrameLayout {
         return mStyleUrl;
     }
 
+    /**
+     * <p>
+     * Adds a GeoJSON source to the map style, for use by style layers with the same source id.
+     * </p>
+     * <p>
+     * The data is tiled natively in the background, so a source can hold many more features than
+     * can be added as annotations. Sources are kept when the style changes. Adding a source
+     * reloads the style.
+     * </p>
+     *
+     * @param id      The source id
+     * @param geoJson A GeoJSON object, for example a feature collection
+     * @see MapView#updateGeoJsonSource(String, String)
+     */
+    @UiThread
+    public void addGeoJsonSource(@NonNull String id, @NonNull String geoJson) {
+        if (mGeoJsonSources.contains(id)) {
+            throw new IllegalArgumentException("GeoJSON source " + id + " was already added");
+        }
+        setGeoJsonData(id, geoJson);
+    }
+
+    /**
+     * Adds a GeoJSON source to the map style, loaded from a URL.
+     *
+     * @param id  The source id
+     * @param url The URL of a GeoJSON document
+     * @see MapView#addGeoJsonSource(String, String)
+     */
+    @UiThread
+    public void addGeoJsonSource(@NonNull String id, @NonNull Uri url) {
+        if (mGeoJsonSources.contains(id)) {
+            throw new IllegalArgumentException("GeoJSON source " + id + " was already added");
+        }
+        mGeoJsonSources.putUrl(id, url.toString());
+        applyGeoJsonSources();
+    }
+
+    /**
+     * Replaces the data of a GeoJSON source. Once the style has the source, the data is replaced
+     * without reloading the style.
+     *
+     * @param id      The source id
+     * @param geoJson A GeoJSON object, for example a feature collection
+     */
+    @UiThread
+    public void updateGeoJsonSource(@NonNull String id, @NonNull String geoJson) {
+        if (!mGeoJsonSources.contains(id)) {
+            throw new IllegalArgumentException("GeoJSON source " + id + " was not added");
+        }
+        setGeoJsonData(id, geoJson);
+    }
+
+    /**
+     * Replaces the data of a GeoJSON source with a document loaded from a URL. This reloads the
+     * style.
+     *
+     * @param id  The source id
+     * @param url The URL of a GeoJSON document
+     */
+    @UiThread
+    public void updateGeoJsonSource(@NonNull String id, @NonNull Uri url) {
+        if (!mGeoJsonSources.contains(id)) {
+            throw new IllegalArgumentException("GeoJSON source " + id + " was not added");
+        }
+        mGeoJsonSources.putUrl(id, url.toString());
+        applyGeoJsonSources();
+    }
+
+    /**
+     * Removes a GeoJSON source from the map style.
+     *
+     * @param id The source id
+     */
+    @UiThread
+    public void removeGeoJsonSource(@NonNull String id) {
+        mGeoJsonSources.remove(id);
+        applyGeoJsonSources();
+    }
+
+    private void setGeoJsonData(String id, String geoJson) {
+        if (!geoJson.trim().startsWith("{")) {
+            throw new IllegalArgumentException("geoJson must be a GeoJSON object");
+        }
+        if (mGeoJsonSources.putData(id, geoJson)) {
+            // the loaded style has the source, only its data changes
+            mNativeMapView.setGeoJsonSourceData(id, geoJson);
+            return;
+        }
+        applyGeoJsonSources();
+    }
+
+    // Writes the GeoJSON sources into the style once it is loaded
+    private void applyGeoJsonSources() {
+        String styleJson = mGeoJsonSources.inject(mNativeMapView.getStyleJson());
+        if (styleJson == null) {
+            return;
+        }
+
+        // resolve relative URLs against the style URL, as when the style was loaded
+        String base = "";
+        if (mStyleUrl != null && mStyleUrl.lastIndexOf('/') != -1) {
+            base = mStyleUrl.substring(0, mStyleUrl.lastIndexOf('/') + 1);
+        }
+        mNativeMapView.setStyleJson(styleJson, base);
+    }
+
     /**
      * Returns the set of currently active map style classes.
      *
@@ -2243,6 +2595,64 @@ public final class MapView extends FrameLayout {
         return mNativeMapView.getAccessToken();
     }
 
+    /**
+     * <p>
+     * Sets the loader used to fetch map styles, tiles, sprites and glyphs.
+     * </p>
+     * <p>
+     * The loader is shared by every map in the process and is used for requests started after
+     * this call. Set it before {@link MapView#onCreate(Bundle)} to have it serve the style too.
+     * </p>
+     *
+     * @param resourceLoader The loader to use, or null to restore the default
+     *                       {@link com.mapbox.mapboxsdk.http.OkHttpResourceLoader}.
+     * @see com.mapbox.mapboxsdk.http.LocalResourceLoader
+     */
+    @UiThread
+    public void setResourceLoader(@Nullable ResourceLoader resourceLoader) {
+        HTTPContext.getInstance().setResourceLoader(resourceLoader);
+    }
+
+    /**
+     * Returns the loader used to fetch map styles, tiles, sprites and glyphs.
+     *
+     * @return The current resource loader.
+     */
+    @UiThread
+    @NonNull
+    public ResourceLoader getResourceLoader() {
+        return HTTPContext.getInstance().getResourceLoader();
+    }
+
+    /**
+     * <p>
+     * Sets whether the map reduces the data it loads.
+     * </p>
+     * <p>
+     * While saving data, raster tiles are requested at standard density, fewer requests are made
+     * at the same time and offline region downloads continue one request at a time. The setting
+     * is shared by every map in the process. Data saving is off by default.
+     * </p>
+     *
+     * @param dataSaverMode One of the {@link DataSaverMode} constants.
+     * @see DataSaverMode
+     */
+    @UiThread
+    public void setDataSaverMode(@DataSaverMode.Mode int dataSaverMode) {
+        HTTPContext.getInstance().setDataSaverMode(dataSaverMode);
+    }
+
+    /**
+     * Returns whether the map reduces the data it loads.
+     *
+     * @return One of the {@link DataSaverMode} constants.
+     */
+    @UiThread
+    @DataSaverMode.Mode
+    public int getDataSaverMode() {
+        return HTTPContext.getInstance().getDataSaverMode();
+    }
+
     //
     // Projection
     //
@@ -2289,6 +2699,25 @@ public final class MapView extends FrameLayout {
         return new PointF(x, y);
     }
 
+    /**
+     * Converts map coordinates to points in this view's coordinate system, all in one call.
+     *
+     * @param coordinates Latitude, longitude pairs.
+     * @param points      Receives the x, y pairs of the converted points.
+     * @param count       The number of coordinates to convert.
+     */
+    @UiThread
+    public void toScreenLocations(@NonNull double[] coordinates, @NonNull float[] points, int count) {
+        if (count < 0 || coordinates.length < 2 * count || points.length < 2 * count) {
+            throw new IllegalArgumentException("arrays must hold at least count pairs");
+        }
+
+        mNativeMapView.pixelsForLatLngs(coordinates, points, count);
+        for (int i = 0; i < 2 * count; i++) {
+            points[i] *= mScreenDensity;
+        }
+    }
+
     //
     // Annotations
     //
@@ -2320,28 +2749,43 @@ public final class MapView extends FrameLayout {
     }
 
     private void reloadIcons() {
-        int count = mIcons.size();
-        for (int i = 0; i < count; i++) {
-            Icon icon = mIcons.get(i);
+        for (Icon icon : mIcons.values()) {
             loadIcon(icon);
         }
     }
 
+    /**
+     * Do not use this method. Used internally by the SDK.
+     * <p>
+     * Removes an icon no marker uses anymore from the map.
+     * </p>
+     */
+    @UiThread
+    public void removeIcon(@NonNull Icon icon) {
+        if (icon.equals(mIcons.get(icon.getId()))) {
+            mIcons.remove(icon.getId());
+            if (mNativeMapView != null) {
+                mNativeMapView.removeAnnotationIcon(icon.getId());
+            }
+        }
+    }
+
     private Marker prepareMarker(MarkerOptions markerOptions) {
-        Marker marker = markerOptions.getMarker();
+        return prepareMarker(markerOptions.getMarker());
+    }
+
+    private Marker prepareMarker(Marker marker) {
         Icon icon = marker.getIcon();
         if (icon == null) {
             icon = getIconFactory().defaultMarker();
             marker.setIcon(icon);
         }
-        if (!mIcons.contains(icon)) {
-            mIcons.add(icon);
+        Icon oldIcon = mIcons.get(icon.getId());
+        if (!icon.equals(oldIcon)) {
+            mIcons.put(icon.getId(), icon);
             loadIcon(icon);
-        } else {
-            Icon oldIcon = mIcons.get(mIcons.indexOf(icon));
-            if (!oldIcon.getBitmap().sameAs(icon.getBitmap())) {
-                throw new IconBitmapChangedException();
-            }
+        } else if (!oldIcon.getBitmap().sameAs(icon.getBitmap())) {
+            throw new IconBitmapChangedException();
         }
         marker.setTopOffsetPixels(getTopOffsetPixelsForIcon(icon));
         return marker;
@@ -2523,6 +2967,162 @@ public final class MapView extends FrameLayout {
         return new ArrayList<>(polygons);
     }
 
+    /**
+     * Adds a trail to this map. Points are appended to the trail with {@link Trail#addPoint(LatLng)}.
+     *
+     * @param trailOptions A trail options object that defines how to render the trail.
+     * @return The {@code Trail} that was added to the map.
+     */
+    @UiThread
+    @NonNull
+    public Trail addTrail(@NonNull TrailOptions trailOptions) {
+        if (trailOptions == null) {
+            Log.w(TAG, "trailOptions was null, so just returning null");
+            return null;
+        }
+
+        Trail trail = new Trail(trailOptions);
+        trail.setMapView(this);
+        return trail;
+    }
+
+    /**
+     * Adds a dataset of keyed points to this map. Points are replaced with
+     * {@link MarkerDataset#submit(long[], double[], int[], int)}.
+     *
+     * @return The {@code MarkerDataset} that was added to the map.
+     */
+    @UiThread
+    @NonNull
+    public MarkerDataset addMarkerDataset() {
+        MarkerDataset dataset = new MarkerDataset();
+        dataset.setMapView(this);
+        return dataset;
+    }
+
+    /**
+     * Removes a dataset of keyed points from the map.
+     *
+     * @param dataset The dataset to remove.
+     */
+    @UiThread
+    public void removeMarkerDataset(@NonNull MarkerDataset dataset) {
+        if (dataset == null) {
+            Log.w(TAG, "dataset was null, so just returning");
+            return;
+        }
+
+        dataset.remove();
+    }
+
+    /**
+     * Adds a set of markers shown as Android views to this map. Markers are added with
+     * {@link MarkerViewManager#addMarker(MarkerOptions)}.
+     *
+     * @param adapter The adapter providing the views of the markers.
+     * @return The {@code MarkerViewManager} that was added to the map.
+     */
+    @UiThread
+    @NonNull
+    public MarkerViewManager addMarkerViewManager(@NonNull MarkerViewManager.Adapter adapter) {
+        if (adapter == null) {
+            throw new IllegalArgumentException("adapter must not be null");
+        }
+
+        MarkerViewManager manager = new MarkerViewManager(adapter);
+        manager.setMapView(this);
+        mMarkerViewManagers.add(manager);
+        return manager;
+    }
+
+    /**
+     * Removes a set of markers shown as Android views from the map.
+     *
+     * @param manager The manager to remove.
+     */
+    @UiThread
+    public void removeMarkerViewManager(@NonNull MarkerViewManager manager) {
+        if (manager == null) {
+            Log.w(TAG, "manager was null, so just returning");
+            return;
+        }
+
+        mMarkerViewManagers.remove(manager);
+        manager.remove();
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     * <p>
+     * Removes and adds markers with one native call each. A marker may be in both lists to
+     * update it.
+     * </p>
+     */
+    @UiThread
+    public void updateMarkers(@NonNull List<Marker> removed, @NonNull List<Marker> added) {
+        int count = removed.size();
+        if (count > 0) {
+            long[] ids = new long[count];
+            Set<Long> removedIds = new HashSet<>(count);
+            for (int i = 0; i < count; i++) {
+                ids[i] = removed.get(i).getId();
+                removedIds.add(ids[i]);
+                removed.get(i).setMapView(null);
+            }
+            mNativeMapView.removeAnnotations(ids);
+
+            List<Annotation> kept = new ArrayList<>(mAnnotations.size());
+            for (Annotation annotation : mAnnotations) {
+                if (!(annotation instanceof Marker) || !removedIds.contains(annotation.getId())) {
+                    kept.add(annotation);
+                }
+            }
+            mAnnotations.clear();
+            mAnnotations.addAll(kept);
+        }
+
+        count = added.size();
+        if (count > 0) {
+            for (int i = 0; i < count; i++) {
+                prepareMarker(added.get(i));
+            }
+            long[] ids = mNativeMapView.addMarkers(added);
+            for (int i = 0; i < count; i++) {
+                Marker marker = added.get(i);
+                marker.setId(ids[i]);
+                marker.setMapView(this);
+                mAnnotations.add(marker);
+            }
+        }
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     * <p>
+     * Updates the position and icon of a marker on the map, keeping its id.
+     * </p>
+     */
+    @UiThread
+    public void updateMarker(@NonNull Marker marker) {
+        prepareMarker(marker);
+        mNativeMapView.updateMarker(marker);
+    }
+
+    /**
+     * Removes a trail from the map.
+     *
+     * @param trail The trail to remove.
+     */
+    @UiThread
+    public void removeTrail(@NonNull Trail trail) {
+        if (trail == null) {
+            Log.w(TAG, "trail was null, so just returning");
+            return;
+        }
+
+        trail.remove();
+    }
+
 
     /**
      * <p>
@@ -2555,6 +3155,7 @@ public final class MapView extends FrameLayout {
         long id = annotation.getId();
         mNativeMapView.removeAnnotation(id);
         mAnnotations.remove(annotation);
+        annotation.setMapView(null);
     }
 
     /**
@@ -2573,6 +3174,7 @@ public final class MapView extends FrameLayout {
         long[] ids = new long[count];
         for (int i = 0; i < count; i++) {
             ids[i] = annotationList.get(i).getId();
+            annotationList.get(i).setMapView(null);
         }
         mNativeMapView.removeAnnotations(ids);
     }
@@ -2592,6 +3194,7 @@ public final class MapView extends FrameLayout {
             if (annotation instanceof Marker) {
                 ((Marker) annotation).hideInfoWindow();
             }
+            annotation.setMapView(null);
         }
 
         mNativeMapView.removeAnnotations(ids);
@@ -2873,10 +3476,12 @@ public final class MapView extends FrameLayout {
 
         for (Marker marker : mSelectedMarkers) {
             if (marker.isInfoWindowShown()) {
-                Marker temp = marker;
-                temp.hideInfoWindow();
-                temp.showInfoWindow();
-                marker = temp;
+                // a new info window is opened, the closed one is dropped on the next frame
+                marker.hideInfoWindow();
+                InfoWindow infoWindow = marker.showInfoWindow();
+                if (infoWindow != null) {
+                    mInfoWindows.add(infoWindow);
+                }
             }
         }
     }
@@ -2957,9 +3562,44 @@ public final class MapView extends FrameLayout {
         public void onSurfaceTextureUpdated(SurfaceTexture surface) {
             mCompassView.update(getDirection());
             mUserLocationView.update();
-            for (InfoWindow infoWindow : mInfoWindows) {
-                infoWindow.update();
+            for (int i = 0; i < mMarkerViewManagers.size(); i++) {
+                mMarkerViewManagers.get(i).update();
             }
+            updateInfoWindows();
+        }
+    }
+
+    // Moves the open info windows along with their markers, projecting all of them in one call
+    private void updateInfoWindows() {
+        int count = 0;
+        for (int i = 0; i < mInfoWindows.size(); i++) {
+            InfoWindow infoWindow = mInfoWindows.get(i);
+            LatLng position = infoWindow.getAnchorPosition();
+            if (position == null) {
+                // closed, drop it
+                continue;
+            }
+
+            if (mInfoWindowCoordinates.length < 2 * (count + 1)) {
+                mInfoWindowCoordinates = Arrays.copyOf(mInfoWindowCoordinates, 2 * mInfoWindows.size());
+                mInfoWindowPoints = new float[2 * mInfoWindows.size()];
+            }
+            mInfoWindowCoordinates[2 * count] = position.getLatitude();
+            mInfoWindowCoordinates[2 * count + 1] = position.getLongitude();
+            mInfoWindows.set(count++, infoWindow);
+        }
+        while (mInfoWindows.size() > count) {
+            mInfoWindows.remove(mInfoWindows.size() - 1);
+        }
+        if (count == 0) {
+            return;
+        }
+
+        toScreenLocations(mInfoWindowCoordinates, mInfoWindowPoints, count);
+        int width = getWidth();
+        int height = getHeight();
+        for (int i = 0; i < count; i++) {
+            mInfoWindows.get(i).updatePosition(mInfoWindowPoints[2 * i], mInfoWindowPoints[2 * i + 1], width, height);
         }
     }
 
@@ -2970,6 +3610,11 @@ public final class MapView extends FrameLayout {
         }
     }
 
+    // Used by FollowCamera, once per frame
+    void jumpTo(double latitude, double longitude, double bearing) {
+        mNativeMapView.jumpTo(latitude, longitude, bearing);
+    }
+
     /**
      * Get Bearing in degrees
      *
@@ -3064,10 +3709,16 @@ public final class MapView extends FrameLayout {
             return false;
         }
 
-        // Check two finger gestures first
-        mRotateGestureDetector.onTouchEvent(event);
+        // Track the velocity of the whole gesture
+        mFlingEngine.addMovement(event);
+
+        // Check two finger gestures first, the event is read once for the rotate and shove detectors.
+        // Shove runs after scale as it checks whether a zoom has started.
+        TouchState touchState = mTouchState;
+        touchState.set(event);
+        mRotateGestureDetector.onTouchEvent(touchState);
         mScaleGestureDetector.onTouchEvent(event);
-        mShoveGestureDetector.onTouchEvent(event);
+        mShoveGestureDetector.onTouchEvent(touchState);
 
         // Handle two finger tap
         switch (event.getActionMasked()) {
@@ -3094,18 +3745,29 @@ public final class MapView extends FrameLayout {
                         || mShoveGestureDetector.isInProgress();
 
                 if (mTwoTap && isTap && !inProgress) {
-                    PointF focalPoint = TwoFingerGestureDetector.determineFocalPoint(event);
-                    zoom(false, focalPoint.x, focalPoint.y);
+                    zoom(false, touchState.getFocusX(), touchState.getFocusY());
                     mTwoTap = false;
+                    mFlingEngine.endGesture();
                     return true;
                 }
 
                 mTwoTap = false;
+                mScrollBatcher.flush();
+
+                // Fling the map, unless a zoom or rotation is flung already
+                if (mScrollEnabled && !mQuickZoom && !mFlingEngine.isRunning() && mFlingEngine.flingPan(event)) {
+                    // reset tracking modes if gesture occurs
+                    resetTrackingModes();
+                }
+                mFlingEngine.endGesture();
+
                 mNativeMapView.setGestureInProgress(false);
                 break;
 
             case MotionEvent.ACTION_CANCEL:
                 mTwoTap = false;
+                mScrollBatcher.flush();
+                mFlingEngine.endGesture();
                 mNativeMapView.setGestureInProgress(false);
                 break;
         }
@@ -3251,7 +3913,10 @@ public final class MapView extends FrameLayout {
                 // deselect any selected marker
                 deselectMarkers();
 
-                // notify app of map click
+                // notify app of shape click, or else of map click
+                if (onShapeClick(tapPoint)) {
+                    return true;
+                }
                 if (mOnMapClickListener != null) {
                     LatLng point = fromScreenLocation(tapPoint);
                     mOnMapClickListener.onMapClick(point);
@@ -3270,39 +3935,6 @@ public final class MapView extends FrameLayout {
             }
         }
 
-        // Called for flings
-        @Override
-        public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX,
-                               float velocityY) {
-            if (!mScrollEnabled) {
-                return false;
-            }
-
-            // reset tracking modes if gesture occurs
-            resetTrackingModes();
-
-            // Fling the map
-            float ease = 0.25f;
-
-            velocityX = velocityX * ease;
-            velocityY = velocityY * ease;
-
-            double speed = Math.sqrt(velocityX * velocityX + velocityY * velocityY);
-            double deceleration = 2500;
-            double duration = speed / (deceleration * ease);
-
-            // Cancel any animation
-            mNativeMapView.cancelTransitions();
-
-            mNativeMapView.moveBy(velocityX * duration / 2.0 / mScreenDensity, velocityY * duration / 2.0 / mScreenDensity, (long) (duration * 1000.0f));
-
-            if (mOnFlingListener != null) {
-                mOnFlingListener.onFling();
-            }
-
-            return true;
-        }
-
         // Called for drags
         @Override
         public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
@@ -3313,11 +3945,8 @@ public final class MapView extends FrameLayout {
             // reset tracking modes if gesture occurs
             resetTrackingModes();
 
-            // Cancel any animation
-            mNativeMapView.cancelTransitions();
-
-            // Scroll the map
-            mNativeMapView.moveBy(-distanceX / mScreenDensity, -distanceY / mScreenDensity);
+            // Scroll the map on the next frame
+            mScrollBatcher.scroll(e2, -distanceX, -distanceY);
 
             if (mOnScrollListener != null) {
                 mOnScrollListener.onScroll();
@@ -3332,6 +3961,8 @@ public final class MapView extends FrameLayout {
 
         long mBeginTime = 0;
         float mScaleFactor = 1.0f;
+        float mFocusX = 0.0f;
+        float mFocusY = 0.0f;
 
         // Called when two fingers first touch the screen
         @Override
@@ -3350,6 +3981,11 @@ public final class MapView extends FrameLayout {
         // Called when fingers leave screen
         @Override
         public void onScaleEnd(ScaleGestureDetector detector) {
+            // Keep zooming at the speed the fingers left off
+            if (mZoomStarted) {
+                mFlingEngine.flingZoom(detector.getEventTime(), mFocusX, mFocusY);
+            }
+
             mBeginTime = 0;
             mScaleFactor = 1.0f;
             mZoomStarted = false;
@@ -3390,11 +4026,15 @@ public final class MapView extends FrameLayout {
             // Scale the map
             if (mScrollEnabled && !mQuickZoom && mUserLocationView.getMyLocationTrackingMode() == MyLocationTracking.TRACKING_NONE) {
                 // around gesture
-                mNativeMapView.scaleBy(detector.getScaleFactor(), detector.getFocusX() / mScreenDensity, detector.getFocusY() / mScreenDensity);
+                mFocusX = detector.getFocusX();
+                mFocusY = detector.getFocusY();
             } else {
                 // around center map
-                mNativeMapView.scaleBy(detector.getScaleFactor(), (getWidth() / 2) / mScreenDensity, (getHeight() / 2) / mScreenDensity);
+                mFocusX = getWidth() / 2;
+                mFocusY = getHeight() / 2;
             }
+            mNativeMapView.scaleBy(detector.getScaleFactor(), mFocusX / mScreenDensity, mFocusY / mScreenDensity);
+            mFlingEngine.addScale(detector.getScaleFactor(), detector.getEventTime());
             return true;
         }
     }
@@ -3405,6 +4045,8 @@ public final class MapView extends FrameLayout {
         long mBeginTime = 0;
         float mTotalAngle = 0.0f;
         boolean mStarted = false;
+        float mFocusX = 0.0f;
+        float mFocusY = 0.0f;
 
         // Called when two fingers first touch the screen
         @Override
@@ -3423,6 +4065,11 @@ public final class MapView extends FrameLayout {
         // Called when the fingers leave the screen
         @Override
         public void onRotateEnd(RotateGestureDetector detector) {
+            // Keep rotating at the speed the fingers left off
+            if (mStarted) {
+                mFlingEngine.flingRotation(detector.getEventTime(), mFocusX, mFocusY);
+            }
+
             mBeginTime = 0;
             mTotalAngle = 0.0f;
             mStarted = false;
@@ -3465,15 +4112,15 @@ public final class MapView extends FrameLayout {
             // Rotate the map
             if (mUserLocationView.getMyLocationTrackingMode() == MyLocationTracking.TRACKING_NONE) {
                 // around gesture
-                mNativeMapView.setBearing(bearing,
-                        detector.getFocusX() / mScreenDensity,
-                        detector.getFocusY() / mScreenDensity);
+                mFocusX = detector.getFocusX();
+                mFocusY = detector.getFocusY();
             } else {
                 // around center map
-                mNativeMapView.setBearing(bearing,
-                        (getWidth() / 2) / mScreenDensity,
-                        (getHeight() / 2) / mScreenDensity);
+                mFocusX = getWidth() / 2;
+                mFocusY = getHeight() / 2;
             }
+            mNativeMapView.setBearing(bearing, mFocusX / mScreenDensity, mFocusY / mScreenDensity);
+            mFlingEngine.addRotation(detector.getRotationDegreesDelta(), detector.getEventTime());
             return true;
         }
     }
@@ -3865,9 +4512,38 @@ public final class MapView extends FrameLayout {
 
     // Called when our Internet connectivity has changed
     private void onConnectivityChanged(boolean isConnected) {
+        HTTPContext.getInstance().setReachability(isConnected);
+        if (isConnected) {
+            updateConnectionType();
+        }
         mNativeMapView.setReachability(isConnected);
     }
 
+    // Tells the HTTP layer whether the active network is metered or slow, for data saving
+    private void updateConnectionType() {
+        ConnectivityManager connectivityManager = (ConnectivityManager) getContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo activeNetwork = connectivityManager.getActiveNetworkInfo();
+        if (activeNetwork == null) {
+            return;
+        }
+
+        boolean metered = ConnectivityManagerCompat.isActiveNetworkMetered(connectivityManager);
+        boolean slow = false;
+        if (activeNetwork.getType() == ConnectivityManager.TYPE_MOBILE) {
+            switch (activeNetwork.getSubtype()) {
+                case TelephonyManager.NETWORK_TYPE_GPRS:
+                case TelephonyManager.NETWORK_TYPE_EDGE:
+                case TelephonyManager.NETWORK_TYPE_CDMA:
+                case TelephonyManager.NETWORK_TYPE_1xRTT:
+                case TelephonyManager.NETWORK_TYPE_IDEN:
+                    slow = true;
+                    break;
+            }
+        }
+        HTTPContext.getInstance().setConnectionType(metered, slow);
+    }
+
     //
     // Map events
     //
@@ -3926,6 +4602,9 @@ public final class MapView extends FrameLayout {
     @UiThread
     public void setInfoWindowAdapter(@Nullable InfoWindowAdapter infoWindowAdapter) {
         mInfoWindowAdapter = infoWindowAdapter;
+
+        // view types of the previous adapter mean nothing to this one
+        mInfoWindowPool = new InfoWindowPool();
     }
 
     /**
@@ -3939,6 +4618,14 @@ public final class MapView extends FrameLayout {
         return mInfoWindowAdapter;
     }
 
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    @NonNull
+    public InfoWindowPool getInfoWindowPool() {
+        return mInfoWindowPool;
+    }
+
 
     /**
      * Sets a callback that's invoked on every frame rendered to the map view.
@@ -3987,6 +4674,47 @@ public final class MapView extends FrameLayout {
         mOnFlingListener = listener;
     }
 
+    /**
+     * Sets a callback that's invoked when a fling starts, with the area visible once it ends.
+     *
+     * @param listener The callback that's invoked when the map is flinged.
+     *                 To unset the callback, use null.
+     */
+    @UiThread
+    public void setOnFlingPredictionListener(@Nullable OnFlingPredictionListener listener) {
+        mOnFlingPredictionListener = listener;
+    }
+
+    // Called by the FlingEngine with whether a pan was flung, and the total pan in pixels, zoom in
+    // levels and rotation in degrees of the fling, around the focal point in pixels
+    void onFlingStarted(boolean pan, double panX, double panY, double zoom, double degrees, float focusX, float focusY) {
+        // Zoom and rotate flings are not reported as flings of the map
+        if (pan && mOnFlingListener != null) {
+            mOnFlingListener.onFling();
+        }
+
+        if (mOnFlingPredictionListener == null) {
+            return;
+        }
+
+        // Find the points currently shown at the corners of the view once the fling ends
+        double scale = Math.pow(2, zoom);
+        double cos = Math.cos(Math.toRadians(-degrees));
+        double sin = Math.sin(Math.toRadians(-degrees));
+        float[] cornersX = {0, getWidth(), getWidth(), 0};
+        float[] cornersY = {0, 0, getHeight(), getHeight()};
+        List<LatLng> corners = new ArrayList<>(4);
+        for (int i = 0; i < 4; i++) {
+            double x = cornersX[i] - focusX;
+            double y = cornersY[i] - focusY;
+            double rotatedX = (x * cos - y * sin) / scale;
+            double rotatedY = (x * sin + y * cos) / scale;
+            corners.add(fromScreenLocation(new PointF(
+                    (float) (rotatedX + focusX - panX), (float) (rotatedY + focusY - panY))));
+        }
+        mOnFlingPredictionListener.onFlingPredicted(BoundingBox.fromLatLngs(corners));
+    }
+
     /**
      * Sets a callback that's invoked when the user clicks on the map view.
      *
@@ -4020,6 +4748,83 @@ public final class MapView extends FrameLayout {
         mOnMarkerClickListener = listener;
     }
 
+    /**
+     * Sets a callback that's invoked when the user clicks on a polyline.
+     *
+     * @param listener The callback that's invoked when the user clicks on a polyline.
+     *                 To unset the callback, use null.
+     */
+    @UiThread
+    public void setOnPolylineClickListener(@Nullable OnPolylineClickListener listener) {
+        mOnPolylineClickListener = listener;
+    }
+
+    /**
+     * Sets a callback that's invoked when the user clicks on a polygon.
+     *
+     * @param listener The callback that's invoked when the user clicks on a polygon.
+     *                 To unset the callback, use null.
+     */
+    @UiThread
+    public void setOnPolygonClickListener(@Nullable OnPolygonClickListener listener) {
+        mOnPolygonClickListener = listener;
+    }
+
+    // Notifies the listeners of the polyline or else the polygon under a tap, if any.
+    // Polylines are hit within their half width plus a margin, the nearest one wins. Polygons are
+    // hit when the tap is inside, the topmost one wins.
+    private boolean onShapeClick(PointF tapPoint) {
+        if (mOnPolylineClickListener == null && mOnPolygonClickListener == null) {
+            return false;
+        }
+
+        final float tolerance = 12 * mScreenDensity;
+
+        // Project the tap, and a point one tolerance away to get the scale
+        LatLng tap = fromScreenLocation(tapPoint);
+        LatLng side = fromScreenLocation(new PointF(tapPoint.x + tolerance, tapPoint.y));
+        double[] meters = {tap.getLatitude(), tap.getLongitude(), side.getLatitude(), side.getLongitude()};
+        GeoMath.toProjectedMeters(meters, 0, meters, 0, 2);
+        double metersPerPixel = Math.hypot(meters[2] - meters[0], meters[3] - meters[1]) / tolerance;
+        double northing = meters[0];
+        double easting = meters[1];
+
+        int count = mAnnotations.size();
+        if (mOnPolylineClickListener != null) {
+            Polyline nearest = null;
+            double nearestDistance = Double.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                Annotation annotation = mAnnotations.get(i);
+                // the polylines of a trail are not clickable on their own
+                if (annotation instanceof Polyline && annotation.getOwner() == null) {
+                    Polyline polyline = (Polyline) annotation;
+                    double maxDistance = (polyline.getWidth() / 2 * mScreenDensity + tolerance) * metersPerPixel;
+                    double distance = polyline.distanceToProjectedPoint(easting, northing, maxDistance);
+                    if (distance < nearestDistance) {
+                        nearest = polyline;
+                        nearestDistance = distance;
+                    }
+                }
+            }
+            if (nearest != null) {
+                mOnPolylineClickListener.onPolylineClick(nearest);
+                return true;
+            }
+        }
+
+        if (mOnPolygonClickListener != null) {
+            for (int i = count - 1; i >= 0; i--) {
+                Annotation annotation = mAnnotations.get(i);
+                if (annotation instanceof Polygon
+                        && ((Polygon) annotation).containsProjectedPoint(easting, northing)) {
+                    mOnPolygonClickListener.onPolygonClick((Polygon) annotation);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Sets a callback that's invoked when the user clicks on an info window.
      *
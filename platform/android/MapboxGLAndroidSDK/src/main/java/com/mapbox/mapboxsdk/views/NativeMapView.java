@@ -215,6 +215,10 @@ final class NativeMapView {
         return nativeGetStyleJson(mNativeMapViewPtr);
     }
 
+    public void setGeoJsonSourceData(String sourceId, String geoJson) {
+        nativeSetGeoJsonSourceData(mNativeMapViewPtr, sourceId, geoJson);
+    }
+
     public void setAccessToken(String accessToken) {
         nativeSetAccessToken(mNativeMapViewPtr, accessToken);
     }
@@ -364,6 +368,10 @@ final class NativeMapView {
         return nativeAddMarkers(mNativeMapViewPtr, markers);
     }
 
+    public void updateMarker(Marker marker) {
+        nativeUpdateMarker(mNativeMapViewPtr, marker.getId(), marker);
+    }
+
     public long addPolyline(Polyline polyline) {
         return nativeAddPolyline(mNativeMapViewPtr, polyline);
     }
@@ -396,6 +404,10 @@ final class NativeMapView {
         nativeAddAnnotationIcon(mNativeMapViewPtr, symbol, width, height, scale, pixels);
     }
 
+    public void removeAnnotationIcon(String symbol) {
+        nativeRemoveAnnotationIcon(mNativeMapViewPtr, symbol);
+    }
+
     public void setVisibleCoordinateBounds(LatLng[] coordinates, RectF padding, double direction, long duration) {
         nativeSetVisibleCoordinateBounds(mNativeMapViewPtr, coordinates, padding, direction, duration);
     }
@@ -440,6 +452,10 @@ final class NativeMapView {
         return nativePixelForLatLng(mNativeMapViewPtr, latLng);
     }
 
+    public void pixelsForLatLngs(double[] coordinates, float[] pixels, int count) {
+        nativePixelsForLatLngs(mNativeMapViewPtr, coordinates, pixels, count);
+    }
+
     public LatLng latLngForPixel(PointF pixel) {
         return nativeLatLngForPixel(mNativeMapViewPtr, pixel);
     }
@@ -452,6 +468,11 @@ final class NativeMapView {
         nativeJumpTo(mNativeMapViewPtr, angle, center, pitch, zoom);
     }
 
+    // Moves the camera once per frame while following the user, so it takes no LatLng object
+    public void jumpTo(double latitude, double longitude, double bearing) {
+        nativeJumpToLatLngBearing(mNativeMapViewPtr, latitude, longitude, bearing);
+    }
+
     public void easeTo(double angle, LatLng center, long duration, double pitch, double zoom) {
         nativeEaseTo(mNativeMapViewPtr, angle, center, duration, pitch, zoom);
     }
@@ -542,6 +563,8 @@ final class NativeMapView {
 
     private native String nativeGetStyleJson(long nativeMapViewPtr);
 
+    private native void nativeSetGeoJsonSourceData(long nativeMapViewPtr, String sourceId, String geoJson);
+
     private native void nativeSetAccessToken(long nativeMapViewPtr, String accessToken);
 
     private native String nativeGetAccessToken(long nativeMapViewPtr);
@@ -605,6 +628,8 @@ final class NativeMapView {
 
     private native long[] nativeAddMarkers(long nativeMapViewPtr, List<Marker> markers);
 
+    private native void nativeUpdateMarker(long nativeMapViewPtr, long id, Marker marker);
+
     private native long nativeAddPolyline(long nativeMapViewPtr, Polyline polyline);
 
     private native long[] nativeAddPolylines(long mNativeMapViewPtr, List<Polyline> polygon);
@@ -619,6 +644,8 @@ final class NativeMapView {
 
     private native long[] nativeGetAnnotationsInBounds(long mNativeMapViewPtr, BoundingBox bbox);
 
+    private native void nativeRemoveAnnotationIcon(long nativeMapViewPtr, String symbol);
+
     private native void nativeAddAnnotationIcon(long nativeMapViewPtr, String symbol,
                                         int width, int height, float scale, byte[] pixels);
 
@@ -645,12 +672,16 @@ final class NativeMapView {
 
     private native PointF nativePixelForLatLng(long nativeMapViewPtr, LatLng latLng);
 
+    private native void nativePixelsForLatLngs(long nativeMapViewPtr, double[] coordinates, float[] pixels, int count);
+
     private native LatLng nativeLatLngForPixel(long nativeMapViewPtr, PointF pixel);
 
     private native double nativeGetTopOffsetPixelsForAnnotationSymbol(long nativeMapViewPtr, String symbolName);
 
     private native void nativeJumpTo(long nativeMapViewPtr, double angle, LatLng center, double pitch, double zoom);
 
+    private native void nativeJumpToLatLngBearing(long nativeMapViewPtr, double latitude, double longitude, double bearing);
+
     private native void nativeEaseTo(long nativeMapViewPtr, double angle, LatLng center, long duration, double pitch, double zoom);
 
     private native void nativeFlyTo(long nativeMapViewPtr, double angle, LatLng center, long duration, double pitch, double zoom);
@@ -0,0 +1,169 @@
+package com.mapbox.mapboxsdk.views;
+
+import android.os.SystemClock;
+import android.support.v4.view.ViewCompat;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Collects the scroll distances of a drag and moves the map once per frame.
+ * <p>
+ * Touch panels can report moves several times per frame, while the map only needs to move
+ * once before it is drawn. The touch samples of a single finger drag, including the historical
+ * samples batched into each MotionEvent, are used to estimate the finger velocity. When
+ * prediction is enabled the map is moved ahead of the finger by the distance it travels in one
+ * frame, which hides part of the touch latency. The prediction is taken back once the drag ends.
+ * </p>
+ */
+final class ScrollBatcher implements Runnable {
+
+    // How far ahead the finger position is predicted
+    private static final long PREDICTION_MS = 16;
+
+    // Samples older than this are not used for the velocity
+    private static final long VELOCITY_WINDOW_MS = 50;
+
+    private static final int SAMPLE_COUNT = 16;
+
+    private final View mView;
+    private final NativeMapView mNativeMapView;
+    private final float mScreenDensity;
+
+    private boolean mPredictionEnabled = false;
+
+    // Distance in pixels not yet applied to the map
+    private boolean mPosted = false;
+    private float mPendingX;
+    private float mPendingY;
+
+    // Distance in pixels the map is currently moved ahead of the finger
+    private float mPredictedX;
+    private float mPredictedY;
+
+    // Recent finger positions, oldest first from mSampleStart
+    private final float[] mSampleX = new float[SAMPLE_COUNT];
+    private final float[] mSampleY = new float[SAMPLE_COUNT];
+    private final long[] mSampleTime = new long[SAMPLE_COUNT];
+    private int mSampleStart = 0;
+    private int mSampleSize = 0;
+
+    ScrollBatcher(View view, NativeMapView nativeMapView, float screenDensity) {
+        mView = view;
+        mNativeMapView = nativeMapView;
+        mScreenDensity = screenDensity;
+    }
+
+    void setPredictionEnabled(boolean enabled) {
+        mPredictionEnabled = enabled;
+    }
+
+    boolean isPredictionEnabled() {
+        return mPredictionEnabled;
+    }
+
+    /**
+     * Adds the distance the map is dragged by.
+     *
+     * @param event The event of the move
+     * @param dx    Distance in pixels to the right
+     * @param dy    Distance in pixels down
+     */
+    void scroll(MotionEvent event, float dx, float dy) {
+        mPendingX += dx;
+        mPendingY += dy;
+
+        if (event.getPointerCount() == 1) {
+            int historySize = event.getHistorySize();
+            for (int i = 0; i < historySize; i++) {
+                addSample(event.getHistoricalX(i), event.getHistoricalY(i), event.getHistoricalEventTime(i));
+            }
+            addSample(event.getX(), event.getY(), event.getEventTime());
+        } else {
+            // The focal point of several fingers jumps when one is added or lifted
+            mSampleSize = 0;
+        }
+
+        if (!mPosted) {
+            mPosted = true;
+            ViewCompat.postOnAnimation(mView, this);
+        }
+    }
+
+    /**
+     * Applies the pending distance right away and takes back the prediction. Called when the drag
+     * ends, so following gestures start from where the finger left the map.
+     */
+    void flush() {
+        if (mPosted) {
+            mView.removeCallbacks(this);
+            mPosted = false;
+        }
+
+        float dx = mPendingX - mPredictedX;
+        float dy = mPendingY - mPredictedY;
+        mPendingX = 0;
+        mPendingY = 0;
+        mPredictedX = 0;
+        mPredictedY = 0;
+        mSampleSize = 0;
+        if (dx != 0 || dy != 0) {
+            mNativeMapView.cancelTransitions();
+            mNativeMapView.moveBy(dx / mScreenDensity, dy / mScreenDensity);
+        }
+    }
+
+    // Called once per frame while the map is dragged
+    @Override
+    public void run() {
+        mPosted = false;
+
+        float predictedX = 0;
+        float predictedY = 0;
+        if (mPredictionEnabled && mSampleSize > 1) {
+            int newest = (mSampleStart + mSampleSize - 1) % SAMPLE_COUNT;
+            long newestTime = mSampleTime[newest];
+
+            // Don't predict a finger that has stopped
+            if (SystemClock.uptimeMillis() - newestTime < VELOCITY_WINDOW_MS) {
+                int oldest = newest;
+                for (int i = mSampleSize - 2; i >= 0; i--) {
+                    int index = (mSampleStart + i) % SAMPLE_COUNT;
+                    if (newestTime - mSampleTime[index] > VELOCITY_WINDOW_MS) {
+                        break;
+                    }
+                    oldest = index;
+                }
+
+                long time = newestTime - mSampleTime[oldest];
+                if (time > 0) {
+                    predictedX = (mSampleX[newest] - mSampleX[oldest]) * PREDICTION_MS / time;
+                    predictedY = (mSampleY[newest] - mSampleY[oldest]) * PREDICTION_MS / time;
+                }
+            }
+        }
+
+        float dx = mPendingX + predictedX - mPredictedX;
+        float dy = mPendingY + predictedY - mPredictedY;
+        mPendingX = 0;
+        mPendingY = 0;
+        mPredictedX = predictedX;
+        mPredictedY = predictedY;
+
+        mNativeMapView.cancelTransitions();
+        mNativeMapView.moveBy(dx / mScreenDensity, dy / mScreenDensity);
+    }
+
+    private void addSample(float x, float y, long time) {
+        int index;
+        if (mSampleSize < SAMPLE_COUNT) {
+            index = (mSampleStart + mSampleSize) % SAMPLE_COUNT;
+            mSampleSize++;
+        } else {
+            index = mSampleStart;
+            mSampleStart = (mSampleStart + 1) % SAMPLE_COUNT;
+        }
+        mSampleX[index] = x;
+        mSampleY[index] = y;
+        mSampleTime[index] = time;
+    }
+}
@@ -21,13 +21,12 @@ import android.os.Build;
 import android.os.SystemClock;
 import android.support.annotation.Nullable;
 import android.support.v4.content.ContextCompat;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.view.View;
 import android.view.ViewGroup;
 
 import com.mapbox.mapboxsdk.R;
-import com.mapbox.mapboxsdk.camera.CameraPosition;
-import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
 import com.mapbox.mapboxsdk.constants.MyBearingTracking;
 import com.mapbox.mapboxsdk.constants.MyLocationTracking;
 import com.mapbox.mapboxsdk.geometry.LatLng;
@@ -80,10 +79,12 @@ final class UserLocationView extends View implements LocationListener {
     private float mMarkerAccuracy;
     private ObjectAnimator mMarkerAccuracyAnimator;
 
-    private LatLng mCurrentMapViewCoordinate;
-    private double mCurrentBearing;
+    private FollowCamera mFollowCamera;
 
     private boolean mPaused = false;
+
+    // Whether this view is registered for location updates
+    private boolean mGpsEnabled = false;
     private Location mUserLocation;
 
     MapView.OnMyLocationChangeListener mOnMyLocationChangeListener;
@@ -96,7 +97,6 @@ final class UserLocationView extends View implements LocationListener {
 
     // Compass data
     private MyBearingListener mBearingChangeListener;
-    private static final long BEARING_DURATION = 100;
 
     public UserLocationView(Context context) {
         super(context);
@@ -194,17 +194,21 @@ final class UserLocationView extends View implements LocationListener {
 
     public void setMapView(MapView mapView) {
         mMapView = mapView;
+        mFollowCamera = new FollowCamera(this, mapView);
     }
 
     public void onStart() {
         if (mMyBearingTrackingMode == MyBearingTracking.COMPASS) {
             mBearingChangeListener.onStart(getContext());
         }
+        LocationServices.getLocationServices(getContext()).setMapVisible(this, true);
     }
 
     public void onStop() {
         mBearingChangeListener.onStop();
         cancelAnimations();
+        mFollowCamera.stop();
+        LocationServices.getLocationServices(getContext()).setMapVisible(this, false);
     }
 
     @Override
@@ -240,11 +244,17 @@ final class UserLocationView extends View implements LocationListener {
 
     public void setMyLocationTrackingMode(@MyLocationTracking.Mode int myLocationTrackingMode) {
         mMyLocationTrackingMode = myLocationTrackingMode;
+        // the compass rate depends on the tracking mode
+        mBearingChangeListener.updateRate();
+        LocationServices.getLocationServices(getContext())
+                .setMapTracking(this, myLocationTrackingMode != MyLocationTracking.TRACKING_NONE);
 
+        mFollowCamera.stop();
         if (myLocationTrackingMode != MyLocationTracking.TRACKING_NONE && mUserLocation != null) {
             // center map directly if we have a location fix
             mMarkerCoordinate = new LatLng(mUserLocation.getLatitude(), mUserLocation.getLongitude());
             mMapView.setLatLng(new LatLng(mUserLocation));
+            mFollowCamera.setLocation(mUserLocation);
 
             // center view directly
             mMarkerScreenMatrix.reset();
@@ -282,33 +292,19 @@ final class UserLocationView extends View implements LocationListener {
                         mMarkerScreenPoint.y);
 
             } else if (mMyLocationTrackingMode == MyLocationTracking.TRACKING_FOLLOW) {
-                float bearing;
-                if (mShowDirection) {
-                    bearing = mMyBearingTrackingMode == MyBearingTracking.COMPASS ? mBearingChangeListener.getCompassBearing() : mGpsMarkerDirection;
+                // the camera follows the user on every frame, the marker stays in the center
+                if (mMyBearingTrackingMode == MyBearingTracking.COMPASS) {
+                    mFollowCamera.setBearing(mBearingChangeListener.getCompassBearing());
+                } else if (mMyBearingTrackingMode == MyBearingTracking.GPS && mUserLocation.hasBearing()) {
+                    mFollowCamera.setBearing(mUserLocation.getBearing());
                 } else {
-                    bearing = (float) mMapView.getBearing();
-                }
-
-                if (mCurrentMapViewCoordinate == null) {
-                    mCurrentMapViewCoordinate = mMapView.getLatLng();
+                    mFollowCamera.clearBearing();
                 }
 
-                // only update if there is an actual change
-                if ((!mCurrentMapViewCoordinate.equals(mMarkerCoordinate)) || (!(mCurrentBearing == bearing))) {
-                    CameraPosition cameraPosition = new CameraPosition.Builder()
-                            .target(mMarkerCoordinate)
-                            .bearing(bearing)
-                            .build();
-                    mMapView.animateCamera(CameraUpdateFactory.newCameraPosition(cameraPosition), 300, null);
-                    mMarkerScreenMatrix.reset();
-                    mMarkerScreenMatrix.setTranslate(
-                            getMeasuredWidth() / 2,
-                            getMeasuredHeight() / 2);
-
-                    // set values for next check for actual change
-                    mCurrentMapViewCoordinate = mMarkerCoordinate;
-                    mCurrentBearing = bearing;
-                }
+                mMarkerScreenMatrix.reset();
+                mMarkerScreenMatrix.setTranslate(
+                        getMeasuredWidth() / 2,
+                        getMeasuredHeight() / 2);
             }
 
             // rotate so arrow in points to bearing
@@ -378,7 +374,9 @@ final class UserLocationView extends View implements LocationListener {
             }
 
             // Register for Location Updates
-            locationServices.addLocationListener(this);
+            if (!mGpsEnabled) {
+                locationServices.addLocationListener(this);
+            }
         } else {
             // Disable location and user dot
             setLocation(null);
@@ -388,6 +386,7 @@ final class UserLocationView extends View implements LocationListener {
         }
 
         locationServices.toggleGPS(enableGps);
+        mGpsEnabled = enableGps;
     }
 
     public void setMyBearingTrackingMode(@MyBearingTracking.Mode int myBearingTrackingMode) {
@@ -413,40 +412,74 @@ final class UserLocationView extends View implements LocationListener {
         return mMyBearingTrackingMode;
     }
 
-    private class MyBearingListener implements SensorEventListener {
+    private class MyBearingListener implements SensorEventListener, Runnable {
 
         private SensorManager mSensorManager;
+        private Sensor mRotationVector;
         private Sensor mAccelerometer;
         private Sensor mMagnetometer;
         private float[] mLastAccelerometer = new float[3];
         private float[] mLastMagnetometer = new float[3];
         private boolean mLastAccelerometerSet = false;
         private boolean mLastMagnetometerSet = false;
+        private float[] mRotationVectorValues = new float[4];
         private float[] mR = new float[9];
         private float[] mOrientation = new float[3];
-        private float mCurrentDegree = 0f;
 
-        // Controls the sensor update rate in milliseconds
-        private static final int UPDATE_RATE_MS = 300;
+        // Time constant of the low-pass filter applied to the bearing
+        private static final float SMOOTHING_TIME_MS = 100;
+
+        // Changes smaller than this are not shown
+        private static final float MIN_BEARING_CHANGE = 1.0f;
 
         // Compass data
-        private float mCompassBearing;
-        private long mCompassUpdateNextTimestamp = 0;
+        private boolean mRegistered = false;
+        private boolean mHasBearing = false;
+        private float mFilteredBearing;
+        private long mLastEventTimestamp;
+        private float mCurrentDegree = 0f;
+        private boolean mFramePending = false;
 
         public MyBearingListener(Context context) {
             mSensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+            // prefer the fused sensor, it is smoother and cheaper than combining sensors ourselves
+            mRotationVector = mSensorManager.getDefaultSensor(Sensor.TYPE_ROTATION_VECTOR);
             mAccelerometer = mSensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
             mMagnetometer = mSensorManager.getDefaultSensor(Sensor.TYPE_MAGNETIC_FIELD);
         }
 
         public void onStart(Context context) {
-            mSensorManager.registerListener(this, mAccelerometer, SensorManager.SENSOR_DELAY_GAME);
-            mSensorManager.registerListener(this, mMagnetometer, SensorManager.SENSOR_DELAY_GAME);
+            onStop();
+
+            // the map rotates along while following, otherwise only the marker does
+            int rate = mMyLocationTrackingMode == MyLocationTracking.TRACKING_FOLLOW
+                    ? SensorManager.SENSOR_DELAY_GAME : SensorManager.SENSOR_DELAY_UI;
+            if (mRotationVector != null) {
+                mSensorManager.registerListener(this, mRotationVector, rate);
+            } else {
+                mSensorManager.registerListener(this, mAccelerometer, rate);
+                mSensorManager.registerListener(this, mMagnetometer, rate);
+            }
+            mRegistered = true;
+        }
+
+        public void updateRate() {
+            if (mRegistered) {
+                onStart(getContext());
+            }
         }
 
         public void onStop() {
-            mSensorManager.unregisterListener(this, mAccelerometer);
-            mSensorManager.unregisterListener(this, mMagnetometer);
+            if (!mRegistered) {
+                return;
+            }
+            mSensorManager.unregisterListener(this);
+            removeCallbacks(this);
+            mRegistered = false;
+            mFramePending = false;
+            mHasBearing = false;
+            mLastAccelerometerSet = false;
+            mLastMagnetometerSet = false;
         }
 
         public float getCompassBearing() {
@@ -459,37 +492,57 @@ final class UserLocationView extends View implements LocationListener {
                 return;
             }
 
-            long currentTime = SystemClock.elapsedRealtime();
-            if (currentTime < mCompassUpdateNextTimestamp) {
-                return;
-            }
+            if (event.sensor == mRotationVector) {
+                // some devices report more values than getRotationMatrixFromVector accepts
+                System.arraycopy(event.values, 0, mRotationVectorValues, 0, Math.min(event.values.length, 4));
+                SensorManager.getRotationMatrixFromVector(mR, mRotationVectorValues);
+            } else {
+                if (event.sensor == mAccelerometer) {
+                    System.arraycopy(event.values, 0, mLastAccelerometer, 0, 3);
+                    mLastAccelerometerSet = true;
+                } else if (event.sensor == mMagnetometer) {
+                    System.arraycopy(event.values, 0, mLastMagnetometer, 0, 3);
+                    mLastMagnetometerSet = true;
+                }
 
-            if (event.sensor == mAccelerometer) {
-                System.arraycopy(event.values, 0, mLastAccelerometer, 0, event.values.length);
-                mLastAccelerometerSet = true;
-            } else if (event.sensor == mMagnetometer) {
-                System.arraycopy(event.values, 0, mLastMagnetometer, 0, event.values.length);
-                mLastMagnetometerSet = true;
+                if (!mLastAccelerometerSet || !mLastMagnetometerSet
+                        || !SensorManager.getRotationMatrix(mR, null, mLastAccelerometer, mLastMagnetometer)) {
+                    return;
+                }
             }
 
-            if (mLastAccelerometerSet && mLastMagnetometerSet) {
-                SensorManager.getRotationMatrix(mR, null, mLastAccelerometer, mLastMagnetometer);
-                SensorManager.getOrientation(mR, mOrientation);
-                float azimuthInRadians = mOrientation[0];
-                float azimuthInDegress = (float) (Math.toDegrees(azimuthInRadians) + 360) % 360;
+            SensorManager.getOrientation(mR, mOrientation);
+            float bearing = (float) (Math.toDegrees(mOrientation[0]) + 360) % 360;
 
-                mCompassBearing = azimuthInDegress;
-                if (mCompassBearing < 0) {
-                    // only allow positive degrees
-                    mCompassBearing += 360;
-                }
+            // low-pass filter along the shorter way around the circle
+            if (!mHasBearing) {
+                mFilteredBearing = bearing;
+                mHasBearing = true;
+            } else {
+                float elapsedMs = (event.timestamp - mLastEventTimestamp) / 1000000.0f;
+                float alpha = elapsedMs / (SMOOTHING_TIME_MS + elapsedMs);
+                float diff = ((bearing - mFilteredBearing) % 360 + 540) % 360 - 180;
+                mFilteredBearing = (mFilteredBearing + alpha * diff + 360) % 360;
+            }
+            mLastEventTimestamp = event.timestamp;
 
-                if (mCompassBearing > mCurrentDegree + 15 || mCompassBearing < mCurrentDegree - 15) {
-                    mCurrentDegree = mCompassBearing;
-                    setCompass(mCurrentDegree);
-                }
+            // apply on the next frame, any events until then are coalesced
+            if (!mFramePending) {
+                mFramePending = true;
+                ViewCompat.postOnAnimation(UserLocationView.this, this);
+            }
+        }
+
+        // Called once per frame while the compass changes
+        @Override
+        public void run() {
+            mFramePending = false;
+            float diff = Math.abs(((mFilteredBearing - mCurrentDegree) % 360 + 540) % 360 - 180);
+            if (mPaused || diff < MIN_BEARING_CHANGE) {
+                return;
             }
-            mCompassUpdateNextTimestamp = currentTime + UPDATE_RATE_MS;
+            mCurrentDegree = mFilteredBearing;
+            setCompass(mCurrentDegree);
         }
 
         @Override
@@ -536,6 +589,7 @@ final class UserLocationView extends View implements LocationListener {
             mShowAccuracy = false;
 
             cancelAnimations();
+            mFollowCamera.stop();
 
             mUserLocation = null;
             return;
@@ -576,6 +630,7 @@ final class UserLocationView extends View implements LocationListener {
         } else {
             // moving map under the tracker
             mMarkerCoordinate = new LatLng(location);
+            mFollowCamera.setLocation(location);
         }
 
         if (mMyLocationTrackingMode == MyLocationTracking.TRACKING_NONE && mMyBearingTrackingMode == MyBearingTracking.GPS) {
@@ -601,9 +656,6 @@ final class UserLocationView extends View implements LocationListener {
             // always show north & rotate map below
             mShowDirection = true;
             mGpsMarkerDirection = 0;
-            if (location.hasBearing()) {
-                mMapView.setBearing(location.getBearing(), BEARING_DURATION);
-            }
         }
 
         mShowAccuracy = location.hasAccuracy();
@@ -627,23 +679,16 @@ final class UserLocationView extends View implements LocationListener {
     // handles compass sensor updates
     private void setCompass(float bearing) {
         if (mMyLocationTrackingMode == MyLocationTracking.TRACKING_NONE) {
-            // animate marker
+            // rotate marker, the compass is already smoothed and updated once per frame
             mShowDirection = true;
-            float oldDir = mCompassMarkerDirection;
-            float newDir = bearing;
-            float diff = oldDir - newDir;
-            if (diff > 180.0f) {
-                newDir += 360.0f;
-            } else if (diff < -180.0f) {
-                newDir -= 360.f;
-            }
-            mMarkerDirectionAnimator = ObjectAnimator.ofFloat(this, "direction", oldDir, newDir);
-            mMarkerDirectionAnimator.setDuration(1000);
-            mMarkerDirectionAnimator.start();
             mCompassMarkerDirection = bearing;
+            update();
 
         } else if (mMyLocationTrackingMode == MyLocationTracking.TRACKING_FOLLOW) {
-            cancelAnimations();
+            if (mMarkerDirectionAnimator != null) {
+                mMarkerDirectionAnimator.cancel();
+                mMarkerDirectionAnimator = null;
+            }
             if (mMyBearingTrackingMode == MyBearingTracking.COMPASS) {
                 // always show north & change map direction
                 mShowDirection = true;
@@ -663,7 +708,12 @@ final class UserLocationView extends View implements LocationListener {
      */
     public void pause() {
         mPaused = true;
-        toggleGps(false);
+        mBearingChangeListener.onStop();
+
+        // With background batching, updates go on at the hidden map rate once the map is stopped
+        if (!LocationServices.getLocationServices(getContext()).isBackgroundBatchingEnabled()) {
+            toggleGps(false);
+        }
     }
 
     /**
@@ -671,11 +721,24 @@ final class UserLocationView extends View implements LocationListener {
      */
     public void resume() {
         mPaused = false;
-        if (isEnabled()) {
+        if (mMyBearingTrackingMode == MyBearingTracking.COMPASS) {
+            mBearingChangeListener.onStart(getContext());
+        }
+        if (isEnabled() && !mGpsEnabled) {
             toggleGps(true);
         }
     }
 
+    /**
+     * Called from MapView.onDestroy()
+     */
+    public void onDestroy() {
+        if (mGpsEnabled) {
+            toggleGps(false);
+        }
+        LocationServices.getLocationServices(getContext()).removeMap(this);
+    }
+
     public void setOnMyLocationChangeListener(@Nullable MapView.OnMyLocationChangeListener listener) {
         mOnMyLocationChangeListener = listener;
     }
@@ -23,8 +23,6 @@ import com.mapbox.mapboxsdk.testapp.utils.TimingLogger;
 import com.mapbox.mapboxsdk.utils.ApiAccess;
 import com.mapbox.mapboxsdk.views.MapView;
 
-import org.json.JSONException;
-
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.text.DecimalFormat;
@@ -156,12 +154,9 @@ public class BulkMarkerActivity extends AppCompatActivity implements AdapterView
             try {
                 DecimalFormat formatter = new DecimalFormat("#.#####");
 
-                String json = GeoParseUtil.loadStringFromAssets(mAppContext, "points.geojson");
-                timings.addSplit("loadStringFromAssets");
-
-                List<LatLng> locations = GeoParseUtil.parseGeoJSONCoordinates(json);
+                List<LatLng> locations = GeoParseUtil.loadGeoJSONCoordinates(mAppContext, "points.geojson");
 
-                timings.addSplit("parseGeoJSONCoordinates");
+                timings.addSplit("loadGeoJSONCoordinates");
 
                 if (locations.size() < mAmount) {
                     mAmount = locations.size();
@@ -178,7 +173,7 @@ public class BulkMarkerActivity extends AppCompatActivity implements AdapterView
                 }
                 timings.addSplit("create all MarkerOptions");
 
-            } catch (IOException | JSONException e) {
+            } catch (IOException e) {
                 Log.e(TAG, "Could not add markers,", e);
             }
 
@@ -5,6 +5,7 @@ import android.graphics.PorterDuff;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.content.ContextCompat;
 import android.support.v7.app.ActionBar;
 import android.support.v7.app.AppCompatActivity;
@@ -48,13 +49,24 @@ public class InfoWindowAdapterActivity extends AppCompatActivity {
         mIconFactory = IconFactory.getInstance(this);
         mIconDrawable = ContextCompat.getDrawable(this, R.drawable.ic_location_city_24dp);
 
-        mMapView.setInfoWindowAdapter(new MapView.InfoWindowAdapter() {
+        mMapView.setInfoWindowAdapter(new MapView.RecyclingInfoWindowAdapter() {
 
             private int tenDp = (int) getResources().getDimension(R.dimen.attr_margin);
 
+            @Override
+            public int getInfoWindowViewType(@NonNull Marker marker) {
+                return 0;
+            }
+
             @Override
             public View getInfoWindow(@NonNull Marker marker) {
-                TextView textView = new TextView(InfoWindowAdapterActivity.this);
+                return getInfoWindow(marker, null);
+            }
+
+            @Override
+            public View getInfoWindow(@NonNull Marker marker, @Nullable View convertView) {
+                TextView textView = convertView != null
+                        ? (TextView) convertView : new TextView(InfoWindowAdapterActivity.this);
                 textView.setText(marker.getTitle());
                 textView.setTextColor(Color.WHITE);
                 textView.setBackgroundColor(Color.parseColor(marker.getSnippet()));
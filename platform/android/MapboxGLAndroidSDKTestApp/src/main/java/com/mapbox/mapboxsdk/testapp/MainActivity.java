@@ -545,8 +545,7 @@ public class MainActivity extends AppCompatActivity {
 
     private void addPolyline() {
         try {
-            String geojsonStr = GeoParseUtil.loadStringFromAssets(this, "small_line.geojson");
-            List<LatLng> latLngs = GeoParseUtil.parseGeoJSONCoordinates(geojsonStr);
+            List<LatLng> latLngs = GeoParseUtil.loadGeoJSONCoordinates(this, "small_line.geojson");
             MapView map = mMapView;
             map.addPolyline(new PolylineOptions()
                     .add(latLngs.toArray(new LatLng[latLngs.size()]))
@@ -560,8 +559,7 @@ public class MainActivity extends AppCompatActivity {
 
     private void addPolygon() {
         try {
-            String geojsonStr = GeoParseUtil.loadStringFromAssets(this, "small_poly.geojson");
-            List<LatLng> latLngs = GeoParseUtil.parseGeoJSONCoordinates(geojsonStr);
+            List<LatLng> latLngs = GeoParseUtil.loadGeoJSONCoordinates(this, "small_poly.geojson");
             MapView map = mMapView;
             ArrayList<PolygonOptions> opts = new ArrayList<>();
             opts.add(new PolygonOptions()
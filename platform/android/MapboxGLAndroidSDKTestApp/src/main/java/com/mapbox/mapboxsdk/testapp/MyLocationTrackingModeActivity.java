@@ -2,11 +2,14 @@ package com.mapbox.mapboxsdk.testapp;
 
 import android.location.Location;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.support.annotation.Nullable;
 import android.support.design.widget.Snackbar;
 import android.support.v7.app.ActionBar;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
+import android.util.Log;
+import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.AdapterView;
@@ -17,15 +20,27 @@ import android.widget.Toast;
 import com.mapbox.mapboxsdk.constants.MyBearingTracking;
 import com.mapbox.mapboxsdk.constants.MyLocationTracking;
 import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.location.LocationReplay;
+import com.mapbox.mapboxsdk.location.LocationServices;
 import com.mapbox.mapboxsdk.utils.ApiAccess;
 import com.mapbox.mapboxsdk.views.MapView;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 public class MyLocationTrackingModeActivity extends AppCompatActivity implements MapView.OnMyLocationChangeListener, AdapterView.OnItemSelectedListener {
 
+    private static final String TAG = "MyLocationTracking";
+
     private MapView mMapView;
     private Spinner mLocationSpinner, mBearingSpinner;
     private Location mLocation;
 
+    // Replay statistics
+    private int mLocationChangeCount;
+    private int mFrameCount;
+    private long mReplayStartTime;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -57,6 +72,14 @@ public class MyLocationTrackingModeActivity extends AppCompatActivity implements
         mMapView.setAccessToken(ApiAccess.getToken(this));
         mMapView.onCreate(savedInstanceState);
         mMapView.setOnMyLocationChangeListener(this);
+        mMapView.addOnMapChangedListener(new MapView.OnMapChangedListener() {
+            @Override
+            public void onMapChanged(@MapView.MapChange int change) {
+                if (change == MapView.DID_FINISH_RENDERING_FRAME) {
+                    mFrameCount++;
+                }
+            }
+        });
 
         try {
             mMapView.setMyLocationEnabled(true);
@@ -92,6 +115,7 @@ public class MyLocationTrackingModeActivity extends AppCompatActivity implements
     @Override
     public void onMyLocationChange(@Nullable Location location) {
         if (location != null) {
+            mLocationChangeCount++;
             if (mLocation == null) {
                 // initial location to reposition map
                 mMapView.setLatLng(new LatLng(location.getLatitude(), location.getLongitude()));
@@ -196,12 +220,62 @@ public class MyLocationTrackingModeActivity extends AppCompatActivity implements
         mMapView.onLowMemory();
     }
 
+    private void toggleReplay() {
+        LocationServices locationServices = LocationServices.getLocationServices(this);
+        if (locationServices.getLocationReplay() != null) {
+            locationServices.setLocationReplay(null);
+            return;
+        }
+
+        LocationReplay replay;
+        InputStream inputStream = getResources().openRawResource(R.raw.replay_track);
+        try {
+            replay = LocationReplay.fromGpx(inputStream);
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading track: " + e);
+            return;
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing track: " + e);
+            }
+        }
+
+        replay.setSpeedUp(2.0f);
+        replay.setOnReplayFinishedListener(new LocationReplay.OnReplayFinishedListener() {
+            @Override
+            public void onReplayFinished() {
+                long duration = SystemClock.elapsedRealtime() - mReplayStartTime;
+                String stats = String.format("%d location changes, %d frames, %.1f ms per frame",
+                        mLocationChangeCount, mFrameCount, mFrameCount > 0 ? (float) duration / mFrameCount : 0.0f);
+                Log.i(TAG, "Replay finished: " + stats);
+                Snackbar.make(findViewById(android.R.id.content), stats, Snackbar.LENGTH_LONG).show();
+                LocationServices.getLocationServices(MyLocationTrackingModeActivity.this).setLocationReplay(null);
+            }
+        });
+
+        mLocationChangeCount = 0;
+        mFrameCount = 0;
+        mReplayStartTime = SystemClock.elapsedRealtime();
+        locationServices.setLocationReplay(replay);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_my_location_tracking, menu);
+        return true;
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         switch (item.getItemId()) {
             case android.R.id.home:
                 onBackPressed();
                 return true;
+            case R.id.action_replay_track:
+                toggleReplay();
+                return true;
             default:
                 return super.onOptionsItemSelected(item);
         }
@@ -165,4 +165,46 @@ public class BoundingBoxTest {
         assertTrue(mBoundingBox.isEmpty());
     }
 
+    @Test
+    public void testUnionInto() {
+        BoundingBox result = new BoundingBox(0.0, 0.0, 0.0, 0.0);
+        BoundingBox returned = mBoundingBox.unionInto(new BoundingBox(25.0, 5.0, -5.0, -10.0), result);
+        assertTrue(returned == result);
+        assertEquals(new BoundingBox(25.0, 10.0, -5.0, -10.0), result);
+        assertTrue(result.isValid());
+    }
+
+    @Test
+    public void testIntersectInto() {
+        BoundingBox result = new BoundingBox(0.0, 0.0, 0.0, 0.0);
+        assertTrue(mBoundingBox.intersectInto(new BoundingBox(25.0, 5.0, 10.0, -10.0), result));
+        assertEquals(new BoundingBox(20.0, 5.0, 10.0, 0.0), result);
+    }
+
+    @Test
+    public void testIntersectIntoNone() {
+        BoundingBox result = new BoundingBox(1.0, 1.0, 0.0, 0.0);
+        assertFalse(mBoundingBox.intersectInto(new BoundingBox(40.0, 40.0, 30.0, 30.0), result));
+        assertEquals(new BoundingBox(1.0, 1.0, 0.0, 0.0), result);
+    }
+
+    @Test
+    public void testExpandToInclude() {
+        mBoundingBox.expandToInclude(30.0, -5.0);
+        assertEquals(new BoundingBox(30.0, 10.0, 0.0, -5.0), mBoundingBox);
+    }
+
+    @Test
+    public void testFromPackedCoordinates() {
+        double[] coordinates = {50.0, 50.0, 10.0, 1.0, -2.0, 8.0, 3.0, -4.0};
+        BoundingBox boundingBox = BoundingBox.fromPackedCoordinates(coordinates, 1, 3);
+        assertEquals(new BoundingBox(10.0, 8.0, -2.0, -4.0), boundingBox);
+        assertFalse(BoundingBox.fromPackedCoordinates(coordinates, 0, 0).isValid());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromPackedCoordinatesOutOfRange() {
+        BoundingBox.fromPackedCoordinates(new double[4], 1, 2);
+    }
+
 }
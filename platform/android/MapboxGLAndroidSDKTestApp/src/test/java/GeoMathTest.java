@@ -0,0 +1,151 @@
+import com.mapbox.mapboxsdk.geometry.GeoMath;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+public class GeoMathTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void testDistanceMatchesLatLng() {
+        LatLng latLng1 = new LatLng(0.0, 0.0);
+        LatLng latLng2 = new LatLng(1.0, 1.0);
+        assertEquals("distances should match",
+                latLng1.distanceTo(latLng2), GeoMath.distance(0.0, 0.0, 1.0, 1.0), DELTA);
+    }
+
+    @Test
+    public void testDistancesOneToMany() {
+        double[] coordinates = {1.0, 1.0, 52.5, 13.4, 0.0, 0.0};
+        double[] distances = new double[3];
+        GeoMath.distances(0.0, 0.0, coordinates, distances, false);
+        assertEquals("distance should match", GeoMath.distance(0.0, 0.0, 1.0, 1.0), distances[0], DELTA);
+        assertEquals("distance should match", GeoMath.distance(0.0, 0.0, 52.5, 13.4), distances[1], DELTA);
+        assertEquals("distance to itself should be 0", 0.0, distances[2], DELTA);
+    }
+
+    @Test
+    public void testApproximateDistances() {
+        double[] coordinates = {52.51, 13.41, 52.49, 13.35};
+        double[] exact = new double[2];
+        double[] approximate = new double[2];
+        GeoMath.distances(52.5, 13.4, coordinates, exact, false);
+        GeoMath.distances(52.5, 13.4, coordinates, approximate, true);
+        for (int i = 0; i < 2; i++) {
+            assertEquals("approximation should be close", exact[i], approximate[i], exact[i] * 0.001);
+        }
+    }
+
+    @Test
+    public void testApproximateDistanceSymmetric() {
+        double[] there = new double[1];
+        double[] back = new double[1];
+        GeoMath.distances(60.0, 10.0, new double[]{60.3, 10.3}, there, true);
+        GeoMath.distances(60.3, 10.3, new double[]{60.0, 10.0}, back, true);
+        assertEquals("approximation should not depend on the direction", there[0], back[0], there[0] * 1e-6);
+        assertEquals("approximation should be close", GeoMath.distance(60.0, 10.0, 60.3, 10.3), there[0],
+                there[0] * 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDistanceMatrixTooLarge() {
+        // 50000 * 50000 cells don't fit in an int
+        double[] points = new double[100000];
+        GeoMath.distanceMatrix(points, points, new double[16], true);
+    }
+
+    @Test
+    public void testDistanceMatrix() {
+        double[] from = {0.0, 0.0, 10.0, 10.0};
+        double[] to = {1.0, 1.0, 0.0, 0.0, -5.0, 20.0};
+        double[] distances = new double[6];
+        GeoMath.distanceMatrix(from, to, distances, false);
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals("cell should match", GeoMath.distance(from[2 * i], from[2 * i + 1], to[2 * j], to[2 * j + 1]),
+                        distances[i * 3 + j], DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelDistanceMatrix() {
+        int count = 100;
+        double[] points = new double[2 * count];
+        for (int i = 0; i < count; i++) {
+            points[2 * i] = i * 0.5 - 25;
+            points[2 * i + 1] = i * 1.5 - 75;
+        }
+        double[] sequential = new double[count * count];
+        double[] parallel = new double[count * count];
+        GeoMath.distanceMatrix(points, points, sequential, false);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            GeoMath.distanceMatrix(points, points, parallel, false, executor);
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < sequential.length; i++) {
+            assertEquals("cell should match", sequential[i], parallel[i], 0.0);
+        }
+    }
+
+    @Test
+    public void testNearest() {
+        double[] coordinates = {10.0, 10.0, 0.1, -0.1, -3.0, 2.0};
+        assertEquals("nearest should match", 1, GeoMath.nearest(0.0, 0.0, coordinates, false));
+        assertEquals("nearest should match", 1, GeoMath.nearest(0.0, 0.0, coordinates, true));
+        assertEquals("no candidates", -1, GeoMath.nearest(0.0, 0.0, new double[0], false));
+    }
+
+    @Test
+    public void testBearings() {
+        double[] coordinates = {1.0, 0.0, 0.0, 1.0, -1.0, 0.0, 0.0, -1.0};
+        double[] bearings = new double[4];
+        GeoMath.bearings(0.0, 0.0, coordinates, bearings);
+        assertEquals("north", 0.0, bearings[0], DELTA);
+        assertEquals("east", 90.0, bearings[1], DELTA);
+        assertEquals("south", 180.0, bearings[2], DELTA);
+        assertEquals("west", 270.0, bearings[3], DELTA);
+    }
+
+    @Test
+    public void testDestinationsRoundTrip() {
+        double[] coordinates = {52.5, 13.4, -33.9, 151.2};
+        double[] bearings = {45.0, 200.0};
+        double[] distances = {10000.0, 250000.0};
+        double[] destinations = new double[4];
+        GeoMath.destinations(coordinates, bearings, distances, destinations);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("distance should match", distances[i], GeoMath.distance(coordinates[2 * i], coordinates[2 * i + 1],
+                    destinations[2 * i], destinations[2 * i + 1]), 1e-3);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOddCoordinates() {
+        GeoMath.distances(0.0, 0.0, new double[3], new double[2], false);
+    }
+
+    @Test
+    public void testProjectedMetersRoundTrip() {
+        double[] coordinates = {0.0, 0.0, 52.5, 13.4, -33.9, 151.2};
+        double[] meters = new double[8];
+        GeoMath.toProjectedMeters(coordinates, 0, meters, 1, 3);
+        assertEquals("equator northing", 0.0, meters[2], DELTA);
+        assertEquals("easting", 6378137 * Math.toRadians(13.4), meters[5], DELTA);
+
+        double[] result = new double[6];
+        GeoMath.fromProjectedMeters(meters, 1, result, 0, 3);
+        for (int i = 0; i < coordinates.length; i++) {
+            assertEquals("coordinate should match", coordinates[i], result[i], 1e-9);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import com.mapbox.mapboxsdk.location.LocationReplay;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class LocationReplayTest {
+
+    private static final double DELTA = 1e-6;
+
+    private static final String GPX = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<gpx version=\"1.1\" xmlns=\"http://www.topografix.com/GPX/1/1\"><trk><trkseg>"
+            + "<trkpt lat=\"38.8977\" lon=\"-77.0365\"><ele>20.5</ele><time>2016-02-01T12:00:00Z</time></trkpt>"
+            + "<trkpt lat=\"38.8978\" lon=\"-77.0366\"><time>2016-02-01T12:00:01.500Z</time></trkpt>"
+            + "<trkpt lat=\"38.8979\" lon=\"-77.0367\"><time>2016-02-01T13:00:03+01:00</time></trkpt>"
+            + "</trkseg></trk></gpx>";
+
+    @Test
+    public void testGpx() throws IOException {
+        LocationReplay replay = LocationReplay.fromGpx(new ByteArrayInputStream(GPX.getBytes("UTF-8")));
+        assertEquals("points should match", 3, replay.getPointCount());
+        assertEquals("latitude should match", 38.8978, replay.getLatitude(1), DELTA);
+        assertEquals("longitude should match", -77.0367, replay.getLongitude(2), DELTA);
+        assertEquals("time should match", 1454328000000L, replay.getTime(0));
+        assertEquals("duration should match", 3000, replay.getDuration());
+        assertEquals("fraction should match", 1500, replay.getTime(1) - replay.getTime(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testGpxWithoutTime() throws IOException {
+        String gpx = "<gpx><trk><trkseg><trkpt lat=\"1\" lon=\"2\"/></trkseg></trk></gpx>";
+        LocationReplay.fromGpx(new ByteArrayInputStream(gpx.getBytes("UTF-8")));
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        LocationReplay replay = LocationReplay.fromGpx(new ByteArrayInputStream(GPX.getBytes("UTF-8")));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        replay.write(outputStream);
+
+        LocationReplay copy = LocationReplay.fromBinary(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals("points should match", replay.getPointCount(), copy.getPointCount());
+        for (int i = 0; i < replay.getPointCount(); i++) {
+            assertEquals("latitude should match", replay.getLatitude(i), copy.getLatitude(i), DELTA);
+            assertEquals("longitude should match", replay.getLongitude(i), copy.getLongitude(i), DELTA);
+            assertEquals("time should match", replay.getTime(i), copy.getTime(i));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidBinary() throws IOException {
+        LocationReplay.fromBinary(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+}
@@ -10,7 +10,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class PolygonTest {
 
@@ -74,4 +76,23 @@ public class PolygonTest {
         assertEquals(new LatLng(0, 0), polyline.getPoints().get(0));
     }
 
+    @Test
+    public void testContains() {
+        // a concave U shape, open towards north
+        Polygon polygon = new PolygonOptions()
+                .add(new LatLng(0, 0))
+                .add(new LatLng(0, 3))
+                .add(new LatLng(3, 3))
+                .add(new LatLng(3, 2))
+                .add(new LatLng(1, 2))
+                .add(new LatLng(1, 1))
+                .add(new LatLng(3, 1))
+                .add(new LatLng(3, 0))
+                .getPolygon();
+        assertTrue(polygon.contains(new LatLng(0.5, 1.5)));
+        assertTrue(polygon.contains(new LatLng(2, 0.5)));
+        assertFalse(polygon.contains(new LatLng(2, 1.5)));
+        assertFalse(polygon.contains(new LatLng(-1, 1.5)));
+    }
+
 }
@@ -0,0 +1,120 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AnnotationSnapshotTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<Annotation> annotations = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            annotations.add(new MarkerOptions()
+                    .position(new LatLng(i * 0.01, -i * 0.01))
+                    .title(i % 2 == 0 ? "even" : "odd")
+                    .snippet(i % 3 == 0 ? "snippet " + i : null)
+                    .getMarker());
+        }
+        annotations.add(new PolylineOptions()
+                .add(new LatLng(0, 0), new LatLng(1, 1))
+                .color(0xff00ff00)
+                .width(4.5f)
+                .alpha(0.5f)
+                .getPolyline());
+        annotations.add(new PolygonOptions()
+                .add(new LatLng(0, 0), new LatLng(1, 1), new LatLng(1, 0))
+                .fillColor(0x800000ff)
+                .strokeColor(0xffff0000)
+                .alpha(0.25f)
+                .getPolygon());
+
+        AnnotationSnapshot snapshot = writeAndRead(AnnotationSnapshot.capture(annotations));
+        assertEquals(1000, snapshot.getMarkerCount());
+        assertEquals(1, snapshot.getPolylineCount());
+        assertEquals(1, snapshot.getPolygonCount());
+
+        List<MarkerOptions> markers = snapshot.getMarkerOptions();
+        for (int i = 0; i < 1000; i++) {
+            MarkerOptions marker = markers.get(i);
+            assertEquals("latitude " + i, i * 0.01, marker.getPosition().getLatitude(), DELTA);
+            assertEquals("longitude " + i, -i * 0.01, marker.getPosition().getLongitude(), DELTA);
+            assertEquals("title " + i, i % 2 == 0 ? "even" : "odd", marker.getTitle());
+            assertEquals("snippet " + i, i % 3 == 0 ? "snippet " + i : null, marker.getSnippet());
+            assertNull("icon " + i, marker.getIcon());
+        }
+
+        PolylineOptions polyline = snapshot.getPolylineOptions().get(0);
+        assertEquals("polyline points", 2, polyline.getPoints().size());
+        assertEquals("polyline point", 1, polyline.getPoints().get(1).getLatitude(), DELTA);
+        assertEquals("polyline color", 0xff00ff00, polyline.getColor());
+        assertEquals("polyline width", 4.5f, polyline.getWidth(), DELTA);
+        assertEquals("polyline alpha", 0.5f, polyline.getAlpha(), DELTA);
+
+        PolygonOptions polygon = snapshot.getPolygonOptions().get(0);
+        assertEquals("polygon points", 3, polygon.getPoints().size());
+        assertEquals("polygon point", 0, polygon.getPoints().get(2).getLongitude(), DELTA);
+        assertEquals("polygon fill color", 0x800000ff, polygon.getFillColor());
+        assertEquals("polygon stroke color", 0xffff0000, polygon.getStrokeColor());
+        assertEquals("polygon alpha", 0.25f, polygon.getAlpha(), DELTA);
+    }
+
+    @Test
+    public void testOwnedAnnotationsSkipped() throws IOException {
+        List<Annotation> annotations = new ArrayList<>();
+        annotations.add(new MarkerOptions().position(new LatLng(1, 2)).getMarker());
+        Marker owned = new MarkerOptions().position(new LatLng(3, 4)).getMarker();
+        owned.setOwner(this);
+        annotations.add(owned);
+        Polyline trailPolyline = new PolylineOptions().add(new LatLng(0, 0), new LatLng(1, 1)).getPolyline();
+        trailPolyline.setOwner(this);
+        annotations.add(trailPolyline);
+
+        AnnotationSnapshot snapshot = writeAndRead(AnnotationSnapshot.capture(annotations));
+        assertEquals(1, snapshot.getMarkerCount());
+        assertEquals(1, snapshot.getMarkerOptions().get(0).getPosition().getLatitude(), DELTA);
+        assertEquals(0, snapshot.getPolylineCount());
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        AnnotationSnapshot snapshot = writeAndRead(AnnotationSnapshot.capture(new ArrayList<Annotation>()));
+        assertEquals(0, snapshot.getMarkerCount());
+        assertEquals(0, snapshot.getPolylineCount());
+        assertEquals(0, snapshot.getPolygonCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFile() throws IOException {
+        File file = File.createTempFile("snapshot", ".bin");
+        try {
+            FileOutputStream stream = new FileOutputStream(file);
+            stream.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+            stream.close();
+            AnnotationSnapshot.read(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static AnnotationSnapshot writeAndRead(AnnotationSnapshot snapshot) throws IOException {
+        File file = File.createTempFile("snapshot", ".bin");
+        try {
+            snapshot.write(file);
+            return AnnotationSnapshot.read(file);
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import org.junit.Test;
+
+import static com.mapbox.mapboxsdk.annotations.MarkerViewCulling.STATE_ON_MAP;
+import static com.mapbox.mapboxsdk.annotations.MarkerViewCulling.STATE_VIEW;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MarkerViewCullingTest {
+
+    private static final float ON_SCREEN = 50;
+    private static final float OFF_SCREEN = -500;
+
+    private static int cull(float[] points, int[] states, int viewBudget) {
+        return MarkerViewCulling.cull(points, states, states.length, 0, 0, 100, 100, viewBudget);
+    }
+
+    @Test
+    public void testOnScreenMarkersGetViews() {
+        float[] points = {ON_SCREEN, ON_SCREEN, 0, 100, OFF_SCREEN, ON_SCREEN};
+        int[] states = {0, 0, 0};
+        assertEquals("view count", 2, cull(points, states, 10));
+        assertArrayEquals("states", new int[]{STATE_VIEW, STATE_VIEW, 0}, states);
+    }
+
+    @Test
+    public void testOffScreenMarkersReleaseViews() {
+        float[] points = {OFF_SCREEN, ON_SCREEN, ON_SCREEN, OFF_SCREEN};
+        int[] states = {STATE_VIEW, STATE_VIEW};
+        assertEquals("view count", 0, cull(points, states, 10));
+        assertArrayEquals("states", new int[]{0, 0}, states);
+    }
+
+    @Test
+    public void testBudgetFallsBackToMap() {
+        float[] points = {ON_SCREEN, ON_SCREEN, ON_SCREEN, ON_SCREEN, ON_SCREEN, ON_SCREEN};
+        int[] states = {0, 0, 0};
+        assertEquals("view count", 2, cull(points, states, 2));
+        assertArrayEquals("states", new int[]{STATE_VIEW, STATE_VIEW, STATE_ON_MAP}, states);
+    }
+
+    @Test
+    public void testReleasedViewIsTakenInSameFrame() {
+        float[] points = {OFF_SCREEN, OFF_SCREEN, ON_SCREEN, ON_SCREEN};
+        int[] states = {STATE_VIEW, 0};
+        assertEquals("view count", 1, cull(points, states, 1));
+        assertArrayEquals("states", new int[]{0, STATE_VIEW}, states);
+    }
+
+    @Test
+    public void testMapMarkerPromotedWhenViewFreesUp() {
+        float[] points = {ON_SCREEN, ON_SCREEN, ON_SCREEN, ON_SCREEN};
+        int[] states = {STATE_VIEW, STATE_ON_MAP};
+        assertEquals("budget used up", 1, cull(points, states, 1));
+        assertArrayEquals("marker stays on map", new int[]{STATE_VIEW, STATE_ON_MAP}, states);
+
+        points[0] = OFF_SCREEN;
+        assertEquals("view count", 1, cull(points, states, 1));
+        assertArrayEquals("marker leaves map for the view", new int[]{0, STATE_VIEW}, states);
+    }
+
+    @Test
+    public void testMapMarkerOffScreenStaysOnMap() {
+        float[] points = {ON_SCREEN, ON_SCREEN, OFF_SCREEN, OFF_SCREEN};
+        int[] states = {0, STATE_ON_MAP};
+        assertEquals("view count", 1, cull(points, states, 1));
+        assertArrayEquals("states", new int[]{STATE_VIEW, STATE_ON_MAP}, states);
+    }
+
+    @Test
+    public void testViewsKeptOverLoweredBudget() {
+        float[] points = {ON_SCREEN, ON_SCREEN, ON_SCREEN, ON_SCREEN, ON_SCREEN, ON_SCREEN};
+        int[] states = {STATE_VIEW, STATE_VIEW, 0};
+        assertEquals("view count", 2, cull(points, states, 1));
+        assertArrayEquals("states", new int[]{STATE_VIEW, STATE_VIEW, STATE_ON_MAP}, states);
+    }
+}
@@ -0,0 +1,45 @@
+package com.mapbox.mapboxsdk.offline;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OfflineStorageTest {
+
+    @Test
+    public void testKeyWithoutToken() {
+        assertEquals("url without token", "http://a.tiles/1/2/3.png",
+                OfflineStorage.key("http://a.tiles/1/2/3.png"));
+    }
+
+    @Test
+    public void testKeyOnlyToken() {
+        assertEquals("token is the only parameter", "http://a.tiles/1/2/3.png",
+                OfflineStorage.key("http://a.tiles/1/2/3.png?access_token=pk.one"));
+    }
+
+    @Test
+    public void testKeyFirstToken() {
+        assertEquals("token before other parameters", "http://a.tiles/1/2/3.png?secure",
+                OfflineStorage.key("http://a.tiles/1/2/3.png?access_token=pk.one&secure"));
+    }
+
+    @Test
+    public void testKeyLastToken() {
+        assertEquals("token after other parameters", "http://a.tiles/1/2/3.png?secure",
+                OfflineStorage.key("http://a.tiles/1/2/3.png?secure&access_token=pk.one"));
+    }
+
+    @Test
+    public void testKeyIgnoresToken() {
+        assertEquals("keys match across tokens",
+                OfflineStorage.key("http://a/style?access_token=pk.one&v=1"),
+                OfflineStorage.key("http://a/style?access_token=pk.two&v=1"));
+    }
+
+    @Test
+    public void testKeyNotAParameter() {
+        assertEquals("token text in the path is kept", "http://a/my_access_token=x",
+                OfflineStorage.key("http://a/my_access_token=x"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.mapbox.mapboxsdk.offline;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OfflineUrlsTest {
+
+    private static final String TOKEN = "pk.test";
+
+    @Test
+    public void testNormalizeStyleUrl() {
+        assertEquals("style url", "https://api.mapbox.com/styles/v1/mapbox/streets-v8?access_token=pk.test",
+                OfflineUrls.normalizeStyleUrl("mapbox://styles/mapbox/streets-v8", TOKEN));
+        assertEquals("draft style url", "https://api.mapbox.com/styles/v1/user/style/draft?access_token=pk.test",
+                OfflineUrls.normalizeStyleUrl("mapbox://styles/user/style/draft", TOKEN));
+        assertEquals("http urls are kept", "http://example.com/style.json",
+                OfflineUrls.normalizeStyleUrl("http://example.com/style.json", TOKEN));
+    }
+
+    @Test
+    public void testNormalizeSourceUrl() {
+        assertEquals("source url",
+                "https://api.mapbox.com/v4/mapbox.mapbox-streets-v6.json?access_token=pk.test&secure",
+                OfflineUrls.normalizeSourceUrl("mapbox://mapbox.mapbox-streets-v6", TOKEN));
+    }
+
+    @Test
+    public void testNormalizeSpriteUrl() {
+        assertEquals("sprite url",
+                "https://api.mapbox.com/styles/v1/mapbox/streets-v8/sprite@2x.png?access_token=pk.test",
+                OfflineUrls.normalizeSpriteUrl("mapbox://sprites/mapbox/streets-v8@2x.png", TOKEN));
+        assertEquals("sprite json url",
+                "https://api.mapbox.com/styles/v1/mapbox/streets-v8/sprite.json?access_token=pk.test",
+                OfflineUrls.normalizeSpriteUrl("mapbox://sprites/mapbox/streets-v8.json", TOKEN));
+    }
+
+    @Test
+    public void testNormalizeGlyphsUrl() {
+        assertEquals("glyphs url",
+                "https://api.mapbox.com/fonts/v1/mapbox/{fontstack}/{range}.pbf?access_token=pk.test",
+                OfflineUrls.normalizeGlyphsUrl("mapbox://fonts/mapbox/{fontstack}/{range}.pbf", TOKEN));
+    }
+
+    @Test
+    public void testNormalizeRasterTileUrl() {
+        assertEquals("ratio before extension", "http://a.tiles/{z}/{x}/{y}{ratio}.png?access_token=pk",
+                OfflineUrls.normalizeRasterTileUrl("http://a.tiles/{z}/{x}/{y}.png?access_token=pk"));
+        assertEquals("no extension", "http://a.tiles/{z}/{x}/{y}",
+                OfflineUrls.normalizeRasterTileUrl("http://a.tiles/{z}/{x}/{y}"));
+    }
+
+    @Test
+    public void testTemplateTileUrl() {
+        assertEquals("tile url", "http://a.tiles/3/5/7.png",
+                OfflineUrls.templateTileUrl("http://a.tiles/{z}/{x}/{y}.png", 3, 5, 7, 1.0f));
+        assertEquals("retina tile url", "http://a.tiles/3/5/7@2x.png",
+                OfflineUrls.templateTileUrl("http://a.tiles/{z}/{x}/{y}{ratio}.png", 3, 5, 7, 2.0f));
+        assertEquals("prefix", "http://a.tiles/a1/26/17",
+                OfflineUrls.templateTileUrl("http://a.tiles/{prefix}/{x}/{y}", 0, 26, 17, 1.0f));
+    }
+
+    @Test
+    public void testTemplateGlyphsUrl() {
+        assertEquals("glyphs url", "http://a.fonts/Open%20Sans%20Regular/0-255.pbf",
+                OfflineUrls.templateGlyphsUrl("http://a.fonts/{fontstack}/{range}.pbf", "Open Sans Regular", 0, 255));
+    }
+
+    @Test
+    public void testPercentEncode() {
+        assertEquals("unreserved characters are kept", "aZ09-_.~", OfflineUrls.percentEncode("aZ09-_.~"));
+        assertEquals("utf-8 bytes are encoded", "%c3%a9%2f", OfflineUrls.percentEncode("é/"));
+    }
+}
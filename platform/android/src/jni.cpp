@@ -592,6 +592,15 @@ jstring JNICALL nativeGetStyleJSON(JNIEnv *env, jobject obj, jlong nativeMapView
     return std_string_to_jstring(env, nativeMapView->getMap().getStyleJSON());
 }
 
+void JNICALL nativeSetGeoJsonSourceData(JNIEnv *env, jobject obj, jlong nativeMapViewPtr,
+                                        jstring sourceId, jstring geoJson) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeSetGeoJsonSourceData");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+    nativeMapView->getMap().setGeoJSONSourceData(std_string_from_jstring(env, sourceId),
+                                                 std_string_from_jstring(env, geoJson));
+}
+
 void JNICALL nativeSetAccessToken(JNIEnv *env, jobject obj, jlong nativeMapViewPtr, jstring accessToken) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeSetAccessToken");
     assert(nativeMapViewPtr != 0);
@@ -867,6 +876,42 @@ jlong JNICALL nativeAddMarker(JNIEnv *env, jobject obj, jlong nativeMapViewPtr,
     return nativeMapView->getMap().addPointAnnotation(mbgl::PointAnnotation(mbgl::LatLng(latitude, longitude), id));
 }
 
+void JNICALL nativeUpdateMarker(JNIEnv *env, jobject obj, jlong nativeMapViewPtr, jlong annotationId, jobject marker) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeUpdateMarker");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    jobject position = env->GetObjectField(marker, markerPositionId);
+    if (env->ExceptionCheck()) {
+        env->ExceptionDescribe();
+        return;
+    }
+
+    jobject icon = env->GetObjectField(marker, markerIconId);
+    if (env->ExceptionCheck()) {
+        env->ExceptionDescribe();
+        return;
+    }
+
+    jstring jid = reinterpret_cast<jstring>(env->GetObjectField(icon, iconIdId));
+    std::string id = std_string_from_jstring(env, jid);
+
+    jdouble latitude = env->GetDoubleField(position, latLngLatitudeId);
+    if (env->ExceptionCheck()) {
+        env->ExceptionDescribe();
+        return;
+    }
+
+    jdouble longitude = env->GetDoubleField(position, latLngLongitudeId);
+    if (env->ExceptionCheck()) {
+        env->ExceptionDescribe();
+        return;
+    }
+
+    nativeMapView->getMap().updatePointAnnotation(static_cast<uint32_t>(annotationId),
+        mbgl::PointAnnotation(mbgl::LatLng(latitude, longitude), id));
+}
+
 jlongArray JNICALL nativeAddMarkers(JNIEnv *env, jobject obj, jlong nativeMapViewPtr, jobject jlist) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeAddMarkers");
     assert(nativeMapViewPtr != 0);
@@ -1239,6 +1284,15 @@ void JNICALL nativeAddAnnotationIcon(JNIEnv *env, jobject obj, jlong nativeMapVi
     nativeMapView->getMap().addAnnotationIcon(symbolName, iconImage);
 }
 
+void JNICALL nativeRemoveAnnotationIcon(JNIEnv *env, jobject obj, jlong nativeMapViewPtr, jstring symbol) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeRemoveAnnotationIcon");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    const std::string symbolName = std_string_from_jstring(env, symbol);
+    nativeMapView->getMap().removeAnnotationIcon(symbolName);
+}
+
 void JNICALL nativeSetVisibleCoordinateBounds(JNIEnv *env, jobject obj, jlong nativeMapViewPtr,
         jobjectArray coordinates, jobject padding, jdouble direction, jlong duration) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeSetVisibleCoordinateBounds");
@@ -1444,6 +1498,34 @@ jobject JNICALL nativePixelForLatLng(JNIEnv *env, jobject obj, jlong nativeMapVi
     return ret;
 }
 
+void JNICALL nativePixelsForLatLngs(JNIEnv *env, jobject obj, jlong nativeMapViewPtr, jdoubleArray jcoordinates, jfloatArray jpixels, jint count) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativePixelsForLatLngs");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    if (env->ExceptionCheck() || (jcoordinates == nullptr) || (jpixels == nullptr)) {
+        env->ExceptionDescribe();
+        return;
+    }
+
+    if (count < 0 || env->GetArrayLength(jcoordinates) < 2 * count || env->GetArrayLength(jpixels) < 2 * count) {
+        return;
+    }
+
+    jdouble* coordinates = env->GetDoubleArrayElements(jcoordinates, nullptr);
+    jfloat* pixels = env->GetFloatArrayElements(jpixels, nullptr);
+
+    mbgl::Map& map = nativeMapView->getMap();
+    for (jint i = 0; i < count; i++) {
+        mbgl::vec2<double> pixel = map.pixelForLatLng(mbgl::LatLng(coordinates[2 * i], coordinates[2 * i + 1]));
+        pixels[2 * i] = static_cast<jfloat>(pixel.x);
+        pixels[2 * i + 1] = static_cast<jfloat>(pixel.y);
+    }
+
+    env->ReleaseDoubleArrayElements(jcoordinates, coordinates, JNI_ABORT);
+    env->ReleaseFloatArrayElements(jpixels, pixels, 0);
+}
+
 jobject JNICALL nativeLatLngForPixel(JNIEnv *env, jobject obj, jlong nativeMapViewPtr, jobject pixel) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeLatLngForPixel");
     assert(nativeMapViewPtr != 0);
@@ -1511,6 +1593,17 @@ void JNICALL nativeJumpTo(JNIEnv *env, jobject obj, jlong nativeMapViewPtr, jdou
     nativeMapView->getMap().jumpTo(options);
 }
 
+void JNICALL nativeJumpToLatLngBearing(JNIEnv *env, jobject obj, jlong nativeMapViewPtr, jdouble latitude, jdouble longitude, jdouble degrees) {
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    mbgl::CameraOptions options;
+    options.angle = -degrees * M_PI / 180;
+    options.center = mbgl::LatLng(latitude, longitude);
+
+    nativeMapView->getMap().jumpTo(options);
+}
+
 void JNICALL nativeEaseTo(JNIEnv *env, jobject obj, jlong nativeMapViewPtr, jdouble angle, jobject centerLatLng, jlong duration, jdouble pitch, jdouble zoom) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeEaseTo");
     assert(nativeMapViewPtr != 0);
@@ -2047,6 +2140,8 @@ extern "C" JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
          reinterpret_cast<void *>(&nativeSetStyleJSON)},
         {"nativeGetStyleJson", "(J)Ljava/lang/String;",
          reinterpret_cast<void *>(&nativeGetStyleJSON)},
+        {"nativeSetGeoJsonSourceData", "(JLjava/lang/String;Ljava/lang/String;)V",
+         reinterpret_cast<void *>(&nativeSetGeoJsonSourceData)},
         {"nativeSetAccessToken", "(JLjava/lang/String;)V",
          reinterpret_cast<void *>(&nativeSetAccessToken)},
         {"nativeGetAccessToken", "(J)Ljava/lang/String;",
@@ -2088,6 +2183,8 @@ extern "C" JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
          reinterpret_cast<void *>(&nativeAddMarker)},
          {"nativeAddMarkers", "(JLjava/util/List;)[J",
          reinterpret_cast<void *>(&nativeAddMarkers)},
+        {"nativeUpdateMarker", "(JJLcom/mapbox/mapboxsdk/annotations/Marker;)V",
+         reinterpret_cast<void *>(&nativeUpdateMarker)},
         {"nativeAddPolyline", "(JLcom/mapbox/mapboxsdk/annotations/Polyline;)J",
          reinterpret_cast<void *>(&nativeAddPolyline)},
          {"nativeAddPolylines", "(JLjava/util/List;)[J",
@@ -2101,6 +2198,7 @@ extern "C" JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
         {"nativeGetAnnotationsInBounds", "(JLcom/mapbox/mapboxsdk/geometry/BoundingBox;)[J",
          reinterpret_cast<void *>(&nativeGetAnnotationsInBounds)},
         {"nativeAddAnnotationIcon", "(JLjava/lang/String;IIF[B)V", reinterpret_cast<void *>(&nativeAddAnnotationIcon)},
+        {"nativeRemoveAnnotationIcon", "(JLjava/lang/String;)V", reinterpret_cast<void *>(&nativeRemoveAnnotationIcon)},
         {"nativeSetVisibleCoordinateBounds", "(J[Lcom/mapbox/mapboxsdk/geometry/LatLng;Landroid/graphics/RectF;DJ)V",
                 reinterpret_cast<void *>(&nativeSetVisibleCoordinateBounds)},
         {"nativeOnLowMemory", "(J)V", reinterpret_cast<void *>(&nativeOnLowMemory)},
@@ -2118,12 +2216,16 @@ extern "C" JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
          reinterpret_cast<void *>(&nativeLatLngForProjectedMeters)},
         {"nativePixelForLatLng", "(JLcom/mapbox/mapboxsdk/geometry/LatLng;)Landroid/graphics/PointF;",
          reinterpret_cast<void *>(&nativePixelForLatLng)},
+        {"nativePixelsForLatLngs", "(J[D[FI)V",
+         reinterpret_cast<void *>(&nativePixelsForLatLngs)},
         {"nativeLatLngForPixel", "(JLandroid/graphics/PointF;)Lcom/mapbox/mapboxsdk/geometry/LatLng;",
          reinterpret_cast<void *>(&nativeLatLngForPixel)},
         {"nativeGetTopOffsetPixelsForAnnotationSymbol", "(JLjava/lang/String;)D",
          reinterpret_cast<void *>(&nativeGetTopOffsetPixelsForAnnotationSymbol)},
         {"nativeJumpTo", "(JDLcom/mapbox/mapboxsdk/geometry/LatLng;DD)V",
          reinterpret_cast<void *>(&nativeJumpTo)},
+        {"nativeJumpToLatLngBearing", "(JDDD)V",
+         reinterpret_cast<void *>(&nativeJumpToLatLngBearing)},
         {"nativeEaseTo", "(JDLcom/mapbox/mapboxsdk/geometry/LatLng;JDD)V",
          reinterpret_cast<void *>(&nativeEaseTo)},
         {"nativeFlyTo", "(JDLcom/mapbox/mapboxsdk/geometry/LatLng;JDD)V",
@@ -33,6 +33,19 @@ AnnotationManager::addPointAnnotations(const std::vector<PointAnnotation>& point
     return annotationIDs;
 }
 
+void AnnotationManager::updatePointAnnotation(const AnnotationID& id, const PointAnnotation& point) {
+    auto it = pointAnnotations.find(id);
+    if (it == pointAnnotations.end()) {
+        return;
+    }
+
+    // Keep the ID, so the annotation doesn't need to be added again
+    auto annotation = std::make_shared<PointAnnotationImpl>(id, point);
+    pointTree.remove(it->second);
+    pointTree.insert(annotation);
+    it->second = annotation;
+}
+
 AnnotationIDs
 AnnotationManager::addShapeAnnotations(const std::vector<ShapeAnnotation>& shapes, const uint8_t maxZoom) {
     AnnotationIDs annotationIDs;
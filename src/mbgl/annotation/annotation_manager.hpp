@@ -27,6 +27,7 @@ public:
     ~AnnotationManager();
 
     AnnotationIDs addPointAnnotations(const std::vector<PointAnnotation>&, const uint8_t maxZoom);
+    void updatePointAnnotation(const AnnotationID&, const PointAnnotation&);
     AnnotationIDs addShapeAnnotations(const std::vector<ShapeAnnotation>&, const uint8_t maxZoom);
     void removeAnnotations(const AnnotationIDs&);
 
@@ -432,6 +432,11 @@ AnnotationIDs Map::addPointAnnotations(const std::vector<PointAnnotation>& annot
     return result;
 }
 
+void Map::updatePointAnnotation(AnnotationID annotationID, const PointAnnotation& annotation) {
+    data->getAnnotationManager()->updatePointAnnotation(annotationID, annotation);
+    update(Update::Annotations);
+}
+
 AnnotationID Map::addShapeAnnotation(const ShapeAnnotation& annotation) {
     return addShapeAnnotations({ annotation }).front();
 }
@@ -476,6 +481,10 @@ void Map::removeCustomLayer(const std::string& id) {
     context->invoke(&MapContext::removeLayer, id);
 }
 
+void Map::setGeoJSONSourceData(const std::string& sourceID, const std::string& json) {
+    context->invoke(&MapContext::setGeoJSONSourceData, sourceID, json);
+}
+
 #pragma mark - Toggles
 
 void Map::setDebug(MapDebugOptions mode) {
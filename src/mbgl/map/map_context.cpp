@@ -291,6 +291,19 @@ void MapContext::removeLayer(const std::string& id) {
     asyncUpdate.send();
 }
 
+void MapContext::setGeoJSONSourceData(const std::string& sourceID, const std::string& json) {
+    assert(util::ThreadContext::currentlyOn(util::ThreadType::Map));
+    if (!style) return;
+
+    Source* source = style->getSource(sourceID);
+    if (!source || source->type != SourceType::GeoJSON) {
+        Log::Warning(Event::Style, "GeoJSON source %s not found", sourceID.c_str());
+        return;
+    }
+
+    source->setGeoJSON(json);
+}
+
 void MapContext::setSourceTileCacheSize(size_t size) {
     assert(util::ThreadContext::currentlyOn(util::ThreadType::Map));
     if (size != sourceCacheSize) {
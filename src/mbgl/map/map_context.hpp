@@ -60,6 +60,7 @@ public:
     void addLayer(std::unique_ptr<StyleLayer>,
                   const mapbox::util::optional<std::string> before);
     void removeLayer(const std::string& id);
+    void setGeoJSONSourceData(const std::string& sourceID, const std::string& json);
 
     void setSourceTileCacheSize(size_t size);
     void onLowMemory();
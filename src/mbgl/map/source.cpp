@@ -166,6 +166,37 @@ void Source::load() {
     });
 }
 
+void Source::setGeoJSON(const std::string& json) {
+    assert(type == SourceType::GeoJSON);
+
+    rapidjson::GenericDocument<rapidjson::UTF8<>, rapidjson::CrtAllocator> d;
+    d.Parse<0>(json.c_str());
+
+    if (d.HasParseError()) {
+        std::stringstream message;
+        message << d.GetErrorOffset() << " - " << rapidjson::GetParseError_En(d.GetParseError());
+        observer->onSourceError(*this, std::make_exception_ptr(std::runtime_error(message.str())));
+        return;
+    }
+
+    // The data replaces whatever the URL of the source would still deliver.
+    req = nullptr;
+
+    // Tiles refer to the tiled data, so they go before it is replaced.
+    tilePtrs.clear();
+    tileDataMap.clear();
+    tiles.clear();
+    cache.clear();
+
+    if (!info) {
+        info = std::make_unique<SourceInfo>();
+    }
+    geojsonvt = StyleParser::parseGeoJSON(d);
+
+    loaded = true;
+    observer->onSourceLoaded(*this);
+}
+
 void Source::updateMatrices(const mat4 &projMatrix, const TransformState &transform) {
     for (const auto& pair : tiles) {
         Tile &tile = *pair.second;
@@ -49,6 +49,9 @@ public:
 
     bool loaded = false;
     void load();
+
+    // Replaces the data of a GeoJSON source and drops the tiles made from the previous data.
+    void setGeoJSON(const std::string& json);
     bool isLoading() const;
     bool isLoaded() const;
 